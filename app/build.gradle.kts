@@ -1,5 +1,6 @@
 plugins {
     alias(libs.plugins.android.application)
+    alias(libs.plugins.androidx.baselineprofile)
     id("com.google.gms.google-services")
 }
 
@@ -39,6 +40,11 @@ android {
         dataBinding = true
     }
 
+    testOptions {
+        // Local tests drive Firestore's mapper, which logs through android.util.Log
+        unitTests.isReturnDefaultValues = true
+    }
+
     packagingOptions {
         resources {
             excludes += listOf(
@@ -114,8 +120,31 @@ dependencies {
     implementation("androidx.credentials:credentials-play-services-auth:1.3.0-beta01")
     implementation("com.google.android.libraries.identity.googleid:googleid:1.1.0")
 
+    // Installs the bundled baseline profile on devices without Play Store profile delivery
+    implementation(libs.profileinstaller)
+    // Generated by :macrobenchmark, see BaselineProfileGenerator
+    baselineProfile(project(":macrobenchmark"))
+
     // Testing
     testImplementation("junit:junit:4.13.2")
+    // InstantTaskExecutorRule, so ViewModels can set LiveData in local tests
+    testImplementation("androidx.arch.core:core-testing:2.2.0")
     androidTestImplementation("androidx.test.ext:junit:1.1.5")
     androidTestImplementation("androidx.test.espresso:espresso-core:3.5.1")
-}
\ No newline at end of file
+}
+
+baselineProfile {
+    // Regenerate with ./gradlew :app:generateBaselineProfile and commit the result
+    automaticGenerationDuringBuild = false
+}
+
+// Release has no signing config, so sign the baselineprofile plugin's release-like
+// variants with the debug key to make them installable for profiling and benchmarks
+androidComponents {
+    onVariants(selector().withBuildType("nonMinifiedRelease")) {
+        it.signingConfig?.setConfig(android.signingConfigs.getByName("debug"))
+    }
+    onVariants(selector().withBuildType("benchmarkRelease")) {
+        it.signingConfig?.setConfig(android.signingConfigs.getByName("debug"))
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.attendify.benchmark;
+
+import android.os.Bundle;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.attendify.loadgen.LoadGenerator;
+
+/**
+ * Benchmark settings, overridable with instrumentation arguments, for example
+ * {@code -Pandroid.testInstrumentationRunnerArguments.benchmarkUsers=5000}
+ * or {@code adb shell am instrument -e benchmarkUsers 5000 ...}.
+ */
+final class BenchmarkConfig {
+    final String emulatorHost;
+    final int emulatorPort;
+    final int users;
+    final int days;
+    final int offices;
+    final long seed;
+    final int warmupIterations;
+    final int iterations;
+
+    private BenchmarkConfig(Bundle arguments) {
+        emulatorHost = arguments.getString("emulatorHost", LoadGenerator.DEFAULT_EMULATOR_HOST);
+        emulatorPort = intArgument(arguments, "emulatorPort", LoadGenerator.DEFAULT_EMULATOR_PORT);
+        users = intArgument(arguments, "benchmarkUsers", 500);
+        days = intArgument(arguments, "benchmarkDays", 30);
+        offices = intArgument(arguments, "benchmarkOffices", 5);
+        seed = intArgument(arguments, "benchmarkSeed", 1);
+        warmupIterations = intArgument(arguments, "benchmarkWarmup", 2);
+        iterations = intArgument(arguments, "benchmarkIterations", 10);
+    }
+
+    static BenchmarkConfig fromInstrumentation() {
+        return new BenchmarkConfig(InstrumentationRegistry.getArguments());
+    }
+
+    private static int intArgument(Bundle arguments, String key, int defaultValue) {
+        String value = arguments.getString(key);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.attendify.benchmark;
+
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.os.Build;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects per-iteration measurements and writes them as one JSON document per run,
+ * tagged with the app version and device, so runs can be compared release to release.
+ */
+final class BenchmarkResults {
+    private final Map<String, List<Sample>> scenarios = new LinkedHashMap<>();
+
+    static final class Sample {
+        final long latencyNanos;
+        final int documents;
+        final long allocatedBytes;
+        final long allocatedObjects;
+
+        Sample(long latencyNanos, int documents, long allocatedBytes, long allocatedObjects) {
+            this.latencyNanos = latencyNanos;
+            this.documents = documents;
+            this.allocatedBytes = allocatedBytes;
+            this.allocatedObjects = allocatedObjects;
+        }
+    }
+
+    synchronized void add(String scenario, Sample sample) {
+        List<Sample> samples = scenarios.get(scenario);
+        if (samples == null) {
+            samples = new ArrayList<>();
+            scenarios.put(scenario, samples);
+        }
+        samples.add(sample);
+    }
+
+    synchronized JSONObject toJson(Context context, BenchmarkConfig config) throws Exception {
+        PackageInfo packageInfo = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+        JSONObject root = new JSONObject()
+                .put("timestamp", System.currentTimeMillis())
+                .put("versionName", packageInfo.versionName)
+                .put("versionCode", packageInfo.versionCode)
+                .put("device", Build.MANUFACTURER + " " + Build.MODEL)
+                .put("sdkInt", Build.VERSION.SDK_INT)
+                .put("dataset", new JSONObject()
+                        .put("users", config.users)
+                        .put("days", config.days)
+                        .put("offices", config.offices)
+                        .put("seed", config.seed));
+
+        JSONArray benchmarks = new JSONArray();
+        for (Map.Entry<String, List<Sample>> entry : scenarios.entrySet()) {
+            benchmarks.put(summarize(entry.getKey(), entry.getValue()));
+        }
+        root.put("benchmarks", benchmarks);
+        return root;
+    }
+
+    File write(Context context, BenchmarkConfig config) throws Exception {
+        File directory = new File(context.getExternalFilesDir(null), "benchmark");
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        File file = new File(directory, "repository-benchmark-" + System.currentTimeMillis() + ".json");
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(toJson(context, config).toString(2));
+        }
+        return file;
+    }
+
+    private static JSONObject summarize(String name, List<Sample> samples) throws JSONException {
+        List<Long> latencies = new ArrayList<>(samples.size());
+        long documents = 0;
+        long bytes = 0;
+        long objects = 0;
+        for (Sample sample : samples) {
+            latencies.add(sample.latencyNanos);
+            documents += sample.documents;
+            bytes += sample.allocatedBytes;
+            objects += sample.allocatedObjects;
+        }
+        Collections.sort(latencies);
+        int count = samples.size();
+
+        return new JSONObject()
+                .put("name", name)
+                .put("iterations", count)
+                .put("latencyMs", new JSONObject()
+                        .put("min", millis(latencies.get(0)))
+                        .put("median", millis(percentile(latencies, 50)))
+                        .put("p90", millis(percentile(latencies, 90)))
+                        .put("max", millis(latencies.get(count - 1))))
+                .put("documentsPerIteration", (double) documents / count)
+                .put("allocatedBytesPerIteration", bytes / count)
+                .put("allocatedObjectsPerIteration", objects / count);
+    }
+
+    private static long percentile(List<Long> sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.attendify.benchmark;
+
+import com.google.firebase.FirebaseApp;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Calls the emulator's REST endpoints that the client SDK does not expose
+ */
+final class FirestoreEmulator {
+    // The suite measures query cost, not rules evaluation, so it runs with open rules
+    private static final String OPEN_RULES = "rules_version = '2';\n"
+            + "service cloud.firestore {\n"
+            + "  match /databases/{database}/documents {\n"
+            + "    match /{document=**} {\n"
+            + "      allow read, write: if true;\n"
+            + "    }\n"
+            + "  }\n"
+            + "}\n";
+
+    private final String baseUrl;
+    private final String projectId;
+
+    FirestoreEmulator(String host, int port) {
+        this.baseUrl = "http://" + host + ":" + port;
+        this.projectId = FirebaseApp.getInstance().getOptions().getProjectId();
+    }
+
+    /**
+     * Deletes every document so each run starts from the same seeded state
+     */
+    void clearData() throws IOException {
+        request("DELETE", "/emulator/v1/projects/" + projectId + "/databases/(default)/documents", null);
+    }
+
+    void loadOpenRules() throws Exception {
+        JSONObject file = new JSONObject()
+                .put("name", "benchmark.rules")
+                .put("content", OPEN_RULES);
+        JSONObject body = new JSONObject()
+                .put("rules", new JSONObject().put("files", new JSONArray().put(file)));
+        request("PUT", "/emulator/v1/projects/" + projectId + ":securityRules", body.toString());
+    }
+
+    private void request(String method, String path, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        try {
+            connection.setRequestMethod(method);
+            // The emulator treats the "owner" token as an admin that bypasses rules
+            connection.setRequestProperty("Authorization", "Bearer owner");
+            if (body != null) {
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", "application/json");
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(body.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            int code = connection.getResponseCode();
+            if (code / 100 != 2) {
+                throw new IOException(method + " " + path + " failed with HTTP " + code);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
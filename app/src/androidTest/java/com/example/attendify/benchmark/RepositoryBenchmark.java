@@ -0,0 +1,256 @@
+package com.example.attendify.benchmark;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Debug;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.attendify.loadgen.LoadGenerator;
+import com.example.attendify.loadgen.LoadProfile;
+import com.example.attendify.loadgen.SyntheticDataset;
+import com.example.attendify.model.Attendance;
+import com.example.attendify.model.Office;
+import com.example.attendify.model.User;
+import com.example.attendify.repository.AttendanceRepository;
+import com.example.attendify.repository.UserRepository;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreSettings;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Latency, document and allocation benchmarks of the repository queries against the
+ * local Firestore emulator. Start it with {@code firebase emulators:start --only firestore}
+ * before running the suite; the emulator is cleared and reseeded with a deterministic
+ * dataset (see {@link BenchmarkConfig} for the knobs) at the start of every run.
+ *
+ * Results are written as JSON to the app's external files under {@code benchmark/} and
+ * reported as an instrumentation status, so CI can pull and compare them per release.
+ * Document counts are the documents each call returned; the emulator does not meter reads.
+ * Allocations are ART's global counters and include Firestore's own threads.
+ */
+@RunWith(AndroidJUnit4.class)
+public class RepositoryBenchmark {
+    private static final String TAG = "RepositoryBenchmark";
+    private static final long TIMEOUT_SECONDS = 120;
+
+    private static BenchmarkConfig config;
+    private static BenchmarkResults results;
+    private static SyntheticDataset dataset;
+    private static String today;
+    private static String currentMonth;
+    private static int checkInCounter;
+
+    @BeforeClass
+    public static void seedEmulator() throws Exception {
+        config = BenchmarkConfig.fromInstrumentation();
+        results = new BenchmarkResults();
+
+        // Must run before any repository touches the default instance
+        FirebaseFirestore firestore = FirebaseFirestore.getInstance();
+        firestore.useEmulator(config.emulatorHost, config.emulatorPort);
+        firestore.setFirestoreSettings(new FirebaseFirestoreSettings.Builder()
+                .setPersistenceEnabled(false)
+                .build());
+
+        FirestoreEmulator emulator = new FirestoreEmulator(config.emulatorHost, config.emulatorPort);
+        emulator.loadOpenRules();
+        emulator.clearData();
+
+        Date now = new Date();
+        today = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(now);
+        currentMonth = new SimpleDateFormat("yyyy-MM", Locale.getDefault()).format(now);
+
+        LoadProfile profile = new LoadProfile(config.users, config.days, config.offices, config.seed)
+                .setRampUp(false)
+                // The emulator has no 500/50/5 limits
+                .setWritesPerSecond(Integer.MAX_VALUE);
+        dataset = SyntheticDataset.generate(profile);
+        LoadGenerator.Stats stats = new LoadGenerator(firestore)
+                .run(dataset, profile.getWritesPerSecond(), false, true, null);
+        seedTodaysCheckIns(firestore);
+        Log.d(TAG, "Seeded " + profile + ": " + stats);
+    }
+
+    /**
+     * Live attendance reads today's day collections, which the month-based generator does not write
+     */
+    private static void seedTodaysCheckIns(FirebaseFirestore firestore) throws Exception {
+        WriteBatch batch = firestore.batch();
+        int writes = 0;
+        for (User user : dataset.getUsers()) {
+            Attendance attendance = checkInFor(user, today, new Date());
+            batch.set(firestore.collection("attendance").document(user.getUid())
+                    .collection(today).document(user.getUid() + "_" + today), attendance.toMap());
+            if (++writes == 500) {
+                Tasks.await(batch.commit(), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                batch = firestore.batch();
+                writes = 0;
+            }
+        }
+        Tasks.await(batch.commit(), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @AfterClass
+    public static void writeResults() throws Exception {
+        if (results == null) {
+            return;
+        }
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        File file = results.write(context, config);
+        Bundle status = new Bundle();
+        status.putString("benchmarkResults", file.getAbsolutePath());
+        InstrumentationRegistry.getInstrumentation().sendStatus(2, status);
+        Log.i(TAG, "Benchmark results written to " + file);
+    }
+
+    @Test
+    public void getLiveAttendance_singleOffice() throws Exception {
+        String officeId = dataset.getOffices().get(0).getId();
+        List<Attendance> records = measure("getLiveAttendance[office]",
+                () -> AttendanceRepository.getInstance().getLiveAttendance(officeId), List::size);
+        assertFalse(records.isEmpty());
+    }
+
+    @Test
+    public void getLiveAttendance_allOffices() throws Exception {
+        List<Attendance> records = measure("getLiveAttendance[all]",
+                () -> AttendanceRepository.getInstance().getLiveAttendance(null), List::size);
+        assertEquals(dataset.getUsers().size(), records.size());
+    }
+
+    @Test
+    public void getAllAttendanceForMonth_singleOffice() throws Exception {
+        String officeId = dataset.getOffices().get(0).getId();
+        List<Attendance> records = measure("getAllAttendanceForMonth[office]",
+                () -> AttendanceRepository.getInstance().getAllAttendanceForMonth(currentMonth, officeId), List::size);
+        assertFalse(records.isEmpty());
+    }
+
+    @Test
+    public void getAllAttendanceForMonth_allOffices() throws Exception {
+        List<Attendance> records = measure("getAllAttendanceForMonth[all]",
+                () -> AttendanceRepository.getInstance().getAllAttendanceForMonth(currentMonth, null), List::size);
+        assertFalse(records.isEmpty());
+    }
+
+    @Test
+    public void getMonthlySummary() throws Exception {
+        String userId = dataset.getUsers().get(0).getUid();
+        // Served from the user-month rollup, one document
+        AttendanceRepository.AttendanceSummary summary = measure("getMonthlySummary",
+                () -> AttendanceRepository.getInstance().getMonthlySummary(userId), value -> 1);
+        assertNotNull(summary);
+    }
+
+    @Test
+    public void getAllEmployees() throws Exception {
+        List<User> employees = measure("getAllEmployees",
+                () -> UserRepository.getInstance().getAllEmployees(), List::size);
+        assertEquals(dataset.getUsers().size(), employees.size());
+    }
+
+    @Test
+    public void checkInForDay() throws Exception {
+        // A fresh user per call, a repeated check-in would be rejected
+        User template = dataset.getUsers().get(0);
+        runIterations("checkInForDay", () -> {
+            User user = new User("benchmark_checkin_" + (checkInCounter++), template.getName(),
+                    template.getEmail(), "employee", true, template.getOfficeId());
+            user.setDepartmentId(template.getDepartmentId());
+            Task<Void> task = AttendanceRepository.getInstance()
+                    .checkInForDay(checkInFor(user, today, new Date()));
+            Tasks.await(task, TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            // The transaction reads the day document, then writes it and three rollups
+            return 1;
+        });
+    }
+
+    private static Attendance checkInFor(User user, String date, Date checkInTime) {
+        Office office = null;
+        for (Office candidate : dataset.getOffices()) {
+            if (candidate.getId().equals(user.getOfficeId())) {
+                office = candidate;
+            }
+        }
+        Attendance attendance = new Attendance(user.getUid(), date, checkInTime, "OnTime", user.getOfficeId());
+        attendance.setUserName(user.getName());
+        attendance.setOfficeName(office != null ? office.getName() : null);
+        attendance.setDepartmentId(user.getDepartmentId());
+        attendance.setLocationStatus("InOffice");
+        return attendance;
+    }
+
+    private interface DocumentCounter<T> {
+        int count(T value);
+    }
+
+    /**
+     * Runs a Task-returning repository call until it completes, for every iteration
+     * @return The value of the last measured iteration
+     */
+    private <T> T measure(String name, Callable<Task<T>> call, DocumentCounter<T> counter) throws Exception {
+        AtomicReference<T> last = new AtomicReference<>();
+        runIterations(name, () -> {
+            T value = awaitResult(call);
+            last.set(value);
+            return counter.count(value);
+        });
+        return last.get();
+    }
+
+    @SuppressWarnings("deprecation")
+    private void runIterations(String name, Callable<Integer> iteration) throws Exception {
+        for (int i = 0; i < config.warmupIterations; i++) {
+            iteration.call();
+        }
+        for (int i = 0; i < config.iterations; i++) {
+            Debug.resetAllCounts();
+            Debug.startAllocCounting();
+            long start = System.nanoTime();
+            int documents = iteration.call();
+            long elapsed = System.nanoTime() - start;
+            Debug.stopAllocCounting();
+            results.add(name, new BenchmarkResults.Sample(elapsed, documents,
+                    Debug.getGlobalAllocSize(), Debug.getGlobalAllocCount()));
+        }
+    }
+
+    // Calls the repository on the main thread, as the app does, and waits for the result
+    private static <T> T awaitResult(Callable<Task<T>> call) throws Exception {
+        AtomicReference<Task<T>> task = new AtomicReference<>();
+        AtomicReference<Exception> error = new AtomicReference<>();
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            try {
+                task.set(call.call());
+            } catch (Exception e) {
+                error.set(e);
+            }
+        });
+
+        if (error.get() != null) {
+            throw error.get();
+        }
+        return Tasks.await(task.get(), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+}
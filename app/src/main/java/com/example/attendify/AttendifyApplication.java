@@ -0,0 +1,19 @@
+package com.example.attendify;
+
+import android.app.Application;
+
+import com.example.attendify.repository.AttendanceRepository;
+
+/**
+ * Sets up what has to exist before any screen or worker runs.
+ */
+public class AttendifyApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // Check-ins that cannot reach Firestore are queued in the outbox, so it has to be
+        // there before the first check-in, and its sync scheduled even if none happens
+        AttendanceRepository.getInstance().setupOfflineSync(this);
+    }
+}
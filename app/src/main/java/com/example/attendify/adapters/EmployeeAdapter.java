@@ -8,18 +8,20 @@ import android.widget.CheckBox;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.attendify.R;
 import com.example.attendify.model.User;
+import com.example.attendify.util.ListDiffing;
 import com.google.android.material.button.MaterialButton;
 
-import java.util.List;
+import java.util.Objects;
 
-public class EmployeeAdapter extends RecyclerView.Adapter<EmployeeAdapter.EmployeeViewHolder> {
+public class EmployeeAdapter extends ListAdapter<User, EmployeeAdapter.EmployeeViewHolder> {
 
     private Context context;
-    private List<User> employeeList;
     private OnItemClickListener listener;
 
     public interface OnItemClickListener {
@@ -28,9 +30,10 @@ public class EmployeeAdapter extends RecyclerView.Adapter<EmployeeAdapter.Employ
         void onMetricsClick(User user, int position);
     }
 
-    public EmployeeAdapter(Context context, List<User> employeeList) {
+    public EmployeeAdapter(Context context) {
+        super(ListDiffing.config(new EmployeeDiffCallback()));
         this.context = context;
-        this.employeeList = employeeList;
+        setHasStableIds(true);
     }
 
     public void setOnItemClickListener(OnItemClickListener listener) {
@@ -41,12 +44,35 @@ public class EmployeeAdapter extends RecyclerView.Adapter<EmployeeAdapter.Employ
     @Override
     public EmployeeViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(context).inflate(R.layout.item_employee, parent, false);
-        return new EmployeeViewHolder(view);
+        EmployeeViewHolder holder = new EmployeeViewHolder(view);
+        
+        // Listeners are set once per holder and look up the row when clicked, not on every bind
+        holder.btnEdit.setOnClickListener(v -> {
+            int position = holder.getAdapterPosition();
+            if (listener != null && position != RecyclerView.NO_POSITION) {
+                listener.onEditClick(getItem(position), position);
+            }
+        });
+        
+        holder.btnPermissions.setOnClickListener(v -> {
+            int position = holder.getAdapterPosition();
+            if (listener != null && position != RecyclerView.NO_POSITION) {
+                listener.onPermissionsClick(getItem(position), position);
+            }
+        });
+        
+        holder.btnMetrics.setOnClickListener(v -> {
+            int position = holder.getAdapterPosition();
+            if (listener != null && position != RecyclerView.NO_POSITION) {
+                listener.onMetricsClick(getItem(position), position);
+            }
+        });
+        return holder;
     }
 
     @Override
     public void onBindViewHolder(@NonNull EmployeeViewHolder holder, int position) {
-        User user = employeeList.get(position);
+        User user = getItem(position);
         
         holder.checkboxSelect.setChecked(false); // Reset selection state
         holder.textName.setText(user.getName());
@@ -60,30 +86,11 @@ public class EmployeeAdapter extends RecyclerView.Adapter<EmployeeAdapter.Employ
         holder.textDepartment.setText(department);
         holder.textRole.setText(role);
         holder.textStatus.setText(status);
-        
-        // Set click listeners
-        holder.btnEdit.setOnClickListener(v -> {
-            if (listener != null) {
-                listener.onEditClick(user, holder.getAdapterPosition());
-            }
-        });
-        
-        holder.btnPermissions.setOnClickListener(v -> {
-            if (listener != null) {
-                listener.onPermissionsClick(user, holder.getAdapterPosition());
-            }
-        });
-        
-        holder.btnMetrics.setOnClickListener(v -> {
-            if (listener != null) {
-                listener.onMetricsClick(user, holder.getAdapterPosition());
-            }
-        });
     }
 
     @Override
-    public int getItemCount() {
-        return employeeList != null ? employeeList.size() : 0;
+    public long getItemId(int position) {
+        return ListDiffing.stableId(getItem(position).getUid());
     }
 
     static class EmployeeViewHolder extends RecyclerView.ViewHolder {
@@ -104,4 +111,21 @@ public class EmployeeAdapter extends RecyclerView.Adapter<EmployeeAdapter.Employ
             btnMetrics = itemView.findViewById(R.id.btnMetrics);
         }
     }
+
+    private static class EmployeeDiffCallback extends DiffUtil.ItemCallback<User> {
+        @Override
+        public boolean areItemsTheSame(@NonNull User oldItem, @NonNull User newItem) {
+            return Objects.equals(oldItem.getUid(), newItem.getUid());
+        }
+
+        // Only the fields the row shows
+        @Override
+        public boolean areContentsTheSame(@NonNull User oldItem, @NonNull User newItem) {
+            return Objects.equals(oldItem.getName(), newItem.getName())
+                    && Objects.equals(oldItem.getEmail(), newItem.getEmail())
+                    && Objects.equals(oldItem.getDepartmentId(), newItem.getDepartmentId())
+                    && Objects.equals(oldItem.getRole(), newItem.getRole())
+                    && oldItem.isActive() == newItem.isActive();
+        }
+    }
 } 
\ No newline at end of file
@@ -13,12 +13,20 @@ import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.fragment.app.FragmentActivity;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.work.Data;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
 
 import com.example.attendify.R;
+import com.example.attendify.worker.EmployeeImportWorker;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.progressindicator.LinearProgressIndicator;
 import com.google.android.material.textview.MaterialTextView;
 
+import java.util.UUID;
+
 /**
  * Dialog for importing employee data from CSV files
  */
@@ -29,6 +37,7 @@ public class CsvImportDialog extends Dialog {
     private MaterialButton btnSelectFile, btnUpload, btnClose;
     private Uri selectedFileUri;
     private OnImportCompletedListener listener;
+    private LiveData<WorkInfo> importWork;
 
     public interface OnImportCompletedListener {
         void onImportCompleted(int successCount, int failCount);
@@ -157,17 +166,81 @@ public class CsvImportDialog extends Dialog {
     private void uploadFile() {
         updateState(ImportState.UPLOADING);
         
-        // Simulate processing delay
-        btnUpload.postDelayed(() -> {
-            // For demo purposes, simulate a successful import
-            updateState(ImportState.COMPLETED);
-            int successCount = 5;
-            int failCount = 0;
-            resultText.setText("Successfully imported " + successCount + " employees.");
-            
-            if (listener != null) {
-                listener.onImportCompleted(successCount, failCount);
-            }
-        }, 2000);
+        FragmentActivity activity = (FragmentActivity) getContext();
+        UUID workId = EmployeeImportWorker.enqueue(activity, selectedFileUri);
+        
+        // Follow the import until it finishes
+        importWork = WorkManager.getInstance(activity).getWorkInfoByIdLiveData(workId);
+        importWork.observe(activity, importObserver);
+    }
+    
+    private final Observer<WorkInfo> importObserver = info -> {
+        if (info == null) {
+            return;
+        }
+        switch (info.getState()) {
+            case RUNNING:
+                Data progress = info.getProgress();
+                int percent = progress.getInt(EmployeeImportWorker.KEY_PERCENT, 0);
+                progressBar.setIndeterminate(percent == 0);
+                progressBar.setProgressCompat(percent, true);
+                statusText.setText("Importing... " + progress.getInt(EmployeeImportWorker.KEY_ROWS_PROCESSED, 0) + " rows processed");
+                break;
+                
+            case ENQUEUED:
+                if (info.getRunAttemptCount() > 0) {
+                    statusText.setText("Import interrupted, will resume when possible");
+                }
+                break;
+                
+            case BLOCKED:
+                statusText.setText("Waiting for the previous import to finish");
+                break;
+                
+            case SUCCEEDED:
+                stopObserving();
+                Data output = info.getOutputData();
+                int successCount = output.getInt(EmployeeImportWorker.KEY_IMPORTED, 0);
+                int failCount = output.getInt(EmployeeImportWorker.KEY_FAILED, 0);
+                updateState(ImportState.COMPLETED);
+                String result = "Successfully imported " + successCount + " employees.";
+                if (failCount > 0) {
+                    result += "\n" + failCount + " rows were rejected, see " +
+                            output.getString(EmployeeImportWorker.KEY_ERROR_REPORT);
+                }
+                resultText.setText(result);
+                
+                if (listener != null) {
+                    listener.onImportCompleted(successCount, failCount);
+                }
+                break;
+                
+            case FAILED:
+            case CANCELLED:
+                stopObserving();
+                updateState(ImportState.ERROR);
+                String message = info.getOutputData().getString(EmployeeImportWorker.KEY_ERROR_MESSAGE);
+                if (message != null) {
+                    resultText.setText("Import failed: " + message);
+                }
+                break;
+                
+            default:
+                break;
+        }
+    };
+    
+    private void stopObserving() {
+        if (importWork != null) {
+            importWork.removeObserver(importObserver);
+            importWork = null;
+        }
+    }
+    
+    @Override
+    protected void onStop() {
+        super.onStop();
+        // The import keeps running in the background
+        stopObserving();
     }
-} 
\ No newline at end of file
+}
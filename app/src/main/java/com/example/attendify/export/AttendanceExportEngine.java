@@ -0,0 +1,140 @@
+package com.example.attendify.export;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.attendify.model.Attendance;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs exports on a background thread. Records are pulled from an {@link AttendancePageSource}
+ * page by page and handed straight to a {@link RecordWriter}, so memory use stays at one
+ * page regardless of the size of the selection. Callbacks arrive on the main thread.
+ */
+public class AttendanceExportEngine {
+    private static final String TAG = "AttendanceExportEngine";
+
+    // One export at a time; a second one queues behind it
+    private static final Executor EXPORT_EXECUTOR = Executors.newSingleThreadExecutor();
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    public interface Listener {
+        /**
+         * Called after each page with the number of records written so far
+         */
+        void onProgress(int recordsWritten);
+
+        void onComplete(File file, int recordsWritten);
+
+        void onError(Exception e);
+
+        /**
+         * Called once a cancelled export has stopped and its partial file was deleted
+         */
+        void onCancelled();
+    }
+
+    /**
+     * Handle to a running export
+     */
+    public static class ExportJob {
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        // Only updated by the export thread
+        private volatile int recordsWritten;
+
+        /**
+         * Stops the export after the record being written; the partial file is deleted
+         */
+        public void cancel() {
+            cancelled.set(true);
+        }
+
+        public boolean isCancelled() {
+            return cancelled.get();
+        }
+
+        public int getRecordsWritten() {
+            return recordsWritten;
+        }
+    }
+
+    /**
+     * Receives the number of records written after each page
+     */
+    interface PageListener {
+        void onPage(int recordsWritten);
+    }
+
+    private AttendanceExportEngine() {
+    }
+
+    /**
+     * Starts writing every record of the source to a file
+     * @param source Pages of records in the order they should appear in the file
+     * @param writerFactory Creates the writer for the export format
+     * @param file Destination file, replaced if it exists
+     * @param listener Receives progress and the outcome on the main thread
+     * @return A handle that can cancel the export
+     */
+    public static ExportJob export(AttendancePageSource source, RecordWriter.Factory writerFactory,
+                                   File file, Listener listener) {
+        ExportJob job = new ExportJob();
+        EXPORT_EXECUTOR.execute(() -> run(job, source, writerFactory, file, listener));
+        return job;
+    }
+
+    private static void run(ExportJob job, AttendancePageSource source, RecordWriter.Factory writerFactory,
+                            File file, Listener listener) {
+        try (RecordWriter writer = writerFactory.open(file)) {
+            writePages(job, source, writer, progress -> MAIN_HANDLER.post(() -> listener.onProgress(progress)));
+        } catch (Exception e) {
+            Log.e(TAG, "Export to " + file.getName() + " failed after " + job.getRecordsWritten() + " records", e);
+            deletePartialFile(file);
+            MAIN_HANDLER.post(() -> listener.onError(e));
+            return;
+        }
+
+        if (job.isCancelled()) {
+            deletePartialFile(file);
+            MAIN_HANDLER.post(listener::onCancelled);
+            return;
+        }
+        final int total = job.getRecordsWritten();
+        Log.d(TAG, "Exported " + total + " records to " + file.getName());
+        MAIN_HANDLER.post(() -> listener.onComplete(file, total));
+    }
+
+    /**
+     * Copies every page of the source to the writer on the calling thread until the source
+     * runs out or the job is cancelled
+     */
+    static void writePages(ExportJob job, AttendancePageSource source, RecordWriter writer,
+                           PageListener pageListener) throws Exception {
+        while (!job.isCancelled()) {
+            List<Attendance> page = source.nextPage();
+            if (page.isEmpty()) {
+                break;
+            }
+            for (Attendance attendance : page) {
+                if (job.isCancelled()) {
+                    break;
+                }
+                writer.write(attendance);
+                job.recordsWritten++;
+            }
+            pageListener.onPage(job.recordsWritten);
+        }
+    }
+
+    private static void deletePartialFile(File file) {
+        if (file.exists() && !file.delete()) {
+            Log.w(TAG, "Could not delete partial export " + file.getName());
+        }
+    }
+}
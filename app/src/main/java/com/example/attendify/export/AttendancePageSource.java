@@ -0,0 +1,17 @@
+package com.example.attendify.export;
+
+import com.example.attendify.model.Attendance;
+
+import java.util.List;
+
+/**
+ * Hands out the records of an export one page at a time, so an export never needs the
+ * whole selection in memory. Called on the export thread, so implementations may block.
+ */
+public interface AttendancePageSource {
+
+    /**
+     * @return The next page of records, or an empty list once every record was returned
+     */
+    List<Attendance> nextPage() throws Exception;
+}
@@ -0,0 +1,96 @@
+package com.example.attendify.export;
+
+import com.example.attendify.model.Attendance;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Streams attendance records to a CSV file through a buffered writer. The layouts keep
+ * the exact columns of the report and history exports.
+ */
+public class CsvRecordWriter implements RecordWriter {
+
+    public enum Layout {
+        // Admin reports screen
+        REPORT("Employee,Office,Date,Check In,Check Out,Status,Location Status\n"),
+        // Employee attendance history screen
+        HISTORY("Date,Check-in Time,Check-out Time,Status,Office\n");
+
+        private final String header;
+
+        Layout(String header) {
+            this.header = header;
+        }
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Writer writer;
+    private final Layout layout;
+
+    public CsvRecordWriter(Writer writer, Layout layout) throws IOException {
+        this.writer = writer;
+        this.layout = layout;
+        writer.write(layout.header);
+    }
+
+    /**
+     * @return A factory that writes the given layout to a file
+     */
+    public static RecordWriter.Factory factory(Layout layout) {
+        return file -> new CsvRecordWriter(new BufferedWriter(new FileWriter(file), BUFFER_SIZE), layout);
+    }
+
+    @Override
+    public void write(Attendance attendance) throws IOException {
+        if (layout == Layout.REPORT) {
+            writeReportRow(attendance);
+        } else {
+            writeHistoryRow(attendance);
+        }
+    }
+
+    private void writeReportRow(Attendance attendance) throws IOException {
+        String userName = attendance.getUserName() != null ? attendance.getUserName() : "Unknown";
+        String officeName = attendance.getOfficeName() != null ? attendance.getOfficeName() : "Unknown";
+        String date = attendance.getDate() != null ? attendance.getDate() : "N/A";
+        String status = attendance.getStatus() != null ? attendance.getStatus() : "Unknown";
+
+        writer.append(escapeCsv(userName)).append(",");
+        writer.append(escapeCsv(officeName)).append(",");
+        writer.append(escapeCsv(date)).append(",");
+        writer.append(escapeCsv(ExportFormats.formatOrDefault(ExportFormats.REPORT_TIME, attendance.getCheckInTime(), "N/A"))).append(",");
+        writer.append(escapeCsv(ExportFormats.formatOrDefault(ExportFormats.REPORT_TIME, attendance.getCheckOutTime(), "N/A"))).append(",");
+        writer.append(escapeCsv(status)).append("\n");
+    }
+
+    private void writeHistoryRow(Attendance attendance) throws IOException {
+        writer.append(ExportFormats.formatOrDefault(ExportFormats.HISTORY_DATE, attendance.getCheckInTime(), "N/A")).append(",");
+        writer.append(ExportFormats.formatOrDefault(ExportFormats.HISTORY_TIME, attendance.getCheckInTime(), "N/A")).append(",");
+        writer.append(ExportFormats.formatOrDefault(ExportFormats.HISTORY_TIME, attendance.getCheckOutTime(), "Not Checked Out")).append(",");
+        writer.append(attendance.getStatus()).append(",");
+        writer.append(attendance.getOfficeName() != null ? attendance.getOfficeName() : "Unknown").append("\n");
+    }
+
+    static String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+
+        // If the value contains a comma, quote, or newline, wrap it in quotes and escape any quotes
+        if (value.contains("\"") || value.contains(",") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
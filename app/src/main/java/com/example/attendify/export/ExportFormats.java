@@ -0,0 +1,25 @@
+package com.example.attendify.export;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Date formats shared by the export writers. Exports run on a background thread, so each
+ * format is created once per thread instead of once per export or per row.
+ */
+final class ExportFormats {
+    static final ThreadLocal<SimpleDateFormat> REPORT_TIME =
+            ThreadLocal.withInitial(() -> new SimpleDateFormat("HH:mm:ss", Locale.getDefault()));
+    static final ThreadLocal<SimpleDateFormat> HISTORY_DATE =
+            ThreadLocal.withInitial(() -> new SimpleDateFormat("MMM dd, yyyy", Locale.getDefault()));
+    static final ThreadLocal<SimpleDateFormat> HISTORY_TIME =
+            ThreadLocal.withInitial(() -> new SimpleDateFormat("HH:mm", Locale.getDefault()));
+
+    private ExportFormats() {
+    }
+
+    static String formatOrDefault(ThreadLocal<SimpleDateFormat> format, Date date, String fallback) {
+        return date != null ? format.get().format(date) : fallback;
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.attendify.export;
+
+import com.example.attendify.model.Attendance;
+import com.itextpdf.text.BaseColor;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Element;
+import com.itextpdf.text.Font;
+import com.itextpdf.text.FontFactory;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.Phrase;
+import com.itextpdf.text.pdf.PdfPCell;
+import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Streams attendance records into a PDF table. The table is marked incomplete and handed
+ * to the document every {@link #CHUNK_ROWS} rows, which writes those rows out and drops
+ * them, so only one chunk of cells is held in memory however long the report is.
+ */
+public class PdfRecordWriter implements RecordWriter {
+
+    public enum Layout {
+        // Admin reports screen
+        REPORT,
+        // Employee attendance history screen
+        HISTORY
+    }
+
+    static final int CHUNK_ROWS = 200;
+
+    private final Document document;
+    private final OutputStream out;
+    private final Layout layout;
+    private final PdfPTable table;
+    private final Font cellFont = new Font(Font.FontFamily.HELVETICA, 12);
+    private int rowsInChunk;
+
+    /**
+     * @param preamble Title and summary elements written above the table
+     */
+    public PdfRecordWriter(OutputStream out, Layout layout, List<Element> preamble) throws IOException {
+        this.out = out;
+        this.layout = layout;
+        document = new Document();
+        try {
+            PdfWriter.getInstance(document, out);
+            document.open();
+            for (Element element : preamble) {
+                document.add(element);
+            }
+            table = layout == Layout.REPORT ? createReportTable() : createHistoryTable();
+        } catch (DocumentException e) {
+            out.close();
+            throw new IOException("Could not start PDF", e);
+        }
+    }
+
+    /**
+     * @return A factory that writes the given layout to a file
+     */
+    public static RecordWriter.Factory factory(Layout layout, List<Element> preamble) {
+        return file -> new PdfRecordWriter(new BufferedOutputStream(new FileOutputStream(file)), layout, preamble);
+    }
+
+    @Override
+    public void write(Attendance attendance) throws IOException {
+        if (layout == Layout.REPORT) {
+            addReportRow(attendance);
+        } else {
+            addHistoryRow(attendance);
+        }
+
+        if (++rowsInChunk >= CHUNK_ROWS) {
+            rowsInChunk = 0;
+            addTable();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            table.setComplete(true);
+            addTable();
+            document.close();
+        } finally {
+            out.close();
+        }
+    }
+
+    // Writes the rows added since the last call; they are released once written
+    private void addTable() throws IOException {
+        try {
+            document.add(table);
+        } catch (DocumentException e) {
+            throw new IOException("Could not write PDF rows", e);
+        }
+    }
+
+    private PdfPTable createReportTable() {
+        PdfPTable reportTable = new PdfPTable(6);
+        reportTable.setWidthPercentage(100);
+        reportTable.setComplete(false);
+        // Repeat the header on every page
+        reportTable.setHeaderRows(1);
+
+        Font headerFont = new Font(Font.FontFamily.HELVETICA, 12, Font.BOLD);
+        for (String header : new String[]{"Employee", "Office", "Date", "Check In", "Check Out", "Status"}) {
+            reportTable.addCell(new PdfPCell(new Paragraph(header, headerFont)));
+        }
+        return reportTable;
+    }
+
+    private PdfPTable createHistoryTable() throws DocumentException {
+        PdfPTable historyTable = new PdfPTable(4);
+        historyTable.setWidthPercentage(100);
+        historyTable.setWidths(new float[]{2f, 1.5f, 1.5f, 1f}); // Date, Check-in, Check-out, Status
+        historyTable.setComplete(false);
+        historyTable.setHeaderRows(1);
+
+        Font headerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12, BaseColor.WHITE);
+        for (String header : new String[]{"Date", "Check-in", "Check-out", "Status"}) {
+            PdfPCell cell = new PdfPCell(new Phrase(header, headerFont));
+            cell.setBackgroundColor(new BaseColor(33, 150, 243)); // Primary color
+            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
+            cell.setPadding(8);
+            historyTable.addCell(cell);
+        }
+        return historyTable;
+    }
+
+    private void addReportRow(Attendance attendance) {
+        table.addCell(new Paragraph(attendance.getUserName() != null ? attendance.getUserName() : "Unknown", cellFont));
+        table.addCell(new Paragraph(attendance.getOfficeName() != null ? attendance.getOfficeName() : "Unknown", cellFont));
+        table.addCell(new Paragraph(attendance.getDate() != null ? attendance.getDate() : "N/A", cellFont));
+        table.addCell(new Paragraph(ExportFormats.formatOrDefault(ExportFormats.REPORT_TIME, attendance.getCheckInTime(), "N/A"), cellFont));
+        table.addCell(new Paragraph(ExportFormats.formatOrDefault(ExportFormats.REPORT_TIME, attendance.getCheckOutTime(), "N/A"), cellFont));
+        table.addCell(new Paragraph(attendance.getStatus() != null ? attendance.getStatus() : "Unknown", cellFont));
+    }
+
+    private void addHistoryRow(Attendance attendance) {
+        addCenteredCell(ExportFormats.formatOrDefault(ExportFormats.HISTORY_DATE, attendance.getCheckInTime(), "N/A"));
+        addCenteredCell(ExportFormats.formatOrDefault(ExportFormats.HISTORY_TIME, attendance.getCheckInTime(), "N/A"));
+        addCenteredCell(ExportFormats.formatOrDefault(ExportFormats.HISTORY_TIME, attendance.getCheckOutTime(), "Not Checked Out"));
+        addCenteredCell(attendance.getStatus() != null ? attendance.getStatus() : "");
+    }
+
+    private void addCenteredCell(String text) {
+        PdfPCell cell = new PdfPCell(new Phrase(text));
+        cell.setHorizontalAlignment(Element.ALIGN_CENTER);
+        cell.setPadding(5);
+        table.addCell(cell);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.attendify.export;
+
+import com.example.attendify.model.Attendance;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Writes an export file one record at a time. Closing the writer finishes the file.
+ */
+public interface RecordWriter extends Closeable {
+
+    void write(Attendance attendance) throws IOException;
+
+    /**
+     * Creates the writer for one export file
+     */
+    interface Factory {
+        RecordWriter open(File file) throws IOException;
+    }
+}
@@ -23,14 +23,10 @@ import com.example.attendify.viewmodel.EmployeeViewModel;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.floatingactionbutton.ExtendedFloatingActionButton;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public class EmployeeManagementFragment extends Fragment {
 
     private RecyclerView recyclerViewEmployees;
     private EmployeeAdapter employeeAdapter;
-    private List<User> employeeList = new ArrayList<>();
     private EmployeeViewModel viewModel;
     private View layoutLoading, layoutEmptyState;
 
@@ -59,7 +55,7 @@ public class EmployeeManagementFragment extends Fragment {
     }
 
     private void setupRecyclerView() {
-        employeeAdapter = new EmployeeAdapter(requireContext(), employeeList);
+        employeeAdapter = new EmployeeAdapter(requireContext());
         employeeAdapter.setOnItemClickListener(new EmployeeAdapter.OnItemClickListener() {
             @Override
             public void onEditClick(User user, int position) {
@@ -90,11 +86,10 @@ public class EmployeeManagementFragment extends Fragment {
         // Observe all employees
         viewModel.getAllEmployees().observe(getViewLifecycleOwner(), users -> {
             if (users != null) {
-                employeeList.clear();
-                employeeList.addAll(users);
-                employeeAdapter.notifyDataSetChanged();
+                // Diffed off the main thread; only changed rows are rebound
+                employeeAdapter.submitList(users);
                 
-                if (employeeList.isEmpty()) {
+                if (users.isEmpty()) {
                     showEmptyState();
                 } else {
                     showContent();
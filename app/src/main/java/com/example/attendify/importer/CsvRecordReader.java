@@ -0,0 +1,133 @@
+package com.example.attendify.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads CSV records one at a time from a character stream, so a file of any size is parsed
+ * with one record in memory. Supports quoted fields with embedded commas, doubled quotes
+ * and line breaks, and both \n and \r\n line endings.
+ */
+public class CsvRecordReader implements Closeable {
+    private static final int NONE = -2;
+
+    private final Reader reader;
+    private int pushedBack = NONE;
+    private long charsRead;
+    private int nextLine = 1;
+    private int recordLine;
+    private boolean started;
+
+    /**
+     * @param reader Source of the CSV text, ideally buffered
+     */
+    public CsvRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @return The fields of the next record, or null at the end of the input. A blank
+     * line is returned as a single empty field.
+     */
+    public List<String> readRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+        boolean any = false;
+        recordLine = nextLine;
+
+        int c;
+        while ((c = read()) != -1) {
+            any = true;
+            char ch = (char) c;
+            if (inQuotes) {
+                if (ch == '"') {
+                    if (peek() == '"') {
+                        read();
+                        field.append('"');
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    if (ch == '\n') {
+                        nextLine++;
+                    }
+                    field.append(ch);
+                }
+            } else if (ch == '"' && field.length() == 0) {
+                inQuotes = true;
+            } else if (ch == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (ch == '\r' || ch == '\n') {
+                if (ch == '\r' && peek() == '\n') {
+                    read();
+                }
+                nextLine++;
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append(ch);
+            }
+        }
+
+        if (!any) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * @return The 1-based line on which the last record returned by {@link #readRecord()} started
+     */
+    public int getRecordLine() {
+        return recordLine;
+    }
+
+    /**
+     * @return Characters consumed so far, for progress against the input size
+     */
+    public long getCharsRead() {
+        return charsRead;
+    }
+
+    private int read() throws IOException {
+        int c;
+        if (pushedBack != NONE) {
+            c = pushedBack;
+            pushedBack = NONE;
+        } else {
+            c = reader.read();
+            if (c != -1) {
+                charsRead++;
+            }
+        }
+        // Skip a byte order mark at the start of the file
+        if (!started) {
+            started = true;
+            if (c == '\uFEFF') {
+                return read();
+            }
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (pushedBack == NONE) {
+            pushedBack = reader.read();
+            if (pushedBack != -1) {
+                charsRead++;
+            }
+        }
+        return pushedBack;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.attendify.importer;
+
+import com.example.attendify.model.User;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Turns rows of the employee import file into {@link User}s. The file starts with a header
+ * naming its columns (name,email,employee_id,role,department,team); name and email are
+ * required, the others may be left out. Also rejects emails and employee IDs that already
+ * appeared earlier in the same file.
+ */
+public class EmployeeRowValidator {
+    static final String COLUMN_NAME = "name";
+    static final String COLUMN_EMAIL = "email";
+    static final String COLUMN_EMPLOYEE_ID = "employee_id";
+    static final String COLUMN_ROLE = "role";
+    static final String COLUMN_DEPARTMENT = "department";
+    static final String COLUMN_TEAM = "team";
+
+    private static final int MAX_NAME_LENGTH = 100;
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
+    private static final Set<String> ROLES = new HashSet<>(
+            Arrays.asList("admin", "manager", "supervisor", "employee"));
+
+    private final Map<String, Integer> columns;
+    private final Map<String, Integer> emailLines = new HashMap<>();
+    private final Map<String, Integer> employeeIdLines = new HashMap<>();
+
+    private EmployeeRowValidator(Map<String, Integer> columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * @param header The first record of the file
+     * @throws IllegalArgumentException If a required column is missing
+     */
+    public static EmployeeRowValidator fromHeader(List<String> header) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : new String[]{COLUMN_NAME, COLUMN_EMAIL}) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("Missing required column \"" + required + "\"");
+            }
+        }
+        return new EmployeeRowValidator(columns);
+    }
+
+    /**
+     * Validates one data row. Rows must be passed in file order for duplicate detection.
+     * @param record Fields of the row
+     * @param line Line the row starts on, used in duplicate messages
+     */
+    public Result validate(List<String> record, int line) {
+        String name = field(record, COLUMN_NAME);
+        String email = field(record, COLUMN_EMAIL);
+        String employeeId = field(record, COLUMN_EMPLOYEE_ID);
+        String role = field(record, COLUMN_ROLE);
+
+        if (name == null) {
+            return Result.error(email, "Name is required");
+        }
+        if (name.length() > MAX_NAME_LENGTH) {
+            return Result.error(email, "Name is longer than " + MAX_NAME_LENGTH + " characters");
+        }
+        if (email == null) {
+            return Result.error(null, "Email is required");
+        }
+        if (!EMAIL_PATTERN.matcher(email).matches()) {
+            return Result.error(email, "Invalid email address");
+        }
+        role = role != null ? role.toLowerCase(Locale.ROOT) : "employee";
+        if (!ROLES.contains(role)) {
+            return Result.error(email, "Unknown role \"" + role + "\"");
+        }
+
+        String emailKey = email.toLowerCase(Locale.ROOT);
+        Integer firstEmailLine = emailLines.putIfAbsent(emailKey, line);
+        if (firstEmailLine != null) {
+            return Result.error(email, "Duplicate email, first seen on line " + firstEmailLine);
+        }
+        if (employeeId != null) {
+            Integer firstIdLine = employeeIdLines.putIfAbsent(employeeId, line);
+            if (firstIdLine != null) {
+                return Result.error(email, "Duplicate employee ID, first seen on line " + firstIdLine);
+            }
+        }
+
+        // Imported by an admin, so the account does not need approval
+        User user = new User(null, name, email, role, true, null,
+                field(record, COLUMN_DEPARTMENT), field(record, COLUMN_TEAM));
+        user.setDisplayName(name);
+        user.setEmployeeId(employeeId);
+        return Result.valid(user);
+    }
+
+    // Trimmed value of a column, or null if the column is absent or blank
+    private String field(List<String> record, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Either a valid user or the reason the row was rejected
+     */
+    public static class Result {
+        private final User user;
+        private final String email;
+        private final String error;
+
+        private Result(User user, String email, String error) {
+            this.user = user;
+            this.email = email;
+            this.error = error;
+        }
+
+        static Result valid(User user) {
+            return new Result(user, user.getEmail(), null);
+        }
+
+        static Result error(String email, String error) {
+            return new Result(null, email, error);
+        }
+
+        public boolean isValid() {
+            return error == null;
+        }
+
+        public User getUser() {
+            return user;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
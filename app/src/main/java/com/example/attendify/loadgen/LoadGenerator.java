@@ -0,0 +1,249 @@
+package com.example.attendify.loadgen;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.attendify.model.Attendance;
+import com.example.attendify.model.Office;
+import com.example.attendify.model.User;
+import com.example.attendify.repository.RollupRepository;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseOptions;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreSettings;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a {@link SyntheticDataset} to Firestore in batches of at most 500 writes,
+ * paced by a {@link RateLimiter}. Attendance goes to the same month collections the
+ * history and report screens read, and each batch carries the rollup increments for
+ * its records, just like the sync worker.
+ *
+ * Rollups are incremented, not recomputed, so running the same dataset twice counts
+ * it twice; rebuild the month from the reports screen afterwards if that matters.
+ *
+ * {@link #run} blocks and must be called off the main thread.
+ */
+public class LoadGenerator {
+    private static final String TAG = "LoadGenerator";
+    private static final String EMULATOR_APP_NAME = "loadgen";
+    // Host loopback as seen from the Android emulator
+    public static final String DEFAULT_EMULATOR_HOST = "10.0.2.2";
+    public static final int DEFAULT_EMULATOR_PORT = 8080;
+
+    private static final String ATTENDANCE_COLLECTION = "attendance";
+    private static final String USERS_COLLECTION = "users";
+    private static final String OFFICES_COLLECTION = "offices";
+    private static final int MAX_BATCH_WRITES = 500;
+    private static final int MAX_ROLLUP_WRITES_PER_RECORD = 3;
+    private static final int MAX_IN_FLIGHT_BATCHES = 4;
+    private static final long TIMEOUT_SECONDS = 60;
+
+    private final FirebaseFirestore db;
+
+    public LoadGenerator(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    /**
+     * Targets the app's production Firestore instance
+     */
+    public static LoadGenerator forDefaultInstance() {
+        return new LoadGenerator(FirebaseFirestore.getInstance());
+    }
+
+    /**
+     * Targets a local Firestore emulator through a separate FirebaseApp, so the app's own
+     * instance keeps talking to production. Local persistence is off so runs do not
+     * leave a cache behind on the device.
+     */
+    public static synchronized LoadGenerator forEmulator(Context context, String host, int port) {
+        FirebaseApp app;
+        try {
+            app = FirebaseApp.getInstance(EMULATOR_APP_NAME);
+        } catch (IllegalStateException notInitialized) {
+            FirebaseOptions options = FirebaseApp.getInstance().getOptions();
+            app = FirebaseApp.initializeApp(context.getApplicationContext(), options, EMULATOR_APP_NAME);
+            FirebaseFirestore emulator = FirebaseFirestore.getInstance(app);
+            emulator.useEmulator(host, port);
+            emulator.setFirestoreSettings(new FirebaseFirestoreSettings.Builder()
+                    .setPersistenceEnabled(false)
+                    .build());
+        }
+        return new LoadGenerator(FirebaseFirestore.getInstance(app));
+    }
+
+    public FirebaseFirestore getFirestore() {
+        return db;
+    }
+
+    /**
+     * Writes offices, users and attendance for the profile
+     */
+    public Stats run(LoadProfile profile, Listener listener) throws Exception {
+        return run(SyntheticDataset.generate(profile), profile.getWritesPerSecond(), profile.isRampUp(), true, listener);
+    }
+
+    /**
+     * Writes the dataset's attendance, and its offices and users when {@code writeDirectory} is set
+     * @param listener Progress callback on the calling thread, may be null
+     */
+    public Stats run(SyntheticDataset dataset, int writesPerSecond, boolean rampUp,
+                     boolean writeDirectory, Listener listener) throws Exception {
+        long startNanos = System.nanoTime();
+        BatchWriter writer = new BatchWriter(new RateLimiter(writesPerSecond, rampUp));
+
+        if (writeDirectory) {
+            for (Office office : dataset.getOffices()) {
+                writer.reserve(1);
+                writer.batch.set(db.collection(OFFICES_COLLECTION).document(office.getId()), office);
+                writer.writes++;
+            }
+            for (User user : dataset.getUsers()) {
+                writer.reserve(1);
+                writer.batch.set(db.collection(USERS_COLLECTION).document(user.getUid()),
+                        user.toMap(), SetOptions.merge());
+                writer.writes++;
+            }
+        }
+
+        long total = dataset.getRecordCount();
+        long records = 0;
+        Iterator<Attendance> iterator = dataset.records();
+        while (iterator.hasNext()) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException("Load generation cancelled");
+            }
+            Attendance attendance = iterator.next();
+            writer.reserve(1 + MAX_ROLLUP_WRITES_PER_RECORD);
+            writer.batch.set(db.collection(ATTENDANCE_COLLECTION)
+                    .document(attendance.getUserId())
+                    .collection(attendance.getDate().substring(0, 7))
+                    .document(Attendance.dayRecordId(attendance.getUserId(), attendance.getDate())),
+                    attendance.toMap());
+            writer.writes++;
+            writer.increments.addCheckIn(attendance);
+            if (attendance.getCheckOutTime() != null) {
+                writer.increments.addCheckOut(attendance);
+            }
+            records++;
+            if (listener != null && records % MAX_BATCH_WRITES == 0) {
+                listener.onProgress(records, total);
+            }
+        }
+        writer.finish();
+        if (listener != null) {
+            listener.onProgress(records, total);
+        }
+
+        Stats stats = new Stats(records, writer.batches, writer.totalWrites,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        Log.d(TAG, "Load generation finished: " + stats);
+        return stats;
+    }
+
+    /**
+     * Fills batches, commits them when full and keeps a bounded number of commits in flight
+     */
+    private class BatchWriter {
+        private final RateLimiter rateLimiter;
+        private final Deque<Task<Void>> inFlight = new ArrayDeque<>();
+        private final RollupRepository.PendingIncrements increments = new RollupRepository.PendingIncrements();
+        private WriteBatch batch = db.batch();
+        private int writes;
+        private int batches;
+        private long totalWrites;
+
+        BatchWriter(RateLimiter rateLimiter) {
+            this.rateLimiter = rateLimiter;
+        }
+
+        // Commits the current batch first if the next item might not fit
+        void reserve(int needed) throws Exception {
+            if (writes + increments.size() + needed > MAX_BATCH_WRITES) {
+                commit();
+            }
+        }
+
+        void finish() throws Exception {
+            if (writes > 0 || increments.size() > 0) {
+                commit();
+            }
+            while (!inFlight.isEmpty()) {
+                Tasks.await(inFlight.poll(), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+        }
+
+        private void commit() throws Exception {
+            int batchWrites = writes + increments.applyTo(db, batch);
+            rateLimiter.acquire(batchWrites);
+            if (inFlight.size() >= MAX_IN_FLIGHT_BATCHES) {
+                Tasks.await(inFlight.poll(), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+            inFlight.add(batch.commit());
+            batches++;
+            totalWrites += batchWrites;
+            batch = db.batch();
+            writes = 0;
+            increments.clear();
+        }
+    }
+
+    public interface Listener {
+        void onProgress(long recordsWritten, long totalRecords);
+    }
+
+    /**
+     * Outcome of a run
+     */
+    public static class Stats {
+        private final long records;
+        private final int batches;
+        private final long writes;
+        private final long elapsedMillis;
+
+        Stats(long records, int batches, long writes, long elapsedMillis) {
+            this.records = records;
+            this.batches = batches;
+            this.writes = writes;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public long getRecords() {
+            return records;
+        }
+
+        public int getBatches() {
+            return batches;
+        }
+
+        /**
+         * @return Document writes including offices, users and rollup increments
+         */
+        public long getWrites() {
+            return writes;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public double getWritesPerSecond() {
+            return elapsedMillis > 0 ? writes * 1000.0 / elapsedMillis : writes;
+        }
+
+        @Override
+        public String toString() {
+            return records + " records, " + writes + " writes in " + batches + " batches, "
+                    + elapsedMillis + " ms (" + Math.round(getWritesPerSecond()) + " writes/s)";
+        }
+    }
+}
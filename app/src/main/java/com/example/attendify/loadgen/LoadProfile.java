@@ -0,0 +1,92 @@
+package com.example.attendify.loadgen;
+
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Size and shape of a synthetic dataset: N users spread over O offices, with D days of
+ * attendance ending at {@link #getEndDate()}. The same profile and seed always produce
+ * the same records.
+ */
+public class LoadProfile {
+    // Firestore's recommended starting rate for a new collection, see RateLimiter
+    public static final int DEFAULT_WRITES_PER_SECOND = 500;
+
+    private final int users;
+    private final int days;
+    private final int offices;
+    private final long seed;
+    private Date endDate;
+    private int writesPerSecond = DEFAULT_WRITES_PER_SECOND;
+    private boolean rampUp = true;
+
+    public LoadProfile(int users, int days, int offices, long seed) {
+        if (users <= 0 || days <= 0 || offices <= 0) {
+            throw new IllegalArgumentException("users, days and offices must be positive");
+        }
+        this.users = users;
+        this.days = days;
+        this.offices = offices;
+        this.seed = seed;
+        Calendar today = Calendar.getInstance();
+        today.set(Calendar.HOUR_OF_DAY, 0);
+        today.set(Calendar.MINUTE, 0);
+        today.set(Calendar.SECOND, 0);
+        today.set(Calendar.MILLISECOND, 0);
+        this.endDate = today.getTime();
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    public int getOffices() {
+        return offices;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Last day of generated attendance; defaults to today. Fix it to reproduce a dataset exactly.
+     */
+    public Date getEndDate() {
+        return endDate;
+    }
+
+    public LoadProfile setEndDate(Date endDate) {
+        this.endDate = endDate;
+        return this;
+    }
+
+    public int getWritesPerSecond() {
+        return writesPerSecond;
+    }
+
+    public LoadProfile setWritesPerSecond(int writesPerSecond) {
+        this.writesPerSecond = writesPerSecond;
+        return this;
+    }
+
+    public boolean isRampUp() {
+        return rampUp;
+    }
+
+    /**
+     * Whether the write rate grows by 50% every 5 minutes, as recommended for new collections
+     */
+    public LoadProfile setRampUp(boolean rampUp) {
+        this.rampUp = rampUp;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return users + " users x " + days + " days x " + offices + " offices (seed " + seed + ")";
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.attendify.loadgen;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paces writes to a target rate. With ramp-up the rate follows Firestore's 500/50/5 rule:
+ * start at the base rate and raise it by 50% every 5 minutes.
+ */
+class RateLimiter {
+    private static final long RAMP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final int baseRate;
+    private final boolean rampUp;
+    private final long startNanos;
+    private long nextFreeNanos;
+
+    RateLimiter(int writesPerSecond, boolean rampUp) {
+        this.baseRate = writesPerSecond;
+        this.rampUp = rampUp;
+        this.startNanos = System.nanoTime();
+        this.nextFreeNanos = startNanos;
+    }
+
+    /**
+     * Blocks until {@code writes} more writes fit in the current rate
+     */
+    void acquire(int writes) throws InterruptedException {
+        long now = System.nanoTime();
+        long start = Math.max(now, nextFreeNanos);
+        nextFreeNanos = start + TimeUnit.SECONDS.toNanos(writes) / currentRate(now);
+        long waitNanos = start - now;
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    int currentRate(long nowNanos) {
+        if (!rampUp) {
+            return baseRate;
+        }
+        long steps = (nowNanos - startNanos) / RAMP_INTERVAL_NANOS;
+        double rate = baseRate * Math.pow(1.5, Math.min(steps, 20));
+        return (int) Math.min(rate, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.attendify.loadgen;
+
+import com.example.attendify.model.Attendance;
+import com.example.attendify.model.Office;
+import com.example.attendify.model.User;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Deterministic attendance data for load testing. Users and offices are small enough to
+ * hold in memory; attendance records are produced lazily, user by user and day by day,
+ * so datasets with millions of records can be streamed into batches.
+ *
+ * Each user gets one record per weekday: 70% on time (08:00-09:00), 20% late
+ * (09:00-10:00) and 10% missed, with check-out between 17:00 and 18:00.
+ */
+public class SyntheticDataset {
+    private static final String[] DEPARTMENTS = {"engineering", "sales", "operations", "support", "finance"};
+
+    private final List<Office> offices;
+    private final List<User> users;
+    private final List<Date> workdays;
+    private final long seed;
+
+    private SyntheticDataset(List<Office> offices, List<User> users, int days, Date endDate, long seed) {
+        this.offices = offices;
+        this.users = users;
+        this.workdays = workdays(days, endDate);
+        this.seed = seed;
+    }
+
+    /**
+     * Generates offices, users and attendance entirely from the profile
+     */
+    public static SyntheticDataset generate(LoadProfile profile) {
+        Random random = new Random(profile.getSeed());
+
+        List<Office> offices = new ArrayList<>(profile.getOffices());
+        for (int i = 0; i < profile.getOffices(); i++) {
+            // Spread offices over a rough grid so geofence lookups see realistic distances
+            Office office = new Office(String.format(Locale.ROOT, "loadgen_office_%04d", i),
+                    "Load Test Office " + (i + 1),
+                    -60 + random.nextDouble() * 120,
+                    -180 + random.nextDouble() * 360,
+                    100 + random.nextInt(400),
+                    "09:00");
+            office.setStartHour(9);
+            office.setEndHour(17);
+            offices.add(office);
+        }
+
+        List<User> users = new ArrayList<>(profile.getUsers());
+        for (int i = 0; i < profile.getUsers(); i++) {
+            Office office = offices.get(i % offices.size());
+            String name = "Load Test User " + (i + 1);
+            User user = new User(String.format(Locale.ROOT, "loadgen_user_%07d", i), name,
+                    String.format(Locale.ROOT, "loadgen.user.%07d@example.com", i),
+                    "employee", true, office.getId(), DEPARTMENTS[i % DEPARTMENTS.length], null);
+            user.setDisplayName(name);
+            users.add(user);
+        }
+
+        return new SyntheticDataset(offices, users, profile.getDays(), profile.getEndDate(), profile.getSeed());
+    }
+
+    /**
+     * Generates attendance for existing employees of one office. The users and office
+     * are not written again.
+     */
+    public static SyntheticDataset forEmployees(List<User> employees, Office office, int days, long seed) {
+        return new SyntheticDataset(Collections.singletonList(office), employees, days,
+                new LoadProfile(1, days, 1, seed).getEndDate(), seed) {
+            @Override
+            Office officeOf(User user) {
+                return office;
+            }
+        };
+    }
+
+    public List<Office> getOffices() {
+        return offices;
+    }
+
+    public List<User> getUsers() {
+        return users;
+    }
+
+    /**
+     * @return Number of records {@link #records()} will produce
+     */
+    public long getRecordCount() {
+        return (long) users.size() * workdays.size();
+    }
+
+    /**
+     * Lazily produces every attendance record, user by user. Each user's records depend
+     * only on the seed and the user's position, so the output is the same on every call.
+     */
+    public Iterator<Attendance> records() {
+        return new Iterator<Attendance>() {
+            private int userIndex;
+            private int dayIndex;
+            private Random random;
+            private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.ROOT);
+            private final Calendar calendar = Calendar.getInstance();
+
+            @Override
+            public boolean hasNext() {
+                return !workdays.isEmpty() && userIndex < users.size();
+            }
+
+            @Override
+            public Attendance next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (dayIndex == 0) {
+                    random = new Random(seed * 31 + userIndex);
+                }
+                User user = users.get(userIndex);
+                Attendance attendance = createRecord(user, officeOf(user), workdays.get(dayIndex),
+                        random, calendar, dateFormat);
+                if (++dayIndex == workdays.size()) {
+                    dayIndex = 0;
+                    userIndex++;
+                }
+                return attendance;
+            }
+        };
+    }
+
+    Office officeOf(User user) {
+        for (Office office : offices) {
+            if (office.getId().equals(user.getOfficeId())) {
+                return office;
+            }
+        }
+        return offices.get(0);
+    }
+
+    private static Attendance createRecord(User user, Office office, Date day, Random random,
+                                           Calendar calendar, SimpleDateFormat dateFormat) {
+        calendar.setTime(day);
+        double roll = random.nextDouble();
+        String status;
+        Date checkInTime = null;
+        Date checkOutTime = null;
+        String locationStatus;
+
+        if (roll < 0.7) {
+            status = "OnTime";
+            checkInTime = timeOfDay(calendar, 8, random);
+            checkOutTime = timeOfDay(calendar, 17, random);
+            locationStatus = random.nextDouble() < 0.8 ? "InOffice" : "OutOfOffice";
+        } else if (roll < 0.9) {
+            status = "Late";
+            checkInTime = timeOfDay(calendar, 9, random);
+            checkOutTime = timeOfDay(calendar, 17, random);
+            locationStatus = random.nextDouble() < 0.6 ? "InOffice" : "OutOfOffice";
+        } else {
+            status = "Missed";
+            locationStatus = "Unknown";
+        }
+
+        Attendance attendance = new Attendance(user.getUid(), dateFormat.format(day), checkInTime,
+                status, office.getId());
+        attendance.setUserName(user.getDisplayName() != null ? user.getDisplayName() : user.getName());
+        attendance.setOfficeName(office.getName());
+        attendance.setDepartmentId(user.getDepartmentId());
+        attendance.setLocationStatus(locationStatus);
+        attendance.setCheckOutTime(checkOutTime);
+        return attendance;
+    }
+
+    // A random minute and second within the given hour of the calendar's day
+    private static Date timeOfDay(Calendar calendar, int hour, Random random) {
+        calendar.set(Calendar.HOUR_OF_DAY, hour);
+        calendar.set(Calendar.MINUTE, random.nextInt(60));
+        calendar.set(Calendar.SECOND, random.nextInt(60));
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTime();
+    }
+
+    // Weekdays among the given number of days ending at endDate, newest first
+    private static List<Date> workdays(int days, Date endDate) {
+        List<Date> result = new ArrayList<>();
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(endDate);
+        for (int i = 0; i < days; i++) {
+            int dayOfWeek = calendar.get(Calendar.DAY_OF_WEEK);
+            if (dayOfWeek != Calendar.SATURDAY && dayOfWeek != Calendar.SUNDAY) {
+                result.add(calendar.getTime());
+            }
+            calendar.add(Calendar.DAY_OF_MONTH, -1);
+        }
+        return result;
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.attendify.model;
 
+import com.google.firebase.firestore.Exclude;
+
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -9,6 +11,7 @@ import java.util.Map;
  * Firestore path: /attendance/{uid}/{date}
  */
 public class Attendance {
+    private String documentId; // Set when read from Firestore, not stored in the document
     private String userId;
     private String userName;
     private String officeName;
@@ -17,6 +20,7 @@ public class Attendance {
     private Date checkOutTime;
     private String status; // "OnTime", "Late", "Missed"
     private String officeId;
+    private String departmentId; // Cached from the user for department rollups
     private String locationStatus; // "InOffice", "OutOfOffice", "Unknown"
 
     // Default constructor required for Firestore
@@ -32,6 +36,14 @@ public class Attendance {
         this.locationStatus = "Unknown";
     }
 
+    /**
+     * @return ID of a user's one record for a day; check-ins online, from the outbox and from
+     * the load generator all write under it, so a day cannot end up with two records
+     */
+    public static String dayRecordId(String userId, String date) {
+        return userId + "_" + date;
+    }
+
     // Convert Attendance object to Firestore document
     public Map<String, Object> toMap() {
         Map<String, Object> map = new HashMap<>();
@@ -45,6 +57,9 @@ public class Attendance {
         }
         map.put("status", status);
         map.put("officeId", officeId);
+        if (departmentId != null) {
+            map.put("departmentId", departmentId);
+        }
         map.put("locationStatus", locationStatus);
         return map;
     }
@@ -114,6 +129,14 @@ public class Attendance {
         this.officeId = officeId;
     }
 
+    public String getDepartmentId() {
+        return departmentId;
+    }
+
+    public void setDepartmentId(String departmentId) {
+        this.departmentId = departmentId;
+    }
+
     public String getLocationStatus() {
         return locationStatus;
     }
@@ -142,8 +165,31 @@ public class Attendance {
         return "OutOfOffice".equals(locationStatus);
     }
 
+    @Exclude
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    public void setDocumentId(String documentId) {
+        this.documentId = documentId;
+    }
+
+    /**
+     * @return The Firestore document id, or the userId_date id a check-in is written under
+     * for records not read from Firestore
+     */
+    @Exclude
     public String getId() {
-        return userId + "_" + date;
+        return documentId != null ? documentId : dayRecordId(userId, date);
+    }
+
+    /**
+     * @return userId/id, unique across users. Document ids alone are only unique within one
+     * user's day collection: seeded and generated records use the date as their id.
+     */
+    @Exclude
+    public String getRowKey() {
+        return userId + "/" + getId();
     }
     
     @Override
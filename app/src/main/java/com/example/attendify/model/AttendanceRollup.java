@@ -0,0 +1,271 @@
+package com.example.attendify.model;
+
+import com.google.firebase.firestore.Exclude;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pre-aggregated attendance counters for one scope and period.
+ * Firestore path: /attendanceRollups/{scope}_{scopeId}_{period}
+ *
+ * Scopes kept up to date on every check-in and check-out:
+ * - user: one document per user per month (period yyyy-MM)
+ * - office: one document per office per day (period yyyy-MM-dd)
+ * - department: one document per department per month (period yyyy-MM)
+ *
+ * Increments only stay exact if the counters were exact to begin with, so a month's rollups
+ * are trusted only once RollupRepository.rebuildMonth() has recomputed them from the raw
+ * records. It then writes a status document for the month (scope "month") marking them
+ * complete at the current VERSION; until then readers fall back to the raw records.
+ */
+public class AttendanceRollup {
+    public static final String SCOPE_USER = "user";
+    public static final String SCOPE_OFFICE = "office";
+    public static final String SCOPE_DEPARTMENT = "department";
+    public static final String SCOPE_MONTH = "month";
+    // Bump when the counting rules change, so months built under the old ones are rebuilt
+    public static final int VERSION = 1;
+
+    private String id;
+    private String scope;
+    private String scopeId;
+    private String period; // yyyy-MM or yyyy-MM-dd depending on scope
+    private String month; // yyyy-MM, lets office-day rollups be summed per month with equality filters
+    private long onTime;
+    private long late;
+    private long missed;
+    private long checkIns;
+    private long checkOuts;
+    private boolean complete; // Month status documents only
+    private int version; // Month status documents only
+    private Date updatedAt;
+
+    // Required empty constructor for Firestore
+    public AttendanceRollup() {
+    }
+
+    public AttendanceRollup(String scope, String scopeId, String period) {
+        this.scope = scope;
+        this.scopeId = scopeId;
+        this.period = period;
+        this.month = period != null && period.length() >= 7 ? period.substring(0, 7) : period;
+        this.id = buildId(scope, scopeId, period);
+    }
+
+    public static String buildId(String scope, String scopeId, String period) {
+        return scope + "_" + scopeId + "_" + period;
+    }
+
+    public static String monthStatusId(String yearMonth) {
+        return buildId(SCOPE_MONTH, "all", yearMonth);
+    }
+
+    /**
+     * @return Fields of a month status document
+     */
+    public static Map<String, Object> monthStatus(String yearMonth, boolean complete) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("scope", SCOPE_MONTH);
+        map.put("scopeId", "all");
+        map.put("period", yearMonth);
+        map.put("month", yearMonth);
+        map.put("complete", complete);
+        map.put("version", VERSION);
+        map.put("updatedAt", new Date());
+        return map;
+    }
+
+    /**
+     * @return Whether this month status marks the month's rollups as exact under the
+     * current counting rules
+     */
+    @Exclude
+    public boolean isCurrent() {
+        return SCOPE_MONTH.equals(scope) && complete && version >= VERSION;
+    }
+
+    /**
+     * Counts a record into this rollup the same way the live counters do
+     */
+    public void add(Attendance attendance) {
+        if (attendance.isOnTime()) {
+            onTime++;
+        } else if (attendance.isLate()) {
+            late++;
+        } else if (attendance.isMissed()) {
+            missed++;
+        }
+        if (attendance.getCheckInTime() != null) {
+            checkIns++;
+        }
+        if (attendance.getCheckOutTime() != null) {
+            checkOuts++;
+        }
+    }
+
+    /**
+     * Adds the counters of another rollup, used to total several office-day rollups
+     */
+    public void addCounts(AttendanceRollup other) {
+        onTime += other.onTime;
+        late += other.late;
+        missed += other.missed;
+        checkIns += other.checkIns;
+        checkOuts += other.checkOuts;
+    }
+
+    /**
+     * Subtracts the counters of another rollup, used to work out a rebuild's correction
+     */
+    public void subtractCounts(AttendanceRollup other) {
+        onTime -= other.onTime;
+        late -= other.late;
+        missed -= other.missed;
+        checkIns -= other.checkIns;
+        checkOuts -= other.checkOuts;
+    }
+
+    public boolean hasSameCounts(AttendanceRollup other) {
+        return other != null &&
+                onTime == other.onTime &&
+                late == other.late &&
+                missed == other.missed &&
+                checkIns == other.checkIns &&
+                checkOuts == other.checkOuts;
+    }
+
+    @Exclude
+    public long getTotal() {
+        return onTime + late + missed;
+    }
+
+    // Convert AttendanceRollup object to Firestore document
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("scope", scope);
+        map.put("scopeId", scopeId);
+        map.put("period", period);
+        map.put("month", month);
+        map.put("onTime", onTime);
+        map.put("late", late);
+        map.put("missed", missed);
+        map.put("checkIns", checkIns);
+        map.put("checkOuts", checkOuts);
+        map.put("updatedAt", updatedAt != null ? updatedAt : new Date());
+        return map;
+    }
+
+    // Getters and setters
+    @Exclude
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public void setScope(String scope) {
+        this.scope = scope;
+    }
+
+    public String getScopeId() {
+        return scopeId;
+    }
+
+    public void setScopeId(String scopeId) {
+        this.scopeId = scopeId;
+    }
+
+    public String getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(String period) {
+        this.period = period;
+    }
+
+    public String getMonth() {
+        return month;
+    }
+
+    public void setMonth(String month) {
+        this.month = month;
+    }
+
+    public long getOnTime() {
+        return onTime;
+    }
+
+    public void setOnTime(long onTime) {
+        this.onTime = onTime;
+    }
+
+    public long getLate() {
+        return late;
+    }
+
+    public void setLate(long late) {
+        this.late = late;
+    }
+
+    public long getMissed() {
+        return missed;
+    }
+
+    public void setMissed(long missed) {
+        this.missed = missed;
+    }
+
+    public long getCheckIns() {
+        return checkIns;
+    }
+
+    public void setCheckIns(long checkIns) {
+        this.checkIns = checkIns;
+    }
+
+    public long getCheckOuts() {
+        return checkOuts;
+    }
+
+    public void setCheckOuts(long checkOuts) {
+        this.checkOuts = checkOuts;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public void setComplete(boolean complete) {
+        this.complete = complete;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    public Date getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Date updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @Override
+    public String toString() {
+        return id + "{onTime=" + onTime + ", late=" + late + ", missed=" + missed +
+                ", checkIns=" + checkIns + ", checkOuts=" + checkOuts + "}";
+    }
+}
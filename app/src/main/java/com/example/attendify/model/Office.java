@@ -6,6 +6,9 @@ import android.os.Parcelable;
 import com.google.firebase.firestore.Exclude;
 
 public class Office implements Parcelable {
+    // Fence radius for offices with neither a check-in radius nor a geofence radius set
+    public static final float DEFAULT_FENCE_RADIUS_METERS = 100;
+
     private String id;
     private String name;
     private String address;
@@ -19,6 +22,7 @@ public class Office implements Parcelable {
     private int endMinute;
     private int checkInRadius;
     private int stability;
+    private String timeZone; // IANA id such as "Europe/Berlin"; null means the device zone
 
     // Required empty constructor for Firestore
     public Office() {
@@ -47,6 +51,7 @@ public class Office implements Parcelable {
         endMinute = in.readInt();
         checkInRadius = in.readInt();
         stability = in.readInt();
+        timeZone = in.readString();
     }
 
     @Override
@@ -64,6 +69,7 @@ public class Office implements Parcelable {
         dest.writeInt(endMinute);
         dest.writeInt(checkInRadius);
         dest.writeInt(stability);
+        dest.writeString(timeZone);
     }
 
     @Override
@@ -132,6 +138,18 @@ public class Office implements Parcelable {
         this.radius = radius;
     }
 
+    /**
+     * Radius of the office's fence, used for every inside/outside decision: the check-in
+     * radius when set, else the geofence radius, else {@link #DEFAULT_FENCE_RADIUS_METERS}
+     */
+    @Exclude
+    public float getFenceRadius() {
+        if (checkInRadius > 0) {
+            return checkInRadius;
+        }
+        return radius > 0 ? (float) radius : DEFAULT_FENCE_RADIUS_METERS;
+    }
+
     public String getEntryTime() {
         return entryTime;
     }
@@ -180,6 +198,17 @@ public class Office implements Parcelable {
         this.stability = stability;
     }
 
+    /**
+     * @return Time zone the office's attendance days follow, or null for the device zone
+     */
+    public String getTimeZone() {
+        return timeZone;
+    }
+
+    public void setTimeZone(String timeZone) {
+        this.timeZone = timeZone;
+    }
+
     public int getCheckInRadius() {
         return checkInRadius;
     }
@@ -204,6 +233,7 @@ public class Office implements Parcelable {
                 (id == null ? office.id == null : id.equals(office.id)) &&
                 (name == null ? office.name == null : name.equals(office.name)) &&
                 (address == null ? office.address == null : address.equals(office.address)) &&
-                (entryTime == null ? office.entryTime == null : entryTime.equals(office.entryTime));
+                (entryTime == null ? office.entryTime == null : entryTime.equals(office.entryTime)) &&
+                (timeZone == null ? office.timeZone == null : timeZone.equals(office.timeZone));
     }
 }
\ No newline at end of file
@@ -7,8 +7,15 @@ import java.util.Map;
 /**
  * User model class representing a user in the system.
  * Can be either an admin or an employee.
+ *
+ * This is the only user model. Documents written before {@link #SCHEMA_VERSION} used other
+ * field names (fullName, office, department, team, manager, isActive, epoch-millis dates);
+ * UserSchemaMigrationWorker rewrites them, and the codec still reads them until it has.
  */
 public class User {
+    // Version of the field layout toMap() writes
+    public static final int SCHEMA_VERSION = 2;
+
     private String uid;
     private String email;
     private String name;
@@ -27,6 +34,7 @@ public class User {
     private Date lastLogin; // Track last login time
     private String managerId; // ID of the user's manager
     private boolean isManager; // Flag if user manages anyone
+    private int schemaVersion = SCHEMA_VERSION;
 
     // Required empty constructor for Firestore
     public User() {
@@ -99,6 +107,7 @@ public class User {
         map.put("isManager", isManager);
         if (createdAt != null) map.put("createdAt", createdAt);
         if (lastLogin != null) map.put("lastLogin", lastLogin);
+        map.put("schemaVersion", SCHEMA_VERSION);
         return map;
     }
 
@@ -246,6 +255,17 @@ public class User {
         this.active = active;
     }
 
+    /**
+     * @return Field layout the user was stored with; below SCHEMA_VERSION until migrated
+     */
+    public int getSchemaVersion() {
+        return schemaVersion;
+    }
+
+    public void setSchemaVersion(int schemaVersion) {
+        this.schemaVersion = schemaVersion;
+    }
+
     public Map<String, Double> getLocation() {
         return location;
     }
@@ -0,0 +1,317 @@
+package com.example.attendify.repository;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+
+import com.example.attendify.model.Attendance;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Durable local queue of check-ins and check-outs waiting to be written to Firestore.
+ *
+ * Every operation is appended as its own row, so enqueueing and marking a record synced
+ * cost the same no matter how long the device has been offline. Rows are read back in
+ * insertion order, and a check-out is only handed out once every earlier check-in for
+ * the same user and day has been synced. A check-in that fails for good fails the
+ * check-outs queued behind it too, so they do not wait forever.
+ */
+public class AttendanceOutbox extends SQLiteOpenHelper {
+    private static final String TAG = "AttendanceOutbox";
+    private static final String DATABASE_NAME = "attendance_outbox.db";
+    private static final int DATABASE_VERSION = 1;
+
+    public static final String TYPE_CHECK_IN = "check-in";
+    public static final String TYPE_CHECK_OUT = "check-out";
+
+    public static final String STATUS_PENDING = "pending";
+    public static final String STATUS_SYNCED = "synced";
+    public static final String STATUS_FAILED = "failed";
+
+    // After this many failed attempts a record is parked as failed instead of retried forever
+    public static final int MAX_ATTEMPTS = 10;
+
+    private static final String TABLE = "outbox";
+    private static final String COL_ID = "id";
+    private static final String COL_TYPE = "type";
+    private static final String COL_STATUS = "status";
+    private static final String COL_ATTEMPTS = "attempts";
+    private static final String COL_LAST_ERROR = "last_error";
+    private static final String COL_CREATED_AT = "created_at";
+    private static final String COL_USER_ID = "user_id";
+    private static final String COL_USER_NAME = "user_name";
+    private static final String COL_DATE = "date";
+    private static final String COL_CHECK_IN_TIME = "check_in_time";
+    private static final String COL_CHECK_OUT_TIME = "check_out_time";
+    private static final String COL_ATTENDANCE_STATUS = "attendance_status";
+    private static final String COL_OFFICE_ID = "office_id";
+    private static final String COL_OFFICE_NAME = "office_name";
+    private static final String COL_DEPARTMENT_ID = "department_id";
+    private static final String COL_LOCATION_STATUS = "location_status";
+
+    private static volatile AttendanceOutbox instance;
+
+    public static AttendanceOutbox getInstance(Context context) {
+        if (instance == null) {
+            synchronized (AttendanceOutbox.class) {
+                if (instance == null) {
+                    instance = new AttendanceOutbox(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private AttendanceOutbox(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE + " (" +
+                COL_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                COL_TYPE + " TEXT NOT NULL, " +
+                COL_STATUS + " TEXT NOT NULL, " +
+                COL_ATTEMPTS + " INTEGER NOT NULL DEFAULT 0, " +
+                COL_LAST_ERROR + " TEXT, " +
+                COL_CREATED_AT + " INTEGER NOT NULL, " +
+                COL_USER_ID + " TEXT NOT NULL, " +
+                COL_USER_NAME + " TEXT, " +
+                COL_DATE + " TEXT NOT NULL, " +
+                COL_CHECK_IN_TIME + " INTEGER, " +
+                COL_CHECK_OUT_TIME + " INTEGER, " +
+                COL_ATTENDANCE_STATUS + " TEXT, " +
+                COL_OFFICE_ID + " TEXT, " +
+                COL_OFFICE_NAME + " TEXT, " +
+                COL_DEPARTMENT_ID + " TEXT, " +
+                COL_LOCATION_STATUS + " TEXT)");
+        db.execSQL("CREATE INDEX idx_outbox_status ON " + TABLE + " (" + COL_STATUS + ", " + COL_ID + ")");
+        db.execSQL("CREATE INDEX idx_outbox_user_date ON " + TABLE +
+                " (" + COL_USER_ID + ", " + COL_DATE + ", " + COL_TYPE + ", " + COL_STATUS + ")");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Only one schema version so far
+    }
+
+    /**
+     * Appends a check-in to the queue
+     * @return The sequence number of the new row, or -1 on failure
+     */
+    public long enqueueCheckIn(Attendance attendance) {
+        return insert(TYPE_CHECK_IN, attendance);
+    }
+
+    /**
+     * Appends a check-out to the queue; the attendance must carry the check-out time
+     * @return The sequence number of the new row, or -1 on failure
+     */
+    public long enqueueCheckOut(Attendance attendance) {
+        return insert(TYPE_CHECK_OUT, attendance);
+    }
+
+    private long insert(String type, Attendance attendance) {
+        ContentValues values = new ContentValues();
+        values.put(COL_TYPE, type);
+        values.put(COL_STATUS, STATUS_PENDING);
+        values.put(COL_ATTEMPTS, 0);
+        values.put(COL_CREATED_AT, System.currentTimeMillis());
+        values.put(COL_USER_ID, attendance.getUserId());
+        values.put(COL_USER_NAME, attendance.getUserName());
+        values.put(COL_DATE, attendance.getDate());
+        values.put(COL_CHECK_IN_TIME, toMillis(attendance.getCheckInTime()));
+        values.put(COL_CHECK_OUT_TIME, toMillis(attendance.getCheckOutTime()));
+        values.put(COL_ATTENDANCE_STATUS, attendance.getStatus());
+        values.put(COL_OFFICE_ID, attendance.getOfficeId());
+        values.put(COL_OFFICE_NAME, attendance.getOfficeName());
+        values.put(COL_DEPARTMENT_ID, attendance.getDepartmentId());
+        values.put(COL_LOCATION_STATUS, attendance.getLocationStatus());
+
+        long id = getWritableDatabase().insert(TABLE, null, values);
+        Log.d(TAG, "Queued " + type + " #" + id + " for " + attendance.getUserId() + " on " + attendance.getDate());
+        return id;
+    }
+
+    /**
+     * Runs the body in one SQLite transaction, so the rows it queues are either all kept or,
+     * if it throws, none are
+     */
+    public void runInTransaction(Runnable body) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            body.run();
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} pending check-ins, oldest first
+     */
+    public List<Entry> getPendingCheckIns(int limit) {
+        return query(COL_STATUS + " = ? AND " + COL_TYPE + " = ?",
+                new String[]{STATUS_PENDING, TYPE_CHECK_IN}, limit);
+    }
+
+    /**
+     * Returns up to {@code limit} pending check-outs, oldest first, leaving out any whose
+     * check-in for the same user and day is still queued ahead of it. Check-outs behind a
+     * check-in that failed for good have been failed with it by markFailed().
+     */
+    public List<Entry> getReadyCheckOuts(int limit) {
+        String selection = COL_STATUS + " = ? AND " + COL_TYPE + " = ? AND NOT EXISTS (" +
+                "SELECT 1 FROM " + TABLE + " earlier WHERE " +
+                "earlier." + COL_USER_ID + " = " + TABLE + "." + COL_USER_ID +
+                " AND earlier." + COL_DATE + " = " + TABLE + "." + COL_DATE +
+                " AND earlier." + COL_TYPE + " = '" + TYPE_CHECK_IN + "'" +
+                " AND earlier." + COL_STATUS + " = '" + STATUS_PENDING + "'" +
+                " AND earlier." + COL_ID + " < " + TABLE + "." + COL_ID + ")";
+        return query(selection, new String[]{STATUS_PENDING, TYPE_CHECK_OUT}, limit);
+    }
+
+    private List<Entry> query(String selection, String[] args, int limit) {
+        List<Entry> entries = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(TABLE, null, selection, args,
+                null, null, COL_ID + " ASC", String.valueOf(limit))) {
+            while (cursor.moveToNext()) {
+                entries.add(Entry.fromCursor(cursor));
+            }
+        }
+        return entries;
+    }
+
+    public void markSynced(long id) {
+        ContentValues values = new ContentValues();
+        values.put(COL_STATUS, STATUS_SYNCED);
+        values.putNull(COL_LAST_ERROR);
+        getWritableDatabase().update(TABLE, values, COL_ID + " = ?", new String[]{String.valueOf(id)});
+    }
+
+    /**
+     * @return Whether a check-in for the user and day is still waiting to be synced
+     */
+    public boolean hasPendingCheckIn(String userId, String date) {
+        return DatabaseUtils.queryNumEntries(getReadableDatabase(), TABLE,
+                COL_STATUS + " = ? AND " + COL_TYPE + " = ? AND " + COL_USER_ID + " = ? AND " + COL_DATE + " = ?",
+                new String[]{STATUS_PENDING, TYPE_CHECK_IN, userId, date}) > 0;
+    }
+
+    /**
+     * Records a failed attempt; the row stays pending until it reaches {@link #MAX_ATTEMPTS}.
+     * A check-in that reaches it takes the pending check-outs queued after it for the same
+     * user and day along, as they have no record to close.
+     */
+    public void markFailed(long id, String error) {
+        runInTransaction(() -> {
+            SQLiteDatabase db = getWritableDatabase();
+            db.execSQL("UPDATE " + TABLE + " SET " +
+                            COL_ATTEMPTS + " = " + COL_ATTEMPTS + " + 1, " +
+                            COL_LAST_ERROR + " = ?, " +
+                            COL_STATUS + " = CASE WHEN " + COL_ATTEMPTS + " + 1 >= " + MAX_ATTEMPTS +
+                            " THEN '" + STATUS_FAILED + "' ELSE '" + STATUS_PENDING + "' END" +
+                            " WHERE " + COL_ID + " = ?",
+                    new Object[]{error, id});
+            db.execSQL("UPDATE " + TABLE + " SET " +
+                            COL_STATUS + " = '" + STATUS_FAILED + "', " +
+                            COL_LAST_ERROR + " = ?" +
+                            " WHERE " + COL_STATUS + " = '" + STATUS_PENDING + "'" +
+                            " AND " + COL_TYPE + " = '" + TYPE_CHECK_OUT + "'" +
+                            " AND EXISTS (SELECT 1 FROM " + TABLE + " failed WHERE" +
+                            " failed." + COL_ID + " = ?" +
+                            " AND failed." + COL_TYPE + " = '" + TYPE_CHECK_IN + "'" +
+                            " AND failed." + COL_STATUS + " = '" + STATUS_FAILED + "'" +
+                            " AND failed." + COL_USER_ID + " = " + TABLE + "." + COL_USER_ID +
+                            " AND failed." + COL_DATE + " = " + TABLE + "." + COL_DATE +
+                            " AND failed." + COL_ID + " < " + TABLE + "." + COL_ID + ")",
+                    new Object[]{"Check-in #" + id + " could not be synced: " + error, id});
+        });
+    }
+
+    public long countPending() {
+        return DatabaseUtils.queryNumEntries(getReadableDatabase(), TABLE,
+                COL_STATUS + " = ?", new String[]{STATUS_PENDING});
+    }
+
+    /**
+     * Deletes synced rows; called after a sync run so the table only holds unsent work
+     */
+    public int pruneSynced() {
+        return getWritableDatabase().delete(TABLE, COL_STATUS + " = ?", new String[]{STATUS_SYNCED});
+    }
+
+    private static Long toMillis(Date date) {
+        return date != null ? date.getTime() : null;
+    }
+
+    private static Date toDate(Cursor cursor, String column) {
+        int index = cursor.getColumnIndexOrThrow(column);
+        return cursor.isNull(index) ? null : new Date(cursor.getLong(index));
+    }
+
+    private static String getString(Cursor cursor, String column) {
+        return cursor.getString(cursor.getColumnIndexOrThrow(column));
+    }
+
+    /**
+     * One queued operation together with the attendance it carries
+     */
+    public static class Entry {
+        private final long id;
+        private final String type;
+        private final int attempts;
+        private final Attendance attendance;
+
+        Entry(long id, String type, int attempts, Attendance attendance) {
+            this.id = id;
+            this.type = type;
+            this.attempts = attempts;
+            this.attendance = attendance;
+        }
+
+        static Entry fromCursor(Cursor cursor) {
+            Attendance attendance = new Attendance();
+            attendance.setUserId(getString(cursor, COL_USER_ID));
+            attendance.setUserName(getString(cursor, COL_USER_NAME));
+            attendance.setDate(getString(cursor, COL_DATE));
+            attendance.setCheckInTime(toDate(cursor, COL_CHECK_IN_TIME));
+            attendance.setCheckOutTime(toDate(cursor, COL_CHECK_OUT_TIME));
+            attendance.setStatus(getString(cursor, COL_ATTENDANCE_STATUS));
+            attendance.setOfficeId(getString(cursor, COL_OFFICE_ID));
+            attendance.setOfficeName(getString(cursor, COL_OFFICE_NAME));
+            attendance.setDepartmentId(getString(cursor, COL_DEPARTMENT_ID));
+            attendance.setLocationStatus(getString(cursor, COL_LOCATION_STATUS));
+
+            return new Entry(
+                    cursor.getLong(cursor.getColumnIndexOrThrow(COL_ID)),
+                    getString(cursor, COL_TYPE),
+                    cursor.getInt(cursor.getColumnIndexOrThrow(COL_ATTEMPTS)),
+                    attendance);
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public Attendance getAttendance() {
+            return attendance;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.attendify.repository;
+
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.attendify.model.Attendance;
+import com.example.attendify.repository.codec.Codecs;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.Query;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Loads an ordered attendance query one page at a time with startAfter()/endBefore() cursors.
+ * The query may be split into consecutive segments, such as one query per month of a date
+ * range, which are paged through in order as if they were one query.
+ * At most {@link #MAX_WINDOW_PAGES} pages are held in memory: scrolling down past the window
+ * drops the first page, and scrolling back up reloads it and drops the last one, so memory
+ * and the cost of publishing a page stay bounded however far the user scrolls.
+ */
+public class AttendancePager {
+    private static final String TAG = "AttendancePager";
+    public static final int DEFAULT_PAGE_SIZE = 30;
+    public static final int MAX_WINDOW_PAGES = 5;
+
+    private final List<Query> segments;
+    private final int pageSize;
+    private final MutableLiveData<List<Attendance>> itemsLiveData = new MutableLiveData<>();
+    private final MutableLiveData<Boolean> loadingLiveData = new MutableLiveData<>(false);
+    private final MutableLiveData<String> errorLiveData = new MutableLiveData<>();
+
+    // Loaded pages in query order
+    private final Deque<Page> window = new ArrayDeque<>();
+    private int windowSize;
+    private boolean loading;
+    private boolean endReached;
+    private boolean cancelled;
+
+    /**
+     * @param query Query with its ordering already applied, without limit or cursor
+     */
+    AttendancePager(Query query, int pageSize) {
+        this(Collections.singletonList(query), pageSize);
+    }
+
+    /**
+     * @param segments Queries with their ordering applied, read one after another
+     */
+    AttendancePager(List<Query> segments, int pageSize) {
+        this.segments = segments;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Creates a pager over records that are already in memory, such as a narrower
+     * range filtered from a complete one
+     */
+    public static AttendancePager of(List<Attendance> items) {
+        AttendancePager pager = new AttendancePager(Collections.emptyList(), DEFAULT_PAGE_SIZE);
+        if (!items.isEmpty()) {
+            pager.window.add(new Page(items));
+            pager.windowSize = items.size();
+        }
+        pager.endReached = true;
+        pager.itemsLiveData.setValue(items);
+        return pager;
+    }
+
+    /**
+     * Records in the current window; a new list is published after every page
+     */
+    public LiveData<List<Attendance>> getItems() {
+        return itemsLiveData;
+    }
+
+    public LiveData<Boolean> getLoading() {
+        return loadingLiveData;
+    }
+
+    public LiveData<String> getErrors() {
+        return errorLiveData;
+    }
+
+    public boolean isEndReached() {
+        return endReached;
+    }
+
+    /**
+     * Whether pages before the window were dropped and can be reloaded with loadPreviousPage()
+     */
+    public boolean hasPrevious() {
+        return !window.isEmpty() && window.peekFirst().hasPrevious;
+    }
+
+    /**
+     * Whether the window holds every record of the query
+     */
+    public boolean isComplete() {
+        return endReached && !hasPrevious();
+    }
+
+    public boolean isLoading() {
+        return loading;
+    }
+
+    /**
+     * Requests the next page; ignored while a page is in flight or after the last one
+     */
+    public void loadNextPage() {
+        if (loading || endReached || cancelled) {
+            return;
+        }
+        startPage();
+
+        Page last = window.peekLast();
+        if (last == null) {
+            loadForward(0, null);
+        } else if (last.segmentEnd) {
+            loadForward(last.segment + 1, null);
+        } else {
+            loadForward(last.segment, last.lastSnapshot);
+        }
+    }
+
+    // Reads the page after the cursor, moving on to the next segment when one runs out
+    private void loadForward(int segment, DocumentSnapshot cursor) {
+        if (segment >= segments.size()) {
+            endReached = true;
+            finishPage();
+            publish();
+            return;
+        }
+        Query page = segments.get(segment).limit(pageSize);
+        if (cursor != null) {
+            page = page.startAfter(cursor);
+        }
+
+        page.get()
+                .addOnSuccessListener(snapshot -> {
+                    if (cancelled) {
+                        return;
+                    }
+                    List<DocumentSnapshot> documents = snapshot.getDocuments();
+                    if (documents.isEmpty()) {
+                        loadForward(segment + 1, null);
+                        return;
+                    }
+                    boolean segmentEnd = documents.size() < pageSize;
+                    window.addLast(new Page(documents, segment, segmentEnd, !window.isEmpty()));
+                    windowSize += documents.size();
+                    if (window.size() > MAX_WINDOW_PAGES) {
+                        windowSize -= window.removeFirst().items.size();
+                    }
+                    endReached = segmentEnd && segment == segments.size() - 1;
+                    finishPage();
+                    publish();
+                })
+                .addOnFailureListener(this::onPageFailed);
+    }
+
+    /**
+     * Reloads the page before the window after it was dropped by loadNextPage()
+     */
+    public void loadPreviousPage() {
+        if (loading || cancelled || !hasPrevious()) {
+            return;
+        }
+        startPage();
+
+        Page first = window.peekFirst();
+        loadBackward(first, first.segment, first.firstSnapshot);
+    }
+
+    // Reads the page before the cursor, moving back to the previous segment when one runs out
+    private void loadBackward(Page first, int segment, DocumentSnapshot cursor) {
+        if (segment < 0) {
+            first.hasPrevious = false;
+            finishPage();
+            publish();
+            return;
+        }
+        Query page = segments.get(segment);
+        if (cursor != null) {
+            page = page.endBefore(cursor);
+        }
+
+        page.limitToLast(pageSize).get()
+                .addOnSuccessListener(snapshot -> {
+                    if (cancelled) {
+                        return;
+                    }
+                    List<DocumentSnapshot> documents = snapshot.getDocuments();
+                    if (documents.isEmpty()) {
+                        loadBackward(first, segment - 1, null);
+                        return;
+                    }
+                    boolean hasPrevious = documents.size() == pageSize || segment > 0;
+                    window.addFirst(new Page(documents, segment, segment != first.segment, hasPrevious));
+                    windowSize += documents.size();
+                    if (window.size() > MAX_WINDOW_PAGES) {
+                        windowSize -= window.removeLast().items.size();
+                        endReached = false;
+                    }
+                    finishPage();
+                    publish();
+                })
+                .addOnFailureListener(this::onPageFailed);
+    }
+
+    /**
+     * Stops delivering results; used when the selection changes and a new pager replaces this one
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    private void onPageFailed(Exception e) {
+        if (cancelled) {
+            return;
+        }
+        Log.e(TAG, "Error loading attendance page", e);
+        finishPage();
+        if (window.isEmpty()) {
+            itemsLiveData.setValue(Collections.emptyList());
+        }
+        errorLiveData.setValue("Failed to load attendance records: " + e.getMessage());
+    }
+
+    // ListAdapter needs a new list instance; the copy is bounded by the window size
+    private void publish() {
+        List<Attendance> items = new ArrayList<>(windowSize);
+        for (Page page : window) {
+            items.addAll(page.items);
+        }
+        itemsLiveData.setValue(items);
+    }
+
+    private void startPage() {
+        loading = true;
+        loadingLiveData.setValue(true);
+    }
+
+    private void finishPage() {
+        loading = false;
+        loadingLiveData.setValue(false);
+    }
+
+    private static class Page {
+        final List<Attendance> items;
+        final int segment;
+        // Whether the segment has no records after this page
+        final boolean segmentEnd;
+        final DocumentSnapshot firstSnapshot;
+        final DocumentSnapshot lastSnapshot;
+        boolean hasPrevious;
+
+        Page(List<DocumentSnapshot> documents, int segment, boolean segmentEnd, boolean hasPrevious) {
+            items = new ArrayList<>(documents.size());
+            for (DocumentSnapshot document : documents) {
+                Attendance attendance = Codecs.decode(document, Codecs.ATTENDANCE);
+                if (attendance != null) {
+                    items.add(attendance);
+                }
+            }
+            this.segment = segment;
+            this.segmentEnd = segmentEnd;
+            firstSnapshot = documents.get(0);
+            lastSnapshot = documents.get(documents.size() - 1);
+            this.hasPrevious = hasPrevious;
+        }
+
+        // A page of records already in memory, with nothing before or after it
+        Page(List<Attendance> items) {
+            this.items = items;
+            segment = 0;
+            segmentEnd = true;
+            firstSnapshot = null;
+            lastSnapshot = null;
+            hasPrevious = false;
+        }
+    }
+}
@@ -2,29 +2,46 @@ package com.example.attendify.repository;
 
 import android.content.Context;
 import android.util.Log;
-import androidx.lifecycle.LiveData;
-import androidx.lifecycle.MutableLiveData;
 
+import com.example.attendify.export.AttendancePageSource;
 import com.example.attendify.model.Attendance;
+import com.example.attendify.model.AttendanceRollup;
+import com.example.attendify.model.Office;
+import com.example.attendify.model.User;
+import com.example.attendify.repository.codec.Codecs;
+import com.example.attendify.util.AttendanceCalendar;
+import com.example.attendify.util.SortedMerge;
+import com.example.attendify.utils.NetworkUtils;
+import com.example.attendify.worker.AttendanceSyncWorker;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.AggregateQuerySnapshot;
+import com.google.firebase.firestore.AggregateSource;
 import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.FirebaseFirestoreSettings;
+import com.google.firebase.firestore.FirebaseFirestoreException;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.WriteBatch;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
-import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import androidx.work.BackoffPolicy;
 import androidx.work.Constraints;
 import androidx.work.Data;
 import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.ExistingWorkPolicy;
 import androidx.work.OneTimeWorkRequest;
 import androidx.work.PeriodicWorkRequest;
 import androidx.work.WorkInfo;
@@ -34,8 +51,26 @@ import androidx.work.NetworkType;
 public class AttendanceRepository {
     private static final String TAG = "AttendanceRepository";
     private static final String ATTENDANCE_COLLECTION = "attendance";
+    static final Comparator<Attendance> NEWEST_CHECK_IN_FIRST = Comparator.comparing(
+            Attendance::getCheckInTime, Comparator.nullsLast(Comparator.reverseOrder()));
+    // How long to keep fanning out before trying the collection-group query again
+    static final long INDEX_RETRY_MS = TimeUnit.MINUTES.toMillis(15);
+    // Extreme UTC offsets, UTC-12 and UTC+14, for ranges not tied to one office's zone
+    private static final long MAX_WEST_OFFSET_MS = TimeUnit.HOURS.toMillis(12);
+    private static final long MAX_EAST_OFFSET_MS = TimeUnit.HOURS.toMillis(14);
     private final FirebaseFirestore firestore;
     private final FirebaseAuth auth;
+
+    // Day whose "All Offices" collection-group index was last found missing, and when
+    private String allOfficesIndexMissingDate;
+    private long allOfficesIndexMissingAt;
+    private OfficeFanOut activeLiveFanOut;
+
+    // Set by setupOfflineSync() from AttendifyApplication
+    private Context appContext;
+    private AttendanceOutbox outbox;
+    // SQLite writes to the outbox stay off the main thread
+    private final Executor outboxExecutor = Executors.newSingleThreadExecutor();
     
     // Singleton instance
     private static AttendanceRepository instance;
@@ -48,78 +83,227 @@ public class AttendanceRepository {
     }
     
     private AttendanceRepository() {
-        firestore = FirebaseFirestore.getInstance();
-        auth = FirebaseAuth.getInstance();
+        this(FirebaseFirestore.getInstance(), FirebaseAuth.getInstance());
+    }
+    
+    // Lets local tests override the reads with fakes; the app only uses getInstance()
+    protected AttendanceRepository(FirebaseFirestore firestore, FirebaseAuth auth) {
+        this.firestore = firestore;
+        this.auth = auth;
     }
     
     // Record check-in
-    public MutableLiveData<Boolean> recordCheckIn(Attendance attendance) {
-        MutableLiveData<Boolean> resultLiveData = new MutableLiveData<>();
+    public Task<Boolean> recordCheckIn(Attendance attendance) {
+        TaskCompletionSource<Boolean> result = new TaskCompletionSource<>();
         
-        firestore.collection(ATTENDANCE_COLLECTION)
+        commitCheckIn(attendance)
+                .addOnSuccessListener(aVoid -> result.setResult(true))
+                .addOnFailureListener(e -> result.setResult(false));
+        
+        return result.getTask();
+    }
+
+    /**
+     * Records a check-in. The day's record lives under a fixed document ID, so online one
+     * transaction (a read and a commit) both rejects a second check-in for the same day and
+     * writes the record together with its rollup increments. Offline the record is queued in
+     * the outbox instead, and the sync worker writes it under the same ID once back online.
+     * @return Task that fails with ALREADY_EXISTS if the user has already checked in that day,
+     * or with the cause if the check-in could neither be written nor queued
+     */
+    public Task<Void> checkInForDay(Attendance attendance) {
+        return commitCheckIn(attendance);
+    }
+
+    /**
+     * Builds the record for a check-in, keyed on the day in the office's time zone. The user
+     * and the office are fetched in parallel, the office normally from the shared office
+     * cache without a network read; a failed or missing lookup only leaves the name out.
+     * @return Task with the record to pass to checkInForDay(); it never fails
+     */
+    public Task<Attendance> prepareCheckIn(String userId, String officeId, String status, Date checkInTime) {
+        Task<DocumentSnapshot> userTask = orNull(firestore.collection("users").document(userId).get());
+        Task<Office> officeTask = officeId != null
+                ? orNull(OfficeRepository.getInstance().getOffice(officeId))
+                : Tasks.forResult(null);
+
+        return Tasks.whenAll(userTask, officeTask).continueWith(task -> {
+            Office office = officeTask.getResult();
+            String date = AttendanceCalendar.forOffice(office).dayKey(checkInTime);
+            Attendance attendance = new Attendance(userId, date, checkInTime, status, officeId);
+
+            DocumentSnapshot userSnapshot = userTask.getResult();
+            if (userSnapshot != null && userSnapshot.exists()) {
+                attendance.setUserName(userSnapshot.getString("name"));
+                attendance.setDepartmentId(userSnapshot.getString("departmentId"));
+            }
+            if (office != null) {
+                attendance.setOfficeName(office.getName());
+            }
+            return attendance;
+        });
+    }
+
+    // Turns a failed lookup into a null result so it does not fail the whole check-in
+    private static <T> Task<T> orNull(Task<T> task) {
+        return task.continueWith(t -> t.isSuccessful() ? t.getResult() : null);
+    }
+
+    /**
+     * @return Whether a check-in failed because the user had already checked in that day
+     */
+    public static boolean isAlreadyCheckedIn(Exception e) {
+        return e instanceof FirebaseFirestoreException &&
+                ((FirebaseFirestoreException) e).getCode() == FirebaseFirestoreException.Code.ALREADY_EXISTS;
+    }
+
+    // Creates the day's check-in record and its rollup increments atomically, or queues
+    // the check-in when Firestore cannot be reached, as a transaction needs the server
+    private Task<Void> commitCheckIn(Attendance attendance) {
+        if (appContext != null && !NetworkUtils.isNetworkAvailable(appContext)) {
+            return saveAttendanceLocally(attendance);
+        }
+
+        DocumentReference reference = firestore.collection(ATTENDANCE_COLLECTION)
                 .document(attendance.getUserId())
                 .collection(attendance.getDate())
-                .add(attendance.toMap())
-                .addOnSuccessListener(documentReference -> resultLiveData.setValue(true))
-                .addOnFailureListener(e -> resultLiveData.setValue(false));
-        
-        return resultLiveData;
+                .document(Attendance.dayRecordId(attendance.getUserId(), attendance.getDate()));
+        Task<Void> committed = firestore.runTransaction(transaction -> {
+            if (transaction.get(reference).exists()) {
+                throw new FirebaseFirestoreException("Already checked in on " + attendance.getDate(),
+                        FirebaseFirestoreException.Code.ALREADY_EXISTS);
+            }
+            transaction.set(reference, attendance.toMap());
+            RollupRepository.applyCheckIn(firestore, transaction, attendance);
+            return null;
+        });
+        return committed.continueWithTask(task -> {
+            if (task.isSuccessful() || !isUnavailable(task.getException())) {
+                return task;
+            }
+            // Connected, but the server could not be reached
+            Log.w(TAG, "Check-in transaction failed offline, queueing it", task.getException());
+            return saveAttendanceLocally(attendance);
+        });
+    }
+
+    private static boolean isUnavailable(Exception e) {
+        return e instanceof FirebaseFirestoreException &&
+                ((FirebaseFirestoreException) e).getCode() == FirebaseFirestoreException.Code.UNAVAILABLE;
+    }
+
+    // Writes the check-out time and its rollup increments atomically
+    private Task<Void> commitCheckOut(DocumentSnapshot document, Date checkOutTime) {
+        WriteBatch batch = firestore.batch();
+        batch.update(document.getReference(), "checkOutTime", checkOutTime);
+        Attendance attendance = Codecs.decode(document, Codecs.ATTENDANCE);
+        // Only the first check-out of a record counts towards the rollups
+        if (attendance != null && attendance.getCheckOutTime() == null) {
+            RollupRepository.applyCheckOut(firestore, batch, attendance);
+        }
+        return batch.commit();
     }
     
-    // Record check-out
-    public MutableLiveData<Boolean> recordCheckOut(String userId) {
-        MutableLiveData<Boolean> resultLiveData = new MutableLiveData<>();
-        
-        // Get current date
-        String currentDate = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date());
-        Date checkOutTime = new Date();
-        
-        firestore.collection(ATTENDANCE_COLLECTION)
+    /**
+     * Closes the user's record for the day. Offline, when the server cannot be reached, or
+     * while the day's check-in is itself still queued, the check-out is queued in the outbox
+     * instead, and the sync worker applies it once that check-in has been written.
+     * @return Task that fails with NOT_FOUND if there is no check-in to close, or with the
+     * cause if the check-out could neither be written nor queued
+     */
+    private Task<Void> commitCheckOutForDay(String userId, String date, Date checkOutTime) {
+        Attendance checkOut = new Attendance();
+        checkOut.setUserId(userId);
+        checkOut.setDate(date);
+        checkOut.setCheckOutTime(checkOutTime);
+
+        if (appContext != null && !NetworkUtils.isNetworkAvailable(appContext)) {
+            return saveCheckOutLocally(checkOut);
+        }
+
+        return firestore.collection(ATTENDANCE_COLLECTION)
                 .document(userId)
-                .collection(currentDate)
+                .collection(date)
                 .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    if (!queryDocumentSnapshots.isEmpty()) {
-                        QueryDocumentSnapshot document = (QueryDocumentSnapshot) queryDocumentSnapshots.getDocuments().get(0);
-                        document.getReference()
-                                .update("checkOutTime", checkOutTime)
-                                .addOnSuccessListener(aVoid -> resultLiveData.setValue(true))
-                                .addOnFailureListener(e -> resultLiveData.setValue(false));
-                    } else {
-                        resultLiveData.setValue(false);
+                .continueWithTask(lookup -> {
+                    if (!lookup.isSuccessful()) {
+                        if (isUnavailable(lookup.getException())) {
+                            Log.w(TAG, "Check-in record lookup failed offline, queueing check-out", lookup.getException());
+                            return saveCheckOutLocally(checkOut);
+                        }
+                        return Tasks.<Void>forException(lookup.getException());
                     }
-                })
-                .addOnFailureListener(e -> resultLiveData.setValue(false));
+                    if (lookup.getResult().isEmpty()) {
+                        // The check-in may still be waiting in the outbox
+                        return hasQueuedCheckIn(userId, date).continueWithTask(queued -> {
+                            if (queued.getResult()) {
+                                return saveCheckOutLocally(checkOut);
+                            }
+                            return Tasks.<Void>forException(new FirebaseFirestoreException(
+                                    "No check-in on " + date, FirebaseFirestoreException.Code.NOT_FOUND));
+                        });
+                    }
+
+                    // Get the first record (should only be one per day)
+                    DocumentSnapshot document = lookup.getResult().getDocuments().get(0);
+                    return commitCheckOut(document, checkOutTime).continueWithTask(task -> {
+                        if (task.isSuccessful() || !isUnavailable(task.getException())) {
+                            return task;
+                        }
+                        Log.w(TAG, "Check-out failed offline, queueing it", task.getException());
+                        return saveCheckOutLocally(checkOut);
+                    });
+                });
+    }
+
+    private Task<Boolean> hasQueuedCheckIn(String userId, String date) {
+        AttendanceOutbox queue = outbox;
+        if (queue == null) {
+            return Tasks.forResult(false);
+        }
+        return Tasks.call(outboxExecutor, () -> queue.hasPendingCheckIn(userId, date));
+    }
+    
+    // Record check-out
+    public Task<Boolean> recordCheckOut(String userId) {
+        TaskCompletionSource<Boolean> result = new TaskCompletionSource<>();
+        Date checkOutTime = new Date();
+        
+        // Today in the time zone of the user's office
+        getUserCalendar(userId).addOnSuccessListener(calendar ->
+                commitCheckOutForDay(userId, calendar.dayKey(checkOutTime), checkOutTime)
+                        .addOnSuccessListener(aVoid -> result.setResult(true))
+                        .addOnFailureListener(e -> result.setResult(false)));
         
-        return resultLiveData;
+        return result.getTask();
     }
     
     // Get attendance history
-    public MutableLiveData<List<Attendance>> getAttendanceHistory(String userId) {
-        MutableLiveData<List<Attendance>> attendanceLiveData = new MutableLiveData<>();
+    public Task<List<Attendance>> getAttendanceHistory(String userId) {
+        TaskCompletionSource<List<Attendance>> result = new TaskCompletionSource<>();
         
-        firestore.collection(ATTENDANCE_COLLECTION)
+        getUserCalendar(userId).addOnSuccessListener(calendar -> firestore.collection(ATTENDANCE_COLLECTION)
                 .document(userId)
-                .collection(getCurrentMonth())
+                .collection(calendar.currentMonth())
                 .orderBy("checkInTime", Query.Direction.DESCENDING)
                 .get()
                 .addOnSuccessListener(queryDocumentSnapshots -> {
                     List<Attendance> attendanceList = new ArrayList<>();
                     for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        Attendance attendance = document.toObject(Attendance.class);
+                        Attendance attendance = Codecs.decode(document, Codecs.ATTENDANCE);
                         attendanceList.add(attendance);
                     }
-                    attendanceLiveData.setValue(attendanceList);
+                    result.setResult(attendanceList);
                 })
-                .addOnFailureListener(e -> attendanceLiveData.setValue(new ArrayList<>()));
+                .addOnFailureListener(e -> result.setResult(new ArrayList<>())));
         
-        return attendanceLiveData;
+        return result.getTask();
     }
 
     // Get live attendance data for an office
-    public MutableLiveData<List<Attendance>> getLiveAttendance(String officeId) {
-        MutableLiveData<List<Attendance>> attendanceLiveData = new MutableLiveData<>();
-        String currentDate = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date());
+    public Task<List<Attendance>> getLiveAttendance(String officeId) {
+        TaskCompletionSource<List<Attendance>> result = new TaskCompletionSource<>();
+        String currentDate = officeCalendar(officeId).today();
 
         try {
             if (officeId != null) {
@@ -132,96 +316,186 @@ public class AttendanceRepository {
                 .addOnSuccessListener(queryDocumentSnapshots -> {
                     List<Attendance> attendanceList = new ArrayList<>();
                     for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        Attendance attendance = document.toObject(Attendance.class);
+                        Attendance attendance = Codecs.decode(document, Codecs.ATTENDANCE);
                         attendanceList.add(attendance);
                     }
                          Log.d(TAG, "Loaded " + attendanceList.size() + " attendance records for office " + officeId);
-                    attendanceLiveData.setValue(attendanceList);
+                    result.setResult(attendanceList);
                 })
                      .addOnFailureListener(e -> {
                          Log.e(TAG, "Error loading attendance data for office " + officeId, e);
-                         attendanceLiveData.setValue(new ArrayList<>());
+                         result.setResult(new ArrayList<>());
                      });
             } else {
-                // Fallback approach for "All Offices" - get active offices first, then query each
-                Log.d(TAG, "Using fallback method for All Offices view (requires Firestore index in production)");
-                
-                // First retrieve all offices
-                firestore.collection("offices")
-                        .get()
-                        .addOnSuccessListener(officeSnapshots -> {
-                            // Track completion of all queries
-                            final int[] pendingQueries = {officeSnapshots.size()};
-                            final List<Attendance> combinedAttendance = new ArrayList<>();
-                            
-                            if (officeSnapshots.isEmpty()) {
-                                // No offices, return empty list
-                                attendanceLiveData.setValue(combinedAttendance);
-                                return;
-                            }
-                            
-                            // For each office, get its attendance records
-                            for (QueryDocumentSnapshot officeDoc : officeSnapshots) {
-                                String currentOfficeId = officeDoc.getId();
-                                
-                                firestore.collectionGroup(currentDate)
-                                        .whereEqualTo("officeId", currentOfficeId)
-                                        .orderBy("checkInTime", Query.Direction.DESCENDING)
-                                        .get()
-                                        .addOnSuccessListener(attendanceSnapshots -> {
-                                            // Add these records to our combined list
-                                            for (QueryDocumentSnapshot doc : attendanceSnapshots) {
-                                                Attendance attendance = doc.toObject(Attendance.class);
-                                                combinedAttendance.add(attendance);
-                                            }
-                                            
-                                            // Check if all queries are complete
-                                            pendingQueries[0]--;
-                                            if (pendingQueries[0] <= 0) {
-                                                // Sort combined results by check-in time (newest first)
-                                                combinedAttendance.sort((a1, a2) -> 
-                                                    a2.getCheckInTime().compareTo(a1.getCheckInTime()));
-                                                    
-                                                Log.d(TAG, "Loaded " + combinedAttendance.size() + 
-                                                      " total attendance records across all offices");
-                                                attendanceLiveData.setValue(combinedAttendance);
-                                            }
-                                        })
-                                        .addOnFailureListener(e -> {
-                                            Log.e(TAG, "Error getting attendance for office " + 
-                                                  currentOfficeId, e);
-                                            
-                                            // Still count this as completed
-                                            pendingQueries[0]--;
-                                            if (pendingQueries[0] <= 0) {
-                                                // Return whatever we have so far
-                                                combinedAttendance.sort((a1, a2) -> 
-                                                    a2.getCheckInTime().compareTo(a1.getCheckInTime()));
-                                                attendanceLiveData.setValue(combinedAttendance);
-                                            }
-                                        });
-                            }
-                        })
-                        .addOnFailureListener(e -> {
-                            Log.e(TAG, "Error retrieving offices for All Offices view", e);
-                            attendanceLiveData.setValue(new ArrayList<>());
-                        });
+                loadAllOfficesLiveAttendance(currentDate, result);
             }
         } catch (Exception e) {
             Log.e(TAG, "Error in getLiveAttendance", e);
-            attendanceLiveData.setValue(new ArrayList<>());
+            result.setResult(new ArrayList<>());
         }
 
-        return attendanceLiveData;
+        return result.getTask();
     }
-    
+
+    /**
+     * Loads today's attendance across all offices with a single collection-group query.
+     * If the index for that query is missing, falls back to a bounded per-office fan-out
+     * whose already-sorted results are k-way merged instead of re-sorted.
+     */
+    private void loadAllOfficesLiveAttendance(String currentDate, TaskCompletionSource<List<Attendance>> result) {
+        // A newer refresh supersedes any fan-out still running
+        if (activeLiveFanOut != null) {
+            activeLiveFanOut.cancel();
+            activeLiveFanOut = null;
+        }
+
+        if (isAllOfficesIndexMissing(currentDate)) {
+            loadAllOfficesLiveAttendanceFanOut(currentDate, result);
+            return;
+        }
+
+        long startedAt = System.currentTimeMillis();
+        firestore.collectionGroup(currentDate)
+                .orderBy("checkInTime", Query.Direction.DESCENDING)
+                .get()
+                .addOnSuccessListener(queryDocumentSnapshots -> {
+                    List<Attendance> attendanceList = new ArrayList<>(queryDocumentSnapshots.size());
+                    for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
+                        attendanceList.add(Codecs.decode(document, Codecs.ATTENDANCE));
+                    }
+                    Log.d(TAG, "Loaded " + attendanceList.size() + " attendance records across all offices"
+                            + " with 1 query in " + (System.currentTimeMillis() - startedAt) + " ms");
+                    result.setResult(attendanceList);
+                })
+                .addOnFailureListener(e -> {
+                    if (e instanceof FirebaseFirestoreException && ((FirebaseFirestoreException) e).getCode()
+                            == FirebaseFirestoreException.Code.FAILED_PRECONDITION) {
+                        // Collection-group index not deployed for this day, remember and fan out
+                        Log.w(TAG, "All Offices index missing, falling back to per-office queries", e);
+                        markAllOfficesIndexMissing(currentDate);
+                        loadAllOfficesLiveAttendanceFanOut(currentDate, result);
+                    } else {
+                        Log.e(TAG, "Error loading attendance data for all offices", e);
+                        result.setResult(new ArrayList<>());
+                    }
+                });
+    }
+
+    // Each day is its own collection group, so a missing index only holds for that day, and
+    // is retried after a while in case it has been deployed since
+    private boolean isAllOfficesIndexMissing(String currentDate) {
+        return currentDate.equals(allOfficesIndexMissingDate)
+                && System.currentTimeMillis() - allOfficesIndexMissingAt < INDEX_RETRY_MS;
+    }
+
+    private void markAllOfficesIndexMissing(String currentDate) {
+        allOfficesIndexMissingDate = currentDate;
+        allOfficesIndexMissingAt = System.currentTimeMillis();
+    }
+
+    // Needs only the per-office index, which is deployed with the office
+    private Query officeDayQuery(String currentDate, String officeId) {
+        return firestore.collectionGroup(currentDate)
+                .whereEqualTo("officeId", officeId)
+                .orderBy("checkInTime", Query.Direction.DESCENDING);
+    }
+
+    private void loadAllOfficesLiveAttendanceFanOut(String currentDate,
+                                                    TaskCompletionSource<List<Attendance>> result) {
+        OfficeRepository.getInstance().getOffices()
+                .addOnSuccessListener(offices -> {
+                    List<String> officeIds = new ArrayList<>(offices.size());
+                    for (Office office : offices) {
+                        officeIds.add(office.getId());
+                    }
+
+                    OfficeFanOut fanOut = new OfficeFanOut(officeIds,
+                            officeId -> officeDayQuery(currentDate, officeId),
+                            perOffice -> {
+                                List<Attendance> combinedAttendance = SortedMerge.merge(perOffice, NEWEST_CHECK_IN_FIRST);
+                                Log.d(TAG, "Loaded " + combinedAttendance.size() +
+                                      " total attendance records across " + officeIds.size() + " offices");
+                                activeLiveFanOut = null;
+                                result.setResult(combinedAttendance);
+                            });
+                    activeLiveFanOut = fanOut;
+                    fanOut.start();
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error retrieving offices for All Offices view", e);
+                    result.setResult(new ArrayList<>());
+                });
+    }
+
+    /**
+     * Creates a live stream of today's attendance backed by a snapshot listener.
+     * The caller owns the stream and must start() and stop() it with its lifecycle.
+     * An All Offices stream falls back to per-office listeners while its index is missing.
+     *
+     * @param officeId Office to watch, or null for all offices
+     * @return A stream that is not yet attached
+     */
+    public LiveAttendanceStream createLiveAttendanceStream(String officeId) {
+        String currentDate = officeCalendar(officeId).today();
+
+        if (officeId != null) {
+            return new LiveAttendanceStream(officeDayQuery(currentDate, officeId),
+                    "office " + officeId + " on " + currentDate, null);
+        }
+
+        Query query = firestore.collectionGroup(currentDate)
+                .orderBy("checkInTime", Query.Direction.DESCENDING);
+        return new LiveAttendanceStream(query, "all offices on " + currentDate,
+                new LiveAttendanceStream.IndexFallback() {
+                    @Override
+                    public boolean isIndexMissing() {
+                        return isAllOfficesIndexMissing(currentDate);
+                    }
+
+                    @Override
+                    public void onIndexMissing() {
+                        markAllOfficesIndexMissing(currentDate);
+                    }
+
+                    @Override
+                    public Task<List<Query>> officeQueries() {
+                        return OfficeRepository.getInstance().getOffices().continueWith(task -> {
+                            List<Query> queries = new ArrayList<>();
+                            for (Office office : task.getResult()) {
+                                queries.add(officeDayQuery(currentDate, office.getId()));
+                            }
+                            return queries;
+                        });
+                    }
+                });
+    }
+
     // Get monthly summary
-    public MutableLiveData<AttendanceSummary> getMonthlySummary(String userId) {
-        MutableLiveData<AttendanceSummary> summaryLiveData = new MutableLiveData<>();
+    public Task<AttendanceSummary> getMonthlySummary(String userId) {
+        TaskCompletionSource<AttendanceSummary> result = new TaskCompletionSource<>();
+        
+        // Read the user-month rollup, fall back to counting raw records until the month is complete
+        getUserCalendar(userId).addOnSuccessListener(calendar -> {
+            String yearMonth = calendar.currentMonth();
+            RollupRepository.getInstance().fetchRollup(AttendanceRollup.SCOPE_USER, userId, yearMonth)
+                    .addOnSuccessListener(rollup -> {
+                        if (rollup != null) {
+                            result.setResult(toSummary(rollup));
+                        } else {
+                            loadMonthlySummaryFromRecords(userId, yearMonth, result);
+                        }
+                    })
+                    .addOnFailureListener(e -> loadMonthlySummaryFromRecords(userId, yearMonth, result));
+        });
         
+        return result.getTask();
+    }
+
+    private void loadMonthlySummaryFromRecords(String userId, String yearMonth,
+                                               TaskCompletionSource<AttendanceSummary> result) {
         firestore.collection(ATTENDANCE_COLLECTION)
                 .document(userId)
-                .collection(getCurrentMonth())
+                .collection(yearMonth)
                 .get()
                 .addOnSuccessListener(queryDocumentSnapshots -> {
                     int onTime = 0;
@@ -229,7 +503,7 @@ public class AttendanceRepository {
                     int missed = 0;
                     
                     for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        Attendance attendance = document.toObject(Attendance.class);
+                        Attendance attendance = Codecs.decode(document, Codecs.ATTENDANCE);
                         switch (attendance.getStatus()) {
                             case "OnTime":
                                 onTime++;
@@ -243,18 +517,103 @@ public class AttendanceRepository {
                         }
                     }
                     
-                    summaryLiveData.setValue(new AttendanceSummary(onTime, late, missed));
+                    result.setResult(new AttendanceSummary(onTime, late, missed));
                 })
-                .addOnFailureListener(e -> summaryLiveData.setValue(new AttendanceSummary(0, 0, 0)));
-        
-        return summaryLiveData;
+                .addOnFailureListener(e -> result.setResult(new AttendanceSummary(0, 0, 0)));
     }
 
     // Get daily summary for an office
-    public MutableLiveData<AttendanceSummary> getDailySummary(String officeId) {
-        MutableLiveData<AttendanceSummary> summaryLiveData = new MutableLiveData<>();
-        String currentDate = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date());
+    public Task<AttendanceSummary> getDailySummary(String officeId) {
+        TaskCompletionSource<AttendanceSummary> result = new TaskCompletionSource<>();
+        String currentDate = officeCalendar(officeId).today();
 
+        // One office-day rollup document per office; fall back to the raw records until the month is complete
+        Task<AttendanceRollup> rollupTask = officeId != null
+                ? RollupRepository.getInstance().fetchRollup(AttendanceRollup.SCOPE_OFFICE, officeId, currentDate)
+                : RollupRepository.getInstance().fetchOfficeTotal(null, currentDate);
+        rollupTask
+                .addOnSuccessListener(rollup -> {
+                    if (rollup != null) {
+                        result.setResult(toSummary(rollup));
+                    } else {
+                        loadDailySummaryFromRecords(officeId, currentDate, result);
+                    }
+                })
+                .addOnFailureListener(e -> loadDailySummaryFromRecords(officeId, currentDate, result));
+
+        return result.getTask();
+    }
+
+    /**
+     * Gets the attendance summary of a month for the reports screen. Complete month rollups
+     * are read when available; otherwise the records are counted with server-side count()
+     * aggregates, so the totals never depend on how many pages the list has loaded.
+     * @param yearMonth The month in yyyy-MM format
+     * @param officeId Optional office ID, null for all offices
+     * @param userId Optional user ID; when set the user's month rollup is used
+     * @return Task with the summary
+     */
+    public Task<AttendanceSummary> getMonthSummary(String yearMonth, String officeId, String userId) {
+        TaskCompletionSource<AttendanceSummary> result = new TaskCompletionSource<>();
+
+        Task<AttendanceRollup> rollupTask = userId != null
+                ? RollupRepository.getInstance().fetchRollup(AttendanceRollup.SCOPE_USER, userId, yearMonth)
+                : RollupRepository.getInstance().fetchOfficeTotal(officeId, yearMonth);
+        Query filter = userId != null ? monthHistoryFilter(userId, yearMonth) : monthFilter(yearMonth, officeId);
+        rollupTask
+                .addOnSuccessListener(rollup -> {
+                    if (rollup != null) {
+                        result.setResult(toSummary(rollup));
+                    } else {
+                        countSummary(Collections.singletonList(filter), result);
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error loading rollup summary for " + yearMonth, e);
+                    countSummary(Collections.singletonList(filter), result);
+                });
+
+        return result.getTask();
+    }
+
+    /**
+     * Gets the attendance summary of a check-in time range with server-side count() aggregates
+     * @see #createRangePager(Date, Date, String, String)
+     */
+    public Task<AttendanceSummary> getRangeSummary(Date start, Date end, String officeId, String userId) {
+        TaskCompletionSource<AttendanceSummary> result = new TaskCompletionSource<>();
+        countSummary(rangeFilters(start, end, officeId, userId), result);
+        return result.getTask();
+    }
+
+    // One count() per status and query; each aggregate is billed as one read per 1000 records
+    private void countSummary(List<Query> filters, TaskCompletionSource<AttendanceSummary> result) {
+        List<Task<AggregateQuerySnapshot>> counts = new ArrayList<>(filters.size() * 3);
+        for (Query filter : filters) {
+            counts.add(filter.whereEqualTo("status", "OnTime").count().get(AggregateSource.SERVER));
+            counts.add(filter.whereEqualTo("status", "Late").count().get(AggregateSource.SERVER));
+            counts.add(filter.whereEqualTo("status", "Missed").count().get(AggregateSource.SERVER));
+        }
+        Tasks.whenAllSuccess(counts)
+                .addOnSuccessListener(snapshots -> {
+                    long[] totals = new long[3];
+                    for (int i = 0; i < snapshots.size(); i++) {
+                        totals[i % 3] += ((AggregateQuerySnapshot) snapshots.get(i)).getCount();
+                    }
+                    result.setResult(new AttendanceSummary((int) totals[0], (int) totals[1], (int) totals[2]));
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error counting attendance summary", e);
+                    result.setResult(null);
+                });
+    }
+
+    private static AttendanceSummary toSummary(AttendanceRollup rollup) {
+        return new AttendanceSummary((int) rollup.getOnTime(), (int) rollup.getLate(), (int) rollup.getMissed());
+    }
+
+    private void loadDailySummaryFromRecords(String officeId, String currentDate,
+                                             TaskCompletionSource<AttendanceSummary> result) {
         try {
             if (officeId != null) {
                 // Query for a specific office - doesn't require a collection group index
@@ -267,7 +626,7 @@ public class AttendanceRepository {
                     int missed = 0;
 
                     for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        Attendance attendance = document.toObject(Attendance.class);
+                        Attendance attendance = Codecs.decode(document, Codecs.ATTENDANCE);
                         switch (attendance.getStatus()) {
                             case "OnTime":
                                 onTime++;
@@ -283,96 +642,68 @@ public class AttendanceRepository {
 
                             Log.d(TAG, "Daily summary for office " + officeId + 
                                   ": OnTime=" + onTime + ", Late=" + late + ", Missed=" + missed);
-                    summaryLiveData.setValue(new AttendanceSummary(onTime, late, missed));
+                    result.setResult(new AttendanceSummary(onTime, late, missed));
                 })
                         .addOnFailureListener(e -> {
                             Log.e(TAG, "Error getting daily summary for office " + officeId, e);
-                            summaryLiveData.setValue(new AttendanceSummary(0, 0, 0));
+                            result.setResult(new AttendanceSummary(0, 0, 0));
                         });
             } else {
-                // Fallback approach for "All Offices" - get active offices first, then query each
-                Log.d(TAG, "Using fallback method for All Offices summary (requires Firestore index in production)");
-                
-                // First retrieve all offices
-                firestore.collection("offices")
+                // A collection-group query without filters or ordering needs no composite index,
+                // so "All Offices" is a single round trip instead of one query per office
+                firestore.collectionGroup(currentDate)
                         .get()
-                        .addOnSuccessListener(officeSnapshots -> {
-                            // Track completion of all queries
-                            final int[] pendingQueries = {officeSnapshots.size()};
-                            final int[] totalOnTime = {0};
-                            final int[] totalLate = {0};
-                            final int[] totalMissed = {0};
-                            
-                            if (officeSnapshots.isEmpty()) {
-                                // No offices, return zeros
-                                summaryLiveData.setValue(new AttendanceSummary(0, 0, 0));
-                                return;
-                            }
-                            
-                            // For each office, get its attendance records
-                            for (QueryDocumentSnapshot officeDoc : officeSnapshots) {
-                                String currentOfficeId = officeDoc.getId();
-                                
-                                firestore.collectionGroup(currentDate)
-                                        .whereEqualTo("officeId", currentOfficeId)
-                                        .get()
-                                        .addOnSuccessListener(attendanceSnapshots -> {
-                                            // Count attendance by status
-                                            for (QueryDocumentSnapshot doc : attendanceSnapshots) {
-                                                Attendance attendance = doc.toObject(Attendance.class);
-                                                switch (attendance.getStatus()) {
-                                                    case "OnTime":
-                                                        totalOnTime[0]++;
-                                                        break;
-                                                    case "Late":
-                                                        totalLate[0]++;
-                                                        break;
-                                                    case "Missed":
-                                                        totalMissed[0]++;
-                                                        break;
-                                                }
-                                            }
-                                            
-                                            // Check if all queries are complete
-                                            pendingQueries[0]--;
-                                            if (pendingQueries[0] <= 0) {
-                                                Log.d(TAG, "Daily summary for all offices: OnTime=" + 
-                                                      totalOnTime[0] + ", Late=" + totalLate[0] + 
-                                                      ", Missed=" + totalMissed[0]);
-                                                summaryLiveData.setValue(new AttendanceSummary(
-                                                    totalOnTime[0], totalLate[0], totalMissed[0]));
-                                            }
-                                        })
-                                        .addOnFailureListener(e -> {
-                                            Log.e(TAG, "Error getting attendance summary for office " + 
-                                                  currentOfficeId, e);
-                                            
-                                            // Still count this as completed
-                                            pendingQueries[0]--;
-                                            if (pendingQueries[0] <= 0) {
-                                                // Return whatever we have so far
-                                                summaryLiveData.setValue(new AttendanceSummary(
-                                                    totalOnTime[0], totalLate[0], totalMissed[0]));
-                                            }
-                                        });
+                        .addOnSuccessListener(queryDocumentSnapshots -> {
+                            int onTime = 0;
+                            int late = 0;
+                            int missed = 0;
+
+                            for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
+                                String status = document.getString("status");
+                                if ("OnTime".equals(status)) {
+                                    onTime++;
+                                } else if ("Late".equals(status)) {
+                                    late++;
+                                } else if ("Missed".equals(status)) {
+                                    missed++;
+                                }
                             }
+
+                            Log.d(TAG, "Daily summary for all offices: OnTime=" + onTime +
+                                  ", Late=" + late + ", Missed=" + missed);
+                            result.setResult(new AttendanceSummary(onTime, late, missed));
                         })
                         .addOnFailureListener(e -> {
-                            Log.e(TAG, "Error retrieving offices for All Offices summary", e);
-                            summaryLiveData.setValue(new AttendanceSummary(0, 0, 0));
+                            Log.e(TAG, "Error getting daily summary for all offices", e);
+                            result.setResult(new AttendanceSummary(0, 0, 0));
                         });
             }
         } catch (Exception e) {
             Log.e(TAG, "Error in getDailySummary", e);
-            summaryLiveData.setValue(new AttendanceSummary(0, 0, 0));
+            result.setResult(new AttendanceSummary(0, 0, 0));
         }
-
-        return summaryLiveData;
     }
     
-    private String getCurrentMonth() {
-        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM", Locale.getDefault());
-        return format.format(new Date());
+    // Day keys of an office follow its time zone when it is in the office directory
+    private static AttendanceCalendar officeCalendar(String officeId) {
+        return AttendanceCalendar.forOffice(OfficeRepository.getInstance().getCachedOffice(officeId));
+    }
+
+    /**
+     * Calendar of the office a user works from, read from their user document and the office
+     * directory. Never fails: without a user, an office or a network it is the device calendar.
+     */
+    public Task<AttendanceCalendar> getUserCalendar(String userId) {
+        return UserRepository.getInstance().getUserProfile(userId)
+                .continueWithTask(userTask -> {
+                    User user = userTask.isSuccessful() ? userTask.getResult() : null;
+                    if (user == null || user.getOfficeId() == null) {
+                        return Tasks.forResult((Office) null);
+                    }
+                    return OfficeRepository.getInstance().getOffice(user.getOfficeId());
+                })
+                .continueWith(officeTask -> AttendanceCalendar.forOffice(
+                        officeTask.isSuccessful() ? officeTask.getResult() : null));
     }
     
     // Inner class for attendance summary
@@ -409,35 +740,22 @@ public class AttendanceRepository {
      * If the device is offline, the check-in will be stored locally and synced later
      * 
      * @param attendance The attendance record to save
-     * @return LiveData with the result status
+     * @return Task with the result status
      */
-    public MutableLiveData<Boolean> recordCheckInWithOfflineSupport(Attendance attendance) {
-        MutableLiveData<Boolean> resultLiveData = new MutableLiveData<>();
-        
-        // Enable offline persistence for Firestore
-        // This should be called in the Application class, but we'll add it here for completeness
-        FirebaseFirestoreSettings settings = new FirebaseFirestoreSettings.Builder()
-                .setPersistenceEnabled(true)
-                .build();
-        firestore.setFirestoreSettings(settings);
+    public Task<Boolean> recordCheckInWithOfflineSupport(Attendance attendance) {
+        TaskCompletionSource<Boolean> result = new TaskCompletionSource<>();
         
-        // Use Firestore offline capabilities
-        firestore.collection(ATTENDANCE_COLLECTION)
-                .document(attendance.getUserId())
-                .collection(attendance.getDate())
-                .add(attendance.toMap())
-                .addOnSuccessListener(documentReference -> {
-                    // Successfully added to Firestore (or offline cache)
-                    resultLiveData.setValue(true);
-                })
+        // Written directly when online, queued in the outbox when not
+        commitCheckIn(attendance)
+                .addOnSuccessListener(aVoid -> result.setResult(true))
                 .addOnFailureListener(e -> {
-                    // Firestore operation failed entirely
-                    // Save locally as fallback
-                    saveAttendanceLocally(attendance);
-                    resultLiveData.setValue(true);
+                    if (!isAlreadyCheckedIn(e)) {
+                        Log.e(TAG, "Check-in for " + attendance.getUserId() + " could not be recorded", e);
+                    }
+                    result.setResult(false);
                 });
         
-        return resultLiveData;
+        return result.getTask();
     }
     
     /**
@@ -445,29 +763,56 @@ public class AttendanceRepository {
      * This is a fallback for when Firestore operations fail completely
      * 
      * @param attendance The attendance record to save locally
+     * @return Task that completes once the record is in the outbox, or fails if it could not be queued
      */
-    private void saveAttendanceLocally(Attendance attendance) {
-        // In a real implementation, this would use SharedPreferences or Room DB
-        // For now, we'll just log it
+    private Task<Void> saveAttendanceLocally(Attendance attendance) {
         Log.d("AttendanceRepository", "Saving attendance locally: " + attendance.getUserId() 
                 + " on " + attendance.getDate());
+        return enqueueLocally(AttendanceOutbox.TYPE_CHECK_IN, attendance);
+    }
+
+    /**
+     * Saves a check-out locally; the attendance carries the user, day and check-out time
+     */
+    private Task<Void> saveCheckOutLocally(Attendance attendance) {
+        Log.d(TAG, "Saving check-out locally: " + attendance.getUserId() + " on " + attendance.getDate());
+        return enqueueLocally(AttendanceOutbox.TYPE_CHECK_OUT, attendance);
+    }
+
+    private Task<Void> enqueueLocally(String type, Attendance attendance) {
+        AttendanceOutbox queue = outbox;
+        Context context = appContext;
+        if (queue == null || context == null) {
+            return Tasks.forException(new IllegalStateException("Offline sync not set up"));
+        }
         
-        // Here you would implement:
-        // 1. Store the attendance data in SharedPreferences or Room
-        // 2. Create a background work request using WorkManager to sync later
-        // 3. When connectivity is restored, upload the local records to Firestore
+        // Queue the record and let the sync worker upload it once we are back online
+        return Tasks.call(outboxExecutor, () -> {
+            long id = AttendanceOutbox.TYPE_CHECK_OUT.equals(type)
+                    ? queue.enqueueCheckOut(attendance) : queue.enqueueCheckIn(attendance);
+            if (id == -1) {
+                throw new IllegalStateException("Outbox rejected " + type + " for " + attendance.getUserId()
+                        + " on " + attendance.getDate());
+            }
+            WorkManager.getInstance(context)
+                    .enqueueUniqueWork(
+                            "attendance_sync_now",
+                            ExistingWorkPolicy.KEEP,
+                            new OneTimeWorkRequest.Builder(AttendanceSyncWorker.class)
+                                    .setConstraints(new Constraints.Builder()
+                                            .setRequiredNetworkType(NetworkType.CONNECTED)
+                                            .build())
+                                    .build());
+            return null;
+        });
     }
 
     // Add WorkManager for better offline support
     public void setupOfflineSync(Context context) {
-        // Enable offline persistence for Firestore
-        FirebaseFirestoreSettings settings = new FirebaseFirestoreSettings.Builder()
-                .setPersistenceEnabled(true)
-                .build();
-        firestore.setFirestoreSettings(settings);
+        // Durable queue that saveAttendanceLocally() writes to when Firestore rejects a write
+        appContext = context.getApplicationContext();
+        outbox = AttendanceOutbox.getInstance(appContext);
         
-        // Commented out until worker classes are fully implemented
-        /*
         // Set up periodic work request to sync offline attendance records
         PeriodicWorkRequest syncWorkRequest = new PeriodicWorkRequest.Builder(
                 AttendanceSyncWorker.class,
@@ -488,7 +833,6 @@ public class AttendanceRepository {
                         "attendance_sync_work",
                         ExistingPeriodicWorkPolicy.KEEP,
                         syncWorkRequest);
-        */
         
         Log.d("AttendanceRepository", "Offline sync setup completed");
     }
@@ -497,10 +841,10 @@ public class AttendanceRepository {
      * Get attendance history for a specific month
      * @param userId The user ID
      * @param yearMonth The year and month in format "yyyy-MM"
-     * @return LiveData with list of attendance records
+     * @return Task with list of attendance records
      */
-    public MutableLiveData<List<Attendance>> getAttendanceHistoryForMonth(String userId, String yearMonth) {
-        MutableLiveData<List<Attendance>> attendanceLiveData = new MutableLiveData<>();
+    public Task<List<Attendance>> getAttendanceHistoryForMonth(String userId, String yearMonth) {
+        TaskCompletionSource<List<Attendance>> result = new TaskCompletionSource<>();
         
         firestore.collection(ATTENDANCE_COLLECTION)
                 .document(userId)
@@ -510,14 +854,99 @@ public class AttendanceRepository {
                 .addOnSuccessListener(queryDocumentSnapshots -> {
                     List<Attendance> attendanceList = new ArrayList<>();
                     for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        Attendance attendance = document.toObject(Attendance.class);
+                        Attendance attendance = Codecs.decode(document, Codecs.ATTENDANCE);
                         attendanceList.add(attendance);
                     }
-                    attendanceLiveData.setValue(attendanceList);
+                    result.setResult(attendanceList);
                 })
-                .addOnFailureListener(e -> attendanceLiveData.setValue(new ArrayList<>()));
+                .addOnFailureListener(e -> result.setResult(new ArrayList<>()));
         
-        return attendanceLiveData;
+        return result.getTask();
+    }
+
+    /**
+     * Creates a pager over one user's month, newest first
+     * @param userId The user ID
+     * @param yearMonth The year and month in format "yyyy-MM"
+     * @return A pager that has not loaded anything yet
+     */
+    public AttendancePager createMonthHistoryPager(String userId, String yearMonth) {
+        return new AttendancePager(monthHistoryQuery(userId, yearMonth), AttendancePager.DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Creates a pager over every user's records of a month, newest first
+     * @param yearMonth The month in yyyy-MM format
+     * @param officeId Optional office ID to filter by, null for all offices
+     * @return A pager that has not loaded anything yet
+     */
+    public AttendancePager createMonthPager(String yearMonth, String officeId) {
+        return new AttendancePager(monthQuery(yearMonth, officeId), AttendancePager.DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Creates an export source over a month, newest first, read in large pages
+     * @param yearMonth The month in yyyy-MM format
+     * @param officeId Optional office ID, ignored when a user is given
+     * @param userId Optional user ID, null for all employees
+     */
+    public AttendancePageSource createMonthExportSource(String yearMonth, String officeId, String userId) {
+        Query query = userId != null ? monthHistoryQuery(userId, yearMonth) : monthQuery(yearMonth, officeId);
+        return new QueryPageSource(Collections.singletonList(query), QueryPageSource.EXPORT_PAGE_SIZE);
+    }
+
+    /**
+     * Creates an export source over a check-in time range, newest first
+     * @see #createRangePager(Date, Date, String, String)
+     */
+    public AttendancePageSource createRangeExportSource(Date start, Date end, String officeId, String userId) {
+        return new QueryPageSource(rangeQueries(start, end, officeId, userId), QueryPageSource.EXPORT_PAGE_SIZE);
+    }
+
+    // One user's month, newest first
+    private Query monthHistoryQuery(String userId, String yearMonth) {
+        return monthHistoryFilter(userId, yearMonth).orderBy("checkInTime", Query.Direction.DESCENDING);
+    }
+
+    // One user's month, unordered, for aggregates
+    private Query monthHistoryFilter(String userId, String yearMonth) {
+        return firestore.collection(ATTENDANCE_COLLECTION)
+                .document(userId)
+                .collection(yearMonth);
+    }
+
+    // Every user's records of a month, newest first
+    private Query monthQuery(String yearMonth, String officeId) {
+        return monthFilter(yearMonth, officeId).orderBy("checkInTime", Query.Direction.DESCENDING);
+    }
+
+    // Every user's records of a month, unordered, for aggregates
+    private Query monthFilter(String yearMonth, String officeId) {
+        Query query = firestore.collectionGroup(yearMonth);
+        if (officeId != null) {
+            query = query.whereEqualTo("officeId", officeId);
+        }
+        return query;
+    }
+
+    /**
+     * Creates a pager over the current user's records of this month in their office's time
+     * zone, newest first
+     * @param pageSize Records per page
+     * @return Task with the pager, or with null if no user is signed in
+     */
+    public Task<AttendancePager> createRecentAttendancePager(int pageSize) {
+        String userId = auth.getCurrentUser() != null ? auth.getCurrentUser().getUid() : null;
+        if (userId == null) {
+            return Tasks.forResult(null);
+        }
+        return getUserCalendar(userId).continueWith(task -> {
+            Query query = firestore.collection(ATTENDANCE_COLLECTION)
+                    .document(userId)
+                    .collection(task.getResult().currentMonth())
+                    .orderBy("checkInTime", Query.Direction.DESCENDING);
+            return new AttendancePager(query, pageSize);
+        });
     }
 
     /**
@@ -525,10 +954,10 @@ public class AttendanceRepository {
      * @param userId The user ID
      * @param date Today's date in yyyy-MM-dd format
      * @param locationStatus The location status: "InOffice", "OutOfOffice", or "Unknown"
-     * @return LiveData with the result status
+     * @return Task with the result status
      */
-    public MutableLiveData<Boolean> updateLocationStatus(String userId, String date, String locationStatus) {
-        MutableLiveData<Boolean> resultLiveData = new MutableLiveData<>();
+    public Task<Boolean> updateLocationStatus(String userId, String date, String locationStatus) {
+        TaskCompletionSource<Boolean> result = new TaskCompletionSource<>();
         
         // Get today's attendance documents
         firestore.collection(ATTENDANCE_COLLECTION)
@@ -541,7 +970,7 @@ public class AttendanceRepository {
                 .addOnSuccessListener(querySnapshot -> {
                     if (querySnapshot.isEmpty()) {
                         Log.d("AttendanceRepository", "No active attendance found for user: " + userId);
-                        resultLiveData.setValue(false);
+                        result.setResult(false);
                         return;
                     }
                     
@@ -550,19 +979,19 @@ public class AttendanceRepository {
                             .update("locationStatus", locationStatus)
                             .addOnSuccessListener(aVoid -> {
                                 Log.d("AttendanceRepository", "Location status updated for user: " + userId);
-                                resultLiveData.setValue(true);
+                                result.setResult(true);
                             })
                             .addOnFailureListener(e -> {
                                 Log.e("AttendanceRepository", "Error updating location status", e);
-                                resultLiveData.setValue(false);
+                                result.setResult(false);
                             });
                 })
                 .addOnFailureListener(e -> {
                     Log.e("AttendanceRepository", "Error querying attendance records", e);
-                    resultLiveData.setValue(false);
+                    result.setResult(false);
                 });
         
-        return resultLiveData;
+        return result.getTask();
     }
     
     /**
@@ -570,10 +999,10 @@ public class AttendanceRepository {
      * 
      * @param userId The user ID
      * @param date Today's date in yyyy-MM-dd format
-     * @return LiveData with the active attendance record or null if not found
+     * @return Task with the active attendance record or null if not found
      */
-    public MutableLiveData<Attendance> getActiveAttendance(String userId, String date) {
-        MutableLiveData<Attendance> attendanceLiveData = new MutableLiveData<>();
+    public Task<Attendance> getActiveAttendance(String userId, String date) {
+        TaskCompletionSource<Attendance> result = new TaskCompletionSource<>();
         
         firestore.collection(ATTENDANCE_COLLECTION)
                 .document(userId)
@@ -584,30 +1013,30 @@ public class AttendanceRepository {
                 .get()
                 .addOnSuccessListener(querySnapshot -> {
                     if (querySnapshot.isEmpty()) {
-                        attendanceLiveData.setValue(null);
+                        result.setResult(null);
                         return;
                     }
                     
                     // Return the first active attendance record found
-                    Attendance attendance = querySnapshot.getDocuments().get(0).toObject(Attendance.class);
-                    attendanceLiveData.setValue(attendance);
+                    Attendance attendance = Codecs.decode(querySnapshot.getDocuments().get(0), Codecs.ATTENDANCE);
+                    result.setResult(attendance);
                 })
                 .addOnFailureListener(e -> {
                     Log.e("AttendanceRepository", "Error querying active attendance", e);
-                    attendanceLiveData.setValue(null);
+                    result.setResult(null);
                 });
         
-        return attendanceLiveData;
+        return result.getTask();
     }
 
     /**
      * Get all attendance records for a specific month, with optional office filter
      * @param yearMonth The month in yyyy-MM format
      * @param officeId Optional office ID to filter by, null to get all offices
-     * @return LiveData containing list of all attendance records
+     * @return Task containing list of all attendance records
      */
-    public MutableLiveData<List<Attendance>> getAllAttendanceForMonth(String yearMonth, String officeId) {
-        MutableLiveData<List<Attendance>> attendanceLiveData = new MutableLiveData<>();
+    public Task<List<Attendance>> getAllAttendanceForMonth(String yearMonth, String officeId) {
+        TaskCompletionSource<List<Attendance>> result = new TaskCompletionSource<>();
         
         Query query = firestore.collectionGroup(yearMonth);
         
@@ -620,290 +1049,192 @@ public class AttendanceRepository {
              .addOnSuccessListener(queryDocumentSnapshots -> {
                  List<Attendance> attendanceList = new ArrayList<>();
                  for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                     Attendance attendance = document.toObject(Attendance.class);
+                     Attendance attendance = Codecs.decode(document, Codecs.ATTENDANCE);
                      attendanceList.add(attendance);
                  }
-                 attendanceLiveData.setValue(attendanceList);
+                 result.setResult(attendanceList);
              })
              .addOnFailureListener(e -> {
                  Log.e(TAG, "Error getting attendance records: ", e);
-                 attendanceLiveData.setValue(new ArrayList<>());
+                 result.setResult(new ArrayList<>());
              });
         
-        return attendanceLiveData;
+        return result.getTask();
     }
 
     /**
-     * Seeds test attendance data for testing the export functionality
-     * Creates attendance records for the past 30 days for a list of user IDs
-     * 
-     * @param userIds List of user IDs to create attendance data for
-     * @param userNames List of user names corresponding to the user IDs
-     * @param officeId The office ID to associate with the attendance records
-     * @param officeName The office name to associate with the attendance records
-     * @return LiveData with the result status
+     * Creates a pager over the records whose check-in falls within a time range, newest first.
+     * The bounds are applied by Firestore, with one query for every month collection the range
+     * touches, paged through with startAfter() cursors.
+     * @param start Earliest check-in time, inclusive
+     * @param end Latest check-in time, inclusive
+     * @param officeId Optional office ID to filter by, ignored when a user is given
+     * @param userId Optional user ID, null for all employees
+     * @return A pager that has not loaded anything yet
      */
-    public MutableLiveData<Boolean> seedTestAttendanceData(List<String> userIds, List<String> userNames, 
-                                                          String officeId, String officeName) {
-        MutableLiveData<Boolean> resultLiveData = new MutableLiveData<>();
-        
-        if (userIds.size() != userNames.size()) {
-            resultLiveData.setValue(false);
-            return resultLiveData;
+    public AttendancePager createRangePager(Date start, Date end, String officeId, String userId) {
+        return new AttendancePager(rangeQueries(start, end, officeId, userId), AttendancePager.DEFAULT_PAGE_SIZE);
+    }
+
+    // One query per month of the range, newest month first
+    private List<Query> rangeQueries(Date start, Date end, String officeId, String userId) {
+        List<Query> filters = rangeFilters(start, end, officeId, userId);
+        List<Query> queries = new ArrayList<>(filters.size());
+        for (Query filter : filters) {
+            queries.add(filter.orderBy("checkInTime", Query.Direction.DESCENDING));
         }
-        
-        // Get current date
-        Date currentDate = new Date();
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        
-        // Track number of successful operations
-        final int[] totalOperations = {userIds.size() * 30}; // 30 days of data per user
-        final int[] completedOperations = {0};
-        
-        // Create attendance records for each user for the past 30 days
-        for (int userIndex = 0; userIndex < userIds.size(); userIndex++) {
-            final String userId = userIds.get(userIndex);
-            final String userName = userNames.get(userIndex);
-            
-            // Create attendance records for the past 30 days
-            for (int daysAgo = 0; daysAgo < 30; daysAgo++) {
-                // Calculate the date for this attendance record
-                Date recordDate = new Date(currentDate.getTime() - TimeUnit.DAYS.toMillis(daysAgo));
-                String formattedDate = dateFormat.format(recordDate);
-                String yearMonth = formattedDate.substring(0, 7); // Extract YYYY-MM part
-                
-                // Skip weekends (Saturday = 6, Sunday = 0)
-                Calendar calendar = Calendar.getInstance();
-                calendar.setTime(recordDate);
-                int dayOfWeek = calendar.get(Calendar.DAY_OF_WEEK);
-                if (dayOfWeek == Calendar.SATURDAY || dayOfWeek == Calendar.SUNDAY) {
-                    completedOperations[0]++;
-                    if (completedOperations[0] >= totalOperations[0]) {
-                        resultLiveData.setValue(true);
-                    }
-                    continue;
-                }
-                
-                // Randomly determine if the user was present, late, or absent
-                double random = Math.random();
-                String status;
-                Date checkInTime = null;
-                Date checkOutTime = null;
-                String locationStatus;
-                
-                if (random < 0.7) { // 70% chance of being on time
-                    status = "OnTime";
-                    
-                    // Create a random check-in time between 8:00 AM and 9:00 AM
-                    calendar.set(Calendar.HOUR_OF_DAY, 8);
-                    calendar.set(Calendar.MINUTE, (int) (Math.random() * 60));
-                    calendar.set(Calendar.SECOND, (int) (Math.random() * 60));
-                    checkInTime = calendar.getTime();
-                    
-                    // Create a random check-out time between 5:00 PM and 6:00 PM
-                    calendar.set(Calendar.HOUR_OF_DAY, 17);
-                    calendar.set(Calendar.MINUTE, (int) (Math.random() * 60));
-                    calendar.set(Calendar.SECOND, (int) (Math.random() * 60));
-                    checkOutTime = calendar.getTime();
-                    
-                    // 80% chance of being in office
-                    locationStatus = Math.random() < 0.8 ? "InOffice" : "OutOfOffice";
-                    
-                } else if (random < 0.9) { // 20% chance of being late
-                    status = "Late";
-                    
-                    // Create a random check-in time between 9:00 AM and 10:00 AM
-                    calendar.set(Calendar.HOUR_OF_DAY, 9);
-                    calendar.set(Calendar.MINUTE, (int) (Math.random() * 60));
-                    calendar.set(Calendar.SECOND, (int) (Math.random() * 60));
-                    checkInTime = calendar.getTime();
-                    
-                    // Create a random check-out time between 5:00 PM and 6:00 PM
-                    calendar.set(Calendar.HOUR_OF_DAY, 17);
-                    calendar.set(Calendar.MINUTE, (int) (Math.random() * 60));
-                    calendar.set(Calendar.SECOND, (int) (Math.random() * 60));
-                    checkOutTime = calendar.getTime();
-                    
-                    // 60% chance of being in office
-                    locationStatus = Math.random() < 0.6 ? "InOffice" : "OutOfOffice";
-                    
-                } else { // 10% chance of being absent
-                    status = "Missed";
-                    locationStatus = "Unknown";
-                }
-                
-                // Create the attendance record
-                final Attendance attendance = new Attendance(userId, formattedDate, checkInTime, status, officeId);
-                attendance.setUserName(userName);
-                attendance.setOfficeName(officeName);
-                attendance.setLocationStatus(locationStatus);
-                if (checkOutTime != null) {
-                    attendance.setCheckOutTime(checkOutTime);
-                }
-                
-                // Save to Firestore in the appropriate collection
-                firestore.collection(ATTENDANCE_COLLECTION)
-                        .document(userId)
-                        .collection(yearMonth)
-                        .document(formattedDate)
-                        .set(attendance.toMap())
-                        .addOnSuccessListener(aVoid -> {
-                            completedOperations[0]++;
-                            if (completedOperations[0] >= totalOperations[0]) {
-                                resultLiveData.setValue(true);
-                            }
-                        })
-                        .addOnFailureListener(e -> {
-                            completedOperations[0]++;
-                            if (completedOperations[0] >= totalOperations[0]) {
-                                // Even if some operations failed, we'll still return success
-                                // if all operations are completed
-                                resultLiveData.setValue(true);
-                            }
-                        });
-            }
+        return queries;
+    }
+
+    // The month queries of a range without ordering, for aggregates
+    private List<Query> rangeFilters(Date start, Date end, String officeId, String userId) {
+        // Only an office-only query knows which zone its records were filed in
+        Office office = userId == null && officeId != null
+                ? OfficeRepository.getInstance().getCachedOffice(officeId)
+                : null;
+        List<String> months = monthsInRange(start, end, office);
+        List<Query> filters = new ArrayList<>(months.size());
+        for (String yearMonth : months) {
+            Query filter = userId != null
+                    ? monthHistoryFilter(userId, yearMonth)
+                    : monthFilter(yearMonth, officeId);
+            filters.add(filter
+                    .whereGreaterThanOrEqualTo("checkInTime", start)
+                    .whereLessThanOrEqualTo("checkInTime", end));
+        }
+        return filters;
+    }
+
+    /**
+     * yyyy-MM keys of every month from end back to start. Month collections follow the time
+     * zone of each record's office, so without an office zone the range is widened by the
+     * largest UTC offsets to cover every zone a record may have been filed in.
+     * @param office Office whose zone all records share, or null
+     */
+    static List<String> monthsInRange(Date start, Date end, Office office) {
+        String first;
+        String last;
+        if (office != null && office.getTimeZone() != null) {
+            AttendanceCalendar calendar = AttendanceCalendar.forOffice(office);
+            first = calendar.monthKey(start);
+            last = calendar.monthKey(end);
+        } else {
+            AttendanceCalendar utc = AttendanceCalendar.forTimeZone("UTC");
+            first = utc.monthKey(new Date(start.getTime() - MAX_WEST_OFFSET_MS));
+            last = utc.monthKey(new Date(end.getTime() + MAX_EAST_OFFSET_MS));
         }
         
-        return resultLiveData;
+        List<String> months = new ArrayList<>();
+        for (String monthKey = last; monthKey.compareTo(first) >= 0;
+                monthKey = AttendanceCalendar.addMonths(monthKey, -1)) {
+            months.add(monthKey);
+        }
+        return months;
     }
-    
+
     /**
      * Gets the most recent attendance records
      * 
      * @param limit The maximum number of records to retrieve
-     * @return LiveData containing a list of recent attendance records
+     * @return Task containing a list of recent attendance records
      */
-    public LiveData<List<Attendance>> getRecentAttendance(int limit) {
-        MutableLiveData<List<Attendance>> attendanceLiveData = new MutableLiveData<>();
+    public Task<List<Attendance>> getRecentAttendance(int limit) {
         String userId = auth.getCurrentUser() != null ? auth.getCurrentUser().getUid() : null;
         
         if (userId == null) {
-            attendanceLiveData.setValue(new ArrayList<>());
-            return attendanceLiveData;
+            return Tasks.forResult(new ArrayList<>());
         }
         
-        firestore.collection(ATTENDANCE_COLLECTION)
+        TaskCompletionSource<List<Attendance>> result = new TaskCompletionSource<>();
+        getUserCalendar(userId).addOnSuccessListener(calendar -> firestore.collection(ATTENDANCE_COLLECTION)
                 .document(userId)
-                .collection(getCurrentMonth())
+                .collection(calendar.currentMonth())
                 .orderBy("checkInTime", Query.Direction.DESCENDING)
                 .limit(limit)
                 .get()
                 .addOnSuccessListener(queryDocumentSnapshots -> {
                     List<Attendance> attendanceList = new ArrayList<>();
                     for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        Attendance attendance = document.toObject(Attendance.class);
+                        Attendance attendance = Codecs.decode(document, Codecs.ATTENDANCE);
                         attendanceList.add(attendance);
                     }
-                    attendanceLiveData.setValue(attendanceList);
+                    result.setResult(attendanceList);
                 })
-                .addOnFailureListener(e -> attendanceLiveData.setValue(new ArrayList<>()));
+                .addOnFailureListener(e -> result.setResult(new ArrayList<>())));
         
-        return attendanceLiveData;
+        return result.getTask();
     }
     
     /**
      * Records check-in for the current user
-     * @return LiveData with the result status
+     * @return Task with the result status
      */
-    public LiveData<Boolean> checkIn() {
-        MutableLiveData<Boolean> resultLiveData = new MutableLiveData<>();
-        
+    public Task<Boolean> checkIn() {
         if (auth.getCurrentUser() == null) {
-            resultLiveData.setValue(false);
-            return resultLiveData;
+            return Tasks.forResult(false);
         }
         
-        // Get current user ID and date
+        TaskCompletionSource<Boolean> result = new TaskCompletionSource<>();
+        
+        // Get current user ID and time; the day follows the user's office
         String userId = auth.getCurrentUser().getUid();
-        String date = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date());
+        Date checkInTime = new Date();
         
-        // First check if user already checked in today to prevent duplicate check-ins
-        firestore.collection(ATTENDANCE_COLLECTION)
-                 .document(userId)
-                 .collection(date)
-                 .get()
-                 .addOnSuccessListener(queryDocumentSnapshots -> {
-                     if (!queryDocumentSnapshots.isEmpty()) {
-                         // User already checked in today
-                         resultLiveData.setValue(false);
-                         Log.d(TAG, "User has already checked in today");
-                         return;
-                     }
-                     
-                     // Create attendance record with "OnTime" status by default
-                     Attendance attendance = new Attendance(userId, date, new Date(), "OnTime", getDefaultOfficeId());
-                     
-                     // Record check-in
-                     firestore.collection(ATTENDANCE_COLLECTION)
-                             .document(userId)
-                             .collection(date)
-                             .add(attendance.toMap())
-                             .addOnSuccessListener(documentReference -> {
-                                 resultLiveData.setValue(true);
-                                 Log.d(TAG, "User checked in successfully");
-                             })
-                             .addOnFailureListener(e -> {
-                                 resultLiveData.setValue(false);
-                                 Log.e(TAG, "Error checking in", e);
-                             });
-                 })
-                 .addOnFailureListener(e -> {
-                     resultLiveData.setValue(false);
-                     Log.e(TAG, "Error checking for existing check-ins", e);
-                 });
-        
-        return resultLiveData;
+        getUserCalendar(userId).addOnSuccessListener(calendar -> {
+            // Create attendance record with "OnTime" status by default
+            Attendance attendance = new Attendance(userId, calendar.dayKey(checkInTime), checkInTime,
+                    "OnTime", getDefaultOfficeId());
+            
+            // Record check-in; the transaction rejects a second check-in for the same day
+            commitCheckIn(attendance)
+                    .addOnSuccessListener(aVoid -> {
+                        result.setResult(true);
+                        Log.d(TAG, "User checked in successfully");
+                    })
+                    .addOnFailureListener(e -> {
+                        result.setResult(false);
+                        if (isAlreadyCheckedIn(e)) {
+                            Log.d(TAG, "User has already checked in today");
+                        } else {
+                            Log.e(TAG, "Error checking in", e);
+                        }
+                    });
+        });
+        
+        return result.getTask();
     }
     
     /**
      * Records check-out for the current user
-     * @return LiveData with the result status
+     * @return Task with the result status
      */
-    public LiveData<Boolean> checkOut() {
-        MutableLiveData<Boolean> resultLiveData = new MutableLiveData<>();
-        
+    public Task<Boolean> checkOut() {
         if (auth.getCurrentUser() == null) {
-            resultLiveData.setValue(false);
-            return resultLiveData;
+            return Tasks.forResult(false);
         }
         
+        TaskCompletionSource<Boolean> result = new TaskCompletionSource<>();
         String userId = auth.getCurrentUser().getUid();
-        String currentDate = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date());
         Date checkOutTime = new Date();
         
-        // Find today's attendance record and update it
-        firestore.collection(ATTENDANCE_COLLECTION)
-                 .document(userId)
-                 .collection(currentDate)
-                 .get()
-                 .addOnSuccessListener(queryDocumentSnapshots -> {
-                     if (queryDocumentSnapshots.isEmpty()) {
-                         resultLiveData.setValue(false);
-                         Log.d(TAG, "No check-in record found for today");
-                         return;
-                     }
-                     
-                     // Get the first record (should only be one per day)
-                     QueryDocumentSnapshot document = (QueryDocumentSnapshot) queryDocumentSnapshots.getDocuments().get(0);
-                     
-                     // Update with checkout time
-                     document.getReference()
-                             .update("checkOutTime", checkOutTime)
-                             .addOnSuccessListener(aVoid -> {
-                                 resultLiveData.setValue(true);
-                                 Log.d(TAG, "User checked out successfully");
-                             })
-                             .addOnFailureListener(e -> {
-                                 resultLiveData.setValue(false);
-                                 Log.e(TAG, "Error checking out", e);
-                             });
-                 })
-                 .addOnFailureListener(e -> {
-                     resultLiveData.setValue(false);
-                     Log.e(TAG, "Error finding check-in record", e);
-                 });
-        
-        return resultLiveData;
+        // Close today's attendance record, in the user's office's time zone
+        getUserCalendar(userId).addOnSuccessListener(calendar ->
+                commitCheckOutForDay(userId, calendar.dayKey(checkOutTime), checkOutTime)
+                        .addOnSuccessListener(aVoid -> {
+                            result.setResult(true);
+                            Log.d(TAG, "User checked out successfully");
+                        })
+                        .addOnFailureListener(e -> {
+                            result.setResult(false);
+                            if (e instanceof FirebaseFirestoreException && ((FirebaseFirestoreException) e).getCode()
+                                    == FirebaseFirestoreException.Code.NOT_FOUND) {
+                                Log.d(TAG, "No check-in record found for today");
+                            } else {
+                                Log.e(TAG, "Error checking out", e);
+                            }
+                        }));
+        
+        return result.getTask();
     }
     
     // Helper method to get default office ID
@@ -4,6 +4,7 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import com.example.attendify.model.Department;
+import com.example.attendify.repository.codec.Codecs;
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
@@ -90,8 +91,7 @@ public class DepartmentRepository {
                 .get()
                 .addOnSuccessListener(documentSnapshot -> {
                     if (documentSnapshot.exists()) {
-                        Department department = documentSnapshot.toObject(Department.class);
-                        department.setId(documentSnapshot.getId());
+                        Department department = Codecs.decode(documentSnapshot, Codecs.DEPARTMENT);
                         departmentLiveData.setValue(department);
                     } else {
                         departmentLiveData.setValue(null);
@@ -116,8 +116,7 @@ public class DepartmentRepository {
                 .addOnSuccessListener(queryDocumentSnapshots -> {
                     List<Department> departments = new ArrayList<>();
                     for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        Department department = document.toObject(Department.class);
-                        department.setId(document.getId());
+                        Department department = Codecs.decode(document, Codecs.DEPARTMENT);
                         departments.add(department);
                     }
                     departmentsLiveData.setValue(departments);
@@ -142,8 +141,7 @@ public class DepartmentRepository {
                 .addOnSuccessListener(queryDocumentSnapshots -> {
                     List<Department> departments = new ArrayList<>();
                     for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        Department department = document.toObject(Department.class);
-                        department.setId(document.getId());
+                        Department department = Codecs.decode(document, Codecs.DEPARTMENT);
                         departments.add(department);
                     }
                     departmentsLiveData.setValue(departments);
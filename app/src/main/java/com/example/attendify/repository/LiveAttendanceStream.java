@@ -0,0 +1,372 @@
+package com.example.attendify.repository;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.attendify.model.Attendance;
+import com.example.attendify.repository.AttendanceRepository.AttendanceSummary;
+import com.example.attendify.repository.codec.Codecs;
+import com.example.attendify.util.SortedMerge;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.MetadataChanges;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot-listener backed view of today's attendance.
+ * Only the DocumentChange deltas of each snapshot are applied to the in-memory model,
+ * so after the initial load Firestore bills one read per changed document instead of
+ * one read per document on every refresh.
+ *
+ * An "All Offices" stream listens to one collection-group query. While the index for that
+ * query is missing it listens to each office instead and k-way merges the offices' rows,
+ * trying the collection-group query again after {@link AttendanceRepository#INDEX_RETRY_MS}.
+ */
+public class LiveAttendanceStream {
+    private static final String TAG = "LiveAttendanceStream";
+
+    private final Query query;
+    private final String description;
+    // Null for single-office streams, which need no collection-group index
+    private final IndexFallback fallback;
+
+    // Rows in query order (checkInTime descending), mirrored from DocumentChange indices
+    private final List<Attendance> rows = new ArrayList<>();
+    // Document path -> row, used to apply modifications without a linear scan
+    private final Map<String, Attendance> rowsByPath = new HashMap<>();
+
+    private final MutableLiveData<List<Attendance>> attendanceLiveData = new MutableLiveData<>();
+    private final MutableLiveData<AttendanceSummary> summaryLiveData = new MutableLiveData<>();
+    private final MutableLiveData<String> errorLiveData = new MutableLiveData<>();
+    private final MutableLiveData<ReadStats> readStatsLiveData = new MutableLiveData<>();
+
+    private ListenerRegistration registration;
+    private final ReadStats readStats = new ReadStats();
+
+    // Per-office listeners and rows while the collection-group index is missing
+    private final List<ListenerRegistration> officeRegistrations = new ArrayList<>();
+    private final List<List<Attendance>> officeRows = new ArrayList<>();
+    private boolean fanningOut;
+    // Bumped by stop(), so an office lookup still running does not attach listeners
+    private int fanOutGeneration;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable retryIndex = this::retryIndex;
+
+    LiveAttendanceStream(Query query, String description, IndexFallback fallback) {
+        this.query = query;
+        this.description = description;
+        this.fallback = fallback;
+    }
+
+    public LiveData<List<Attendance>> getAttendanceLiveData() {
+        return attendanceLiveData;
+    }
+
+    public LiveData<AttendanceSummary> getSummaryLiveData() {
+        return summaryLiveData;
+    }
+
+    public LiveData<String> getErrorLiveData() {
+        return errorLiveData;
+    }
+
+    public LiveData<ReadStats> getReadStatsLiveData() {
+        return readStatsLiveData;
+    }
+
+    public boolean isActive() {
+        return registration != null || fanningOut;
+    }
+
+    /**
+     * Attaches the snapshot listeners. The first snapshot delivers every matching document
+     * as ADDED; later snapshots only carry the documents that changed.
+     */
+    public void start() {
+        if (isActive()) {
+            return;
+        }
+
+        // A re-attached listener replays the full result set as ADDED changes
+        rows.clear();
+        rowsByPath.clear();
+
+        if (fallback != null && fallback.isIndexMissing()) {
+            startFanOut();
+        } else {
+            attach();
+        }
+    }
+
+    /**
+     * Detaches the snapshot listeners. The last emitted list stays available so the UI
+     * keeps showing it until the stream is started again.
+     */
+    public void stop() {
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+            Log.d(TAG, "Detached live attendance listener for " + description + " " + readStats);
+        }
+        if (fanningOut) {
+            stopFanOut();
+            Log.d(TAG, "Detached per-office listeners for " + description + " " + readStats);
+        }
+    }
+
+    private void attach() {
+        Log.d(TAG, "Attaching live attendance listener for " + description);
+        registration = query.addSnapshotListener(MetadataChanges.EXCLUDE, (snapshots, e) -> {
+            if (e != null) {
+                // A listener that errored receives no further events; detach it so the
+                // next start() subscribes again instead of seeing a dead stream as active
+                if (registration != null) {
+                    registration.remove();
+                    registration = null;
+                }
+                if (fallback != null && e.getCode() == FirebaseFirestoreException.Code.FAILED_PRECONDITION) {
+                    Log.w(TAG, "All Offices index missing for " + description + ", listening per office", e);
+                    fallback.onIndexMissing();
+                    startFanOut();
+                    return;
+                }
+                Log.e(TAG, "Live attendance listener failed for " + description, e);
+                errorLiveData.setValue(e.getMessage());
+                return;
+            }
+            if (snapshots != null) {
+                applySnapshot(rows, snapshots);
+                publish(rows);
+            }
+        });
+    }
+
+    private void startFanOut() {
+        fanningOut = true;
+        int generation = ++fanOutGeneration;
+        fallback.officeQueries().addOnCompleteListener(task -> {
+            if (generation != fanOutGeneration) {
+                return;
+            }
+            if (!task.isSuccessful()) {
+                Log.e(TAG, "Could not list offices for " + description, task.getException());
+                fanningOut = false;
+                errorLiveData.setValue(task.getException() != null
+                        ? task.getException().getMessage() : "Could not load offices");
+                return;
+            }
+
+            List<Query> queries = task.getResult();
+            Log.d(TAG, "Attaching " + queries.size() + " per-office listeners for " + description);
+            rows.clear();
+            rowsByPath.clear();
+            for (Query officeQuery : queries) {
+                List<Attendance> officeList = new ArrayList<>();
+                officeRows.add(officeList);
+                officeRegistrations.add(officeQuery.addSnapshotListener(MetadataChanges.EXCLUDE, (snapshots, e) -> {
+                    if (e != null) {
+                        Log.e(TAG, "Per-office listener failed for " + description, e);
+                        stopFanOut();
+                        errorLiveData.setValue(e.getMessage());
+                        return;
+                    }
+                    if (snapshots != null) {
+                        applySnapshot(officeList, snapshots);
+                        // Each office is already in check-in order
+                        publish(SortedMerge.merge(officeRows, AttendanceRepository.NEWEST_CHECK_IN_FIRST));
+                    }
+                }));
+            }
+            if (queries.isEmpty()) {
+                publish(rows);
+            }
+            mainHandler.postDelayed(retryIndex, AttendanceRepository.INDEX_RETRY_MS);
+        });
+    }
+
+    private void stopFanOut() {
+        fanOutGeneration++;
+        fanningOut = false;
+        mainHandler.removeCallbacks(retryIndex);
+        for (ListenerRegistration officeRegistration : officeRegistrations) {
+            officeRegistration.remove();
+        }
+        officeRegistrations.clear();
+        officeRows.clear();
+    }
+
+    // The index may have been deployed since; the last merged list stays shown meanwhile
+    private void retryIndex() {
+        Log.d(TAG, "Retrying the All Offices index for " + description);
+        stopFanOut();
+        rows.clear();
+        rowsByPath.clear();
+        attach();
+    }
+
+    // Mirrors the snapshot's DocumentChange indices into the target rows
+    private void applySnapshot(List<Attendance> target, QuerySnapshot snapshots) {
+        List<DocumentChange> changes = snapshots.getDocumentChanges();
+        boolean fromCache = snapshots.getMetadata().isFromCache();
+
+        for (DocumentChange change : changes) {
+            String path = change.getDocument().getReference().getPath();
+            switch (change.getType()) {
+                case ADDED: {
+                    Attendance attendance = Codecs.decode(change.getDocument(), Codecs.ATTENDANCE);
+                    target.add(change.getNewIndex(), attendance);
+                    rowsByPath.put(path, attendance);
+                    break;
+                }
+                case MODIFIED: {
+                    Attendance attendance = Codecs.decode(change.getDocument(), Codecs.ATTENDANCE);
+                    if (change.getOldIndex() == change.getNewIndex()) {
+                        target.set(change.getNewIndex(), attendance);
+                    } else {
+                        target.remove(change.getOldIndex());
+                        target.add(change.getNewIndex(), attendance);
+                    }
+                    rowsByPath.put(path, attendance);
+                    break;
+                }
+                case REMOVED:
+                    target.remove(change.getOldIndex());
+                    rowsByPath.remove(path);
+                    break;
+            }
+        }
+
+        readStats.record(changes, fromCache);
+        Log.d(TAG, "Applied " + changes.size() + " changes for " + description
+                + " (" + target.size() + " rows, fromCache=" + fromCache + ")");
+    }
+
+    private void publish(List<Attendance> current) {
+        readStatsLiveData.setValue(readStats.copy());
+
+        // ListAdapter needs a new list instance to diff against the current one
+        attendanceLiveData.setValue(new ArrayList<>(current));
+        summaryLiveData.setValue(summarize(current));
+    }
+
+    private static AttendanceSummary summarize(List<Attendance> attendanceList) {
+        int onTime = 0;
+        int late = 0;
+        int missed = 0;
+        for (Attendance attendance : attendanceList) {
+            if (attendance.isOnTime()) {
+                onTime++;
+            } else if (attendance.isLate()) {
+                late++;
+            } else if (attendance.isMissed()) {
+                missed++;
+            }
+        }
+        return new AttendanceSummary(onTime, late, missed);
+    }
+
+    /**
+     * Per-office queries an "All Offices" stream falls back to while its collection-group
+     * index is missing, and what the repository knows about that index
+     */
+    interface IndexFallback {
+        boolean isIndexMissing();
+
+        void onIndexMissing();
+
+        Task<List<Query>> officeQueries();
+    }
+
+    /**
+     * Read counters for the listener, used to verify the saving over full re-polls.
+     * Firestore bills one read per added or modified document delivered from the server;
+     * removals and cache-only snapshots are free.
+     */
+    public static class ReadStats {
+        private int snapshots;
+        private int cacheSnapshots;
+        private int added;
+        private int modified;
+        private int removed;
+        private long billableReads;
+
+        void record(List<DocumentChange> changes, boolean fromCache) {
+            snapshots++;
+            if (fromCache) {
+                cacheSnapshots++;
+            }
+            for (DocumentChange change : changes) {
+                switch (change.getType()) {
+                    case ADDED:
+                        added++;
+                        if (!fromCache) billableReads++;
+                        break;
+                    case MODIFIED:
+                        modified++;
+                        if (!fromCache) billableReads++;
+                        break;
+                    case REMOVED:
+                        removed++;
+                        break;
+                }
+            }
+        }
+
+        ReadStats copy() {
+            ReadStats copy = new ReadStats();
+            copy.snapshots = snapshots;
+            copy.cacheSnapshots = cacheSnapshots;
+            copy.added = added;
+            copy.modified = modified;
+            copy.removed = removed;
+            copy.billableReads = billableReads;
+            return copy;
+        }
+
+        public int getSnapshots() {
+            return snapshots;
+        }
+
+        public int getCacheSnapshots() {
+            return cacheSnapshots;
+        }
+
+        public int getAdded() {
+            return added;
+        }
+
+        public int getModified() {
+            return modified;
+        }
+
+        public int getRemoved() {
+            return removed;
+        }
+
+        public long getBillableReads() {
+            return billableReads;
+        }
+
+        @Override
+        public String toString() {
+            return "ReadStats{snapshots=" + snapshots +
+                    ", cacheSnapshots=" + cacheSnapshots +
+                    ", added=" + added +
+                    ", modified=" + modified +
+                    ", removed=" + removed +
+                    ", billableReads=" + billableReads + "}";
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.attendify.repository;
+
+import android.util.Log;
+
+import com.example.attendify.model.Attendance;
+import com.example.attendify.repository.codec.Codecs;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs one attendance query per office with a bounded number of queries in flight.
+ * Used for the "All Offices" view when the single collection-group index is not available.
+ * Each office's results are kept in their own list so the caller can k-way merge them.
+ * All callbacks run on the main thread, so no extra synchronization is needed.
+ */
+class OfficeFanOut {
+    private static final String TAG = "OfficeFanOut";
+    static final int MAX_IN_FLIGHT = 6;
+
+    private final List<String> officeIds;
+    private final Function<String, Query> queryForOffice;
+    private final Consumer<List<List<Attendance>>> onComplete;
+
+    private final List<List<Attendance>> results;
+    private final long startedAt = System.currentTimeMillis();
+    private int nextIndex = 0;
+    private int inFlight = 0;
+    private int completed = 0;
+    private boolean cancelled = false;
+
+    OfficeFanOut(List<String> officeIds, Function<String, Query> queryForOffice,
+                 Consumer<List<List<Attendance>>> onComplete) {
+        this.officeIds = officeIds;
+        this.queryForOffice = queryForOffice;
+        this.onComplete = onComplete;
+        this.results = new ArrayList<>(officeIds.size());
+        for (int i = 0; i < officeIds.size(); i++) {
+            results.add(null);
+        }
+    }
+
+    void start() {
+        if (officeIds.isEmpty()) {
+            onComplete.accept(results);
+            return;
+        }
+        launchNext();
+    }
+
+    /**
+     * Stops launching further office queries and drops results of those still in flight
+     */
+    void cancel() {
+        if (!cancelled) {
+            cancelled = true;
+            Log.d(TAG, "Cancelled after " + completed + "/" + officeIds.size() + " office queries");
+        }
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    private void launchNext() {
+        while (!cancelled && inFlight < MAX_IN_FLIGHT && nextIndex < officeIds.size()) {
+            final int index = nextIndex++;
+            final String officeId = officeIds.get(index);
+            inFlight++;
+
+            queryForOffice.apply(officeId)
+                    .get()
+                    .addOnCompleteListener(task -> {
+                        inFlight--;
+                        if (cancelled) {
+                            return;
+                        }
+
+                        if (task.isSuccessful() && task.getResult() != null) {
+                            List<Attendance> officeAttendance = new ArrayList<>(task.getResult().size());
+                            for (QueryDocumentSnapshot doc : task.getResult()) {
+                                officeAttendance.add(Codecs.decode(doc, Codecs.ATTENDANCE));
+                            }
+                            results.set(index, officeAttendance);
+                        } else {
+                            // Still count this office as completed
+                            Log.e(TAG, "Error getting attendance for office " + officeId, task.getException());
+                        }
+
+                        completed++;
+                        if (completed == officeIds.size()) {
+                            Log.d(TAG, "Fan-out of " + officeIds.size() + " office queries took "
+                                    + (System.currentTimeMillis() - startedAt) + " ms");
+                            onComplete.accept(results);
+                        } else {
+                            launchNext();
+                        }
+                    });
+        }
+    }
+}
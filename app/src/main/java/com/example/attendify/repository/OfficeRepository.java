@@ -0,0 +1,327 @@
+package com.example.attendify.repository;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+
+import com.example.attendify.model.Office;
+import com.example.attendify.repository.codec.Codecs;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.gson.Gson;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared office directory. Offices change rarely, so every screen reads them from one
+ * in-memory cache that is kept current by a single snapshot listener while anyone
+ * observes it, persisted to disk so a cold start can show offices without a network read.
+ *
+ * The cache holds the whole directory rather than a bounded subset: an office is a few
+ * hundred bytes, so even thousands of them fit easily, and a truncated list would be
+ * neither a directory nor a saving, as every getOffices() would go back to the network.
+ */
+public class OfficeRepository {
+    private static final String TAG = "OfficeRepository";
+    private static final String OFFICES_COLLECTION = "offices";
+    private static final String CACHE_FILE = "office_directory.json";
+    private static final long CACHE_TTL_MS = TimeUnit.HOURS.toMillis(24);
+
+    private final FirebaseFirestore firestore;
+    private final CollectionReference officesCollection;
+    private final OfficeDirectoryLiveData officesLiveData = new OfficeDirectoryLiveData();
+    private final Executor diskExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Gson gson = new Gson();
+
+    // Offices in the order the directory query returned them
+    private final Map<String, Office> offices = new LinkedHashMap<>();
+    // Whether the cache holds every office rather than only ones fetched one by one,
+    // and when that was last confirmed
+    private boolean directoryComplete;
+    private long directoryLoadedAt;
+    private File cacheFile;
+
+    // Singleton instance
+    private static OfficeRepository instance;
+
+    public static OfficeRepository getInstance() {
+        if (instance == null) {
+            instance = new OfficeRepository();
+        }
+        return instance;
+    }
+
+    private OfficeRepository() {
+        firestore = FirebaseFirestore.getInstance();
+        officesCollection = firestore.collection(OFFICES_COLLECTION);
+    }
+
+    /**
+     * Enables the on-disk copy of the directory and loads it if memory is still empty.
+     * Safe to call more than once.
+     */
+    public synchronized void init(Context context) {
+        if (cacheFile != null) {
+            return;
+        }
+        cacheFile = new File(context.getApplicationContext().getFilesDir(), CACHE_FILE);
+        File file = cacheFile;
+        diskExecutor.execute(() -> {
+            DiskCache diskCache = readDiskCache(file);
+            if (diskCache != null && diskCache.offices != null) {
+                mainHandler.post(() -> restoreFromDisk(diskCache));
+            }
+        });
+    }
+
+    /**
+     * Live list of all offices. While observed, a single snapshot listener keeps the
+     * cache current; cached offices are delivered immediately.
+     */
+    public LiveData<List<Office>> getOfficesLiveData() {
+        return officesLiveData;
+    }
+
+    /**
+     * Gets all offices, from the cache when it is complete and fresh
+     */
+    public Task<List<Office>> getOffices() {
+        synchronized (this) {
+            if (isDirectoryFresh()) {
+                return Tasks.forResult(snapshotList());
+            }
+        }
+
+        return officesCollection.get().continueWith(task -> {
+            if (task.isSuccessful()) {
+                replaceAll(task.getResult());
+                return snapshotList();
+            }
+            synchronized (this) {
+                if (!offices.isEmpty()) {
+                    // Offline: a stale directory is better than none
+                    Log.w(TAG, "Serving cached offices after failed refresh", task.getException());
+                    return snapshotList();
+                }
+            }
+            throw task.getException();
+        });
+    }
+
+    /**
+     * Gets one office, from the cache when it is fresh
+     * @return Task with the office, or null if it does not exist
+     */
+    public Task<Office> getOffice(String officeId) {
+        synchronized (this) {
+            Office cached = offices.get(officeId);
+            if (cached != null && (officesLiveData.isListening() || isWithinTtl())) {
+                return Tasks.forResult(cached);
+            }
+        }
+
+        return officesCollection.document(officeId).get().continueWith(task -> {
+            if (task.isSuccessful()) {
+                Office office = toOffice(task.getResult());
+                if (office != null) {
+                    put(office);
+                }
+                return office;
+            }
+            Office cached = getCachedOffice(officeId);
+            if (cached != null) {
+                Log.w(TAG, "Serving cached office " + officeId + " after failed refresh", task.getException());
+                return cached;
+            }
+            throw task.getException();
+        });
+    }
+
+    /**
+     * @return The cached office without touching the network, or null
+     */
+    public synchronized Office getCachedOffice(String officeId) {
+        return officeId != null ? offices.get(officeId) : null;
+    }
+
+    /**
+     * Writes an office into the cache after it was added or updated in Firestore
+     */
+    public void put(Office office) {
+        if (office == null || office.getId() == null) {
+            return;
+        }
+        synchronized (this) {
+            offices.put(office.getId(), office);
+        }
+        onDirectoryChanged();
+    }
+
+    /**
+     * Drops an office from the cache after it was deleted in Firestore
+     */
+    public void remove(String officeId) {
+        synchronized (this) {
+            offices.remove(officeId);
+        }
+        onDirectoryChanged();
+    }
+
+    private void replaceAll(QuerySnapshot snapshot) {
+        synchronized (this) {
+            offices.clear();
+            for (DocumentSnapshot document : snapshot.getDocuments()) {
+                Office office = toOffice(document);
+                if (office != null) {
+                    offices.put(office.getId(), office);
+                }
+            }
+            directoryComplete = true;
+            directoryLoadedAt = System.currentTimeMillis();
+        }
+        onDirectoryChanged();
+    }
+
+    private synchronized void restoreFromDisk(DiskCache diskCache) {
+        if (!offices.isEmpty()) {
+            // The network already answered while we were reading the file
+            return;
+        }
+        for (Office office : diskCache.offices) {
+            if (office != null && office.getId() != null) {
+                offices.put(office.getId(), office);
+            }
+        }
+        directoryComplete = diskCache.complete;
+        directoryLoadedAt = diskCache.savedAt;
+        Log.d(TAG, "Restored " + offices.size() + " offices from disk");
+        officesLiveData.setValue(snapshotList());
+    }
+
+    private void onDirectoryChanged() {
+        List<Office> list = snapshotList();
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            officesLiveData.setValue(list);
+        } else {
+            officesLiveData.postValue(list);
+        }
+        writeDiskCache(list);
+    }
+
+    private boolean isDirectoryFresh() {
+        return directoryComplete && (officesLiveData.isListening() || isWithinTtl());
+    }
+
+    private boolean isWithinTtl() {
+        return System.currentTimeMillis() - directoryLoadedAt < CACHE_TTL_MS;
+    }
+
+    private synchronized List<Office> snapshotList() {
+        return new ArrayList<>(offices.values());
+    }
+
+    private static Office toOffice(DocumentSnapshot document) {
+        return Codecs.decode(document, Codecs.OFFICE);
+    }
+
+    private void writeDiskCache(List<Office> list) {
+        File file;
+        long savedAt;
+        boolean complete;
+        synchronized (this) {
+            file = cacheFile;
+            savedAt = directoryLoadedAt;
+            complete = directoryComplete;
+        }
+        if (file == null) {
+            return;
+        }
+        DiskCache diskCache = new DiskCache();
+        diskCache.savedAt = savedAt;
+        diskCache.complete = complete;
+        diskCache.offices = list;
+        diskExecutor.execute(() -> {
+            try (Writer writer = new FileWriter(file)) {
+                gson.toJson(diskCache, writer);
+            } catch (Exception e) {
+                Log.w(TAG, "Could not persist office directory", e);
+            }
+        });
+    }
+
+    private DiskCache readDiskCache(File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        try (Reader reader = new FileReader(file)) {
+            return gson.fromJson(reader, DiskCache.class);
+        } catch (Exception e) {
+            Log.w(TAG, "Could not read office directory from disk", e);
+            return null;
+        }
+    }
+
+    // File format of the on-disk copy
+    private static class DiskCache {
+        long savedAt;
+        boolean complete;
+        List<Office> offices;
+    }
+
+    /**
+     * Attaches the offices listener when the first observer arrives and removes it
+     * when the last one leaves, so all screens share one listener.
+     */
+    private class OfficeDirectoryLiveData extends LiveData<List<Office>> {
+        private ListenerRegistration registration;
+
+        boolean isListening() {
+            return registration != null;
+        }
+
+        @Override
+        protected void onActive() {
+            List<Office> cached = snapshotList();
+            if (!cached.isEmpty() && getValue() == null) {
+                setValue(cached);
+            }
+            registration = officesCollection.addSnapshotListener((snapshot, e) -> {
+                if (e != null) {
+                    Log.e(TAG, "Office listener failed", e);
+                    return;
+                }
+                if (snapshot != null) {
+                    replaceAll(snapshot);
+                }
+            });
+        }
+
+        @Override
+        protected void onInactive() {
+            if (registration != null) {
+                registration.remove();
+                registration = null;
+            }
+        }
+    }
+}
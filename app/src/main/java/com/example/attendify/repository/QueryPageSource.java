@@ -0,0 +1,72 @@
+package com.example.attendify.repository;
+
+import com.example.attendify.export.AttendancePageSource;
+import com.example.attendify.model.Attendance;
+import com.example.attendify.repository.codec.Codecs;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads one or more ordered queries page by page with startAfter() cursors, blocking on
+ * each page. Queries are read one after the other, so records come out in query order.
+ * Must not be used on the main thread.
+ */
+class QueryPageSource implements AttendancePageSource {
+    static final int EXPORT_PAGE_SIZE = 500;
+    private static final long PAGE_TIMEOUT_SECONDS = 60;
+
+    private final List<Query> queries;
+    private final int pageSize;
+    private int queryIndex;
+    private DocumentSnapshot lastSnapshot;
+
+    /**
+     * @param queries Queries with their ordering applied, without limit or cursor
+     */
+    QueryPageSource(List<Query> queries, int pageSize) {
+        this.queries = queries;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public List<Attendance> nextPage() throws Exception {
+        while (queryIndex < queries.size()) {
+            Query page = queries.get(queryIndex).limit(pageSize);
+            if (lastSnapshot != null) {
+                page = page.startAfter(lastSnapshot);
+            }
+            QuerySnapshot snapshot = Tasks.await(page.get(), PAGE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            List<DocumentSnapshot> documents = snapshot.getDocuments();
+
+            if (documents.size() < pageSize) {
+                // This query is exhausted, continue with the next one
+                queryIndex++;
+                lastSnapshot = null;
+            } else {
+                lastSnapshot = documents.get(documents.size() - 1);
+            }
+            if (documents.isEmpty()) {
+                continue;
+            }
+
+            List<Attendance> records = new ArrayList<>(documents.size());
+            for (DocumentSnapshot document : documents) {
+                Attendance attendance = Codecs.decode(document, Codecs.ATTENDANCE);
+                if (attendance != null) {
+                    records.add(attendance);
+                }
+            }
+            if (!records.isEmpty()) {
+                return records;
+            }
+        }
+        return Collections.emptyList();
+    }
+}
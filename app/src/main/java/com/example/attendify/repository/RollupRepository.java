@@ -0,0 +1,593 @@
+package com.example.attendify.repository;
+
+import android.util.Log;
+
+import com.example.attendify.model.Attendance;
+import com.example.attendify.model.AttendanceRollup;
+import com.example.attendify.repository.codec.Codecs;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Repository for the pre-aggregated attendance rollups.
+ * Check-in and check-out writes add their counter increments to the same WriteBatch,
+ * so summary screens can read one small document instead of every raw record.
+ */
+public class RollupRepository {
+    private static final String TAG = "RollupRepository";
+    static final String ROLLUPS_COLLECTION = "attendanceRollups";
+    private static final String ATTENDANCE_COLLECTION = "attendance";
+    private static final String USERS_COLLECTION = "users";
+    private static final int MAX_BATCH_WRITES = 500;
+    // Reads of a busy month to try before giving up until the next maintenance run
+    private static final int MAX_REBUILD_ATTEMPTS = 3;
+
+    private final FirebaseFirestore firestore;
+    private final CollectionReference rollupsCollection;
+    // Rebuilds aggregate whole months of raw records, keep that off the main thread
+    private final Executor aggregationExecutor = Executors.newSingleThreadExecutor();
+
+    // Singleton instance
+    private static RollupRepository instance;
+
+    public static RollupRepository getInstance() {
+        if (instance == null) {
+            instance = new RollupRepository();
+        }
+        return instance;
+    }
+
+    private RollupRepository() {
+        firestore = FirebaseFirestore.getInstance();
+        rollupsCollection = firestore.collection(ROLLUPS_COLLECTION);
+    }
+
+    /**
+     * Adds the rollup increments for a new check-in to the given batch
+     */
+    public static void applyCheckIn(FirebaseFirestore db, WriteBatch batch, Attendance attendance) {
+        for (Map.Entry<DocumentReference, Map<String, Object>> write : rollupWrites(db, attendance, checkInIncrements(attendance)).entrySet()) {
+            batch.set(write.getKey(), write.getValue(), SetOptions.merge());
+        }
+    }
+
+    /**
+     * Adds the rollup increments for a new check-in to the given transaction
+     */
+    public static void applyCheckIn(FirebaseFirestore db, Transaction transaction, Attendance attendance) {
+        for (Map.Entry<DocumentReference, Map<String, Object>> write : rollupWrites(db, attendance, checkInIncrements(attendance)).entrySet()) {
+            transaction.set(write.getKey(), write.getValue(), SetOptions.merge());
+        }
+    }
+
+    /**
+     * Adds the rollup increments for a check-out of the given record to the batch
+     */
+    public static void applyCheckOut(FirebaseFirestore db, WriteBatch batch, Attendance attendance) {
+        Map<String, Object> increments = new HashMap<>();
+        increments.put("checkOuts", FieldValue.increment(1));
+        for (Map.Entry<DocumentReference, Map<String, Object>> write : rollupWrites(db, attendance, increments).entrySet()) {
+            batch.set(write.getKey(), write.getValue(), SetOptions.merge());
+        }
+    }
+
+    private static Map<String, Object> checkInIncrements(Attendance attendance) {
+        Map<String, Object> increments = new HashMap<>();
+        increments.put("checkIns", FieldValue.increment(1));
+        if (attendance.isOnTime()) {
+            increments.put("onTime", FieldValue.increment(1));
+        } else if (attendance.isLate()) {
+            increments.put("late", FieldValue.increment(1));
+        } else if (attendance.isMissed()) {
+            increments.put("missed", FieldValue.increment(1));
+        }
+        return increments;
+    }
+
+    // One merge write per rollup the record counts towards
+    private static Map<DocumentReference, Map<String, Object>> rollupWrites(FirebaseFirestore db, Attendance attendance,
+                                                                           Map<String, Object> increments) {
+        Map<DocumentReference, Map<String, Object>> writes = new LinkedHashMap<>();
+        String date = attendance.getDate();
+        if (date == null || date.length() < 7) {
+            Log.w(TAG, "Skipping rollup update for record without a valid date");
+            return writes;
+        }
+        String yearMonth = date.substring(0, 7);
+
+        for (AttendanceRollup rollup : rollupsFor(attendance, yearMonth, attendance.getDepartmentId())) {
+            Map<String, Object> fields = new HashMap<>(increments);
+            fields.put("scope", rollup.getScope());
+            fields.put("scopeId", rollup.getScopeId());
+            fields.put("period", rollup.getPeriod());
+            fields.put("month", rollup.getMonth());
+            fields.put("updatedAt", FieldValue.serverTimestamp());
+            writes.put(db.collection(ROLLUPS_COLLECTION).document(rollup.getId()), fields);
+        }
+        return writes;
+    }
+
+    // The user-month, office-day and department-month rollups a record counts towards
+    private static List<AttendanceRollup> rollupsFor(Attendance attendance, String yearMonth, String departmentId) {
+        List<AttendanceRollup> rollups = new ArrayList<>(3);
+        if (attendance.getUserId() != null) {
+            rollups.add(new AttendanceRollup(AttendanceRollup.SCOPE_USER, attendance.getUserId(), yearMonth));
+        }
+        if (attendance.getOfficeId() != null) {
+            rollups.add(new AttendanceRollup(AttendanceRollup.SCOPE_OFFICE, attendance.getOfficeId(), attendance.getDate()));
+        }
+        if (departmentId != null) {
+            rollups.add(new AttendanceRollup(AttendanceRollup.SCOPE_DEPARTMENT, departmentId, yearMonth));
+        }
+        return rollups;
+    }
+
+    /**
+     * Collects the rollup increments of many records so a sync batch writes each
+     * rollup document once instead of once per record
+     */
+    public static class PendingIncrements {
+        private final Map<String, AttendanceRollup> deltas = new LinkedHashMap<>();
+
+        public void addCheckIn(Attendance attendance) {
+            for (AttendanceRollup delta : deltasFor(attendance)) {
+                delta.setCheckIns(delta.getCheckIns() + 1);
+                if (attendance.isOnTime()) {
+                    delta.setOnTime(delta.getOnTime() + 1);
+                } else if (attendance.isLate()) {
+                    delta.setLate(delta.getLate() + 1);
+                } else if (attendance.isMissed()) {
+                    delta.setMissed(delta.getMissed() + 1);
+                }
+            }
+        }
+
+        public void addCheckOut(Attendance attendance) {
+            for (AttendanceRollup delta : deltasFor(attendance)) {
+                delta.setCheckOuts(delta.getCheckOuts() + 1);
+            }
+        }
+
+        /**
+         * Employees may raise a rollup by only one record per write (see firestore.rules),
+         * so their batches hold at most one record per rollup
+         * @return Whether the record counts towards a rollup this batch already touches
+         */
+        public boolean overlaps(Attendance attendance) {
+            String date = attendance.getDate();
+            if (date == null || date.length() < 7) {
+                return false;
+            }
+            for (AttendanceRollup rollup : rollupsFor(attendance, date.substring(0, 7), attendance.getDepartmentId())) {
+                if (deltas.containsKey(rollup.getId())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return Number of rollup documents applyTo() will write
+         */
+        public int size() {
+            return deltas.size();
+        }
+
+        public void clear() {
+            deltas.clear();
+        }
+
+        /**
+         * Adds one merge write per touched rollup to the batch
+         * @return Number of writes added
+         */
+        public int applyTo(FirebaseFirestore db, WriteBatch batch) {
+            for (AttendanceRollup delta : deltas.values()) {
+                batch.set(db.collection(ROLLUPS_COLLECTION).document(delta.getId()), incrementFields(delta),
+                        SetOptions.merge());
+            }
+            return deltas.size();
+        }
+
+        private List<AttendanceRollup> deltasFor(Attendance attendance) {
+            List<AttendanceRollup> result = new ArrayList<>(3);
+            String date = attendance.getDate();
+            if (date == null || date.length() < 7) {
+                Log.w(TAG, "Skipping rollup update for record without a valid date");
+                return result;
+            }
+            for (AttendanceRollup rollup : rollupsFor(attendance, date.substring(0, 7), attendance.getDepartmentId())) {
+                AttendanceRollup delta = deltas.get(rollup.getId());
+                if (delta == null) {
+                    delta = rollup;
+                    deltas.put(rollup.getId(), delta);
+                }
+                result.add(delta);
+            }
+            return result;
+        }
+    }
+
+    // Merge fields that add the delta's counts to a rollup, creating it if needed
+    private static Map<String, Object> incrementFields(AttendanceRollup delta) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("scope", delta.getScope());
+        fields.put("scopeId", delta.getScopeId());
+        fields.put("period", delta.getPeriod());
+        fields.put("month", delta.getMonth());
+        fields.put("updatedAt", FieldValue.serverTimestamp());
+        putIncrement(fields, "onTime", delta.getOnTime());
+        putIncrement(fields, "late", delta.getLate());
+        putIncrement(fields, "missed", delta.getMissed());
+        putIncrement(fields, "checkIns", delta.getCheckIns());
+        putIncrement(fields, "checkOuts", delta.getCheckOuts());
+        return fields;
+    }
+
+    private static void putIncrement(Map<String, Object> fields, String field, long amount) {
+        if (amount != 0) {
+            fields.put(field, FieldValue.increment(amount));
+        }
+    }
+
+    /**
+     * Fetches a single rollup, provided its month's rollups are complete
+     * @param scope One of the AttendanceRollup scopes
+     * @param scopeId The user, office or department ID
+     * @param period The month (yyyy-MM) or day (yyyy-MM-dd) the scope is kept per
+     * @return Task with the rollup, with zero counts if no record has touched it yet, or null
+     *         if the month has not been rebuilt and the raw records have to be counted instead
+     */
+    public Task<AttendanceRollup> fetchRollup(String scope, String scopeId, String period) {
+        AttendanceRollup key = new AttendanceRollup(scope, scopeId, period);
+        Task<Boolean> complete = fetchMonthComplete(key.getMonth());
+        Task<DocumentSnapshot> document = rollupsCollection.document(key.getId()).get();
+
+        return Tasks.whenAllSuccess(complete, document).continueWith(task -> {
+            task.getResult();
+            if (!complete.getResult()) {
+                return null;
+            }
+            DocumentSnapshot snapshot = document.getResult();
+            if (snapshot == null || !snapshot.exists()) {
+                return key;
+            }
+            AttendanceRollup rollup = snapshot.toObject(AttendanceRollup.class);
+            if (rollup != null) {
+                rollup.setId(snapshot.getId());
+            }
+            return rollup;
+        });
+    }
+
+    /**
+     * Totals the office-day rollups for a day or a whole month, provided that month's
+     * rollups are complete
+     * @param officeId Office to total, or null for all offices
+     * @param period A day (yyyy-MM-dd) or a month (yyyy-MM)
+     * @return Task with the summed rollup, or null if the month has not been rebuilt and the
+     *         raw records have to be counted instead
+     */
+    public Task<AttendanceRollup> fetchOfficeTotal(String officeId, String period) {
+        // Equality filters only, so these are served by the automatic single-field indexes
+        Query query = rollupsCollection.whereEqualTo("scope", AttendanceRollup.SCOPE_OFFICE);
+        if (period.length() > 7) {
+            query = query.whereEqualTo("period", period);
+        } else {
+            query = query.whereEqualTo("month", period);
+        }
+        if (officeId != null) {
+            query = query.whereEqualTo("scopeId", officeId);
+        }
+        Task<Boolean> complete = fetchMonthComplete(period.substring(0, 7));
+        Task<QuerySnapshot> rollups = query.get();
+
+        return Tasks.whenAllSuccess(complete, rollups).continueWith(task -> {
+            task.getResult();
+            if (!complete.getResult()) {
+                return null;
+            }
+            AttendanceRollup total = new AttendanceRollup(AttendanceRollup.SCOPE_OFFICE,
+                    officeId != null ? officeId : "all", period);
+            for (QueryDocumentSnapshot document : rollups.getResult()) {
+                AttendanceRollup rollup = document.toObject(AttendanceRollup.class);
+                total.addCounts(rollup);
+            }
+            return total;
+        });
+    }
+
+    /**
+     * @return Task with whether the month's rollups were rebuilt under the current
+     *         counting rules and can be read instead of the raw records
+     */
+    public Task<Boolean> fetchMonthComplete(String yearMonth) {
+        return rollupsCollection.document(AttendanceRollup.monthStatusId(yearMonth))
+                .get()
+                .continueWith(task -> {
+                    DocumentSnapshot document = task.getResult();
+                    if (document == null || !document.exists()) {
+                        return false;
+                    }
+                    AttendanceRollup status = document.toObject(AttendanceRollup.class);
+                    return status != null && status.isCurrent();
+                });
+    }
+
+    /**
+     * Recomputes every rollup of a month from the raw attendance records and corrects the
+     * stored documents, then marks the month complete. Used to backfill existing data
+     * and to repair drift. The month is marked incomplete while it is rewritten, so readers
+     * count the raw records rather than a half-written month.
+     *
+     * Check-ins keep incrementing the month's rollups meanwhile, so the corrections are
+     * written as increments rather than overwrites. They are only exact if no increment
+     * landed while the records were read, which the rollups being unchanged before and
+     * after the read shows; otherwise the read is repeated.
+     * @param yearMonth The month in yyyy-MM format
+     * @return Task with the number of rollup documents corrected
+     */
+    public Task<Integer> rebuildMonth(String yearMonth) {
+        DocumentReference status = rollupsCollection.document(AttendanceRollup.monthStatusId(yearMonth));
+
+        return status.set(AttendanceRollup.monthStatus(yearMonth, false))
+                .continueWithTask(marked -> {
+                    marked.getResult();
+                    return rebuildCounts(yearMonth, status.getId(), 1);
+                })
+                .continueWithTask(rebuilt -> {
+                    int written = rebuilt.getResult();
+                    return status.set(AttendanceRollup.monthStatus(yearMonth, true))
+                            .continueWith(completeTask -> {
+                                completeTask.getResult();
+                                return written;
+                            });
+                })
+                .addOnSuccessListener(written -> Log.d(TAG, "Rebuilt " + written + " rollups for " + yearMonth))
+                .addOnFailureListener(e -> Log.e(TAG, "Error rebuilding rollups for " + yearMonth, e));
+    }
+
+    // Reads the stored rollups on both sides of the record read, so a concurrent increment
+    // shows up as a difference between the two
+    private Task<Integer> rebuildCounts(String yearMonth, String statusId, int attempt) {
+        Query storedQuery = rollupsCollection.whereEqualTo("month", yearMonth);
+
+        return storedQuery.get().continueWithTask(before -> {
+            Map<String, AttendanceRollup> storedBefore = storedCounts(before.getResult(), statusId);
+            return computeMonthFromRecords(yearMonth).continueWithTask(computed -> {
+                Map<String, AttendanceRollup> expected = computed.getResult();
+                return storedQuery.get().continueWithTask(after -> {
+                    Map<String, AttendanceRollup> storedAfter = storedCounts(after.getResult(), statusId);
+                    if (!sameCounts(storedBefore, storedAfter)) {
+                        if (attempt >= MAX_REBUILD_ATTEMPTS) {
+                            throw new IllegalStateException("Rollups for " + yearMonth
+                                    + " kept changing during " + attempt + " rebuild attempts");
+                        }
+                        Log.d(TAG, "Rollups for " + yearMonth + " changed while rebuilding, reading again");
+                        return rebuildCounts(yearMonth, statusId, attempt + 1);
+                    }
+                    return writeCorrections(expected, storedAfter);
+                });
+            });
+        });
+    }
+
+    private static Map<String, AttendanceRollup> storedCounts(QuerySnapshot stored, String statusId) {
+        Map<String, AttendanceRollup> counts = new HashMap<>();
+        for (QueryDocumentSnapshot document : stored) {
+            if (document.getId().equals(statusId)) {
+                continue;
+            }
+            AttendanceRollup rollup = document.toObject(AttendanceRollup.class);
+            rollup.setId(document.getId());
+            counts.put(document.getId(), rollup);
+        }
+        return counts;
+    }
+
+    private static boolean sameCounts(Map<String, AttendanceRollup> a, Map<String, AttendanceRollup> b) {
+        if (!a.keySet().equals(b.keySet())) {
+            return false;
+        }
+        for (Map.Entry<String, AttendanceRollup> entry : a.entrySet()) {
+            if (!entry.getValue().hasSameCounts(b.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Increments each stored rollup by its difference to the computed one, in batches of at
+    // most 500 writes. Rollups with no backing records any more are zeroed the same way.
+    private Task<Integer> writeCorrections(Map<String, AttendanceRollup> expected,
+                                           Map<String, AttendanceRollup> stored) {
+        Set<String> ids = new LinkedHashSet<>(expected.keySet());
+        ids.addAll(stored.keySet());
+
+        List<WriteBatch> batches = new ArrayList<>();
+        WriteBatch batch = firestore.batch();
+        int writesInBatch = 0;
+        int corrected = 0;
+
+        for (String id : ids) {
+            AttendanceRollup want = expected.get(id);
+            AttendanceRollup have = stored.get(id);
+            AttendanceRollup base = want != null ? want : have;
+            AttendanceRollup delta = new AttendanceRollup(base.getScope(), base.getScopeId(), base.getPeriod());
+            if (want != null) {
+                delta.addCounts(want);
+            }
+            if (have != null) {
+                delta.subtractCounts(have);
+            }
+            if (delta.hasSameCounts(new AttendanceRollup())) {
+                continue;
+            }
+
+            batch.set(rollupsCollection.document(id), incrementFields(delta), SetOptions.merge());
+            corrected++;
+            if (++writesInBatch == MAX_BATCH_WRITES) {
+                batches.add(batch);
+                batch = firestore.batch();
+                writesInBatch = 0;
+            }
+        }
+        if (writesInBatch > 0) {
+            batches.add(batch);
+        }
+
+        List<Task<Void>> commits = new ArrayList<>(batches.size());
+        for (WriteBatch pending : batches) {
+            commits.add(pending.commit());
+        }
+        final int written = corrected;
+        return Tasks.whenAll(commits).continueWith(commitTask -> {
+            commitTask.getResult();
+            return written;
+        });
+    }
+
+    /**
+     * Compares the stored rollups of a month with counts recomputed from the raw records
+     * @param yearMonth The month in yyyy-MM format
+     * @return Task with one description per mismatching rollup, empty when consistent
+     */
+    public Task<List<String>> checkConsistency(String yearMonth) {
+        Task<Map<String, AttendanceRollup>> computed = computeMonthFromRecords(yearMonth);
+        Task<QuerySnapshot> stored = rollupsCollection.whereEqualTo("month", yearMonth).get();
+        String statusId = AttendanceRollup.monthStatusId(yearMonth);
+
+        return Tasks.whenAllSuccess(computed, stored).continueWith(task -> {
+            task.getResult();
+            Map<String, AttendanceRollup> expected = computed.getResult();
+            Set<String> seen = new HashSet<>();
+            List<String> mismatches = new ArrayList<>();
+
+            for (QueryDocumentSnapshot document : stored.getResult()) {
+                if (document.getId().equals(statusId)) {
+                    continue;
+                }
+                AttendanceRollup actual = document.toObject(AttendanceRollup.class);
+                actual.setId(document.getId());
+                seen.add(document.getId());
+
+                AttendanceRollup want = expected.get(document.getId());
+                if (want == null) {
+                    // Rebuilds zero rollups that lost their records rather than deleting them
+                    if (!actual.hasSameCounts(new AttendanceRollup())) {
+                        mismatches.add("Unexpected rollup " + actual);
+                    }
+                } else if (!want.hasSameCounts(actual)) {
+                    mismatches.add("Expected " + want + " but found " + actual);
+                }
+            }
+            for (AttendanceRollup want : expected.values()) {
+                if (!seen.contains(want.getId())) {
+                    mismatches.add("Missing rollup " + want);
+                }
+            }
+
+            Log.d(TAG, "Consistency check for " + yearMonth + ": " + mismatches.size() + " mismatches");
+            return mismatches;
+        });
+    }
+
+    /**
+     * Aggregates every raw record of a month into rollups keyed by rollup ID.
+     * Records live both in the month collections (yyyy-MM) and in the day collections
+     * (yyyy-MM-dd), so both collection groups are read. Records written before
+     * departmentId was cached on attendance are attributed through the users collection.
+     */
+    private Task<Map<String, AttendanceRollup>> computeMonthFromRecords(String yearMonth) {
+        List<Task<QuerySnapshot>> recordQueries = new ArrayList<>();
+        recordQueries.add(firestore.collectionGroup(yearMonth).get());
+        for (String day : daysOfMonth(yearMonth)) {
+            recordQueries.add(firestore.collectionGroup(day).get());
+        }
+        Task<QuerySnapshot> usersQuery = firestore.collection(USERS_COLLECTION).get();
+
+        List<Task<?>> all = new ArrayList<>(recordQueries);
+        all.add(usersQuery);
+
+        return Tasks.whenAllSuccess(all).continueWith(aggregationExecutor, task -> {
+            task.getResult();
+
+            Map<String, String> departmentByUser = new HashMap<>();
+            for (QueryDocumentSnapshot user : usersQuery.getResult()) {
+                departmentByUser.put(user.getId(), user.getString("departmentId"));
+            }
+
+            Map<String, AttendanceRollup> rollups = new HashMap<>();
+            for (Task<QuerySnapshot> recordQuery : recordQueries) {
+                for (QueryDocumentSnapshot document : recordQuery.getResult()) {
+                    // Only documents under /attendance/{uid}/ are attendance records
+                    DocumentReference parent = document.getReference().getParent().getParent();
+                    if (parent == null || parent.getParent() == null
+                            || !ATTENDANCE_COLLECTION.equals(parent.getParent().getId())) {
+                        continue;
+                    }
+
+                    Attendance attendance = Codecs.decode(document, Codecs.ATTENDANCE);
+                    if (attendance.getDate() == null || !attendance.getDate().startsWith(yearMonth)) {
+                        continue;
+                    }
+
+                    String departmentId = attendance.getDepartmentId() != null
+                            ? attendance.getDepartmentId()
+                            : departmentByUser.get(attendance.getUserId());
+                    for (AttendanceRollup key : rollupsFor(attendance, yearMonth, departmentId)) {
+                        AttendanceRollup rollup = rollups.get(key.getId());
+                        if (rollup == null) {
+                            rollup = key;
+                            rollups.put(key.getId(), rollup);
+                        }
+                        rollup.add(attendance);
+                    }
+                }
+            }
+            return rollups;
+        });
+    }
+
+    private static List<String> daysOfMonth(String yearMonth) {
+        Calendar calendar = monthStart(yearMonth);
+        int days = calendar.getActualMaximum(Calendar.DAY_OF_MONTH);
+        List<String> result = new ArrayList<>(days);
+        for (int day = 1; day <= days; day++) {
+            result.add(String.format(Locale.US, "%s-%02d", yearMonth, day));
+        }
+        return result;
+    }
+
+    private static Calendar monthStart(String yearMonth) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(Integer.parseInt(yearMonth.substring(0, 4)),
+                Integer.parseInt(yearMonth.substring(5, 7)) - 1, 1);
+        return calendar;
+    }
+}
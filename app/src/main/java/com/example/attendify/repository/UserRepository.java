@@ -2,11 +2,11 @@ package com.example.attendify.repository;
 
 import android.util.Log;
 
-import androidx.lifecycle.MutableLiveData;
-
 import com.example.attendify.model.User;
+import com.example.attendify.repository.codec.Codecs;
 import com.google.android.gms.tasks.OnCompleteListener;
 import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
 import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
@@ -15,12 +15,16 @@ import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Query;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Consumer;
 
 /**
@@ -29,10 +33,13 @@ import java.util.function.Consumer;
 public class UserRepository {
     private static final String TAG = "UserRepository";
     private static final String USERS_COLLECTION = "users";
+    // Employees imported by an admin who have not signed up yet, keyed by pendingUserId()
+    private static final String PENDING_USERS_COLLECTION = "pendingUsers";
     
     private final FirebaseAuth firebaseAuth;
     private final FirebaseFirestore firestore;
     private final CollectionReference usersCollection;
+    private final CollectionReference pendingUsersCollection;
     
     // Singleton instance
     private static UserRepository instance;
@@ -48,16 +55,26 @@ public class UserRepository {
         firebaseAuth = FirebaseAuth.getInstance();
         firestore = FirebaseFirestore.getInstance();
         usersCollection = firestore.collection(USERS_COLLECTION);
+        pendingUsersCollection = firestore.collection(PENDING_USERS_COLLECTION);
     }
     
-    // Add auth state listener
-    public void getAuthStateListener(Consumer<FirebaseUser> callback) {
-        firebaseAuth.addAuthStateListener(auth -> callback.accept(auth.getCurrentUser()));
+    /**
+     * Calls back with the signed-in user now and on every sign-in or sign-out
+     * @return The registered listener, to pass to removeAuthStateListener() when done
+     */
+    public FirebaseAuth.AuthStateListener addAuthStateListener(Consumer<FirebaseUser> callback) {
+        FirebaseAuth.AuthStateListener listener = auth -> callback.accept(auth.getCurrentUser());
+        firebaseAuth.addAuthStateListener(listener);
+        return listener;
+    }
+
+    public void removeAuthStateListener(FirebaseAuth.AuthStateListener listener) {
+        firebaseAuth.removeAuthStateListener(listener);
     }
 
     // Register a new user with email and password
-    public MutableLiveData<User> registerUser(String email, String password, String name, String role, String officeId) {
-        MutableLiveData<User> userLiveData = new MutableLiveData<>();
+    public Task<User> registerUser(String email, String password, String name, String role, String officeId) {
+        TaskCompletionSource<User> result = new TaskCompletionSource<>();
         
         firebaseAuth.createUserWithEmailAndPassword(email, password)
                 .addOnSuccessListener(authResult -> {
@@ -76,131 +93,150 @@ public class UserRepository {
                                 officeId
                         );
                         
-                        usersCollection.document(firebaseUser.getUid())
-                                .set(user.toMap())
-                                .addOnSuccessListener(aVoid -> userLiveData.setValue(user))
-                                .addOnFailureListener(e -> userLiveData.setValue(null));
+                        createUserDocument(user, firebaseUser.isEmailVerified())
+                                .addOnSuccessListener(created -> result.setResult(created))
+                                .addOnFailureListener(e -> result.setResult(null));
                     } else {
-                        userLiveData.setValue(null);
+                        result.setResult(null);
                     }
                 })
-                .addOnFailureListener(e -> userLiveData.setValue(null));
+                .addOnFailureListener(e -> result.setResult(null));
         
-        return userLiveData;
+        return result.getTask();
+    }
+    
+    /**
+     * Writes the profile of a newly registered user. If an admin imported the email address
+     * and the address is verified, the imported profile is claimed instead. Anyone can
+     * register with any address, so until it is verified the normal unapproved profile is
+     * written and the imported one is claimed at the first sign-in after verification.
+     */
+    private Task<User> createUserDocument(User registered, boolean emailVerified) {
+        if (!emailVerified) {
+            return writeProfile(registered);
+        }
+        return fetchInvitation(registered.getEmail()).onSuccessTask(pending ->
+                pending != null ? claimInvitation(registered, pending) : writeProfile(registered));
+    }
+
+    private Task<User> writeProfile(User user) {
+        return usersCollection.document(user.getUid()).set(user.toMap()).continueWith(write -> {
+            if (!write.isSuccessful()) {
+                throw write.getException();
+            }
+            return user;
+        });
+    }
+
+    /**
+     * Claims the profile imported for a verified address whose sign-up wrote the normal
+     * unapproved profile. Approved profiles are left alone.
+     * @return Task that completes once there is nothing left to claim; it never fails
+     */
+    private Task<Void> claimInvitationOnSignIn(FirebaseUser firebaseUser) {
+        if (!firebaseUser.isEmailVerified() || firebaseUser.getEmail() == null) {
+            return Tasks.forResult(null);
+        }
+        return usersCollection.document(firebaseUser.getUid()).get()
+                .continueWithTask(profile -> {
+                    User current = profile.isSuccessful() ? Codecs.decode(profile.getResult(), Codecs.USER) : null;
+                    if (current == null || current.isApproved()) {
+                        return Tasks.<User>forResult(null);
+                    }
+                    return fetchInvitation(firebaseUser.getEmail()).onSuccessTask(pending ->
+                            pending != null ? claimInvitation(current, pending) : Tasks.forResult(current));
+                })
+                .continueWith(claim -> {
+                    if (!claim.isSuccessful()) {
+                        Log.w(TAG, "Could not claim imported profile", claim.getException());
+                    }
+                    return null;
+                });
+    }
+
+    // The pending users entry imported for the address, or null if there is none
+    private Task<DocumentSnapshot> fetchInvitation(String email) {
+        return pendingUsersCollection.document(pendingUserId(email)).get()
+                .continueWith(task -> task.isSuccessful() && task.getResult().exists() ? task.getResult() : null);
+    }
+
+    /**
+     * Writes the imported profile under the user's uid, keeping its role, department, team
+     * and approval, and deletes the pending entry in the same batch
+     */
+    private Task<User> claimInvitation(User registered, DocumentSnapshot pending) {
+        Log.d(TAG, "Claiming imported profile for " + registered.getEmail());
+        User user = Codecs.decode(pending, Codecs.USER);
+        user.setUid(registered.getUid());
+        user.setEmail(registered.getEmail());
+        if (user.getOfficeId() == null) {
+            user.setOfficeId(registered.getOfficeId());
+        }
+
+        Map<String, Object> data = user.toMap();
+        // Lets the rules check the claim against the entry deleted with it
+        data.put("invitationId", pending.getId());
+        WriteBatch batch = firestore.batch();
+        batch.set(usersCollection.document(user.getUid()), data);
+        batch.delete(pending.getReference());
+        return batch.commit().continueWith(commit -> {
+            if (!commit.isSuccessful()) {
+                throw commit.getException();
+            }
+            return user;
+        });
     }
     
     // Login with email and password
-    public MutableLiveData<User> loginUser(String email, String password) {
-        MutableLiveData<User> userLiveData = new MutableLiveData<>();
+    public Task<User> loginUser(String email, String password) {
+        TaskCompletionSource<User> result = new TaskCompletionSource<>();
         
         firebaseAuth.signInWithEmailAndPassword(email, password)
                 .addOnSuccessListener(authResult -> {
                     FirebaseUser firebaseUser = authResult.getUser();
                     if (firebaseUser != null) {
-                        // Get user data from Firestore
-                        getUserData(firebaseUser.getUid(), userLiveData);
+                        // Sign-up left an imported profile unclaimed until the address was verified
+                        claimInvitationOnSignIn(firebaseUser)
+                                .addOnCompleteListener(claim -> getUserData(firebaseUser.getUid(), result));
                     } else {
-                        userLiveData.setValue(null);
+                        result.setResult(null);
                     }
                 })
-                .addOnFailureListener(e -> userLiveData.setValue(null));
+                .addOnFailureListener(e -> result.setResult(null));
         
-        return userLiveData;
+        return result.getTask();
     }
     
     // Get user data from Firestore
-    public void getUserData(String uid, MutableLiveData<User> userLiveData) {
+    private void getUserData(String uid, TaskCompletionSource<User> result) {
         usersCollection.document(uid)
                 .get()
                 .addOnSuccessListener(documentSnapshot -> {
-                    if (documentSnapshot.exists()) {
-                        // Try to handle both User model formats
-                        User user = new User();
-                        user.setUid(documentSnapshot.getId());
-                        
-                        // Get email (both models have this)
-                        user.setEmail(documentSnapshot.getString("email"));
-                        
-                        // Get name (might be 'name' or 'fullName')
-                        if (documentSnapshot.contains("name")) {
-                            user.setName(documentSnapshot.getString("name"));
-                        } else if (documentSnapshot.contains("fullName")) {
-                            user.setName(documentSnapshot.getString("fullName"));
-                        }
-                        
-                        // Get role (both models have this)
-                        user.setRole(documentSnapshot.getString("role"));
-                        
-                        // Get officeId (might be 'officeId' or 'office')
-                        if (documentSnapshot.contains("officeId")) {
-                            user.setOfficeId(documentSnapshot.getString("officeId"));
-                        } else if (documentSnapshot.contains("office")) {
-                            user.setOfficeId(documentSnapshot.getString("office"));
-                        }
-                        
-                        // Get departmentId (might be 'departmentId' or 'department')
-                        if (documentSnapshot.contains("departmentId")) {
-                            user.setDepartmentId(documentSnapshot.getString("departmentId"));
-                        } else if (documentSnapshot.contains("department")) {
-                            user.setDepartmentId(documentSnapshot.getString("department"));
-                        }
-                        
-                        // Get teamId (might be 'teamId' or 'team')
-                        if (documentSnapshot.contains("teamId")) {
-                            user.setTeamId(documentSnapshot.getString("teamId"));
-                        } else if (documentSnapshot.contains("team")) {
-                            user.setTeamId(documentSnapshot.getString("team"));
-                        }
-                        
-                        // Get manager info (might be 'managerId' or 'manager')
-                        if (documentSnapshot.contains("managerId")) {
-                            user.setManagerId(documentSnapshot.getString("managerId"));
-                        } else if (documentSnapshot.contains("manager")) {
-                            user.setManagerId(documentSnapshot.getString("manager"));
-                        }
-                        
-                        // Handle approval status (might be 'isApproved' or 'status')
-                        if (documentSnapshot.contains("isApproved")) {
-                            user.setApproved(documentSnapshot.getBoolean("isApproved"));
-                        } else if (documentSnapshot.contains("status")) {
-                            user.setStatus(documentSnapshot.getString("status"));
-                        }
-                        
-                        // Handle manager status
-                        if (documentSnapshot.contains("isManager")) {
-                            user.setManager(documentSnapshot.getBoolean("isManager"));
-                        }
-                        
-                        // Handle profile image
-                        user.setProfileImageUrl(documentSnapshot.getString("profileImageUrl"));
-                        
-                        userLiveData.setValue(user);
-                    } else {
-                        userLiveData.setValue(null);
-                    }
+                    // Null when the document does not exist; legacy field names are handled by the codec
+                    result.setResult(Codecs.decode(documentSnapshot, Codecs.USER));
                 })
-                .addOnFailureListener(e -> userLiveData.setValue(null));
+                .addOnFailureListener(e -> result.setResult(null));
     }
     
     // Get current user
-    public MutableLiveData<User> getCurrentUser() {
-        MutableLiveData<User> userLiveData = new MutableLiveData<>();
+    public Task<User> getCurrentUser() {
+        TaskCompletionSource<User> result = new TaskCompletionSource<>();
         
         FirebaseUser firebaseUser = firebaseAuth.getCurrentUser();
         if (firebaseUser != null) {
-            getUserData(firebaseUser.getUid(), userLiveData);
+            getUserData(firebaseUser.getUid(), result);
         } else {
-            userLiveData.setValue(null);
+            result.setResult(null);
         }
         
-        return userLiveData;
+        return result.getTask();
     }
     
     // Get user profile
-    public MutableLiveData<User> getUserProfile(String uid) {
-        MutableLiveData<User> userLiveData = new MutableLiveData<>();
-        getUserData(uid, userLiveData);
-        return userLiveData;
+    public Task<User> getUserProfile(String uid) {
+        TaskCompletionSource<User> result = new TaskCompletionSource<>();
+        getUserData(uid, result);
+        return result.getTask();
     }
     
     // Logout current user
@@ -209,8 +245,8 @@ public class UserRepository {
     }
     
     // Approve a user
-    public MutableLiveData<Boolean> approveUser(String uid) {
-        MutableLiveData<Boolean> resultLiveData = new MutableLiveData<>();
+    public Task<Boolean> approveUser(String uid) {
+        TaskCompletionSource<Boolean> result = new TaskCompletionSource<>();
         
         // Update both isApproved and status fields to ensure consistency
         Map<String, Object> updates = new HashMap<>();
@@ -219,15 +255,15 @@ public class UserRepository {
         
         usersCollection.document(uid)
                 .update(updates)
-                .addOnSuccessListener(aVoid -> resultLiveData.setValue(true))
-                .addOnFailureListener(e -> resultLiveData.setValue(false));
+                .addOnSuccessListener(aVoid -> result.setResult(true))
+                .addOnFailureListener(e -> result.setResult(false));
         
-        return resultLiveData;
+        return result.getTask();
     }
     
     // Reject a user (mark as rejected instead of deleting)
-    public MutableLiveData<Boolean> rejectUser(String uid) {
-        MutableLiveData<Boolean> resultLiveData = new MutableLiveData<>();
+    public Task<Boolean> rejectUser(String uid) {
+        TaskCompletionSource<Boolean> result = new TaskCompletionSource<>();
         
         // Update both isApproved and status fields to ensure consistency
         Map<String, Object> updates = new HashMap<>();
@@ -236,15 +272,15 @@ public class UserRepository {
         
         usersCollection.document(uid)
                 .update(updates)
-                .addOnSuccessListener(aVoid -> resultLiveData.setValue(true))
-                .addOnFailureListener(e -> resultLiveData.setValue(false));
+                .addOnSuccessListener(aVoid -> result.setResult(true))
+                .addOnFailureListener(e -> result.setResult(false));
         
-        return resultLiveData;
+        return result.getTask();
     }
     
     // Get pending approval users
-    public MutableLiveData<List<User>> getPendingApprovalUsers() {
-        MutableLiveData<List<User>> usersLiveData = new MutableLiveData<>();
+    public Task<List<User>> getPendingApprovalUsers() {
+        TaskCompletionSource<List<User>> result = new TaskCompletionSource<>();
         
         // Query for users with isApproved=false AND status="pending" 
         // (excluding rejected users)
@@ -254,22 +290,21 @@ public class UserRepository {
                 .addOnSuccessListener(queryDocumentSnapshots -> {
                     List<User> users = new ArrayList<>();
                     for (DocumentSnapshot document : queryDocumentSnapshots.getDocuments()) {
-                        User user = document.toObject(User.class);
+                        User user = Codecs.decode(document, Codecs.USER);
                         if (user != null) {
-                            user.setUid(document.getId());
                             users.add(user);
                         }
                     }
-                    usersLiveData.setValue(users);
+                    result.setResult(users);
                 })
-                .addOnFailureListener(e -> usersLiveData.setValue(new ArrayList<>()));
+                .addOnFailureListener(e -> result.setResult(new ArrayList<>()));
         
-        return usersLiveData;
+        return result.getTask();
     }
     
     // Get users by role (admin or employee)
-    public MutableLiveData<List<User>> getUsersByRole(String role) {
-        MutableLiveData<List<User>> usersLiveData = new MutableLiveData<>();
+    public Task<List<User>> getUsersByRole(String role) {
+        TaskCompletionSource<List<User>> result = new TaskCompletionSource<>();
         
         usersCollection.whereEqualTo("role", role)
                 .whereEqualTo("isApproved", true)
@@ -277,22 +312,21 @@ public class UserRepository {
                 .addOnSuccessListener(queryDocumentSnapshots -> {
                     List<User> users = new ArrayList<>();
                     for (DocumentSnapshot document : queryDocumentSnapshots.getDocuments()) {
-                        User user = document.toObject(User.class);
+                        User user = Codecs.decode(document, Codecs.USER);
                         if (user != null) {
-                            user.setUid(document.getId());
                             users.add(user);
                         }
                     }
-                    usersLiveData.setValue(users);
+                    result.setResult(users);
                 })
-                .addOnFailureListener(e -> usersLiveData.setValue(new ArrayList<>()));
+                .addOnFailureListener(e -> result.setResult(new ArrayList<>()));
         
-        return usersLiveData;
+        return result.getTask();
     }
     
     // Get users by office
-    public MutableLiveData<List<User>> getUsersByOffice(String officeId) {
-        MutableLiveData<List<User>> usersLiveData = new MutableLiveData<>();
+    public Task<List<User>> getUsersByOffice(String officeId) {
+        TaskCompletionSource<List<User>> result = new TaskCompletionSource<>();
         
         usersCollection.whereEqualTo("officeId", officeId)
                 .whereEqualTo("isApproved", true)
@@ -300,17 +334,16 @@ public class UserRepository {
                 .addOnSuccessListener(queryDocumentSnapshots -> {
                     List<User> users = new ArrayList<>();
                     for (DocumentSnapshot document : queryDocumentSnapshots.getDocuments()) {
-                        User user = document.toObject(User.class);
+                        User user = Codecs.decode(document, Codecs.USER);
                         if (user != null) {
-                            user.setUid(document.getId());
                             users.add(user);
                         }
                     }
-                    usersLiveData.setValue(users);
+                    result.setResult(users);
                 })
-                .addOnFailureListener(e -> usersLiveData.setValue(new ArrayList<>()));
+                .addOnFailureListener(e -> result.setResult(new ArrayList<>()));
         
-        return usersLiveData;
+        return result.getTask();
     }
     
     // Update user's location
@@ -320,7 +353,7 @@ public class UserRepository {
         userRef.get()
                 .addOnSuccessListener(documentSnapshot -> {
                     if (documentSnapshot.exists()) {
-                        User user = documentSnapshot.toObject(User.class);
+                        User user = Codecs.decode(documentSnapshot, Codecs.USER);
                         if (user != null) {
                             user.updateLocation(latitude, longitude);
                             userRef.update("location", user.getLocation());
@@ -331,54 +364,42 @@ public class UserRepository {
 
     /**
      * Get all employees (users with role "employee")
-     * @return LiveData containing list of employee users
+     * @return Task containing list of employee users
      */
-    public MutableLiveData<List<User>> getAllEmployees() {
-        MutableLiveData<List<User>> usersLiveData = new MutableLiveData<>();
+    public Task<List<User>> getAllEmployees() {
+        TaskCompletionSource<List<User>> result = new TaskCompletionSource<>();
         
         firestore.collection(USERS_COLLECTION)
                 .whereEqualTo("role", "employee")
                 .get()
                 .addOnSuccessListener(queryDocumentSnapshots -> {
-                    List<User> employees = new ArrayList<>();
-                    for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        User user = document.toObject(User.class);
-                        user.setUid(document.getId());
-                        employees.add(user);
-                    }
-                    usersLiveData.setValue(employees);
+                    List<User> employees = Codecs.decodeAll(queryDocumentSnapshots, Codecs.USER);
+                    result.setResult(employees);
                 })
                 .addOnFailureListener(e -> {
                     Log.e(TAG, "Error getting employees: ", e);
-                    usersLiveData.setValue(new ArrayList<>());
+                    result.setResult(new ArrayList<>());
                 });
         
-        return usersLiveData;
+        return result.getTask();
     }
     
     /**
      * Get all users
-     * @return LiveData containing list of all users
+     * @return Task containing list of all users
      */
-    public MutableLiveData<List<User>> getAllUsers() {
-        MutableLiveData<List<User>> usersLiveData = new MutableLiveData<>();
+    public Task<List<User>> getAllUsers() {
+        TaskCompletionSource<List<User>> result = new TaskCompletionSource<>();
         
         usersCollection.get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    List<User> users = new ArrayList<>();
-                    for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        User user = document.toObject(User.class);
-                        user.setUid(document.getId());
-                        users.add(user);
-                    }
-                    usersLiveData.setValue(users);
-                })
+                .addOnSuccessListener(queryDocumentSnapshots ->
+                        result.setResult(Codecs.decodeAll(queryDocumentSnapshots, Codecs.USER)))
                 .addOnFailureListener(e -> {
                     Log.e(TAG, "Error getting all users: ", e);
-                    usersLiveData.setValue(new ArrayList<>());
+                    result.setResult(new ArrayList<>());
                 });
         
-        return usersLiveData;
+        return result.getTask();
     }
     
     /**
@@ -398,6 +419,34 @@ public class UserRepository {
                 .addOnCompleteListener(callback);
     }
     
+    /**
+     * Writes one chunk of imported employees in a single batch. Employees have no account
+     * yet, so they are stored in the admin-only pending users collection and become a user
+     * document under their Auth uid when they sign up with the same email address. Each entry
+     * is keyed by the email address, so importing the same file again, or replaying a chunk
+     * after a retry, updates the same documents instead of adding new ones.
+     * @param users At most 500 users
+     * @return Task that completes when the batch is committed
+     */
+    public Task<Void> saveImportedUsers(List<User> users) {
+        WriteBatch batch = firestore.batch();
+        for (User user : users) {
+            Map<String, Object> data = user.toMap();
+            // Sign-up looks the entry up by the address the user types, in any case
+            data.put("email", user.getEmail().trim().toLowerCase(Locale.ROOT));
+            batch.set(pendingUsersCollection.document(pendingUserId(user.getEmail())), data, SetOptions.merge());
+        }
+        return batch.commit();
+    }
+    
+    /**
+     * @return The stable pending users document ID of an employee imported with this email address
+     */
+    public static String pendingUserId(String email) {
+        String key = "import:" + email.trim().toLowerCase(Locale.ROOT);
+        return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+    
     /**
      * Delete a user
      * @param userId ID of user to delete
@@ -418,12 +467,7 @@ public class UserRepository {
         usersCollection.whereEqualTo("departmentId", departmentId)
                 .get()
                 .addOnSuccessListener(queryDocumentSnapshots -> {
-                    List<User> users = new ArrayList<>();
-                    for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        User user = document.toObject(User.class);
-                        user.setUid(document.getId());
-                        users.add(user);
-                    }
+                    List<User> users = Codecs.decodeAll(queryDocumentSnapshots, Codecs.USER);
                     Task<List<User>> task = Tasks.forResult(users);
                     callback.onComplete(task);
                 })
@@ -443,12 +487,7 @@ public class UserRepository {
         usersCollection.whereEqualTo("teamId", teamId)
                 .get()
                 .addOnSuccessListener(queryDocumentSnapshots -> {
-                    List<User> users = new ArrayList<>();
-                    for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        User user = document.toObject(User.class);
-                        user.setUid(document.getId());
-                        users.add(user);
-                    }
+                    List<User> users = Codecs.decodeAll(queryDocumentSnapshots, Codecs.USER);
                     Task<List<User>> task = Tasks.forResult(users);
                     callback.onComplete(task);
                 })
@@ -0,0 +1,25 @@
+package com.example.attendify.repository.codec;
+
+import com.example.attendify.model.Attendance;
+
+import java.util.Map;
+
+final class AttendanceCodec implements DocumentCodec<Attendance> {
+
+    @Override
+    public Attendance decode(String id, Map<String, Object> data) {
+        Attendance attendance = new Attendance();
+        attendance.setDocumentId(id);
+        attendance.setUserId(Fields.string(data, "userId"));
+        attendance.setUserName(Fields.string(data, "userName"));
+        attendance.setOfficeName(Fields.string(data, "officeName"));
+        attendance.setDate(Fields.string(data, "date"));
+        attendance.setCheckInTime(Fields.date(data, "checkInTime"));
+        attendance.setCheckOutTime(Fields.date(data, "checkOutTime"));
+        attendance.setStatus(Fields.string(data, "status"));
+        attendance.setOfficeId(Fields.string(data, "officeId"));
+        attendance.setDepartmentId(Fields.string(data, "departmentId"));
+        attendance.setLocationStatus(Fields.string(data, "locationStatus"));
+        return attendance;
+    }
+}
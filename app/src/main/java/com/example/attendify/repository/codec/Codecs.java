@@ -0,0 +1,56 @@
+package com.example.attendify.repository.codec;
+
+import com.example.attendify.model.Attendance;
+import com.example.attendify.model.Department;
+import com.example.attendify.model.Office;
+import com.example.attendify.model.PerformanceMetrics;
+import com.example.attendify.model.Team;
+import com.example.attendify.model.User;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hand-written replacements for DocumentSnapshot.toObject(). toObject() walks each model
+ * class with reflection through Firestore's CustomClassMapper for every document; these
+ * codecs read the document's field map once and call the setters directly.
+ *
+ * Codecs set the model's id from the document id, so callers no longer need to.
+ */
+public final class Codecs {
+    public static final DocumentCodec<Attendance> ATTENDANCE = new AttendanceCodec();
+    public static final DocumentCodec<User> USER = new UserCodec();
+    public static final DocumentCodec<Office> OFFICE = new OfficeCodec();
+    public static final DocumentCodec<Department> DEPARTMENT = new DepartmentCodec();
+    public static final DocumentCodec<Team> TEAM = new TeamCodec();
+    public static final DocumentCodec<PerformanceMetrics> PERFORMANCE_METRICS = new PerformanceMetricsCodec();
+
+    private Codecs() {
+    }
+
+    /**
+     * @return The decoded model, or null if the document does not exist
+     */
+    public static <T> T decode(DocumentSnapshot document, DocumentCodec<T> codec) {
+        if (document == null) {
+            return null;
+        }
+        Map<String, Object> data = document.getData();
+        return data != null ? codec.decode(document.getId(), data) : null;
+    }
+
+    public static <T> List<T> decodeAll(QuerySnapshot snapshot, DocumentCodec<T> codec) {
+        List<DocumentSnapshot> documents = snapshot.getDocuments();
+        List<T> models = new ArrayList<>(documents.size());
+        for (DocumentSnapshot document : documents) {
+            T model = decode(document, codec);
+            if (model != null) {
+                models.add(model);
+            }
+        }
+        return models;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.attendify.repository.codec;
+
+import com.example.attendify.model.Department;
+
+import java.util.Map;
+
+final class DepartmentCodec implements DocumentCodec<Department> {
+
+    @Override
+    public Department decode(String id, Map<String, Object> data) {
+        Department department = new Department();
+        department.setId(id);
+        department.setName(Fields.string(data, "name"));
+        department.setDescription(Fields.string(data, "description"));
+        department.setManagerId(Fields.string(data, "managerId"));
+        department.setTeamIds(Fields.stringList(data, "teamIds"));
+        department.setCreatedAt(Fields.date(data, "createdAt"));
+        Boolean active = Fields.bool(data, "active");
+        department.setActive(active != null && active);
+        return department;
+    }
+}
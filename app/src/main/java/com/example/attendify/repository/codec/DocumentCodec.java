@@ -0,0 +1,17 @@
+package com.example.attendify.repository.codec;
+
+import java.util.Map;
+
+/**
+ * Maps one Firestore document's data onto a model without reflection.
+ * Implementations never throw on missing or mistyped fields; they leave the model's
+ * default in place, the way an absent field behaves with toObject().
+ */
+public interface DocumentCodec<T> {
+
+    /**
+     * @param id Document id
+     * @param data Document fields, as returned by DocumentSnapshot.getData()
+     */
+    T decode(String id, Map<String, Object> data);
+}
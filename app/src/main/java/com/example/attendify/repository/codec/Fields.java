@@ -0,0 +1,108 @@
+package com.example.attendify.repository.codec;
+
+import com.google.firebase.Timestamp;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typed reads from a document's field map. Each helper does one map lookup and returns
+ * the fallback when the field is absent or holds another type. The value overloads
+ * convert a field already taken from the map, for codecs that walk the entries once.
+ */
+final class Fields {
+
+    private Fields() {
+    }
+
+    static String string(Map<String, Object> data, String key) {
+        return string(data.get(key));
+    }
+
+    static String string(Object value) {
+        return value instanceof String ? (String) value : null;
+    }
+
+    /**
+     * First present string of a field and its legacy name
+     */
+    static String string(Map<String, Object> data, String key, String legacyKey) {
+        String value = string(data, key);
+        return value != null ? value : string(data, legacyKey);
+    }
+
+    static Date date(Map<String, Object> data, String key) {
+        return date(data.get(key));
+    }
+
+    static Date date(Object value) {
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toDate();
+        }
+        if (value instanceof Date) {
+            return (Date) value;
+        }
+        if (value instanceof Long) {
+            // Epoch millis written by older clients
+            return new Date((Long) value);
+        }
+        return null;
+    }
+
+    static int integer(Map<String, Object> data, String key, int fallback) {
+        return integer(data.get(key), fallback);
+    }
+
+    static int integer(Object value, int fallback) {
+        return value instanceof Number ? ((Number) value).intValue() : fallback;
+    }
+
+    static double decimal(Map<String, Object> data, String key, double fallback) {
+        Object value = data.get(key);
+        return value instanceof Number ? ((Number) value).doubleValue() : fallback;
+    }
+
+    static Boolean bool(Map<String, Object> data, String key) {
+        return bool(data.get(key));
+    }
+
+    static Boolean bool(Object value) {
+        return value instanceof Boolean ? (Boolean) value : null;
+    }
+
+    static List<String> stringList(Map<String, Object> data, String key) {
+        Object value = data.get(key);
+        if (!(value instanceof List)) {
+            return null;
+        }
+        List<?> list = (List<?>) value;
+        List<String> strings = new ArrayList<>(list.size());
+        for (Object item : list) {
+            if (item instanceof String) {
+                strings.add((String) item);
+            }
+        }
+        return strings;
+    }
+
+    static Map<String, Double> doubleMap(Map<String, Object> data, String key) {
+        return doubleMap(data.get(key));
+    }
+
+    static Map<String, Double> doubleMap(Object value) {
+        if (!(value instanceof Map)) {
+            return null;
+        }
+        Map<?, ?> map = (Map<?, ?>) value;
+        Map<String, Double> doubles = new HashMap<>();
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (entry.getKey() instanceof String && entry.getValue() instanceof Number) {
+                doubles.put((String) entry.getKey(), ((Number) entry.getValue()).doubleValue());
+            }
+        }
+        return doubles;
+    }
+}
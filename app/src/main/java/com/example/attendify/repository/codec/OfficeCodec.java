@@ -0,0 +1,29 @@
+package com.example.attendify.repository.codec;
+
+import com.example.attendify.model.Office;
+
+import java.util.Map;
+
+final class OfficeCodec implements DocumentCodec<Office> {
+
+    @Override
+    public Office decode(String id, Map<String, Object> data) {
+        Office office = new Office();
+        // The id is not stored in the document
+        office.setId(id);
+        office.setName(Fields.string(data, "name"));
+        office.setAddress(Fields.string(data, "address"));
+        office.setLatitude(Fields.decimal(data, "latitude", 0));
+        office.setLongitude(Fields.decimal(data, "longitude", 0));
+        office.setRadius(Fields.decimal(data, "radius", 0));
+        office.setEntryTime(Fields.string(data, "entryTime"));
+        office.setStartHour(Fields.integer(data, "startHour", 0));
+        office.setStartMinute(Fields.integer(data, "startMinute", 0));
+        office.setEndHour(Fields.integer(data, "endHour", 0));
+        office.setEndMinute(Fields.integer(data, "endMinute", 0));
+        office.setCheckInRadius(Fields.integer(data, "checkInRadius", 0));
+        office.setStability(Fields.integer(data, "stability", 0));
+        office.setTimeZone(Fields.string(data, "timeZone"));
+        return office;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.attendify.repository.codec;
+
+import com.example.attendify.model.PerformanceMetrics;
+
+import java.util.Map;
+
+final class PerformanceMetricsCodec implements DocumentCodec<PerformanceMetrics> {
+
+    @Override
+    public PerformanceMetrics decode(String id, Map<String, Object> data) {
+        PerformanceMetrics metrics = new PerformanceMetrics();
+        metrics.setId(id);
+        metrics.setUserId(Fields.string(data, "userId"));
+        metrics.setUserName(Fields.string(data, "userName"));
+        metrics.setPeriodStart(Fields.date(data, "periodStart"));
+        metrics.setPeriodEnd(Fields.date(data, "periodEnd"));
+        metrics.setTotalWorkDays(Fields.integer(data, "totalWorkDays", 0));
+        metrics.setPresentDays(Fields.integer(data, "presentDays", 0));
+        metrics.setAbsentDays(Fields.integer(data, "absentDays", 0));
+        metrics.setLateDays(Fields.integer(data, "lateDays", 0));
+        metrics.setLeaveCount(Fields.integer(data, "leaveCount", 0));
+        metrics.setAverageHoursWorked(Fields.decimal(data, "averageHoursWorked", 0));
+        metrics.setPunctualityScore(Fields.decimal(data, "punctualityScore", 0));
+        metrics.setConsistencyScore(Fields.decimal(data, "consistencyScore", 0));
+        metrics.setOverallScore(Fields.decimal(data, "overallScore", 0));
+        metrics.setUpdatedAt(Fields.date(data, "updatedAt"));
+        return metrics;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.attendify.repository.codec;
+
+import com.example.attendify.model.Team;
+
+import java.util.Map;
+
+final class TeamCodec implements DocumentCodec<Team> {
+
+    @Override
+    public Team decode(String id, Map<String, Object> data) {
+        Team team = new Team();
+        team.setId(id);
+        team.setName(Fields.string(data, "name"));
+        team.setDescription(Fields.string(data, "description"));
+        team.setDepartmentId(Fields.string(data, "departmentId"));
+        team.setLeaderId(Fields.string(data, "leaderId"));
+        team.setMemberIds(Fields.stringList(data, "memberIds"));
+        team.setCreatedAt(Fields.date(data, "createdAt"));
+        Boolean active = Fields.bool(data, "active");
+        team.setActive(active != null && active);
+        return team;
+    }
+}
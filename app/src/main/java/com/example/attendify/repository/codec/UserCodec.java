@@ -0,0 +1,155 @@
+package com.example.attendify.repository.codec;
+
+import com.example.attendify.model.User;
+
+import java.util.Map;
+
+/**
+ * Reads a user in one pass over the document's fields. Current field names are set on the
+ * user as they come; version 1 names (see {@link UserSchema}) are held aside and only used
+ * when the current name is absent, since the map gives no order to rely on.
+ */
+final class UserCodec implements DocumentCodec<User> {
+
+    @Override
+    public User decode(String id, Map<String, Object> data) {
+        User user = new User();
+        user.setUid(id);
+        user.setSchemaVersion(UserSchema.LEGACY_VERSION);
+
+        String status = null;
+        Boolean approved = null;
+        Boolean manager = null;
+        Boolean active = null;
+        String legacyName = null;
+        String legacyOffice = null;
+        String legacyDepartment = null;
+        String legacyTeam = null;
+        String legacyManagerId = null;
+        Boolean legacyManager = null;
+        Boolean legacyApproved = null;
+        Boolean legacyActive = null;
+
+        for (Map.Entry<String, Object> field : data.entrySet()) {
+            Object value = field.getValue();
+            switch (field.getKey()) {
+                case "email":
+                    user.setEmail(Fields.string(value));
+                    break;
+                case "name":
+                    user.setName(Fields.string(value));
+                    break;
+                case "displayName":
+                    user.setDisplayName(Fields.string(value));
+                    break;
+                case "role":
+                    user.setRole(Fields.string(value));
+                    break;
+                case "employeeId":
+                    user.setEmployeeId(Fields.string(value));
+                    break;
+                case "officeId":
+                    user.setOfficeId(Fields.string(value));
+                    break;
+                case "departmentId":
+                    user.setDepartmentId(Fields.string(value));
+                    break;
+                case "teamId":
+                    user.setTeamId(Fields.string(value));
+                    break;
+                case "managerId":
+                    user.setManagerId(Fields.string(value));
+                    break;
+                case "profileImageUrl":
+                    user.setProfileImageUrl(Fields.string(value));
+                    break;
+                case "location":
+                    user.setLocation(Fields.doubleMap(value));
+                    break;
+                case "createdAt":
+                    user.setCreatedAt(Fields.date(value));
+                    break;
+                case "lastLogin":
+                    user.setLastLogin(Fields.date(value));
+                    break;
+                case "status":
+                    status = Fields.string(value);
+                    break;
+                case "isApproved":
+                    approved = Fields.bool(value);
+                    break;
+                case "isManager":
+                    manager = Fields.bool(value);
+                    break;
+                case "active":
+                    active = Fields.bool(value);
+                    break;
+                case UserSchema.FIELD_SCHEMA_VERSION:
+                    user.setSchemaVersion(Fields.integer(value, UserSchema.LEGACY_VERSION));
+                    break;
+                case "fullName":
+                    legacyName = Fields.string(value);
+                    break;
+                case "office":
+                    legacyOffice = Fields.string(value);
+                    break;
+                case "department":
+                    legacyDepartment = Fields.string(value);
+                    break;
+                case "team":
+                    legacyTeam = Fields.string(value);
+                    break;
+                case UserSchema.LEGACY_MANAGER:
+                    legacyManagerId = Fields.string(value);
+                    legacyManager = Fields.bool(value);
+                    break;
+                case "approved":
+                    legacyApproved = Fields.bool(value);
+                    break;
+                case "isActive":
+                    legacyActive = Fields.bool(value);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        if (user.getName() == null) {
+            user.setName(legacyName);
+        }
+        if (user.getOfficeId() == null) {
+            user.setOfficeId(legacyOffice);
+        }
+        if (user.getDepartmentId() == null) {
+            user.setDepartmentId(legacyDepartment);
+        }
+        if (user.getTeamId() == null) {
+            user.setTeamId(legacyTeam);
+        }
+        if (user.getManagerId() == null) {
+            user.setManagerId(legacyManagerId);
+        }
+
+        if (active == null) {
+            active = legacyActive;
+        }
+        user.setActive(active != null && active);
+
+        // Status first: setApproved() keeps a "rejected" status, setStatus() would override the flag
+        if (status != null) {
+            user.setStatus(status);
+        }
+        if (approved == null) {
+            approved = legacyApproved;
+        }
+        if (approved != null) {
+            user.setApproved(approved);
+        }
+
+        if (manager == null) {
+            manager = legacyManager;
+        }
+        user.setManager(manager != null && manager);
+        return user;
+    }
+}
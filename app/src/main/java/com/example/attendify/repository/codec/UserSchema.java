@@ -0,0 +1,99 @@
+package com.example.attendify.repository.codec;
+
+import com.example.attendify.model.User;
+import com.google.firebase.firestore.FieldValue;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Field layouts of stored user documents. Version 1 is everything written before
+ * schemaVersion existed, under names that varied between clients; version
+ * {@link User#SCHEMA_VERSION} is what User.toMap() writes. UserCodec reads both, and
+ * {@link #upgrade} gives the writes that turn a version 1 document into the current one.
+ */
+public final class UserSchema {
+    public static final String FIELD_SCHEMA_VERSION = "schemaVersion";
+    static final int LEGACY_VERSION = 1;
+
+    // Version 1 name to current name
+    static final Map<String, String> RENAMED = new LinkedHashMap<>();
+    static {
+        RENAMED.put("fullName", "name");
+        RENAMED.put("office", "officeId");
+        RENAMED.put("department", "departmentId");
+        RENAMED.put("team", "teamId");
+        RENAMED.put("isActive", "active");
+        RENAMED.put("approved", "isApproved");
+    }
+
+    // Held the manager's id in some version 1 documents and the isManager flag in others
+    static final String LEGACY_MANAGER = "manager";
+    // Version 1 clients wrote these as epoch millis
+    private static final List<String> DATE_FIELDS = Arrays.asList("createdAt", "lastLogin");
+    // A copy of the document id, and a password that was never read: sign-in is Firebase Auth
+    private static final List<String> DROPPED = Arrays.asList("id", "password");
+
+    private UserSchema() {
+    }
+
+    public static int versionOf(Map<String, Object> data) {
+        return Fields.integer(data, FIELD_SCHEMA_VERSION, LEGACY_VERSION);
+    }
+
+    /**
+     * @return Field updates that bring a stored user to the current version, or an empty
+     * map if it already is. Current names win over legacy ones when a document has both.
+     */
+    public static Map<String, Object> upgrade(Map<String, Object> data) {
+        Map<String, Object> updates = new HashMap<>();
+        if (versionOf(data) >= User.SCHEMA_VERSION) {
+            return updates;
+        }
+
+        for (Map.Entry<String, String> rename : RENAMED.entrySet()) {
+            if (!data.containsKey(rename.getKey())) {
+                continue;
+            }
+            if (!data.containsKey(rename.getValue())) {
+                updates.put(rename.getValue(), data.get(rename.getKey()));
+            }
+            updates.put(rename.getKey(), FieldValue.delete());
+        }
+
+        if (data.containsKey(LEGACY_MANAGER)) {
+            Object manager = data.get(LEGACY_MANAGER);
+            if (manager instanceof String && !data.containsKey("managerId")) {
+                updates.put("managerId", manager);
+            } else if (manager instanceof Boolean && !data.containsKey("isManager")) {
+                updates.put("isManager", manager);
+            }
+            updates.put(LEGACY_MANAGER, FieldValue.delete());
+        }
+
+        String status = Fields.string(data, "status");
+        if (status != null && !data.containsKey("isApproved") && !data.containsKey("approved")) {
+            updates.put("isApproved", "approved".equals(status));
+        }
+
+        for (String field : DATE_FIELDS) {
+            Object value = data.get(field);
+            if (value instanceof Long) {
+                updates.put(field, new Date((Long) value));
+            }
+        }
+
+        for (String field : DROPPED) {
+            if (data.containsKey(field)) {
+                updates.put(field, FieldValue.delete());
+            }
+        }
+
+        updates.put(FIELD_SCHEMA_VERSION, User.SCHEMA_VERSION);
+        return updates;
+    }
+}
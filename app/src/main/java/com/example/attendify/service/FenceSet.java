@@ -0,0 +1,105 @@
+package com.example.attendify.service;
+
+import com.example.attendify.model.Office;
+import com.example.attendify.util.OfficeSpatialIndex;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The offices OfficeGeofenceManager fences around a point, and the rotation fence that
+ * tells it when to choose again.
+ *
+ * The rotation radius is measured against the whole office directory, not just the chosen
+ * offices: it is the distance to the nearest fence edge of any office left out of the set,
+ * so the user leaves the rotation fence before they can reach an office that is not fenced,
+ * unless that office is closer than {@link #MIN_ROTATION_RADIUS_METERS}.
+ */
+final class FenceSet {
+    // Smaller circles are not reliably reported by the platform
+    static final float MIN_ROTATION_RADIUS_METERS = 150;
+
+    final Map<String, Office> offices;
+    final double anchorLatitude;
+    final double anchorLongitude;
+    // 0 when every office is fenced and there is nothing to rotate in
+    final float rotationRadius;
+
+    private FenceSet(Map<String, Office> offices, double anchorLatitude, double anchorLongitude,
+                     float rotationRadius) {
+        this.offices = offices;
+        this.anchorLatitude = anchorLatitude;
+        this.anchorLongitude = anchorLongitude;
+        this.rotationRadius = rotationRadius;
+    }
+
+    /**
+     * Chooses the fenceCount offices nearest to the point, always including the pinned one
+     * @param pinned Office to fence wherever the user is, or null
+     */
+    static FenceSet around(OfficeSpatialIndex index, double latitude, double longitude,
+                           Office pinned, int fenceCount) {
+        // One extra neighbor, so the nearest office left out is known
+        List<OfficeSpatialIndex.Neighbor> nearest = index.nearest(latitude, longitude, fenceCount + 1);
+        Map<String, Office> offices = new LinkedHashMap<>();
+        List<String> order = new ArrayList<>();
+        for (OfficeSpatialIndex.Neighbor neighbor : nearest) {
+            if (offices.size() == fenceCount) {
+                break;
+            }
+            offices.put(neighbor.getOffice().getId(), neighbor.getOffice());
+            order.add(neighbor.getOffice().getId());
+        }
+        if (pinned != null && !offices.containsKey(pinned.getId())) {
+            if (offices.size() >= fenceCount) {
+                // Nearest first, so the last one is the farthest
+                offices.remove(order.get(order.size() - 1));
+            }
+            offices.put(pinned.getId(), pinned);
+        }
+
+        double toUnfenced = Double.POSITIVE_INFINITY;
+        for (OfficeSpatialIndex.Neighbor neighbor : nearest) {
+            if (!offices.containsKey(neighbor.getOffice().getId())) {
+                toUnfenced = Math.min(toUnfenced, neighbor.getDistanceMeters() - neighbor.getRadiusMeters());
+            }
+        }
+        if (nearest.size() > fenceCount) {
+            // Offices past the last neighbor are at least as far, but may have larger fences
+            double last = nearest.get(nearest.size() - 1).getDistanceMeters();
+            toUnfenced = Math.min(toUnfenced, last - index.getMaxRadiusMeters());
+        }
+
+        float rotationRadius = Double.isInfinite(toUnfenced)
+                ? 0
+                : (float) Math.max(MIN_ROTATION_RADIUS_METERS, toUnfenced);
+        return new FenceSet(offices, latitude, longitude, rotationRadius);
+    }
+
+    /**
+     * Only the pinned office, for when the user's location is unknown
+     */
+    static FenceSet pinnedOnly(Office pinned) {
+        Map<String, Office> offices = new LinkedHashMap<>();
+        if (pinned != null) {
+            offices.put(pinned.getId(), pinned);
+        }
+        return new FenceSet(offices, Double.NaN, Double.NaN, 0);
+    }
+
+    boolean hasAnchor() {
+        return !Double.isNaN(anchorLatitude);
+    }
+
+    /**
+     * @return true if the point lies outside a rotation fence centred on the anchor, so a
+     * nearer office may be missing from the set
+     */
+    static boolean leftRotationFence(double anchorLatitude, double anchorLongitude, float rotationRadius,
+                                     double latitude, double longitude) {
+        return rotationRadius > 0 && OfficeSpatialIndex.distanceMeters(
+                anchorLatitude, anchorLongitude, latitude, longitude) > rotationRadius;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.attendify.service;
+
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+
+/**
+ * Receives OS geofence transitions and hands them to GeofenceTransitionsJobIntentService
+ */
+public class GeofenceBroadcastReceiver extends BroadcastReceiver {
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        GeofenceTransitionsJobIntentService.enqueueWork(context, intent);
+    }
+
+    /**
+     * The intent every geofence is registered with, so all transitions arrive here
+     */
+    static PendingIntent pendingIntent(Context context) {
+        Intent intent = new Intent(context, GeofenceBroadcastReceiver.class);
+        int flags = PendingIntent.FLAG_UPDATE_CURRENT;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            // Play services fills in the transition details
+            flags |= PendingIntent.FLAG_MUTABLE;
+        }
+        return PendingIntent.getBroadcast(context, 0, intent, flags);
+    }
+}
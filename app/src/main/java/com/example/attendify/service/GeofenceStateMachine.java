@@ -0,0 +1,220 @@
+package com.example.attendify.service;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+/**
+ * Turns a stream of location fixes into confirmed InOffice/OutOfOffice transitions.
+ *
+ * A fix only counts as evidence when it is accurate enough to tell the two states apart:
+ * it is "inside" when it lies within the office radius and its accuracy circle does not
+ * reach past the radius plus a hysteresis band, and "outside" when even the near edge of
+ * its accuracy circle lies beyond that band. Ambiguous fixes keep the current state.
+ * A new state must then hold for a dwell time before it is confirmed, longer for leaving
+ * than for arriving, so GPS jitter at the fence edge does not flap the status.
+ *
+ * A confirmed transition is only proposed for writing: it becomes the state once the caller
+ * reports through {@link #onWriteResult} that the write was stored, so a failed write is
+ * proposed again by a later fix instead of being lost.
+ *
+ * The confirmed state and counters are persisted per user, office and day, so a service
+ * restart does not rewrite a status that is already stored.
+ */
+public class GeofenceStateMachine {
+    public static final String IN_OFFICE = "InOffice";
+    public static final String OUT_OF_OFFICE = "OutOfOffice";
+
+    private static final String PREF_NAME = "geofence_state";
+    private static final String KEY_SCOPE = "scope";
+    private static final String KEY_STATE = "state";
+    private static final String KEY_CANDIDATE = "candidate";
+    private static final String KEY_CANDIDATE_SINCE = "candidate_since";
+    private static final String KEY_CANDIDATE_FIXES = "candidate_fixes";
+    private static final String KEY_EMITTED = "emitted";
+    private static final String KEY_SUPPRESSED = "suppressed";
+    private static final String KEY_IGNORED = "ignored";
+
+    // Band beyond the radius that a fix must clear to count as outside
+    private static final float MIN_HYSTERESIS_METERS = 30;
+    private static final float HYSTERESIS_FRACTION = 0.25f;
+    // Fixes less accurate than this cannot place the user on either side of a fence
+    private static final float MAX_ACCURACY_METERS = 200;
+    static final long ENTER_DWELL_MS = 60 * 1000;
+    static final long EXIT_DWELL_MS = 3 * 60 * 1000;
+    private static final int MIN_CONFIRMING_FIXES = 2;
+    // Wait before proposing a transition again after its write failed
+    static final long WRITE_RETRY_MS = 60 * 1000;
+
+    private final SharedPreferences preferences;
+
+    private String scope;
+    private String state;
+    private String candidate;
+    private long candidateSince;
+    private int candidateFixes;
+    private long emitted;
+    private long suppressed;
+    private long ignored;
+    // Transition handed out for writing and not yet reported back; not persisted, since a
+    // write that outlives the process is simply proposed again
+    private String pending;
+    private long retryAt;
+
+    public GeofenceStateMachine(Context context) {
+        this(context.getApplicationContext().getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE));
+    }
+
+    GeofenceStateMachine(SharedPreferences preferences) {
+        this.preferences = preferences;
+        scope = preferences.getString(KEY_SCOPE, null);
+        state = preferences.getString(KEY_STATE, null);
+        candidate = preferences.getString(KEY_CANDIDATE, null);
+        candidateSince = preferences.getLong(KEY_CANDIDATE_SINCE, 0);
+        candidateFixes = preferences.getInt(KEY_CANDIDATE_FIXES, 0);
+        emitted = preferences.getLong(KEY_EMITTED, 0);
+        suppressed = preferences.getLong(KEY_SUPPRESSED, 0);
+        ignored = preferences.getLong(KEY_IGNORED, 0);
+    }
+
+    /**
+     * Feeds one fix
+     * @param scopeKey User, office and day the fix belongs to; a new scope starts with no state
+     * @param distanceMeters Distance from the office centre
+     * @param accuracyMeters Horizontal accuracy of the fix, 0 if unknown
+     * @param radiusMeters Office geofence radius
+     * @return The newly confirmed status to write, or null if nothing needs writing. The
+     * outcome of the write must be reported with {@link #onWriteResult}.
+     */
+    public synchronized String onFix(String scopeKey, float distanceMeters, float accuracyMeters,
+                                     float radiusMeters, long nowMillis) {
+        if (!scopeKey.equals(scope)) {
+            scope = scopeKey;
+            state = null;
+            pending = null;
+            retryAt = 0;
+            clearCandidate();
+        }
+
+        String evidence = classify(distanceMeters, accuracyMeters, radiusMeters);
+        String result = null;
+        if (evidence == null) {
+            // Too inaccurate, or inside the hysteresis band: hold the current state
+            ignored++;
+        } else if (evidence.equals(state)) {
+            clearCandidate();
+            suppressed++;
+        } else if (state == null) {
+            // First usable fix of the day, nothing stored yet to protect
+            result = propose(evidence, nowMillis);
+        } else {
+            if (!evidence.equals(candidate)) {
+                candidate = evidence;
+                candidateSince = nowMillis;
+                candidateFixes = 0;
+            }
+            candidateFixes++;
+            long dwell = IN_OFFICE.equals(evidence) ? ENTER_DWELL_MS : EXIT_DWELL_MS;
+            if (candidateFixes >= MIN_CONFIRMING_FIXES && nowMillis - candidateSince >= dwell) {
+                result = propose(evidence, nowMillis);
+            } else {
+                suppressed++;
+            }
+        }
+        save();
+        return result;
+    }
+
+    /**
+     * Reports the outcome of writing a status returned by {@link #onFix}. Only a stored write
+     * makes it the state; otherwise the transition is proposed again after {@link #WRITE_RETRY_MS}.
+     * @param scopeKey The scope the status was returned for
+     * @param status The status that was written
+     * @param stored Whether the write reached an attendance record
+     */
+    public synchronized void onWriteResult(String scopeKey, String status, boolean stored, long nowMillis) {
+        if (!scopeKey.equals(scope) || !status.equals(pending)) {
+            return;
+        }
+        pending = null;
+        if (stored) {
+            state = status;
+            clearCandidate();
+            emitted++;
+            save();
+        } else {
+            retryAt = nowMillis + WRITE_RETRY_MS;
+        }
+    }
+
+    /**
+     * @return The last stored status, or null if none has been stored in this scope
+     */
+    public synchronized String getState() {
+        return state;
+    }
+
+    /**
+     * @return Transitions whose Firestore write was stored
+     */
+    public synchronized long getEmittedCount() {
+        return emitted;
+    }
+
+    /**
+     * @return Fixes that would have been written before but were suppressed, either
+     * because the state was unchanged or the change had not dwelt long enough yet
+     */
+    public synchronized long getSuppressedCount() {
+        return suppressed;
+    }
+
+    /**
+     * @return Fixes that were too inaccurate or inside the hysteresis band
+     */
+    public synchronized long getIgnoredCount() {
+        return ignored;
+    }
+
+    static String classify(float distanceMeters, float accuracyMeters, float radiusMeters) {
+        if (accuracyMeters > Math.max(MAX_ACCURACY_METERS, radiusMeters)) {
+            return null;
+        }
+        float exitRadius = radiusMeters + Math.max(MIN_HYSTERESIS_METERS, radiusMeters * HYSTERESIS_FRACTION);
+        if (distanceMeters <= radiusMeters && distanceMeters + accuracyMeters <= exitRadius) {
+            return IN_OFFICE;
+        }
+        if (distanceMeters - accuracyMeters >= exitRadius) {
+            return OUT_OF_OFFICE;
+        }
+        return null;
+    }
+
+    // Hands out a confirmed transition unless its write is in flight or recently failed
+    private String propose(String newState, long nowMillis) {
+        if (newState.equals(pending) || nowMillis < retryAt) {
+            suppressed++;
+            return null;
+        }
+        pending = newState;
+        return newState;
+    }
+
+    private void clearCandidate() {
+        candidate = null;
+        candidateSince = 0;
+        candidateFixes = 0;
+    }
+
+    private void save() {
+        preferences.edit()
+                .putString(KEY_SCOPE, scope)
+                .putString(KEY_STATE, state)
+                .putString(KEY_CANDIDATE, candidate)
+                .putLong(KEY_CANDIDATE_SINCE, candidateSince)
+                .putInt(KEY_CANDIDATE_FIXES, candidateFixes)
+                .putLong(KEY_EMITTED, emitted)
+                .putLong(KEY_SUPPRESSED, suppressed)
+                .putLong(KEY_IGNORED, ignored)
+                .apply();
+    }
+}
@@ -4,19 +4,32 @@ import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.content.Context;
 import android.content.Intent;
+import android.location.Location;
 import android.os.Build;
+import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.core.app.JobIntentService;
 import androidx.core.app.NotificationCompat;
+import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 
 import com.example.attendify.R;
+import com.example.attendify.model.Office;
+import com.example.attendify.repository.OfficeRepository;
+import com.example.attendify.util.OfficeSpatialIndex;
 import com.google.android.gms.location.Geofence;
 import com.google.android.gms.location.GeofencingEvent;
+import com.google.android.gms.tasks.Tasks;
 
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class GeofenceTransitionsJobIntentService extends JobIntentService {
+    // Re-broadcast in-process so a running GeofencingService can leave passive sampling
+    public static final String ACTION_OS_GEOFENCE_TRANSITION = "com.example.attendify.OS_GEOFENCE_TRANSITION";
+    private static final String TAG = "GeofenceTransitions";
     private static final int JOB_ID = 573;
     private static final String CHANNEL_ID = "geofence_channel";
 
@@ -43,7 +56,21 @@ public class GeofenceTransitionsJobIntentService extends JobIntentService {
             return;
         }
 
-        String geofenceId = triggeringGeofences.get(0).getRequestId();
+        // The user left the area the fenced offices were chosen for
+        String geofenceId = null;
+        for (Geofence geofence : triggeringGeofences) {
+            if (OfficeGeofenceManager.isRotationFence(geofence.getRequestId())) {
+                rotateFences(geofencingEvent.getTriggeringLocation());
+            } else if (geofenceId == null) {
+                geofenceId = geofence.getRequestId();
+            }
+        }
+        if (geofenceId == null) {
+            return;
+        }
+
+        String officeName = OfficeGeofenceManager.getOfficeName(this, geofenceId);
+        String officeArea = officeName != null ? officeName : "your office area";
 
         String notificationTitle;
         String notificationContent;
@@ -51,11 +78,11 @@ public class GeofenceTransitionsJobIntentService extends JobIntentService {
         switch (geofenceTransition) {
             case Geofence.GEOFENCE_TRANSITION_ENTER:
                 notificationTitle = "Office Area Entered";
-                notificationContent = "You are now within your office area. Don't forget to check in!";
+                notificationContent = "You are now within " + officeArea + ". Don't forget to check in!";
                 break;
             case Geofence.GEOFENCE_TRANSITION_EXIT:
                 notificationTitle = "Office Area Exited";
-                notificationContent = "You have left your office area. Make sure you've checked out!";
+                notificationContent = "You have left " + officeArea + ". Make sure you've checked out!";
                 break;
             default:
                 return;
@@ -63,6 +90,34 @@ public class GeofenceTransitionsJobIntentService extends JobIntentService {
 
         // Send notification
         sendNotification(notificationTitle, notificationContent);
+
+        Intent transition = new Intent(ACTION_OS_GEOFENCE_TRANSITION);
+        transition.putExtra("geofence_id", geofenceId);
+        transition.putExtra("is_entering", geofenceTransition == Geofence.GEOFENCE_TRANSITION_ENTER);
+        LocalBroadcastManager.getInstance(this).sendBroadcast(transition);
+    }
+
+    /**
+     * Re-registers fences around the offices nearest to where the rotation fence was left.
+     * Runs on the work thread, so it can wait for the office directory.
+     */
+    private void rotateFences(Location location) {
+        if (location == null) {
+            return;
+        }
+        try {
+            OfficeRepository officeRepository = OfficeRepository.getInstance();
+            officeRepository.init(this);
+            List<Office> offices = Tasks.await(officeRepository.getOffices(), 30, TimeUnit.SECONDS);
+
+            OfficeSpatialIndex officeIndex = new OfficeSpatialIndex();
+            officeIndex.update(offices);
+            Tasks.await(new OfficeGeofenceManager(this, officeIndex).rotate(location), 30, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            Log.e(TAG, "Failed to rotate office geofences", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     private void sendNotification(String title, String content) {
@@ -1,11 +1,14 @@
 package com.example.attendify.service;
 
 import android.Manifest;
+import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.pm.PackageManager;
 import android.location.Location;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 
 import androidx.core.app.ActivityCompat;
@@ -15,15 +18,16 @@ import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 
 import com.example.attendify.model.Office;
 import com.example.attendify.ui.admin.AdminDashboardActivity;
+import com.example.attendify.util.OfficeSpatialIndex;
+import com.google.android.gms.location.CurrentLocationRequest;
 import com.google.android.gms.location.FusedLocationProviderClient;
-import com.google.android.gms.location.Geofence;
-import com.google.android.gms.location.GeofencingClient;
-import com.google.android.gms.location.GeofencingRequest;
 import com.google.android.gms.location.LocationCallback;
 import com.google.android.gms.location.LocationRequest;
 import com.google.android.gms.location.LocationResult;
 import com.google.android.gms.location.LocationServices;
 import com.google.android.gms.location.Priority;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -31,15 +35,21 @@ import java.util.List;
 public class GeofencingService {
 
     private static final String TAG = "GeofencingService";
+    // Fastest sampling, used only near the fence edge; see LocationSamplingScheduler
     private static final long UPDATE_INTERVAL = 10 * 1000;  // 10 seconds
-    private static final long FASTEST_UPDATE_INTERVAL = 5 * 1000; // 5 seconds
-    private static final float GEOFENCE_RADIUS_IN_METERS = 100;
+    // Consecutive inside fixes before the scheduler may hand over to the OS geofence
+    private static final int CONFIRM_INSIDE_FIXES = 2;
+    // Oldest fix a check-in may rest on; passive sampling can leave the last fix 15 minutes old
+    private static final long MAX_CHECK_IN_FIX_AGE_MS = 30 * 1000;
 
     private final Context context;
-    private final GeofencingClient geofencingClient;
     private final FusedLocationProviderClient fusedLocationClient;
     private final LocationCallback locationCallback;
-    private final LocationRequest locationRequest;
+    private final LocationSamplingScheduler samplingScheduler;
+    private LocationRequest locationRequest;
+    private boolean updatesRequested;
+    private int insideFixes;
+    private Float lastEdgeDistance;
 
     private final MutableLiveData<Boolean> isInsideGeofenceLiveData = new MutableLiveData<>(false);
     private final MutableLiveData<Float> distanceToOfficeLiveData = new MutableLiveData<>();
@@ -47,17 +57,19 @@ public class GeofencingService {
     
     private Office currentOffice;
     private List<Office> availableOffices = new ArrayList<>();
+    // Answers nearest-office queries per fix without measuring every office
+    private final OfficeSpatialIndex officeIndex = new OfficeSpatialIndex();
+    private final OfficeGeofenceManager fenceManager;
+    private final MutableLiveData<Office> nearestOfficeLiveData = new MutableLiveData<>();
 
     public GeofencingService(Context context) {
         this.context = context;
-        geofencingClient = LocationServices.getGeofencingClient(context);
+        fenceManager = new OfficeGeofenceManager(context, officeIndex);
         fusedLocationClient = LocationServices.getFusedLocationProviderClient(context);
 
-        // Create location request for continuous updates
-        locationRequest = new LocationRequest.Builder(UPDATE_INTERVAL)
-                .setMinUpdateIntervalMillis(FASTEST_UPDATE_INTERVAL)
-                .setPriority(Priority.PRIORITY_HIGH_ACCURACY)
-                .build();
+        // Priority and interval adapt to the distance from the fence, see onFix()
+        samplingScheduler = new LocationSamplingScheduler(context, UPDATE_INTERVAL);
+        locationRequest = samplingScheduler.currentRequest();
 
         // Define location callback
         locationCallback = new LocationCallback() {
@@ -70,15 +82,55 @@ public class GeofencingService {
                     // Update current location
                     currentLocationLiveData.setValue(location);
                     
+                    updateNearestOffice(location);
+                    trackFenceRegistration(fenceManager.onLocation(location));
+
                     // Check if inside office geofence
                     if (currentOffice != null) {
                         checkIfInsideGeofence(location, currentOffice);
+                        onFix(location);
                     }
                 }
             }
         };
     }
 
+    // Re-plans sampling after a fix and switches requests only if the plan changed
+    private void onFix(Location location) {
+        float edgeDistance = calculateDistanceToOffice(currentOffice, location) - currentOffice.getFenceRadius();
+        lastEdgeDistance = edgeDistance;
+        insideFixes = edgeDistance <= 0 ? insideFixes + 1 : 0;
+        samplingScheduler.setConfirmedInside(insideFixes >= CONFIRM_INSIDE_FIXES);
+        applyPlan(samplingScheduler.onFix(location, edgeDistance));
+    }
+
+    private void applyPlan(LocationRequest next) {
+        if (next == null) {
+            return;
+        }
+        locationRequest = next;
+        Log.d(TAG, "Location sampling: " + samplingScheduler.describe());
+        if (updatesRequested) {
+            // Requesting again with the same callback replaces the previous request
+            startLocationUpdates();
+        }
+    }
+
+    /**
+     * Tells the sampler whether the user is checked in; once checked in and confirmed
+     * inside, fixes are only received passively until the OS geofence reports an exit
+     */
+    public void setCheckedIn(boolean checkedIn) {
+        samplingScheduler.setCheckedIn(checkedIn);
+        if (lastEdgeDistance != null) {
+            applyPlan(samplingScheduler.replan(lastEdgeDistance));
+        }
+    }
+
+    public LocationSamplingScheduler getSamplingScheduler() {
+        return samplingScheduler;
+    }
+
     public void setupGeofence(Office office) {
         if (office == null) return;
         
@@ -89,47 +141,43 @@ public class GeofencingService {
             return;
         }
 
-        // Create geofence
-        Geofence geofence = new Geofence.Builder()
-                .setRequestId(office.getId())
-                .setCircularRegion(
-                        office.getLatitude(),
-                        office.getLongitude(),
-                        GEOFENCE_RADIUS_IN_METERS
-                )
-                .setExpirationDuration(Geofence.NEVER_EXPIRE)
-                .setTransitionTypes(Geofence.GEOFENCE_TRANSITION_ENTER | Geofence.GEOFENCE_TRANSITION_EXIT)
-                .build();
-
-        // Create geofencing request
-        GeofencingRequest geofencingRequest = new GeofencingRequest.Builder()
-                .setInitialTrigger(GeofencingRequest.INITIAL_TRIGGER_ENTER)
-                .addGeofence(geofence)
-                .build();
-
-        // Add geofence
-        geofencingClient.addGeofences(geofencingRequest, null)
-                .addOnSuccessListener(aVoid -> Log.d(TAG, "Geofence added successfully"))
-                .addOnFailureListener(e -> Log.e(TAG, "Failed to add geofence", e));
+        // The OS fences the offices nearest to the user, always including this one
+        fenceManager.setPinnedOffice(office);
 
         // Get current location to check if already inside
         fusedLocationClient.getLastLocation()
                 .addOnSuccessListener(location -> {
+                    trackFenceRegistration(fenceManager.rotate(location));
                     if (location != null) {
                         currentLocationLiveData.setValue(location);
                         checkIfInsideGeofence(location, office);
                     }
                 });
     }
+
+    // While the fences are in place, far-away sampling can rely on them instead of GPS
+    private void trackFenceRegistration(Task<Void> registration) {
+        if (registration == null) {
+            return;
+        }
+        registration.addOnCompleteListener(task -> {
+            samplingScheduler.setFencesRegistered(task.isSuccessful());
+            if (lastEdgeDistance != null) {
+                applyPlan(samplingScheduler.replan(lastEdgeDistance));
+            }
+        });
+    }
     
     public void updateAvailableOffices(List<Office> offices) {
         if (offices == null) {
             this.availableOffices = new ArrayList<>();
+            officeIndex.update(null);
             Log.d(TAG, "Updated with null offices");
             return;
         }
         this.availableOffices = new ArrayList<>(offices);
-        Log.d(TAG, "Updated with " + offices.size() + " offices");
+        int changed = officeIndex.update(offices);
+        Log.d(TAG, "Updated with " + offices.size() + " offices, " + changed + " changed in the index");
         for (Office office : offices) {
             Log.d(TAG, "Available office: " + office.getName() + " (ID: " + office.getId() + ")");
         }
@@ -156,11 +204,33 @@ public class GeofencingService {
             return;
         }
         fusedLocationClient.requestLocationUpdates(locationRequest, locationCallback, Looper.getMainLooper());
+        if (!updatesRequested) {
+            LocalBroadcastManager.getInstance(context).registerReceiver(osGeofenceReceiver,
+                    new IntentFilter(GeofenceTransitionsJobIntentService.ACTION_OS_GEOFENCE_TRANSITION));
+        }
+        updatesRequested = true;
     }
 
     public void stopLocationUpdates() {
         fusedLocationClient.removeLocationUpdates(locationCallback);
+        if (updatesRequested) {
+            LocalBroadcastManager.getInstance(context).unregisterReceiver(osGeofenceReceiver);
+            Log.d(TAG, "Location sampling stopped: " + samplingScheduler.describe());
+        }
+        updatesRequested = false;
     }
+
+    // Any OS fence transition means the user is at a fence edge: sample actively again
+    private final BroadcastReceiver osGeofenceReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (!intent.getBooleanExtra("is_entering", true)) {
+                insideFixes = 0;
+                samplingScheduler.setConfirmedInside(false);
+            }
+            applyPlan(samplingScheduler.replan(0));
+        }
+    };
     
     public void refreshLocationUpdates() {
         if (ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
@@ -194,7 +264,7 @@ public class GeofencingService {
         distanceToOfficeLiveData.setValue(distance[0]);
         
         // Check if inside geofence radius
-        boolean isInside = distance[0] <= GEOFENCE_RADIUS_IN_METERS;
+        boolean isInside = distance[0] <= office.getFenceRadius();
         boolean wasInside = isInsideGeofenceLiveData.getValue() != null && isInsideGeofenceLiveData.getValue();
         
         // Only broadcast geofence transitions when the status changes
@@ -239,6 +309,34 @@ public class GeofencingService {
         return distance[0];
     }
     
+    private void updateNearestOffice(Location location) {
+        List<OfficeSpatialIndex.Neighbor> nearest = officeIndex.nearest(location.getLatitude(), location.getLongitude(), 1);
+        Office office = nearest.isEmpty() ? null : nearest.get(0).getOffice();
+        if (office != nearestOfficeLiveData.getValue()) {
+            nearestOfficeLiveData.setValue(office);
+        }
+    }
+
+    /**
+     * @return Up to k available offices closest to the location, nearest first
+     */
+    public List<OfficeSpatialIndex.Neighbor> findNearestOffices(Location location, int k) {
+        if (location == null) return new ArrayList<>();
+        return officeIndex.nearest(location.getLatitude(), location.getLongitude(), k);
+    }
+
+    /**
+     * @return Available offices whose geofence contains the location, nearest first
+     */
+    public List<OfficeSpatialIndex.Neighbor> findContainingOffices(Location location) {
+        if (location == null) return new ArrayList<>();
+        return officeIndex.containing(location.getLatitude(), location.getLongitude());
+    }
+
+    public LiveData<Office> getNearestOfficeLiveData() {
+        return nearestOfficeLiveData;
+    }
+    
     public List<Office> getAvailableOffices() {
         return availableOffices;
     }
@@ -261,16 +359,41 @@ public class GeofencingService {
 
     /**
      * Validates if the user is currently within the specified office geofence
-     * Used as a security measure to prevent check-ins outside the office area
+     * Used as a security measure to prevent check-ins outside the office area.
+     * The last fix counts only if it is recent; otherwise a fresh high-accuracy fix is requested
      * 
      * @param office The office to check against
-     * @return true if user is inside office geofence, false otherwise
+     * @return Task resolving to true if user is inside office geofence, false otherwise
      */
-    public boolean validateCheckInLocation(Office office) {
-        Location currentLocation = getCurrentLocationLiveData().getValue();
-        if (currentLocation == null) return false;
-        
-        float distance = calculateDistanceToOffice(office, currentLocation);
-        return distance <= office.getRadius();
+    public Task<Boolean> validateCheckInLocation(Office office) {
+        Location lastLocation = currentLocationLiveData.getValue();
+        if (lastLocation != null && fixAgeMillis(lastLocation) <= MAX_CHECK_IN_FIX_AGE_MS) {
+            return Tasks.forResult(isWithinRadius(office, lastLocation));
+        }
+        if (ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
+            return Tasks.forResult(false);
+        }
+
+        CurrentLocationRequest request = new CurrentLocationRequest.Builder()
+                .setPriority(Priority.PRIORITY_HIGH_ACCURACY)
+                .setMaxUpdateAgeMillis(MAX_CHECK_IN_FIX_AGE_MS)
+                .build();
+        return fusedLocationClient.getCurrentLocation(request, null)
+                .continueWith(task -> {
+                    Location location = task.isSuccessful() ? task.getResult() : null;
+                    if (location == null) {
+                        return false;
+                    }
+                    currentLocationLiveData.setValue(location);
+                    return isWithinRadius(office, location);
+                });
+    }
+
+    private boolean isWithinRadius(Office office, Location location) {
+        return calculateDistanceToOffice(office, location) <= office.getFenceRadius();
+    }
+
+    private static long fixAgeMillis(Location location) {
+        return (SystemClock.elapsedRealtimeNanos() - location.getElapsedRealtimeNanos()) / 1_000_000;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,275 @@
+package com.example.attendify.service;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.location.Location;
+import android.os.BatteryManager;
+import android.os.PowerManager;
+import android.os.SystemClock;
+
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.Priority;
+
+import java.util.Locale;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Chooses how often and how precisely to ask for location fixes.
+ *
+ * The closer the user is to the edge of the office geofence, the more a fix matters, so:
+ * far away the scheduler samples coarsely, at roughly the time it would take to drive to
+ * the fence; near the edge it samples finely; and once the user is confirmed inside and
+ * checked in it only listens passively, relying on the OS geofence to report the exit.
+ * Likewise, while OS geofences are registered around the nearby offices, a user far from
+ * every fence edge is only sampled passively: the platform reports arrival at any of them.
+ * A stationary user and a low battery both stretch the interval, and power save or a
+ * low battery also drop the priority one step.
+ *
+ * Call {@link #onFix} for every fix; it returns a new request only when the plan changes,
+ * so callers re-register location updates only then.
+ */
+public class LocationSamplingScheduler {
+    // Distances to the fence edge, in meters, that separate the sampling bands
+    private static final float NEAR_EDGE_METERS = 200;
+    private static final float MID_RANGE_METERS = 2000;
+    // Assumed approach speed used to size the far-away interval, about 55 km/h
+    private static final float APPROACH_SPEED_MPS = 15;
+    private static final float STATIONARY_SPEED_MPS = 0.5f;
+    private static final int LOW_BATTERY_PERCENT = 20;
+
+    private static final long MIN_FAR_INTERVAL_MS = 2 * 60 * 1000;
+    private static final long MAX_INTERVAL_MS = 15 * 60 * 1000;
+    private static final long PASSIVE_INTERVAL_MS = 15 * 60 * 1000;
+
+    // Power save or a low, discharging battery
+    private final BooleanSupplier batteryConstrained;
+    // Interval used near the fence edge; the dashboard samples faster than the background service
+    private final long nearIntervalMillis;
+    private final long startedAt = SystemClock.elapsedRealtime();
+
+    private Location lastFix;
+    private boolean stationary;
+    private boolean checkedIn;
+    private boolean confirmedInside;
+    private boolean fencesRegistered;
+    private Plan plan;
+    private long fixCount;
+    private long planChanges;
+
+    public LocationSamplingScheduler(Context context, long nearIntervalMillis) {
+        this(nearIntervalMillis, batteryMonitor(context.getApplicationContext()));
+    }
+
+    LocationSamplingScheduler(long nearIntervalMillis, BooleanSupplier batteryConstrained) {
+        this.batteryConstrained = batteryConstrained;
+        this.nearIntervalMillis = nearIntervalMillis;
+        this.plan = new Plan(Priority.PRIORITY_BALANCED_POWER_ACCURACY, nearIntervalMillis * 6);
+    }
+
+    /**
+     * The plan to start with, before any fix has arrived
+     */
+    public synchronized LocationRequest currentRequest() {
+        return plan.toRequest();
+    }
+
+    public synchronized void setCheckedIn(boolean checkedIn) {
+        this.checkedIn = checkedIn;
+    }
+
+    /**
+     * Whether the geofence state machine has confirmed the user is inside the office
+     */
+    public synchronized void setConfirmedInside(boolean confirmedInside) {
+        this.confirmedInside = confirmedInside;
+    }
+
+    /**
+     * Whether OS geofences currently cover the nearby offices, see OfficeGeofenceManager
+     */
+    public synchronized void setFencesRegistered(boolean fencesRegistered) {
+        this.fencesRegistered = fencesRegistered;
+    }
+
+    /**
+     * Records a fix and re-plans
+     * @param distanceToEdgeMeters Distance from the fence edge, negative when inside
+     * @return A request to switch to, or null if the current one still fits
+     */
+    public synchronized LocationRequest onFix(Location fix, float distanceToEdgeMeters) {
+        fixCount++;
+        stationary = isStationary(fix);
+        lastFix = fix;
+        return replan(distanceToEdgeMeters);
+    }
+
+    /**
+     * Re-plans without a new fix, for example after the check-in state changed
+     * @return A request to switch to, or null if the current one still fits
+     */
+    public synchronized LocationRequest replan(float distanceToEdgeMeters) {
+        Plan next = choose(Math.abs(distanceToEdgeMeters), distanceToEdgeMeters < 0);
+        if (next.equals(plan)) {
+            return null;
+        }
+        plan = next;
+        planChanges++;
+        return next.toRequest();
+    }
+
+    private Plan choose(float edgeDistance, boolean inside) {
+        if (inside && confirmedInside && checkedIn) {
+            // Nothing to decide until the user leaves; the OS geofence reports that
+            return new Plan(Priority.PRIORITY_PASSIVE, PASSIVE_INTERVAL_MS);
+        }
+        if (!inside && fencesRegistered && edgeDistance > NEAR_EDGE_METERS) {
+            // An OS geofence enter brings sampling back before the user reaches any office
+            return new Plan(Priority.PRIORITY_PASSIVE, PASSIVE_INTERVAL_MS);
+        }
+
+        int priority;
+        long interval;
+        if (edgeDistance <= NEAR_EDGE_METERS) {
+            priority = Priority.PRIORITY_HIGH_ACCURACY;
+            interval = nearIntervalMillis;
+        } else if (edgeDistance <= MID_RANGE_METERS) {
+            priority = Priority.PRIORITY_BALANCED_POWER_ACCURACY;
+            interval = nearIntervalMillis * 6;
+        } else {
+            priority = Priority.PRIORITY_LOW_POWER;
+            long timeToFence = (long) (edgeDistance / APPROACH_SPEED_MPS * 1000);
+            interval = Math.max(MIN_FAR_INTERVAL_MS, Math.min(timeToFence, MAX_INTERVAL_MS));
+        }
+
+        if (stationary) {
+            interval *= 2;
+        }
+        if (batteryConstrained.getAsBoolean()) {
+            interval *= 2;
+            priority = lowerPriority(priority);
+        }
+        return new Plan(priority, Math.min(interval, MAX_INTERVAL_MS));
+    }
+
+    // Stationary when the fix reports no speed and has barely moved since the last one
+    private boolean isStationary(Location fix) {
+        if (fix.hasSpeed()) {
+            return fix.getSpeed() < STATIONARY_SPEED_MPS;
+        }
+        if (lastFix == null) {
+            return false;
+        }
+        float moved = fix.distanceTo(lastFix);
+        long seconds = Math.max(1, (fix.getTime() - lastFix.getTime()) / 1000);
+        return moved / seconds < STATIONARY_SPEED_MPS && moved < Math.max(fix.getAccuracy(), 25);
+    }
+
+    private static BooleanSupplier batteryMonitor(Context context) {
+        return () -> isBatteryConstrained(context);
+    }
+
+    private static boolean isBatteryConstrained(Context context) {
+        PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        if (powerManager != null && powerManager.isPowerSaveMode()) {
+            return true;
+        }
+        // Sticky broadcast, no receiver is registered
+        Intent battery = context.registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+        if (battery == null) {
+            return false;
+        }
+        int status = battery.getIntExtra(BatteryManager.EXTRA_STATUS, -1);
+        boolean charging = status == BatteryManager.BATTERY_STATUS_CHARGING
+                || status == BatteryManager.BATTERY_STATUS_FULL;
+        int level = battery.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+        int scale = battery.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+        return !charging && level >= 0 && scale > 0 && level * 100 / scale < LOW_BATTERY_PERCENT;
+    }
+
+    private static int lowerPriority(int priority) {
+        switch (priority) {
+            case Priority.PRIORITY_HIGH_ACCURACY:
+                return Priority.PRIORITY_BALANCED_POWER_ACCURACY;
+            case Priority.PRIORITY_BALANCED_POWER_ACCURACY:
+                return Priority.PRIORITY_LOW_POWER;
+            default:
+                return priority;
+        }
+    }
+
+    public synchronized long getFixCount() {
+        return fixCount;
+    }
+
+    public synchronized long getPlanChanges() {
+        return planChanges;
+    }
+
+    public synchronized long getCurrentIntervalMillis() {
+        return plan.intervalMillis;
+    }
+
+    synchronized int getCurrentPriority() {
+        return plan.priority;
+    }
+
+    /**
+     * @return Fixes received per hour since the scheduler was created
+     */
+    public synchronized double getFixesPerHour() {
+        long elapsed = Math.max(1, SystemClock.elapsedRealtime() - startedAt);
+        return fixCount * 3_600_000.0 / elapsed;
+    }
+
+    /**
+     * One-line summary for logs
+     */
+    public synchronized String describe() {
+        return String.format(Locale.US, "%s every %d s, %d fixes (%.1f/h), %d plan changes",
+                priorityName(plan.priority), plan.intervalMillis / 1000, fixCount, getFixesPerHour(), planChanges);
+    }
+
+    private static String priorityName(int priority) {
+        switch (priority) {
+            case Priority.PRIORITY_HIGH_ACCURACY:
+                return "high accuracy";
+            case Priority.PRIORITY_BALANCED_POWER_ACCURACY:
+                return "balanced";
+            case Priority.PRIORITY_LOW_POWER:
+                return "low power";
+            default:
+                return "passive";
+        }
+    }
+
+    private static final class Plan {
+        final int priority;
+        final long intervalMillis;
+
+        Plan(int priority, long intervalMillis) {
+            this.priority = priority;
+            this.intervalMillis = intervalMillis;
+        }
+
+        LocationRequest toRequest() {
+            return new LocationRequest.Builder(priority, intervalMillis)
+                    .setMinUpdateIntervalMillis(intervalMillis / 2)
+                    .build();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Plan)) {
+                return false;
+            }
+            Plan other = (Plan) o;
+            return priority == other.priority && intervalMillis == other.intervalMillis;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * priority + Long.hashCode(intervalMillis);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.attendify.service;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.location.Location;
+import android.util.Log;
+
+import androidx.core.app.ActivityCompat;
+
+import com.example.attendify.model.Office;
+import com.example.attendify.util.OfficeSpatialIndex;
+import com.google.android.gms.location.Geofence;
+import com.google.android.gms.location.GeofencingClient;
+import com.google.android.gms.location.GeofencingRequest;
+import com.google.android.gms.location.LocationServices;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps OS geofences registered around the offices nearest to the user, so arriving at any
+ * of them is reported by the platform without the app polling GPS.
+ *
+ * The platform allows 100 geofences per app. The manager registers the nearest
+ * {@link #DEFAULT_FENCE_COUNT} offices, always including the office the user picked, plus
+ * one "rotation" fence centred on where the set was chosen and reaching up to the nearest
+ * office left out, see {@link FenceSet}. Leaving the rotation fence means the set may be
+ * stale; GeofenceTransitionsJobIntentService then calls {@link #rotate} with the
+ * triggering location. Only fences that are new or whose circle
+ * changed are added, and fences that dropped out of the set are removed.
+ *
+ * Registered fences are persisted, so the set survives process death and the
+ * background service can rotate it without the dashboard running.
+ */
+public class OfficeGeofenceManager {
+    private static final String TAG = "OfficeGeofenceManager";
+    public static final String ROTATION_FENCE_ID = "attendify_rotation";
+
+    // One fence of the platform's 100 is kept for rotation
+    static final int MAX_OFFICE_FENCES = 99;
+    public static final int DEFAULT_FENCE_COUNT = 20;
+
+    private static final String PREF_NAME = "office_geofences";
+    private static final String KEY_FENCES = "fences";
+    private static final String KEY_PINNED = "pinned";
+    private static final String KEY_ANCHOR_LAT = "anchor_lat";
+    private static final String KEY_ANCHOR_LNG = "anchor_lng";
+    private static final String KEY_ROTATION_RADIUS = "rotation_radius";
+    private static final String PREFIX_CIRCLE = "circle_";
+    private static final String PREFIX_NAME = "name_";
+
+    private final Context context;
+    private final GeofencingClient geofencingClient;
+    private final OfficeSpatialIndex officeIndex;
+    private final SharedPreferences preferences;
+    private final int fenceCount;
+    private Task<Void> pendingRotation;
+
+    public OfficeGeofenceManager(Context context, OfficeSpatialIndex officeIndex) {
+        this(context, officeIndex, DEFAULT_FENCE_COUNT);
+    }
+
+    public OfficeGeofenceManager(Context context, OfficeSpatialIndex officeIndex, int fenceCount) {
+        this.context = context.getApplicationContext();
+        this.geofencingClient = LocationServices.getGeofencingClient(this.context);
+        this.officeIndex = officeIndex;
+        this.preferences = this.context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        this.fenceCount = Math.max(1, Math.min(fenceCount, MAX_OFFICE_FENCES));
+    }
+
+    /**
+     * Keeps this office fenced wherever the user is, typically the one picked on the dashboard
+     */
+    public void setPinnedOffice(Office office) {
+        preferences.edit().putString(KEY_PINNED, office != null ? office.getId() : null).apply();
+        if (office != null) {
+            officeIndex.put(office);
+        }
+    }
+
+    /**
+     * @return true if the user has moved far enough from where the set was chosen that a
+     * nearer office may be missing from it
+     */
+    public boolean needsRotation(Location location) {
+        if (!preferences.contains(KEY_ANCHOR_LAT)) {
+            return true;
+        }
+        // A zero radius means every office is fenced, nothing to rotate in
+        return FenceSet.leftRotationFence(
+                Double.longBitsToDouble(preferences.getLong(KEY_ANCHOR_LAT, 0)),
+                Double.longBitsToDouble(preferences.getLong(KEY_ANCHOR_LNG, 0)),
+                preferences.getFloat(KEY_ROTATION_RADIUS, 0),
+                location.getLatitude(), location.getLongitude());
+    }
+
+    /**
+     * Rotates the set if the user has left it behind
+     * @return The registration task, or null if the set still fits
+     */
+    public synchronized Task<Void> onLocation(Location location) {
+        if (location == null || (pendingRotation != null && !pendingRotation.isComplete())) {
+            return null;
+        }
+        return needsRotation(location) ? rotate(location) : null;
+    }
+
+    /**
+     * Registers the offices nearest to the location, or only the pinned office if the
+     * location is unknown
+     */
+    public synchronized Task<Void> rotate(Location location) {
+        if (ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
+            return Tasks.forException(new SecurityException("Location permission not granted"));
+        }
+
+        Office pinned = officeIndex.get(preferences.getString(KEY_PINNED, null));
+        FenceSet fenceSet = location != null
+                ? FenceSet.around(officeIndex, location.getLatitude(), location.getLongitude(), pinned, fenceCount)
+                : FenceSet.pinnedOnly(pinned);
+        Map<String, Office> wanted = fenceSet.offices;
+        float rotationRadius = fenceSet.rotationRadius;
+
+        Set<String> registered = preferences.getStringSet(KEY_FENCES, new HashSet<>());
+        List<String> toRemove = new ArrayList<>();
+        for (String id : registered) {
+            if (!wanted.containsKey(id)) {
+                toRemove.add(id);
+            }
+        }
+        if (rotationRadius <= 0 && preferences.getFloat(KEY_ROTATION_RADIUS, 0) > 0) {
+            toRemove.add(ROTATION_FENCE_ID);
+        }
+
+        GeofencingRequest.Builder request = new GeofencingRequest.Builder()
+                .setInitialTrigger(GeofencingRequest.INITIAL_TRIGGER_ENTER);
+        int added = 0;
+        for (Office office : wanted.values()) {
+            String circle = circleOf(office);
+            if (registered.contains(office.getId())
+                    && circle.equals(preferences.getString(PREFIX_CIRCLE + office.getId(), null))) {
+                continue;
+            }
+            request.addGeofence(new Geofence.Builder()
+                    .setRequestId(office.getId())
+                    .setCircularRegion(office.getLatitude(), office.getLongitude(), office.getFenceRadius())
+                    .setExpirationDuration(Geofence.NEVER_EXPIRE)
+                    .setTransitionTypes(Geofence.GEOFENCE_TRANSITION_ENTER | Geofence.GEOFENCE_TRANSITION_EXIT)
+                    .build());
+            added++;
+        }
+        if (rotationRadius > 0) {
+            // Same id, so this replaces the previous rotation fence
+            request.addGeofence(new Geofence.Builder()
+                    .setRequestId(ROTATION_FENCE_ID)
+                    .setCircularRegion(fenceSet.anchorLatitude, fenceSet.anchorLongitude, rotationRadius)
+                    .setExpirationDuration(Geofence.NEVER_EXPIRE)
+                    .setTransitionTypes(Geofence.GEOFENCE_TRANSITION_EXIT)
+                    .build());
+            added++;
+        }
+
+        Task<Void> removal = toRemove.isEmpty()
+                ? Tasks.forResult(null)
+                : geofencingClient.removeGeofences(toRemove);
+        int addedFences = added;
+        pendingRotation = removal.continueWithTask(task -> {
+            if (addedFences == 0) {
+                return Tasks.forResult(null);
+            }
+            return geofencingClient.addGeofences(request.build(), GeofenceBroadcastReceiver.pendingIntent(context));
+        }).addOnSuccessListener(aVoid -> {
+            save(fenceSet);
+            Log.d(TAG, String.format(Locale.US, "Geofences: %d offices, %d added, %d removed, rotation radius %.0f m",
+                    wanted.size(), addedFences, toRemove.size(), rotationRadius));
+        }).addOnFailureListener(e -> Log.e(TAG, "Failed to register office geofences", e));
+        return pendingRotation;
+    }
+
+    /**
+     * Removes every fence this manager registered, for example on logout
+     */
+    public Task<Void> clear() {
+        List<String> ids = new ArrayList<>(preferences.getStringSet(KEY_FENCES, new HashSet<>()));
+        ids.add(ROTATION_FENCE_ID);
+        preferences.edit().clear().apply();
+        return geofencingClient.removeGeofences(ids);
+    }
+
+    /**
+     * @return The name of a fenced office, for transition notifications, or null
+     */
+    public static String getOfficeName(Context context, String officeId) {
+        return context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE)
+                .getString(PREFIX_NAME + officeId, null);
+    }
+
+    public int getRegisteredCount() {
+        return preferences.getStringSet(KEY_FENCES, new HashSet<>()).size();
+    }
+
+    public static boolean isRotationFence(String geofenceId) {
+        return ROTATION_FENCE_ID.equals(geofenceId);
+    }
+
+    private static String circleOf(Office office) {
+        return office.getLatitude() + "," + office.getLongitude() + "," + office.getFenceRadius();
+    }
+
+    private void save(FenceSet fenced) {
+        SharedPreferences.Editor editor = preferences.edit();
+        for (String key : preferences.getAll().keySet()) {
+            if (key.startsWith(PREFIX_CIRCLE) || key.startsWith(PREFIX_NAME)) {
+                editor.remove(key);
+            }
+        }
+        for (Office office : fenced.offices.values()) {
+            editor.putString(PREFIX_CIRCLE + office.getId(), circleOf(office));
+            editor.putString(PREFIX_NAME + office.getId(), office.getName());
+        }
+        editor.putStringSet(KEY_FENCES, new HashSet<>(fenced.offices.keySet()));
+        if (fenced.hasAnchor()) {
+            editor.putLong(KEY_ANCHOR_LAT, Double.doubleToRawLongBits(fenced.anchorLatitude));
+            editor.putLong(KEY_ANCHOR_LNG, Double.doubleToRawLongBits(fenced.anchorLongitude));
+        } else {
+            editor.remove(KEY_ANCHOR_LAT).remove(KEY_ANCHOR_LNG);
+        }
+        editor.putFloat(KEY_ROTATION_RADIUS, fenced.rotationRadius);
+        editor.apply();
+    }
+}
@@ -17,6 +17,7 @@ import androidx.core.app.ActivityCompat;
 import com.example.attendify.model.Attendance;
 import com.example.attendify.model.Office;
 import com.example.attendify.repository.AttendanceRepository;
+import com.example.attendify.util.AttendanceCalendar;
 import com.google.android.gms.location.FusedLocationProviderClient;
 import com.google.android.gms.location.LocationCallback;
 import com.google.android.gms.location.LocationRequest;
@@ -27,10 +28,6 @@ import com.google.android.gms.maps.model.LatLng;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
-
 /**
  * Service that tracks user location and updates their status in Firestore.
  * This service runs in the background and periodically updates the user's
@@ -39,10 +36,8 @@ import java.util.Locale;
 public class UserLocationService extends Service {
     private static final String TAG = "UserLocationService";
     
-    // Location request parameters
-    private static final long UPDATE_INTERVAL = 5 * 60 * 1000; // 5 minutes
-    private static final long FASTEST_INTERVAL = 2 * 60 * 1000; // 2 minutes
-    private static final float DEFAULT_GEOFENCE_RADIUS = 100; // 100 meters
+    // Sampling interval near the fence edge; farther away LocationSamplingScheduler backs off
+    private static final long NEAR_EDGE_INTERVAL = 60 * 1000; // 1 minute
 
     // Dependencies
     private FusedLocationProviderClient fusedLocationClient;
@@ -53,6 +48,9 @@ public class UserLocationService extends Service {
     private boolean isTracking = false;
     private LocationCallback locationCallback;
     private Office userOffice;
+    private GeofenceStateMachine geofenceState;
+    // Never told about check-in: this service writes OutOfOffice, so it must keep seeing exits
+    private LocationSamplingScheduler samplingScheduler;
     
     @Override
     public void onCreate() {
@@ -62,6 +60,8 @@ public class UserLocationService extends Service {
         fusedLocationClient = LocationServices.getFusedLocationProviderClient(this);
         attendanceRepository = AttendanceRepository.getInstance();
         firebaseAuth = FirebaseAuth.getInstance();
+        geofenceState = new GeofenceStateMachine(this);
+        samplingScheduler = new LocationSamplingScheduler(this, NEAR_EDGE_INTERVAL);
         
         setupLocationCallback();
     }
@@ -121,10 +121,7 @@ public class UserLocationService extends Service {
             return;
         }
         
-        LocationRequest locationRequest = new LocationRequest.Builder(UPDATE_INTERVAL)
-                .setMinUpdateIntervalMillis(FASTEST_INTERVAL)
-                .setPriority(Priority.PRIORITY_BALANCED_POWER_ACCURACY)
-                .build();
+        LocationRequest locationRequest = samplingScheduler.currentRequest();
         
         if (ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
             Log.e(TAG, "Location permission not granted");
@@ -151,7 +148,7 @@ public class UserLocationService extends Service {
         
         fusedLocationClient.removeLocationUpdates(locationCallback);
         isTracking = false;
-        Log.d(TAG, "Location tracking stopped");
+        Log.d(TAG, "Location tracking stopped: " + samplingScheduler.describe());
     }
     
     /**
@@ -184,43 +181,79 @@ public class UserLocationService extends Service {
             return;
         }
         
+        if (userOffice.getLatitude() == 0 || userOffice.getLongitude() == 0) {
+            Log.e(TAG, "Invalid office location data");
+            return;
+        }
+        
         String userId = currentUser.getUid();
-        String today = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date());
+        String today = AttendanceCalendar.forOffice(userOffice).today();
         
-        // Check if user is within the office geofence
-        boolean isInOffice = isUserInOffice(location);
-        String locationStatus = isInOffice ? "InOffice" : "OutOfOffice";
+        // Same fence radius as the OS geofence and the dashboard use
+        float radius = userOffice.getFenceRadius();
+        float distance = distanceToOffice(location);
+        float accuracy = location.hasAccuracy() ? location.getAccuracy() : 0;
+        
+        // Only confirmed transitions reach Firestore; repeated or jittery fixes are dropped here
+        String scopeKey = userId + "|" + userOffice.getId() + "|" + today;
+        String locationStatus = geofenceState.onFix(scopeKey, distance, accuracy, radius, System.currentTimeMillis());
+        replanSampling(location, distance - radius);
+        if (locationStatus == null) {
+            Log.d(TAG, "Location status unchanged (" + geofenceState.getState() + ", distance " + distance
+                    + " m, accuracy " + accuracy + " m); writes emitted " + geofenceState.getEmittedCount()
+                    + ", suppressed " + geofenceState.getSuppressedCount()
+                    + ", ignored " + geofenceState.getIgnoredCount());
+            return;
+        }
         
         Log.d(TAG, "Updating location status: " + locationStatus + " for user: " + userId);
         
-        // Update the user's location status in Firestore
-        attendanceRepository.updateLocationStatus(userId, today, locationStatus);
+        // Update the user's location status in Firestore; the state machine only keeps the
+        // transition once it is stored, so a failed write is retried by a later fix
+        attendanceRepository.updateLocationStatus(userId, today, locationStatus)
+                .addOnCompleteListener(task -> {
+                    boolean stored = task.isSuccessful() && Boolean.TRUE.equals(task.getResult());
+                    if (!stored) {
+                        Log.w(TAG, "Location status " + locationStatus + " was not stored, will retry");
+                    }
+                    geofenceState.onWriteResult(scopeKey, locationStatus, stored, System.currentTimeMillis());
+                });
     }
     
     /**
-     * Check if the user is within their office geofence
+     * Lets the scheduler adapt priority and interval to the latest fix, and swaps the
+     * location request only when the plan actually changed
      */
-    private boolean isUserInOffice(Location location) {
-        if (userOffice == null || userOffice.getLatitude() == 0 || userOffice.getLongitude() == 0) {
-            Log.e(TAG, "Invalid office location data");
-            return false;
+    private void replanSampling(Location location, float distanceToEdge) {
+        samplingScheduler.setConfirmedInside(GeofenceStateMachine.IN_OFFICE.equals(geofenceState.getState()));
+        LocationRequest next = samplingScheduler.onFix(location, distanceToEdge);
+        if (next == null || !isTracking) {
+            return;
         }
-        
-        // Get the radius from the office (or use default)
-        float radius = (float) (userOffice.getRadius() > 0 ? userOffice.getRadius() : DEFAULT_GEOFENCE_RADIUS);
-        
-        // Calculate distance between current location and office
+        if (ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
+            return;
+        }
+        Log.d(TAG, "Location sampling: " + samplingScheduler.describe());
+        fusedLocationClient.requestLocationUpdates(next, locationCallback, Looper.getMainLooper());
+    }
+    
+    /**
+     * Distance in meters between the fix and the office centre
+     */
+    private float distanceToOffice(Location location) {
         float[] results = new float[1];
         Location.distanceBetween(
                 location.getLatitude(), location.getLongitude(),
                 userOffice.getLatitude(), userOffice.getLongitude(),
                 results);
-        
-        float distance = results[0];
-        Log.d(TAG, "Distance from office: " + distance + " meters, Office radius: " + radius + " meters");
-        
-        // User is in office if distance is less than the radius
-        return distance <= radius;
+        return results[0];
+    }
+    
+    /**
+     * Geofence state and write counters of the current user, office and day
+     */
+    public GeofenceStateMachine getGeofenceState() {
+        return geofenceState;
     }
     
     /**
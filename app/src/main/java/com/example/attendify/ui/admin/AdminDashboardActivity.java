@@ -21,8 +21,11 @@ import com.example.attendify.R;
 import com.example.attendify.databinding.ActivityAdminDashboardBinding;
 import com.example.attendify.fragments.admin.EmployeeManagementFragment;
 import com.example.attendify.ui.auth.AuthActivity;
+import com.example.attendify.util.StartupTrace;
 import com.example.attendify.viewmodel.AuthViewModel;
 import com.example.attendify.viewmodel.OfficeViewModel;
+import com.example.attendify.worker.RollupMaintenanceWorker;
+import com.example.attendify.worker.UserSchemaMigrationWorker;
 import com.google.android.gms.common.ConnectionResult;
 import com.google.android.gms.common.GoogleApiAvailability;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
@@ -55,6 +58,7 @@ public class AdminDashboardActivity extends AppCompatActivity {
             
         binding = ActivityAdminDashboardBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
+        StartupTrace.endLaunchAfterFirstFrame(this);
 
         // Set up toolbar
         setSupportActionBar(binding.toolbar);
@@ -100,6 +104,12 @@ public class AdminDashboardActivity extends AppCompatActivity {
 
             // Register for geofence transition broadcasts
             registerGeofenceTransitionReceiver();
+
+            // Rewrite users still stored in the legacy field layout; runs once per schema version
+            UserSchemaMigrationWorker.enqueueIfNeeded(this);
+
+            // Rebuilds incomplete or drifted attendance rollups once a day
+            RollupMaintenanceWorker.schedule(this);
         } catch (Exception e) {
             Log.e(TAG, "Fatal error during AdminDashboardActivity initialization: " + e.getMessage(), e);
             Toast.makeText(this, "Error loading dashboard. Please restart the app.", 
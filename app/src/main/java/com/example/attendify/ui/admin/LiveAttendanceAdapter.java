@@ -13,23 +13,26 @@ import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
-import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.attendify.R;
 import com.example.attendify.databinding.ItemLiveAttendanceBinding;
 import com.example.attendify.model.Attendance;
+import com.example.attendify.util.AttendanceDiffCallback;
+import com.example.attendify.util.ListDiffing;
 
 import java.text.SimpleDateFormat;
 import java.util.Locale;
+import java.util.Objects;
 
 public class LiveAttendanceAdapter extends ListAdapter<Attendance, LiveAttendanceAdapter.ViewHolder> {
 
     private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
 
     public LiveAttendanceAdapter() {
-        super(new DiffCallback());
+        super(ListDiffing.config(new DiffCallback()));
+        setHasStableIds(true);
     }
 
     @NonNull
@@ -46,21 +49,19 @@ public class LiveAttendanceAdapter extends ListAdapter<Attendance, LiveAttendanc
         holder.bind(attendance);
     }
 
-    static class DiffCallback extends DiffUtil.ItemCallback<Attendance> {
-        @Override
-        public boolean areItemsTheSame(@NonNull Attendance oldItem, @NonNull Attendance newItem) {
-            return oldItem.getUserId().equals(newItem.getUserId()) && 
-                   oldItem.getDate().equals(newItem.getDate());
-        }
+    @Override
+    public long getItemId(int position) {
+        return AttendanceDiffCallback.stableId(getItem(position));
+    }
 
+    static class DiffCallback extends AttendanceDiffCallback {
         @Override
         public boolean areContentsTheSame(@NonNull Attendance oldItem, @NonNull Attendance newItem) {
             // Check if any important fields have changed
-            return oldItem.getCheckInTime().equals(newItem.getCheckInTime()) &&
-                   (oldItem.getCheckOutTime() == null ? newItem.getCheckOutTime() == null :
-                   oldItem.getCheckOutTime().equals(newItem.getCheckOutTime())) &&
-                   oldItem.getStatus().equals(newItem.getStatus()) &&
-                   oldItem.getLocationStatus().equals(newItem.getLocationStatus());
+            return Objects.equals(oldItem.getCheckInTime(), newItem.getCheckInTime()) &&
+                   Objects.equals(oldItem.getCheckOutTime(), newItem.getCheckOutTime()) &&
+                   Objects.equals(oldItem.getStatus(), newItem.getStatus()) &&
+                   Objects.equals(oldItem.getLocationStatus(), newItem.getLocationStatus());
         }
     }
 
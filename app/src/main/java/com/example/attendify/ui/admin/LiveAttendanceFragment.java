@@ -4,8 +4,6 @@ import android.content.Context;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -44,11 +42,6 @@ public class LiveAttendanceFragment extends Fragment {
     private boolean showOnlyInOffice = false;
     private boolean isDataLoaded = false;
 
-    // Add handler for periodic updates
-    private final Handler updateHandler = new Handler(Looper.getMainLooper());
-    private final Runnable updateRunnable = this::refreshAttendanceData;
-    private static final long UPDATE_INTERVAL = 30000; // 30 seconds
-
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
@@ -139,21 +132,16 @@ public class LiveAttendanceFragment extends Fragment {
     public void onResume() {
         super.onResume();
         
-        // Only refresh data if the fragment is now visible
-        if (getUserVisibleHint()) {
-            refreshAttendanceData();
-        }
-        
-        // Start periodic updates when fragment is visible
-        startPeriodicUpdates();
+        // Re-attach the live listener when the fragment becomes visible
+        attendanceViewModel.startLiveAttendanceUpdates(selectedOfficeId);
     }
 
     @Override
     public void onPause() {
         super.onPause();
         
-        // Stop periodic updates when fragment is not visible
-        stopPeriodicUpdates();
+        // Detach the live listener so no reads are billed while hidden
+        attendanceViewModel.stopLiveAttendanceUpdates();
     }
 
     private void setupRecyclerView() {
@@ -186,6 +174,13 @@ public class LiveAttendanceFragment extends Fragment {
                 }
             });
 
+            // Log listener read counts to verify the saving over full re-polls
+            attendanceViewModel.getLiveReadStatsLiveData().observe(getViewLifecycleOwner(), stats -> {
+                if (stats != null) {
+                    Log.d(TAG, "Live attendance " + stats);
+                }
+            });
+
             // Observe loading state
             attendanceViewModel.getLoadingLiveData().observe(getViewLifecycleOwner(), isLoading -> {
                 if (binding != null) {
@@ -372,29 +367,14 @@ public class LiveAttendanceFragment extends Fragment {
             binding.progressBar.setVisibility(View.VISIBLE);
         }
         
-        // Load data from view models
-        attendanceViewModel.loadLiveAttendanceData(selectedOfficeId);
-        attendanceViewModel.loadDailySummary(selectedOfficeId);
+        // Attach the live listener; list and summary are kept up to date from its deltas
+        attendanceViewModel.startLiveAttendanceUpdates(selectedOfficeId);
     }
 
     /**
-     * Start periodic updates of attendance data
-     */
-    private void startPeriodicUpdates() {
-        // Clear any existing callbacks first to avoid duplication
-        stopPeriodicUpdates();
-        updateHandler.postDelayed(updateRunnable, UPDATE_INTERVAL);
-    }
-
-    /**
-     * Stop periodic updates of attendance data
-     */
-    private void stopPeriodicUpdates() {
-        updateHandler.removeCallbacks(updateRunnable);
-    }
-
-    /**
-     * Refresh attendance data and summary
+     * Refresh attendance data and summary.
+     * The live listener already delivers changes, so this only makes sure it is attached
+     * to the office currently selected in the filter chips.
      */
     public void refreshAttendanceData() {
         Log.d(TAG, "Refreshing attendance data");
@@ -412,26 +392,21 @@ public class LiveAttendanceFragment extends Fragment {
                     Log.d(TAG, "Selected office: " + chip.getText() + " (ID: " + officeId + ")");
                 } else {
                     Log.d(TAG, "All Offices selected");
-                    selectedOfficeId = null; // Explicitly set to null for "All Offices"
                 }
                 break;
             }
         }
+        selectedOfficeId = officeId;
         
-        // Load attendance data and summary for selected office (or all offices if null)
-        attendanceViewModel.loadLiveAttendanceData(officeId);
-        attendanceViewModel.loadDailySummary(officeId);
-        
-        // Schedule next update
+        // Attach the listener for the selected office (or all offices if null)
         if (isAdded() && isResumed()) {
-            startPeriodicUpdates();
+            attendanceViewModel.startLiveAttendanceUpdates(officeId);
         }
     }
 
     @Override
     public void onDestroyView() {
         super.onDestroyView();
-        stopPeriodicUpdates();
         binding = null;
     }
 }
\ No newline at end of file
@@ -47,7 +47,7 @@ public class OfficeAdapter extends ListAdapter<Office, OfficeAdapter.ViewHolder>
         void bind(Office office) {
             binding.nameText.setText(office.getName());
             binding.addressText.setText(office.getAddress());
-            binding.radiusText.setText(String.format("%dm radius", office.getCheckInRadius()));
+            binding.radiusText.setText(String.format("%dm radius", Math.round(office.getFenceRadius())));
             binding.workHoursText.setText(String.format("%02d:%02d - %02d:%02d",
                     office.getStartHour(), office.getStartMinute(),
                     office.getEndHour(), office.getEndMinute()));
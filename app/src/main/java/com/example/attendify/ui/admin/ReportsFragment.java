@@ -18,36 +18,42 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.core.content.FileProvider;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.LiveData;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.example.attendify.R;
 import com.example.attendify.databinding.FragmentReportsBinding;
+import com.example.attendify.export.AttendanceExportEngine;
+import com.example.attendify.export.AttendancePageSource;
+import com.example.attendify.export.CsvRecordWriter;
+import com.example.attendify.export.PdfRecordWriter;
+import com.example.attendify.export.RecordWriter;
 import com.example.attendify.model.Attendance;
+import com.example.attendify.model.Office;
 import com.example.attendify.model.User;
+import com.example.attendify.repository.AttendancePager;
+import com.example.attendify.repository.AttendanceRepository.AttendanceSummary;
 import com.example.attendify.ui.admin.adapter.ReportAdapter;
+import com.example.attendify.util.AttendanceCalendar;
+import com.example.attendify.util.PrefetchScrollListener;
 import com.example.attendify.viewmodel.AttendanceViewModel;
 import com.example.attendify.viewmodel.OfficeViewModel;
 import com.example.attendify.viewmodel.UserViewModel;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.android.material.snackbar.Snackbar;
-import com.itextpdf.text.Document;
 import com.itextpdf.text.Element;
 import com.itextpdf.text.Font;
 import com.itextpdf.text.Paragraph;
-import com.itextpdf.text.pdf.PdfPCell;
-import com.itextpdf.text.pdf.PdfPTable;
-import com.itextpdf.text.pdf.PdfWriter;
 
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.FileWriter;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 
 public class ReportsFragment extends Fragment {
 
@@ -58,10 +64,19 @@ public class ReportsFragment extends Fragment {
     private OfficeViewModel officeViewModel;
     private ReportAdapter adapter;
     private List<Attendance> allAttendanceRecords = new ArrayList<>();
+    private AttendancePager reportPager;
+    // Statistics cover the whole selection, so they are loaded once per selection, not per page
+    private boolean statisticsRequested;
+    private AttendanceExportEngine.ExportJob exportJob;
     private List<User> allUsers = new ArrayList<>();
+    private List<Office> allOffices = new ArrayList<>();
     private String selectedOfficeId = null;
     private String selectedUserId = null;
+    // Months back from the current month of the report's office
+    private int selectedMonthOffset = 0;
     private String selectedMonth = null;
+    // Office of the signed-in admin, whose time zone "All Offices" reports use
+    private String homeOfficeId = null;
     private Date startDate;
     private Date endDate;
     
@@ -86,22 +101,50 @@ public class ReportsFragment extends Fragment {
         setupExportButtons();
         
         // Initial data load - all attendance records for current month
-        Calendar calendar = Calendar.getInstance();
-        SimpleDateFormat yearMonthFormat = new SimpleDateFormat("yyyy-MM", Locale.getDefault());
-        selectedMonth = yearMonthFormat.format(calendar.getTime());
+        selectedMonth = reportCalendar().currentMonth();
         
         loadReportData();
     }
     
+    /**
+     * Calendar of the office being reported on: the selected office, else the admin's own
+     * office, else the device
+     */
+    private AttendanceCalendar reportCalendar() {
+        String officeId = selectedOfficeId != null ? selectedOfficeId : homeOfficeId;
+        for (Office office : allOffices) {
+            if (office.getId() != null && office.getId().equals(officeId)) {
+                return AttendanceCalendar.forOffice(office);
+            }
+        }
+        return AttendanceCalendar.forOffice(null);
+    }
+    
+    // Months and day bounds follow the report's office, so recompute them when it changes
+    private void onReportCalendarChanged() {
+        selectedMonth = AttendanceCalendar.addMonths(reportCalendar().currentMonth(), -selectedMonthOffset);
+    }
+    
     private void setupRecyclerView() {
         adapter = new ReportAdapter();
+        LinearLayoutManager layoutManager = new LinearLayoutManager(requireContext());
         binding.recyclerView.setAdapter(adapter);
-        binding.recyclerView.setLayoutManager(new LinearLayoutManager(requireContext()));
+        binding.recyclerView.setLayoutManager(layoutManager);
+        binding.recyclerView.addOnScrollListener(new PrefetchScrollListener(layoutManager, () -> {
+            if (reportPager != null) {
+                reportPager.loadNextPage();
+            }
+        }, () -> {
+            if (reportPager != null) {
+                reportPager.loadPreviousPage();
+            }
+        }));
     }
     
     private void setupFilterSpinners() {
         // Setup office spinner
         officeViewModel.getOfficesLiveData().observe(getViewLifecycleOwner(), offices -> {
+            allOffices = offices;
             List<String> officeNames = new ArrayList<>();
             officeNames.add("All Offices");
             
@@ -129,6 +172,7 @@ public class ReportsFragment extends Fragment {
                     } else if (position <= offices.size()) {
                         selectedOfficeId = offices.get(position - 1).getId();
                     }
+                    onReportCalendarChanged();
                     loadReportData();
                 }
 
@@ -139,6 +183,11 @@ public class ReportsFragment extends Fragment {
             });
         });
         
+        userViewModel.getCurrentUser().observe(getViewLifecycleOwner(), user -> {
+            homeOfficeId = user != null ? user.getOfficeId() : null;
+            onReportCalendarChanged();
+        });
+        
         // Setup user spinner (employees)
         userViewModel.getEmployees().observe(getViewLifecycleOwner(), users -> {
             allUsers = users;
@@ -188,18 +237,10 @@ public class ReportsFragment extends Fragment {
         Calendar calendar = Calendar.getInstance();
         List<String> months = new ArrayList<>();
         SimpleDateFormat displayFormat = new SimpleDateFormat("MMMM yyyy", Locale.getDefault());
-        SimpleDateFormat valueFormat = new SimpleDateFormat("yyyy-MM", Locale.getDefault());
         
         // Add last 12 months to the spinner
         for (int i = 0; i < 12; i++) {
-            String displayMonth = displayFormat.format(calendar.getTime());
-            String valueMonth = valueFormat.format(calendar.getTime());
-            months.add(displayMonth);
-            
-            if (i == 0) {
-                selectedMonth = valueMonth; // Default to current month
-            }
-            
+            months.add(displayFormat.format(calendar.getTime()));
             calendar.add(Calendar.MONTH, -1); // Go back one month
         }
         
@@ -211,16 +252,16 @@ public class ReportsFragment extends Fragment {
         binding.monthSpinner.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
             @Override
             public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
-                Calendar cal = Calendar.getInstance();
-                cal.add(Calendar.MONTH, -position);
-                selectedMonth = valueFormat.format(cal.getTime());
+                selectedMonthOffset = position;
+                onReportCalendarChanged();
                 loadReportData();
             }
 
             @Override
             public void onNothingSelected(AdapterView<?> parent) {
                 // Use current month by default
-                selectedMonth = valueFormat.format(Calendar.getInstance().getTime());
+                selectedMonthOffset = 0;
+                onReportCalendarChanged();
             }
         });
     }
@@ -232,10 +273,11 @@ public class ReportsFragment extends Fragment {
             DatePickerDialog datePickerDialog = new DatePickerDialog(
                     requireContext(),
                     (view, year, month, dayOfMonth) -> {
-                        Calendar startCal = Calendar.getInstance();
+                        Calendar startCal = Calendar.getInstance(reportCalendar().getTimeZone());
                         startCal.set(year, month, dayOfMonth, 0, 0, 0);
+                        startCal.set(Calendar.MILLISECOND, 0);
                         startDate = startCal.getTime();
-                        binding.startDateButton.setText(new SimpleDateFormat("MMM dd, yyyy", Locale.getDefault()).format(startDate));
+                        binding.startDateButton.setText(reportCalendar().format("MMM dd, yyyy", startDate));
                         
                         if (endDate != null && startDate.after(endDate)) {
                             endDate = startDate;
@@ -257,10 +299,11 @@ public class ReportsFragment extends Fragment {
             DatePickerDialog datePickerDialog = new DatePickerDialog(
                     requireContext(),
                     (view, year, month, dayOfMonth) -> {
-                        Calendar endCal = Calendar.getInstance();
+                        Calendar endCal = Calendar.getInstance(reportCalendar().getTimeZone());
                         endCal.set(year, month, dayOfMonth, 23, 59, 59);
+                        endCal.set(Calendar.MILLISECOND, 999);
                         endDate = endCal.getTime();
-                        binding.endDateButton.setText(new SimpleDateFormat("MMM dd, yyyy", Locale.getDefault()).format(endDate));
+                        binding.endDateButton.setText(reportCalendar().format("MMM dd, yyyy", endDate));
                         
                         if (startDate != null && endDate.before(startDate)) {
                             startDate = endDate;
@@ -336,22 +379,62 @@ public class ReportsFragment extends Fragment {
         
         Log.d(TAG, "Loading report data: selectedUserId=" + selectedUserId + ", selectedOfficeId=" + selectedOfficeId + ", selectedMonth=" + selectedMonth);
         
-        if (selectedUserId != null) {
-            // Load data for specific user
-            attendanceViewModel.getAttendanceHistoryForMonth(selectedUserId, selectedMonth)
-                    .observe(getViewLifecycleOwner(), attendanceList -> {
-                        Log.d(TAG, "Loaded specific user data: " + (attendanceList != null ? attendanceList.size() : 0) + " records");
-                        processAttendanceData(attendanceList);
-                    });
+        statisticsRequested = false;
+        
+        // Drop the previous selection's pages before loading the new one
+        if (reportPager != null) {
+            reportPager.cancel();
+            reportPager.getItems().removeObservers(getViewLifecycleOwner());
+            reportPager.getErrors().removeObservers(getViewLifecycleOwner());
+            reportPager = null;
+        }
+        
+        if (startDate != null || endDate != null) {
+            // A range may span several months. A missing start defaults to the first day
+            // of the end date's month, a missing end to the end of today.
+            Date rangeEnd = getRangeEnd();
+            reportPager = attendanceViewModel.createRangePager(
+                    getRangeStart(rangeEnd), rangeEnd, selectedOfficeId, selectedUserId);
         } else {
-            // Load data for all users (might be filtered by office)
-            Log.d(TAG, "Loading data for ALL employees" + (selectedOfficeId != null ? " in office " + selectedOfficeId : ""));
-            attendanceViewModel.getAllAttendanceForMonth(selectedMonth, selectedOfficeId)
-                    .observe(getViewLifecycleOwner(), attendanceList -> {
-                        Log.d(TAG, "Loaded all users data: " + (attendanceList != null ? attendanceList.size() : 0) + " records");
-                        processAttendanceData(attendanceList);
-                    });
+            reportPager = attendanceViewModel.createReportPager(selectedMonth, selectedOfficeId, selectedUserId);
+        }
+        reportPager.getItems().observe(getViewLifecycleOwner(), attendanceList -> {
+            Log.d(TAG, "Loaded " + (attendanceList != null ? attendanceList.size() : 0) + " records so far");
+            processAttendanceData(attendanceList);
+        });
+        reportPager.getErrors().observe(getViewLifecycleOwner(), error -> {
+            binding.progressBar.setVisibility(View.GONE);
+            Toast.makeText(requireContext(), error, Toast.LENGTH_SHORT).show();
+        });
+        
+        // Further pages are requested as the list is scrolled
+        reportPager.loadNextPage();
+    }
+    
+    private Date getRangeEnd() {
+        if (endDate != null) {
+            return endDate;
+        }
+        Calendar calendar = Calendar.getInstance(reportCalendar().getTimeZone());
+        calendar.set(Calendar.HOUR_OF_DAY, 23);
+        calendar.set(Calendar.MINUTE, 59);
+        calendar.set(Calendar.SECOND, 59);
+        calendar.set(Calendar.MILLISECOND, 999);
+        return calendar.getTime();
+    }
+    
+    private Date getRangeStart(Date rangeEnd) {
+        if (startDate != null) {
+            return startDate;
         }
+        Calendar calendar = Calendar.getInstance(reportCalendar().getTimeZone());
+        calendar.setTime(rangeEnd);
+        calendar.set(Calendar.DAY_OF_MONTH, 1);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTime();
     }
     
     private void processAttendanceData(List<Attendance> attendanceList) {
@@ -360,35 +443,9 @@ public class ReportsFragment extends Fragment {
             attendanceList = new ArrayList<>();
         }
         
-        allAttendanceRecords = new ArrayList<>(attendanceList);
-        
-        // Apply date filters if set
-        if (startDate != null || endDate != null) {
-            List<Attendance> filteredList = new ArrayList<>();
-            
-            for (Attendance attendance : allAttendanceRecords) {
-                Date checkInDate = attendance.getCheckInTime();
-                
-                // Skip records with null check-in dates
-                if (checkInDate == null) {
-                    continue;
-                }
-                
-                boolean include = true;
-                if (startDate != null && checkInDate.before(startDate)) {
-                    include = false;
-                }
-                if (endDate != null && checkInDate.after(endDate)) {
-                    include = false;
-                }
-                
-                if (include) {
-                    filteredList.add(attendance);
-                }
-            }
-            
-            allAttendanceRecords = filteredList;
-        }
+        // Each load publishes a new list, so it can be kept without copying. Date ranges
+        // are already applied by the query.
+        allAttendanceRecords = attendanceList;
         
         adapter.submitList(allAttendanceRecords);
         
@@ -398,37 +455,45 @@ public class ReportsFragment extends Fragment {
             binding.statsLayout.setVisibility(View.GONE);
         } else {
             binding.noDataTextView.setVisibility(View.GONE);
-            updateStatistics();
+            if (!statisticsRequested) {
+                statisticsRequested = true;
+                updateStatistics();
+            }
             binding.statsLayout.setVisibility(View.VISIBLE);
         }
     }
     
     private void updateStatistics() {
-        int totalRecords = allAttendanceRecords.size();
-        int onTimeCount = 0;
-        int lateCount = 0;
-        int missedCount = 0;
-        
-        for (Attendance attendance : allAttendanceRecords) {
-            // Add null check for status
-            String status = attendance.getStatus();
-            if (status == null) {
-                continue;
-            }
-            
-            switch (status) {
-                case "OnTime":
-                    onTimeCount++;
-                    break;
-                case "Late":
-                    lateCount++;
-                    break;
-                case "Missed":
-                    missedCount++;
-                    break;
-            }
+        // The list only holds the pages scrolled to, so totals come from rollups or
+        // server-side counts of the whole selection
+        final String month = selectedMonth;
+        final String officeId = selectedOfficeId;
+        final String userId = selectedUserId;
+        final Date requestedStart = startDate;
+        final Date requestedEnd = endDate;
+        LiveData<AttendanceSummary> summaryLiveData;
+        if (requestedStart == null && requestedEnd == null) {
+            summaryLiveData = attendanceViewModel.getMonthSummary(month, officeId, userId);
+        } else {
+            Date rangeEnd = getRangeEnd();
+            summaryLiveData = attendanceViewModel.getRangeSummary(getRangeStart(rangeEnd), rangeEnd, officeId, userId);
         }
-        
+        summaryLiveData.observe(getViewLifecycleOwner(), summary -> {
+            // Ignore results for a selection that has changed in the meantime
+            if (binding == null || summary == null
+                    || !Objects.equals(requestedStart, startDate)
+                    || !Objects.equals(requestedEnd, endDate)
+                    || !Objects.equals(month, selectedMonth)
+                    || !Objects.equals(officeId, selectedOfficeId)
+                    || !Objects.equals(userId, selectedUserId)) {
+                return;
+            }
+            showStatistics(summary.getTotal(), summary.getOnTime(),
+                    summary.getLate(), summary.getMissed());
+        });
+    }
+    
+    private void showStatistics(int totalRecords, int onTimeCount, int lateCount, int missedCount) {
         // Update statistics cards
         binding.totalAttendanceValue.setText(String.valueOf(totalRecords));
         binding.onTimeValue.setText(String.valueOf(onTimeCount));
@@ -452,162 +517,134 @@ public class ReportsFragment extends Fragment {
     }
     
     private void exportToPdf() {
-        try {
-            String fileName = "attendance_report_" + new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date()) + ".pdf";
-            File pdfFile = new File(requireContext().getExternalFilesDir(Environment.DIRECTORY_DOCUMENTS), fileName);
-            
-            Document document = new Document();
-            PdfWriter.getInstance(document, new FileOutputStream(pdfFile));
-            document.open();
-            
-            // Add title
-            Font titleFont = new Font(Font.FontFamily.HELVETICA, 18, Font.BOLD);
-            Paragraph title = new Paragraph("Attendance Report", titleFont);
-            title.setAlignment(Element.ALIGN_CENTER);
-            document.add(title);
-            document.add(new Paragraph(" ")); // Add spacing
-            
-            // Add report details
-            Font normalFont = new Font(Font.FontFamily.HELVETICA, 12);
-            document.add(new Paragraph("Generated on: " + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault()).format(new Date()), normalFont));
-            
-            if (selectedOfficeId != null) {
-                String officeName = "Unknown";
-                for (int i = 0; i < binding.officeSpinner.getCount(); i++) {
-                    if (binding.officeSpinner.getSelectedItemPosition() > 0) {
-                        officeName = binding.officeSpinner.getSelectedItem().toString();
-                    }
-                }
-                document.add(new Paragraph("Office: " + officeName, normalFont));
-            } else {
-                document.add(new Paragraph("Office: All Offices", normalFont));
+        String fileName = "attendance_report_" + new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date()) + ".pdf";
+        File pdfFile = new File(requireContext().getExternalFilesDir(Environment.DIRECTORY_DOCUMENTS), fileName);
+        startExport(pdfFile, PdfRecordWriter.factory(PdfRecordWriter.Layout.REPORT, buildPdfPreamble()),
+                "application/pdf", "PDF");
+    }
+    
+    /**
+     * Title, filters and statistics shown above the PDF table, read from the screen
+     * before the export moves to the background
+     */
+    private List<Element> buildPdfPreamble() {
+        List<Element> preamble = new ArrayList<>();
+        
+        // Add title
+        Font titleFont = new Font(Font.FontFamily.HELVETICA, 18, Font.BOLD);
+        Paragraph title = new Paragraph("Attendance Report", titleFont);
+        title.setAlignment(Element.ALIGN_CENTER);
+        preamble.add(title);
+        preamble.add(new Paragraph(" ")); // Add spacing
+        
+        // Add report details
+        Font normalFont = new Font(Font.FontFamily.HELVETICA, 12);
+        preamble.add(new Paragraph("Generated on: " + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault()).format(new Date()), normalFont));
+        
+        if (selectedOfficeId != null) {
+            String officeName = "Unknown";
+            if (binding.officeSpinner.getSelectedItemPosition() > 0) {
+                officeName = binding.officeSpinner.getSelectedItem().toString();
             }
-            
-            if (selectedUserId != null) {
-                String userName = "Unknown";
-                for (User user : allUsers) {
-                    if (user.getUid().equals(selectedUserId)) {
-                        userName = user.getDisplayName();
-                        break;
-                    }
+            preamble.add(new Paragraph("Office: " + officeName, normalFont));
+        } else {
+            preamble.add(new Paragraph("Office: All Offices", normalFont));
+        }
+        
+        if (selectedUserId != null) {
+            String userName = "Unknown";
+            for (User user : allUsers) {
+                if (user.getUid().equals(selectedUserId)) {
+                    userName = user.getDisplayName();
+                    break;
                 }
-                document.add(new Paragraph("Employee: " + userName, normalFont));
-            } else {
-                document.add(new Paragraph("Employee: All Employees", normalFont));
             }
-            
-            document.add(new Paragraph("Period: " + binding.monthSpinner.getSelectedItem().toString(), normalFont));
-            document.add(new Paragraph(" ")); // Add spacing
-            
-            // Add statistics
-            document.add(new Paragraph("Statistics:", normalFont));
-            document.add(new Paragraph("Total Records: " + binding.totalAttendanceValue.getText(), normalFont));
-            document.add(new Paragraph("On Time: " + binding.onTimeValue.getText() + " (" + binding.onTimePercent.getText() + ")", normalFont));
-            document.add(new Paragraph("Late: " + binding.lateValue.getText() + " (" + binding.latePercent.getText() + ")", normalFont));
-            document.add(new Paragraph("Missed: " + binding.missedValue.getText() + " (" + binding.missedPercent.getText() + ")", normalFont));
-            document.add(new Paragraph(" ")); // Add spacing
-            
-            // Add table
-            PdfPTable table = new PdfPTable(6);
-            table.setWidthPercentage(100);
-            
-            // Add table headers
-            Font headerFont = new Font(Font.FontFamily.HELVETICA, 12, Font.BOLD);
-            PdfPCell cell = new PdfPCell(new Paragraph("Employee", headerFont));
-            table.addCell(cell);
-            cell = new PdfPCell(new Paragraph("Office", headerFont));
-            table.addCell(cell);
-            cell = new PdfPCell(new Paragraph("Date", headerFont));
-            table.addCell(cell);
-            cell = new PdfPCell(new Paragraph("Check In", headerFont));
-            table.addCell(cell);
-            cell = new PdfPCell(new Paragraph("Check Out", headerFont));
-            table.addCell(cell);
-            cell = new PdfPCell(new Paragraph("Status", headerFont));
-            table.addCell(cell);
-            
-            // Add data rows
-            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-            SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss", Locale.getDefault());
-            
-            for (Attendance attendance : allAttendanceRecords) {
-                // Add null checks for all fields that might be null
-                String userName = attendance.getUserName() != null ? attendance.getUserName() : "Unknown";
-                String officeName = attendance.getOfficeName() != null ? attendance.getOfficeName() : "Unknown";
-                String date = attendance.getDate() != null ? attendance.getDate() : "N/A";
-                
-                table.addCell(new Paragraph(userName, normalFont));
-                table.addCell(new Paragraph(officeName, normalFont));
-                table.addCell(new Paragraph(date, normalFont));
-                table.addCell(new Paragraph(attendance.getCheckInTime() != null ? timeFormat.format(attendance.getCheckInTime()) : "N/A", normalFont));
-                table.addCell(new Paragraph(attendance.getCheckOutTime() != null ? timeFormat.format(attendance.getCheckOutTime()) : "N/A", normalFont));
-                table.addCell(new Paragraph(attendance.getStatus() != null ? attendance.getStatus() : "Unknown", normalFont));
-            }
-            
-            document.add(table);
-            document.close();
-            
-            // Share the PDF file
-            shareFile(pdfFile, "application/pdf");
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Error exporting to PDF: ", e);
-            Toast.makeText(requireContext(), "Error exporting to PDF: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            preamble.add(new Paragraph("Employee: " + userName, normalFont));
+        } else {
+            preamble.add(new Paragraph("Employee: All Employees", normalFont));
         }
+        
+        if (startDate != null || endDate != null) {
+            SimpleDateFormat rangeFormat = new SimpleDateFormat("MMM dd, yyyy", Locale.getDefault());
+            Date rangeEnd = getRangeEnd();
+            preamble.add(new Paragraph("Period: " + rangeFormat.format(getRangeStart(rangeEnd)) +
+                    " - " + rangeFormat.format(rangeEnd), normalFont));
+        } else {
+            preamble.add(new Paragraph("Period: " + binding.monthSpinner.getSelectedItem().toString(), normalFont));
+        }
+        preamble.add(new Paragraph(" ")); // Add spacing
+        
+        // Add statistics
+        preamble.add(new Paragraph("Statistics:", normalFont));
+        preamble.add(new Paragraph("Total Records: " + binding.totalAttendanceValue.getText(), normalFont));
+        preamble.add(new Paragraph("On Time: " + binding.onTimeValue.getText() + " (" + binding.onTimePercent.getText() + ")", normalFont));
+        preamble.add(new Paragraph("Late: " + binding.lateValue.getText() + " (" + binding.latePercent.getText() + ")", normalFont));
+        preamble.add(new Paragraph("Missed: " + binding.missedValue.getText() + " (" + binding.missedPercent.getText() + ")", normalFont));
+        preamble.add(new Paragraph(" ")); // Add spacing
+        return preamble;
     }
     
     private void exportToCsv() {
-        try {
-            String fileName = "attendance_report_" + new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date()) + ".csv";
-            File csvFile = new File(requireContext().getExternalFilesDir(Environment.DIRECTORY_DOCUMENTS), fileName);
-            
-            FileWriter writer = new FileWriter(csvFile);
-            
-            // Write header
-            writer.append("Employee,Office,Date,Check In,Check Out,Status,Location Status\n");
-            
-            // Write data rows
-            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-            SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss", Locale.getDefault());
-            
-            for (Attendance attendance : allAttendanceRecords) {
-                // Add null checks for all fields that might be null
-                String userName = attendance.getUserName() != null ? attendance.getUserName() : "Unknown";
-                String officeName = attendance.getOfficeName() != null ? attendance.getOfficeName() : "Unknown";
-                String date = attendance.getDate() != null ? attendance.getDate() : "N/A";
-                String status = attendance.getStatus() != null ? attendance.getStatus() : "Unknown";
-                
-                writer.append(escapeCsv(userName)).append(",");
-                writer.append(escapeCsv(officeName)).append(",");
-                writer.append(escapeCsv(date)).append(",");
-                writer.append(escapeCsv(attendance.getCheckInTime() != null ? timeFormat.format(attendance.getCheckInTime()) : "N/A")).append(",");
-                writer.append(escapeCsv(attendance.getCheckOutTime() != null ? timeFormat.format(attendance.getCheckOutTime()) : "N/A")).append(",");
-                writer.append(escapeCsv(status)).append("\n");
-            }
-            
-            writer.flush();
-            writer.close();
-            
-            // Share the CSV file
-            shareFile(csvFile, "text/csv");
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Error exporting to CSV: ", e);
-            Toast.makeText(requireContext(), "Error exporting to CSV: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-        }
+        String fileName = "attendance_report_" + new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date()) + ".csv";
+        File csvFile = new File(requireContext().getExternalFilesDir(Environment.DIRECTORY_DOCUMENTS), fileName);
+        startExport(csvFile, CsvRecordWriter.factory(CsvRecordWriter.Layout.REPORT), "text/csv", "CSV");
     }
     
-    private String escapeCsv(String value) {
-        if (value == null) {
-            return "";
+    /**
+     * Streams the current selection to a file in the background, with progress and a cancel
+     * action in a snackbar, and shares the file when it is done
+     */
+    private void startExport(File file, RecordWriter.Factory writerFactory, String mimeType, String formatName) {
+        if (exportJob != null) {
+            Toast.makeText(requireContext(), "An export is already running", Toast.LENGTH_SHORT).show();
+            return;
         }
         
-        // If the value contains a comma, quote, or newline, wrap it in quotes and escape any quotes
-        if (value.contains("\"") || value.contains(",") || value.contains("\n")) {
-            return "\"" + value.replace("\"", "\"\"") + "\"";
+        AttendancePageSource source;
+        if (startDate != null || endDate != null) {
+            Date rangeEnd = getRangeEnd();
+            source = attendanceViewModel.createExportSource(selectedMonth, getRangeStart(rangeEnd), rangeEnd,
+                    selectedOfficeId, selectedUserId);
+        } else {
+            source = attendanceViewModel.createExportSource(selectedMonth, null, null,
+                    selectedOfficeId, selectedUserId);
         }
         
-        return value;
+        Snackbar progress = Snackbar.make(binding.getRoot(), "Exporting " + formatName + "...", Snackbar.LENGTH_INDEFINITE);
+        AttendanceExportEngine.ExportJob job = AttendanceExportEngine.export(source, writerFactory, file,
+                new AttendanceExportEngine.Listener() {
+                    @Override
+                    public void onProgress(int recordsWritten) {
+                        progress.setText("Exporting " + formatName + ": " + recordsWritten + " records");
+                    }
+
+                    @Override
+                    public void onComplete(File exportedFile, int recordsWritten) {
+                        exportJob = null;
+                        progress.dismiss();
+                        if (binding != null) {
+                            shareFile(exportedFile, mimeType);
+                        }
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        exportJob = null;
+                        progress.dismiss();
+                        if (binding != null) {
+                            Toast.makeText(requireContext(), "Error exporting to " + formatName + ": " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                        }
+                    }
+
+                    @Override
+                    public void onCancelled() {
+                        exportJob = null;
+                        progress.dismiss();
+                    }
+                });
+        progress.setAction("Cancel", v -> job.cancel());
+        progress.show();
+        exportJob = job;
     }
     
     private void shareFile(File file, String mimeType) {
@@ -628,6 +665,10 @@ public class ReportsFragment extends Fragment {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        if (exportJob != null) {
+            exportJob.cancel();
+            exportJob = null;
+        }
         binding = null;
     }
 } 
\ No newline at end of file
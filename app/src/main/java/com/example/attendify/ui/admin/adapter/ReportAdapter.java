@@ -6,27 +6,28 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
-import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.attendify.R;
 import com.example.attendify.model.Attendance;
+import com.example.attendify.repository.OfficeRepository;
+import com.example.attendify.util.AttendanceCalendar;
+import com.example.attendify.util.AttendanceDiffCallback;
+import com.example.attendify.util.ListDiffing;
 import com.google.android.material.card.MaterialCardView;
 import com.google.android.material.chip.Chip;
 
-import java.text.SimpleDateFormat;
-import java.util.Locale;
-
 import androidx.core.content.ContextCompat;
 
 public class ReportAdapter extends ListAdapter<Attendance, ReportAdapter.ViewHolder> {
 
-    private static final SimpleDateFormat TIME_FORMAT = new SimpleDateFormat("hh:mm a", Locale.getDefault());
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("EEE, MMM dd, yyyy", Locale.getDefault());
+    private static final String TIME_PATTERN = "hh:mm a";
+    private static final String DATE_PATTERN = "EEE, MMM dd, yyyy";
 
     public ReportAdapter() {
-        super(new AttendanceDiffCallback());
+        super(ListDiffing.config(new AttendanceDiffCallback()));
+        setHasStableIds(true);
     }
 
     @NonNull
@@ -44,11 +45,15 @@ public class ReportAdapter extends ListAdapter<Attendance, ReportAdapter.ViewHol
         holder.userNameTextView.setText(attendance.getUserName());
         holder.officeNameTextView.setText(attendance.getOfficeName());
         
+        // Times are shown in the office's time zone
+        AttendanceCalendar calendar = AttendanceCalendar.forOffice(
+                OfficeRepository.getInstance().getCachedOffice(attendance.getOfficeId()));
+        
         // Set date - add null check
         if (attendance.getCheckInTime() != null) {
-            holder.dateTextView.setText(DATE_FORMAT.format(attendance.getCheckInTime()));
+            holder.dateTextView.setText(calendar.format(DATE_PATTERN, attendance.getCheckInTime()));
             // Set check-in time
-            holder.checkInTimeTextView.setText(TIME_FORMAT.format(attendance.getCheckInTime()));
+            holder.checkInTimeTextView.setText(calendar.format(TIME_PATTERN, attendance.getCheckInTime()));
         } else {
             holder.dateTextView.setText("N/A");
             holder.checkInTimeTextView.setText("N/A");
@@ -56,7 +61,7 @@ public class ReportAdapter extends ListAdapter<Attendance, ReportAdapter.ViewHol
         
         // Set check-out time (if available)
         if (attendance.getCheckOutTime() != null) {
-            holder.checkOutTimeTextView.setText(TIME_FORMAT.format(attendance.getCheckOutTime()));
+            holder.checkOutTimeTextView.setText(calendar.format(TIME_PATTERN, attendance.getCheckOutTime()));
             holder.checkOutTimeTextView.setVisibility(View.VISIBLE);
             holder.checkOutLabelTextView.setVisibility(View.VISIBLE);
         } else {
@@ -134,6 +139,11 @@ public class ReportAdapter extends ListAdapter<Attendance, ReportAdapter.ViewHol
         }
     }
 
+    @Override
+    public long getItemId(int position) {
+        return AttendanceDiffCallback.stableId(getItem(position));
+    }
+
     static class ViewHolder extends RecyclerView.ViewHolder {
         private final MaterialCardView cardView;
         private final TextView userNameTextView;
@@ -158,30 +168,4 @@ public class ReportAdapter extends ListAdapter<Attendance, ReportAdapter.ViewHol
             locationStatusChip = itemView.findViewById(R.id.locationStatusChip);
         }
     }
-
-    private static class AttendanceDiffCallback extends DiffUtil.ItemCallback<Attendance> {
-        @Override
-        public boolean areItemsTheSame(@NonNull Attendance oldItem, @NonNull Attendance newItem) {
-            // Add null safety for userId and date comparison
-            if (oldItem.getUserId() == null || newItem.getUserId() == null || 
-                oldItem.getDate() == null || newItem.getDate() == null) {
-                return false;
-            }
-            
-            // Only compare checkInTime if both are non-null
-            if (oldItem.getCheckInTime() == null || newItem.getCheckInTime() == null) {
-                return oldItem.getUserId().equals(newItem.getUserId()) && 
-                       oldItem.getDate().equals(newItem.getDate());
-            }
-            
-            return oldItem.getUserId().equals(newItem.getUserId()) && 
-                   oldItem.getDate().equals(newItem.getDate()) && 
-                   oldItem.getCheckInTime().equals(newItem.getCheckInTime());
-        }
-
-        @Override
-        public boolean areContentsTheSame(@NonNull Attendance oldItem, @NonNull Attendance newItem) {
-            return oldItem.equals(newItem);
-        }
-    }
 } 
\ No newline at end of file
@@ -6,10 +6,13 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.attendify.R;
 import com.example.attendify.model.Attendance;
+import com.example.attendify.util.AttendanceDiffCallback;
+import com.example.attendify.util.ListDiffing;
 import com.google.android.material.card.MaterialCardView;
 
 import java.text.SimpleDateFormat;
@@ -17,11 +20,14 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 
-public class AttendanceAdapter extends RecyclerView.Adapter<AttendanceAdapter.AttendanceViewHolder> {
+public class AttendanceAdapter extends ListAdapter<Attendance, AttendanceAdapter.AttendanceViewHolder> {
     
-    private List<Attendance> attendanceList = new ArrayList<>();
     private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
-    private final SimpleDateFormat dateFormat = new SimpleDateFormat("MMM dd, yyyy", Locale.getDefault());
+    
+    public AttendanceAdapter() {
+        super(ListDiffing.config(new AttendanceDiffCallback()));
+        setHasStableIds(true);
+    }
     
     @NonNull
     @Override
@@ -33,7 +39,7 @@ public class AttendanceAdapter extends RecyclerView.Adapter<AttendanceAdapter.At
     
     @Override
     public void onBindViewHolder(@NonNull AttendanceViewHolder holder, int position) {
-        Attendance attendance = attendanceList.get(position);
+        Attendance attendance = getItem(position);
         
         // Set date
         if (attendance.getDate() != null) {
@@ -88,13 +94,14 @@ public class AttendanceAdapter extends RecyclerView.Adapter<AttendanceAdapter.At
     }
     
     @Override
-    public int getItemCount() {
-        return attendanceList.size();
+    public long getItemId(int position) {
+        return AttendanceDiffCallback.stableId(getItem(position));
     }
     
     public void updateAttendanceList(List<Attendance> newList) {
-        this.attendanceList = newList != null ? newList : new ArrayList<>();
-        notifyDataSetChanged();
+        // Copied so that later changes to the caller's list don't race the background diff;
+        // a new page then binds only the appended rows
+        submitList(newList != null ? new ArrayList<>(newList) : null);
     }
     
     static class AttendanceViewHolder extends RecyclerView.ViewHolder {
@@ -115,4 +122,4 @@ public class AttendanceAdapter extends RecyclerView.Adapter<AttendanceAdapter.At
             checkOutTimeText = itemView.findViewById(R.id.checkOutTimeText);
         }
     }
-}
\ No newline at end of file
+}
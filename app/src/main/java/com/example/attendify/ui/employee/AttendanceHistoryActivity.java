@@ -25,27 +25,25 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.example.attendify.R;
 import com.example.attendify.databinding.ActivityAttendanceHistoryBinding;
+import com.example.attendify.export.AttendanceExportEngine;
+import com.example.attendify.export.AttendancePageSource;
+import com.example.attendify.export.CsvRecordWriter;
+import com.example.attendify.export.PdfRecordWriter;
+import com.example.attendify.export.RecordWriter;
 import com.example.attendify.model.Attendance;
+import com.example.attendify.util.AttendanceCalendar;
+import com.example.attendify.util.PrefetchScrollListener;
 import com.example.attendify.viewmodel.AttendanceViewModel;
 import com.example.attendify.viewmodel.AuthViewModel;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.android.material.snackbar.Snackbar;
 import com.itextpdf.text.BaseColor;
-import com.itextpdf.text.Document;
-import com.itextpdf.text.DocumentException;
 import com.itextpdf.text.Element;
 import com.itextpdf.text.Font;
 import com.itextpdf.text.FontFactory;
 import com.itextpdf.text.Paragraph;
-import com.itextpdf.text.Phrase;
-import com.itextpdf.text.pdf.PdfPCell;
-import com.itextpdf.text.pdf.PdfPTable;
-import com.itextpdf.text.pdf.PdfWriter;
 
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.FileWriter;
-import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
@@ -63,11 +61,13 @@ public class AttendanceHistoryActivity extends AppCompatActivity {
     private AttendanceAdapter attendanceAdapter;
     private List<Attendance> attendanceList = new ArrayList<>();
     private String userId;
+    // Months follow the time zone of the user's office once it is known
+    private AttendanceCalendar userCalendar = AttendanceCalendar.forOffice(null);
+    private AttendanceExportEngine.ExportJob exportJob;
     
     // Date formatting
     private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
     private final SimpleDateFormat monthFormat = new SimpleDateFormat("MMMM yyyy", Locale.getDefault());
-    private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
     
     // Month selection
     private String[] monthsArray;
@@ -108,8 +108,13 @@ public class AttendanceHistoryActivity extends AppCompatActivity {
     
     private void setupRecyclerView() {
         attendanceAdapter = new AttendanceAdapter();
-        binding.attendanceRecyclerView.setLayoutManager(new LinearLayoutManager(this));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        binding.attendanceRecyclerView.setLayoutManager(layoutManager);
         binding.attendanceRecyclerView.setAdapter(attendanceAdapter);
+        // Load the next page of the month before the user reaches the end of the list
+        binding.attendanceRecyclerView.addOnScrollListener(new PrefetchScrollListener(
+                layoutManager, attendanceViewModel::loadMoreAttendanceHistory,
+                attendanceViewModel::loadPreviousAttendanceHistory));
     }
     
     private void setupMonthSelector() {
@@ -153,7 +158,12 @@ public class AttendanceHistoryActivity extends AppCompatActivity {
                 return;
             }
             userId = user.getUid();
-            loadAttendanceForMonth(currentMonthPosition);
+            attendanceViewModel.getUserCalendar(userId).observe(this, calendar -> {
+                if (calendar != null) {
+                    userCalendar = calendar;
+                }
+                loadAttendanceForMonth(currentMonthPosition);
+            });
         });
         
         // Observe attendance data
@@ -194,14 +204,16 @@ public class AttendanceHistoryActivity extends AppCompatActivity {
         binding.progressBar.setVisibility(View.VISIBLE);
         
         // Get month string for the selected position
-        Calendar calendar = Calendar.getInstance();
-        calendar.add(Calendar.MONTH, -monthOffset);
-        String yearMonth = new SimpleDateFormat("yyyy-MM", Locale.getDefault()).format(calendar.getTime());
+        String yearMonth = AttendanceCalendar.addMonths(userCalendar.currentMonth(), -monthOffset);
         
         // Load attendance for the selected month
         attendanceViewModel.loadAttendanceHistoryForMonth(userId, yearMonth);
     }
     
+    private String getSelectedYearMonth() {
+        return AttendanceCalendar.addMonths(userCalendar.currentMonth(), -currentMonthPosition);
+    }
+    
     private void checkPermissionAndExportPdf() {
         if (ContextCompat.checkSelfPermission(this, Manifest.permission.WRITE_EXTERNAL_STORAGE) 
                 != PackageManager.PERMISSION_GRANTED) {
@@ -247,119 +259,15 @@ public class AttendanceHistoryActivity extends AppCompatActivity {
             return;
         }
         
-        // Create document
-        Document document = new Document();
-        
-        try {
-            // Create directory if it doesn't exist
-            File dir = new File(Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOWNLOADS), "Attendify");
-            if (!dir.exists()) {
-                dir.mkdirs();
-            }
-            
-            // Create file
-            String fileName = "attendance_" + monthsArray[currentMonthPosition].replace(" ", "_") + ".pdf";
-            File file = new File(dir, fileName);
-            
-            // Write to file
-            PdfWriter.getInstance(document, new FileOutputStream(file));
-            document.open();
-            
-            // Add title
-            Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18, BaseColor.BLACK);
-            Paragraph title = new Paragraph("Attendance Report: " + monthsArray[currentMonthPosition], titleFont);
-            title.setAlignment(Element.ALIGN_CENTER);
-            document.add(title);
-            document.add(new Paragraph(" ")); // Add space
-            
-            // Create table
-            PdfPTable table = new PdfPTable(4); // 4 columns
-            table.setWidthPercentage(100);
-            
-            // Set column widths
-            float[] columnWidths = {2f, 1.5f, 1.5f, 1f}; // Date, Check-in, Check-out, Status
-            table.setWidths(columnWidths);
-            
-            // Add header row
-            addTableHeader(table);
-            
-            // Add data rows
-            for (Attendance attendance : attendanceList) {
-                addTableRow(table, attendance);
-            }
-            
-            // Add table to document
-            document.add(table);
-            
-            // Close document
-            document.close();
-            
-            // Show success message with option to open file
-            showExportSuccessDialog(file, "PDF");
-            
-        } catch (DocumentException | IOException e) {
-            Log.e(TAG, "Error exporting PDF: " + e.getMessage());
-            Toast.makeText(this, "Error creating PDF: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-        }
-    }
-    
-    private void addTableHeader(PdfPTable table) {
-        Font headerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12, BaseColor.WHITE);
-        
-        PdfPCell dateHeader = new PdfPCell(new Phrase("Date", headerFont));
-        dateHeader.setBackgroundColor(new BaseColor(33, 150, 243)); // Primary color
-        dateHeader.setHorizontalAlignment(Element.ALIGN_CENTER);
-        dateHeader.setPadding(8);
-        
-        PdfPCell checkInHeader = new PdfPCell(new Phrase("Check-in", headerFont));
-        checkInHeader.setBackgroundColor(new BaseColor(33, 150, 243));
-        checkInHeader.setHorizontalAlignment(Element.ALIGN_CENTER);
-        checkInHeader.setPadding(8);
-        
-        PdfPCell checkOutHeader = new PdfPCell(new Phrase("Check-out", headerFont));
-        checkOutHeader.setBackgroundColor(new BaseColor(33, 150, 243));
-        checkOutHeader.setHorizontalAlignment(Element.ALIGN_CENTER);
-        checkOutHeader.setPadding(8);
-        
-        PdfPCell statusHeader = new PdfPCell(new Phrase("Status", headerFont));
-        statusHeader.setBackgroundColor(new BaseColor(33, 150, 243));
-        statusHeader.setHorizontalAlignment(Element.ALIGN_CENTER);
-        statusHeader.setPadding(8);
+        // Add title
+        Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18, BaseColor.BLACK);
+        Paragraph title = new Paragraph("Attendance Report: " + monthsArray[currentMonthPosition], titleFont);
+        title.setAlignment(Element.ALIGN_CENTER);
+        List<Element> preamble = new ArrayList<>();
+        preamble.add(title);
+        preamble.add(new Paragraph(" ")); // Add space
         
-        table.addCell(dateHeader);
-        table.addCell(checkInHeader);
-        table.addCell(checkOutHeader);
-        table.addCell(statusHeader);
-    }
-    
-    private void addTableRow(PdfPTable table, Attendance attendance) {
-        // Date
-        SimpleDateFormat displayDateFormat = new SimpleDateFormat("MMM dd, yyyy", Locale.getDefault());
-        PdfPCell dateCell = new PdfPCell(new Phrase(displayDateFormat.format(attendance.getCheckInTime())));
-        dateCell.setHorizontalAlignment(Element.ALIGN_CENTER);
-        dateCell.setPadding(5);
-        
-        // Check-in time
-        PdfPCell checkInCell = new PdfPCell(new Phrase(timeFormat.format(attendance.getCheckInTime())));
-        checkInCell.setHorizontalAlignment(Element.ALIGN_CENTER);
-        checkInCell.setPadding(5);
-        
-        // Check-out time
-        String checkOutTime = attendance.getCheckOutTime() != null ? 
-                timeFormat.format(attendance.getCheckOutTime()) : "Not Checked Out";
-        PdfPCell checkOutCell = new PdfPCell(new Phrase(checkOutTime));
-        checkOutCell.setHorizontalAlignment(Element.ALIGN_CENTER);
-        checkOutCell.setPadding(5);
-        
-        // Status
-        PdfPCell statusCell = new PdfPCell(new Phrase(attendance.getStatus()));
-        statusCell.setHorizontalAlignment(Element.ALIGN_CENTER);
-        statusCell.setPadding(5);
-        
-        table.addCell(dateCell);
-        table.addCell(checkInCell);
-        table.addCell(checkOutCell);
-        table.addCell(statusCell);
+        startExport("pdf", PdfRecordWriter.factory(PdfRecordWriter.Layout.HISTORY, preamble), "PDF");
     }
     
     private void exportAttendanceToCsv() {
@@ -367,63 +275,63 @@ public class AttendanceHistoryActivity extends AppCompatActivity {
             Toast.makeText(this, "No attendance records to export", Toast.LENGTH_SHORT).show();
             return;
         }
+        startExport("csv", CsvRecordWriter.factory(CsvRecordWriter.Layout.HISTORY), "CSV");
+    }
+    
+    /**
+     * Streams the whole selected month from Firestore to Downloads/Attendify in the
+     * background, not just the pages loaded in the list
+     */
+    private void startExport(String extension, RecordWriter.Factory writerFactory, String formatName) {
+        if (exportJob != null) {
+            Toast.makeText(this, "An export is already running", Toast.LENGTH_SHORT).show();
+            return;
+        }
         
-        try {
-            // Create directory if it doesn't exist
-            File dir = new File(Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOWNLOADS), "Attendify");
-            if (!dir.exists()) {
-                dir.mkdirs();
-            }
-            
-            // Create file
-            String fileName = "attendance_" + monthsArray[currentMonthPosition].replace(" ", "_") + ".csv";
-            File file = new File(dir, fileName);
-            
-            // Write to file
-            FileWriter writer = new FileWriter(file);
-            
-            // Write header
-            writer.append("Date,Check-in Time,Check-out Time,Status,Office\n");
-            
-            // Write data
-            SimpleDateFormat displayDateFormat = new SimpleDateFormat("MMM dd, yyyy", Locale.getDefault());
-            for (Attendance attendance : attendanceList) {
-                // Date
-                writer.append(displayDateFormat.format(attendance.getCheckInTime()));
-                writer.append(",");
-                
-                // Check-in time
-                writer.append(timeFormat.format(attendance.getCheckInTime()));
-                writer.append(",");
-                
-                // Check-out time
-                if (attendance.getCheckOutTime() != null) {
-                    writer.append(timeFormat.format(attendance.getCheckOutTime()));
-                } else {
-                    writer.append("Not Checked Out");
-                }
-                writer.append(",");
-                
-                // Status
-                writer.append(attendance.getStatus());
-                writer.append(",");
-                
-                // Office
-                writer.append(attendance.getOfficeName() != null ? attendance.getOfficeName() : "Unknown");
-                writer.append("\n");
-            }
-            
-            // Close writer
-            writer.flush();
-            writer.close();
-            
-            // Show success message with option to open file
-            showExportSuccessDialog(file, "CSV");
-            
-        } catch (IOException e) {
-            Log.e(TAG, "Error exporting CSV: " + e.getMessage());
-            Toast.makeText(this, "Error creating CSV: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+        // Create directory if it doesn't exist
+        File dir = new File(Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOWNLOADS), "Attendify");
+        if (!dir.exists()) {
+            dir.mkdirs();
         }
+        String fileName = "attendance_" + monthsArray[currentMonthPosition].replace(" ", "_") + "." + extension;
+        File file = new File(dir, fileName);
+        
+        AttendancePageSource source = attendanceViewModel.createExportSource(
+                getSelectedYearMonth(), null, null, null, userId);
+        Snackbar progress = Snackbar.make(binding.getRoot(), "Exporting " + formatName + "...", Snackbar.LENGTH_INDEFINITE);
+        AttendanceExportEngine.ExportJob job = AttendanceExportEngine.export(source, writerFactory, file,
+                new AttendanceExportEngine.Listener() {
+                    @Override
+                    public void onProgress(int recordsWritten) {
+                        progress.setText("Exporting " + formatName + ": " + recordsWritten + " records");
+                    }
+
+                    @Override
+                    public void onComplete(File exportedFile, int recordsWritten) {
+                        exportJob = null;
+                        progress.dismiss();
+                        if (!isFinishing()) {
+                            showExportSuccessDialog(exportedFile, formatName);
+                        }
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        exportJob = null;
+                        progress.dismiss();
+                        Log.e(TAG, "Error exporting " + formatName + ": " + e.getMessage());
+                        Toast.makeText(AttendanceHistoryActivity.this, "Error creating " + formatName + ": " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                    }
+
+                    @Override
+                    public void onCancelled() {
+                        exportJob = null;
+                        progress.dismiss();
+                    }
+                });
+        progress.setAction("Cancel", v -> job.cancel());
+        progress.show();
+        exportJob = job;
     }
     
     private void showExportSuccessDialog(File file, String fileType) {
@@ -468,6 +376,10 @@ public class AttendanceHistoryActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        if (exportJob != null) {
+            exportJob.cancel();
+            exportJob = null;
+        }
         binding = null;
     }
 } 
\ No newline at end of file
@@ -37,8 +37,11 @@ import com.example.attendify.databinding.ActivityEmployeeDashboardBinding;
 import com.example.attendify.model.Office;
 import com.example.attendify.model.User;
 import com.example.attendify.repository.AttendanceRepository.AttendanceSummary;
+import com.example.attendify.repository.OfficeRepository;
 import com.example.attendify.service.GeofencingService;
 import com.example.attendify.ui.auth.AuthActivity;
+import com.example.attendify.util.AttendanceCalendar;
+import com.example.attendify.util.StartupTrace;
 import com.example.attendify.viewmodel.AttendanceViewModel;
 import com.example.attendify.viewmodel.AuthViewModel;
 import com.example.attendify.viewmodel.OfficeViewModel;
@@ -51,7 +54,6 @@ import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
@@ -103,6 +105,7 @@ public class EmployeeDashboardActivity extends AppCompatActivity implements Offi
         
         binding = ActivityEmployeeDashboardBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
+        StartupTrace.endLaunchAfterFirstFrame(this);
 
         // Set up toolbar
         setSupportActionBar(binding.toolbar);
@@ -110,6 +113,9 @@ public class EmployeeDashboardActivity extends AppCompatActivity implements Offi
             getSupportActionBar().setTitle("Employee Dashboard");
         }
 
+        // Load the cached office directory from disk before anything asks for offices
+        OfficeRepository.getInstance().init(this);
+
         // Initialize ViewModels
         authViewModel = new ViewModelProvider(this).get(AuthViewModel.class);
         attendanceViewModel = new ViewModelProvider(this).get(AttendanceViewModel.class);
@@ -150,9 +156,13 @@ public class EmployeeDashboardActivity extends AppCompatActivity implements Offi
         requestLocationPermissions();
     }
 
+    // Dates shown on the dashboard follow the selected office's time zone
+    private AttendanceCalendar officeCalendar() {
+        return AttendanceCalendar.forOffice(selectedOffice);
+    }
+
     private void updateCurrentDate() {
-        SimpleDateFormat dateFormat = new SimpleDateFormat("EEEE, MMMM d, yyyy", Locale.getDefault());
-        String currentDate = dateFormat.format(new Date());
+        String currentDate = officeCalendar().format("EEEE, MMMM d, yyyy", new Date());
         binding.dateText.setText(currentDate);
     }
     
@@ -358,14 +368,6 @@ public class EmployeeDashboardActivity extends AppCompatActivity implements Offi
                         ", Current time: " + now.getTime() + 
                         ", Entry time: " + entryTimeToday.getTime());
                 
-                // Check if within geofence as an extra security measure
-                if (!geofencingService.validateCheckInLocation(selectedOffice)) {
-                    binding.checkInButton.setEnabled(true);
-                    binding.checkInButton.setText("Check In");
-                    showErrorSnackbar("You must be inside the office area to check in");
-                    return;
-                }
-
                 // Check GPS status
                 if (!isGpsEnabled()) {
                     binding.checkInButton.setEnabled(true);
@@ -373,41 +375,52 @@ public class EmployeeDashboardActivity extends AppCompatActivity implements Offi
                     showErrorSnackbar("GPS is required for accurate attendance tracking");
                     return;
                 }
-                
-                // Show a confirmation dialog for check-in
-                new MaterialAlertDialogBuilder(this)
-                    .setTitle("Confirm Check-In")
-                    .setMessage("You are about to check in to " + selectedOffice.getName() + 
-                              "\nStatus: " + status)
-                    .setPositiveButton("Confirm", (dialog, which) -> {
-                        // If offline, use our offline-capable method
-                        if (!isNetworkAvailable) {
-                            showStatusSnackbar("Network unavailable. Check-in will be synchronized when online.");
-                        }
+
+                // Check if within geofence as an extra security measure; a stale fix is
+                // replaced by a fresh one first, so this may wait for the location provider
+                geofencingService.validateCheckInLocation(selectedOffice).addOnCompleteListener(this, task -> {
+                    if (!task.isSuccessful() || !Boolean.TRUE.equals(task.getResult())) {
+                        binding.checkInButton.setEnabled(true);
+                        binding.checkInButton.setText("Check In");
+                        showErrorSnackbar("You must be inside the office area to check in");
+                        return;
+                    }
+                    
+                    // Show a confirmation dialog for check-in
+                    new MaterialAlertDialogBuilder(this)
+                        .setTitle("Confirm Check-In")
+                        .setMessage("You are about to check in to " + selectedOffice.getName() + 
+                                  "\nStatus: " + status)
+                        .setPositiveButton("Confirm", (dialog, which) -> {
+                            // If offline, use our offline-capable method
+                            if (!isNetworkAvailable) {
+                                showStatusSnackbar("Network unavailable. Check-in will be synchronized when online.");
+                            }
                         
-                        Log.d("EmployeeDashboard", "Manual check-in initiated, setting isCheckedIn=true");
+                            Log.d("EmployeeDashboard", "Manual check-in initiated, setting isCheckedIn=true");
                         
-                        // Use ViewModel checkInWithStatus method
-                        attendanceViewModel.checkInWithStatus(currentUser.getUid(), 
-                                              selectedOffice.getId(), status);
+                            // Use ViewModel checkInWithStatus method
+                            attendanceViewModel.checkInWithStatus(currentUser.getUid(), 
+                                                  selectedOffice.getId(), status);
                         
-                        // Manual status update - don't wait for LiveData
-                        isCheckedIn = true;
-                        updateCheckInStatus();
+                            // Manual status update - don't wait for LiveData
+                            isCheckedIn = true;
+                            updateCheckInStatus();
                         
-                        // Show success animation
-                        showCheckInSuccessAnimation();
+                            // Show success animation
+                            showCheckInSuccessAnimation();
                         
-                        // Force refresh attendance history
-                        attendanceViewModel.loadAttendanceHistory(currentUser.getUid());
-                    })
-                    .setNegativeButton("Cancel", (dialog, which) -> {
-                        // Re-enable check-in button if cancelled
-                        binding.checkInButton.setEnabled(true);
-                        binding.checkInButton.setText("Check In");
-                    })
-                    .setCancelable(false)
-                    .show();
+                            // Force refresh attendance history
+                            attendanceViewModel.loadAttendanceHistory(currentUser.getUid());
+                        })
+                        .setNegativeButton("Cancel", (dialog, which) -> {
+                            // Re-enable check-in button if cancelled
+                            binding.checkInButton.setEnabled(true);
+                            binding.checkInButton.setText("Check In");
+                        })
+                        .setCancelable(false)
+                        .show();
+                });
             } else {
                 showErrorSnackbar("Please select an office first");
             }
@@ -507,6 +520,9 @@ public class EmployeeDashboardActivity extends AppCompatActivity implements Offi
                 ", Button will be enabled: " + (isInsideOffice || isCheckedIn));
                 
         binding.checkInButton.setEnabled(isInsideOffice || isCheckedIn);
+
+        // Once checked in and inside, location can be sampled passively
+        geofencingService.setCheckedIn(isCheckedIn);
         
         // Update button color based on check-in status
         binding.checkInButton.setBackgroundTintList(getColorStateList(
@@ -521,8 +537,7 @@ public class EmployeeDashboardActivity extends AppCompatActivity implements Offi
     
     private void showCheckInConfirmation() {
         // Get current time formatted nicely
-        SimpleDateFormat timeFormat = new SimpleDateFormat("hh:mm a", Locale.getDefault());
-        String currentTime = timeFormat.format(new Date());
+        String currentTime = officeCalendar().format("hh:mm a", new Date());
         
         // Create and show snackbar
         Snackbar snackbar = Snackbar.make(binding.getRoot(), 
@@ -550,11 +565,10 @@ public class EmployeeDashboardActivity extends AppCompatActivity implements Offi
     
     private void showCheckOutConfirmation() {
         // Create and show snackbar for check-out
-        SimpleDateFormat timeFormat = new SimpleDateFormat("hh:mm a", Locale.getDefault());
-        SimpleDateFormat dateFormat = new SimpleDateFormat("EEEE, MMMM d", Locale.getDefault());
-        
-        String currentTime = timeFormat.format(new Date());
-        String currentDate = dateFormat.format(new Date());
+        AttendanceCalendar calendar = officeCalendar();
+        Date now = new Date();
+        String currentTime = calendar.format("hh:mm a", now);
+        String currentDate = calendar.format("EEEE, MMMM d", now);
         
         Snackbar snackbar = Snackbar.make(binding.getRoot(), 
                 "Checked out at " + currentTime + "\nThank you for your work today!", 
@@ -698,6 +712,7 @@ public class EmployeeDashboardActivity extends AppCompatActivity implements Offi
      * Updates the UI to show the selected office
      */
     private void updateSelectedOfficeUI() {
+        updateCurrentDate();
         if (selectedOffice != null) {
             Log.d("EmployeeDashboard", "Updating UI for selected office: " + selectedOffice.getName());
             binding.selectedOfficeValue.setText(selectedOffice.getName());
@@ -785,7 +800,7 @@ public class EmployeeDashboardActivity extends AppCompatActivity implements Offi
         if (currentUser == null) return;
         
         // Get today's date
-        String today = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date());
+        String today = officeCalendar().today();
         
         // Fetch latest attendance for today to update status
         attendanceViewModel.loadAttendanceHistory(currentUser.getUid());
@@ -829,8 +844,7 @@ public class EmployeeDashboardActivity extends AppCompatActivity implements Offi
      */
     private void showCheckInSuccessAnimation() {
         // Get current time formatted nicely
-        SimpleDateFormat timeFormat = new SimpleDateFormat("hh:mm a", Locale.getDefault());
-        String currentTime = timeFormat.format(new Date());
+        String currentTime = officeCalendar().format("hh:mm a", new Date());
         
         // Update UI with success state
         binding.checkStatusValue.setText("Checked In");
@@ -870,8 +884,7 @@ public class EmployeeDashboardActivity extends AppCompatActivity implements Offi
      */
     private void showCheckOutSuccessAnimation() {
         // Get formatted time
-        SimpleDateFormat timeFormat = new SimpleDateFormat("hh:mm a", Locale.getDefault());
-        String currentTime = timeFormat.format(new Date());
+        String currentTime = officeCalendar().format("hh:mm a", new Date());
         
         // Update UI with checkout state
         binding.checkStatusValue.setText("Not Checked In");
@@ -964,7 +977,7 @@ public class EmployeeDashboardActivity extends AppCompatActivity implements Offi
         binding.progressBar.setVisibility(View.VISIBLE);
         
         // Get today's date
-        String today = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date());
+        String today = officeCalendar().today();
         
         Log.d("EmployeeDashboard", "Explicitly fetching check-in status for user: " + currentUser.getUid());
         
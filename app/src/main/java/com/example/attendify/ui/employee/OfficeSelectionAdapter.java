@@ -17,8 +17,10 @@ import com.example.attendify.R;
 import com.example.attendify.model.Office;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 public class OfficeSelectionAdapter extends RecyclerView.Adapter<OfficeSelectionAdapter.OfficeViewHolder> {
 
@@ -26,6 +28,8 @@ public class OfficeSelectionAdapter extends RecyclerView.Adapter<OfficeSelection
     private List<Office> offices = new ArrayList<>();
     private Office selectedOffice;
     private Location currentLocation;
+    // Distance per office id for currentLocation, so rebinding a row does not measure again
+    private final Map<String, Float> distanceCache = new HashMap<>();
     private int selectedPosition = -1;
     private OnOfficeSelectedListener listener;
 
@@ -112,12 +116,30 @@ public class OfficeSelectionAdapter extends RecyclerView.Adapter<OfficeSelection
         }
         selectedPosition = -1;
         selectedOffice = null;
+        distanceCache.clear();
         notifyDataSetChanged();
     }
     
     public void updateCurrentLocation(Location location) {
         this.currentLocation = location;
-        notifyDataSetChanged();
+        distanceCache.clear();
+        notifyItemRangeChanged(0, offices.size());
+    }
+
+    private float distanceTo(Office office) {
+        Float cached = distanceCache.get(office.getId());
+        if (cached == null) {
+            float[] results = new float[1];
+            Location.distanceBetween(
+                    currentLocation.getLatitude(),
+                    currentLocation.getLongitude(),
+                    office.getLatitude(),
+                    office.getLongitude(),
+                    results);
+            cached = results[0];
+            distanceCache.put(office.getId(), cached);
+        }
+        return cached;
     }
     
     public Office getSelectedOffice() {
@@ -185,15 +207,7 @@ public class OfficeSelectionAdapter extends RecyclerView.Adapter<OfficeSelection
             
             // Calculate distance if current location is available
             if (currentLocation != null) {
-                float[] results = new float[1];
-                Location.distanceBetween(
-                        currentLocation.getLatitude(), 
-                        currentLocation.getLongitude(),
-                        office.getLatitude(), 
-                        office.getLongitude(), 
-                        results);
-                
-                float distanceInMeters = results[0];
+                float distanceInMeters = distanceTo(office);
                 
                 if (distanceInMeters < 1000) {
                     distanceText.setText(String.format(Locale.getDefault(), "%.0f meters away", distanceInMeters));
@@ -5,13 +5,14 @@ import android.view.View;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
-import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.attendify.R;
 import com.example.attendify.databinding.ItemRecentAttendanceBinding;
 import com.example.attendify.model.Attendance;
+import com.example.attendify.util.AttendanceDiffCallback;
+import com.example.attendify.util.ListDiffing;
 
 import java.text.SimpleDateFormat;
 import java.util.Locale;
@@ -22,17 +23,8 @@ public class RecentAttendanceAdapter extends ListAdapter<Attendance, RecentAtten
     private final SimpleDateFormat timeFormat;
 
     public RecentAttendanceAdapter() {
-        super(new DiffUtil.ItemCallback<Attendance>() {
-            @Override
-            public boolean areItemsTheSame(@NonNull Attendance oldItem, @NonNull Attendance newItem) {
-                return oldItem.getId().equals(newItem.getId());
-            }
-
-            @Override
-            public boolean areContentsTheSame(@NonNull Attendance oldItem, @NonNull Attendance newItem) {
-                return oldItem.equals(newItem);
-            }
-        });
+        super(ListDiffing.config(new AttendanceDiffCallback()));
+        setHasStableIds(true);
         dateFormat = new SimpleDateFormat("MMM d, yyyy", Locale.getDefault());
         timeFormat = new SimpleDateFormat("h:mm a", Locale.getDefault());
     }
@@ -51,6 +43,11 @@ public class RecentAttendanceAdapter extends ListAdapter<Attendance, RecentAtten
         holder.bind(attendance);
     }
 
+    @Override
+    public long getItemId(int position) {
+        return AttendanceDiffCallback.stableId(getItem(position));
+    }
+
     class ViewHolder extends RecyclerView.ViewHolder {
         private final ItemRecentAttendanceBinding binding;
 
@@ -61,7 +58,10 @@ public class RecentAttendanceAdapter extends ListAdapter<Attendance, RecentAtten
 
         void bind(Attendance attendance) {
             // Set date
-            binding.dateText.setText(dateFormat.format(attendance.getDate()));
+            // The record's date is a yyyy-MM-dd key; show it as it was when checking in
+            binding.dateText.setText(attendance.getCheckInTime() != null
+                    ? dateFormat.format(attendance.getCheckInTime())
+                    : attendance.getDate());
             
             // Set check-in time
             if (attendance.getCheckInTime() != null) {
@@ -10,7 +10,9 @@ import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.attendify.R;
+import com.example.attendify.repository.OfficeRepository;
 import com.example.attendify.ui.auth.AuthActivity;
+import com.example.attendify.util.StartupTrace;
 import com.example.attendify.utils.PermissionManager;
 
 public class SplashActivity extends AppCompatActivity {
@@ -22,8 +24,12 @@ public class SplashActivity extends AppCompatActivity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        StartupTrace.beginLaunch();
         setContentView(R.layout.activity_splash);
         
+        // Start reading the cached office directory while the splash is shown
+        OfficeRepository.getInstance().init(this);
+        
         // Hide system UI for a more immersive splash screen
         hideSystemUI();
         
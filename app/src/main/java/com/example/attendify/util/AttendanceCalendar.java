@@ -0,0 +1,233 @@
+package com.example.attendify.util;
+
+import com.example.attendify.model.Office;
+
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Day keys (yyyy-MM-dd), month keys (yyyy-MM) and display strings for one time zone.
+ *
+ * Attendance is filed under the office's calendar day, so keys come from the office's time
+ * zone when it has one and the device's otherwise. There is no process-wide default: callers
+ * pass the office document whose days they file or read, see {@link #forOffice}.
+ *
+ * Keys are built by hand and the last few days looked up are cached with their start and
+ * end, so asking for today's key on every fix or bind returns the same String without
+ * creating a formatter, a Date or a Calendar. Display patterns use a SimpleDateFormat kept
+ * per thread and pattern. All methods are safe to call from any thread.
+ */
+public final class AttendanceCalendar {
+    private static final String DEVICE_ZONE = "";
+    private static final int RECENT_DAYS = 8;
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private static final Map<String, AttendanceCalendar> CALENDARS = new ConcurrentHashMap<>();
+
+    // Null for the device zone; a change of device zone is picked up at the next day computed
+    private final TimeZone zone;
+    private final Calendar calendar;
+    // Slot chosen by day number; a slot is only used if the instant falls in its range
+    private final Day[] recentDays = new Day[RECENT_DAYS];
+    private final ThreadLocal<Map<String, SimpleDateFormat>> displayFormats =
+            ThreadLocal.withInitial(HashMap::new);
+
+    private AttendanceCalendar(TimeZone zone) {
+        this.zone = zone;
+        this.calendar = Calendar.getInstance(zone != null ? zone : TimeZone.getDefault(), Locale.ROOT);
+    }
+
+    /**
+     * @return The calendar of the office, or of the device if the office is unknown or has
+     * no time zone
+     */
+    public static AttendanceCalendar forOffice(Office office) {
+        return forTimeZone(office != null ? office.getTimeZone() : null);
+    }
+
+    /**
+     * @param timeZoneId IANA zone id such as "Europe/Berlin"; null or unknown ids mean the
+     * device zone
+     */
+    public static AttendanceCalendar forTimeZone(String timeZoneId) {
+        String key = timeZoneId != null ? timeZoneId : DEVICE_ZONE;
+        AttendanceCalendar calendar = CALENDARS.get(key);
+        if (calendar == null) {
+            // Unknown ids are remembered too, mapped to the device calendar
+            calendar = isKnownZone(key)
+                    ? CALENDARS.computeIfAbsent(key, id -> new AttendanceCalendar(TimeZone.getTimeZone(id)))
+                    : CALENDARS.computeIfAbsent(DEVICE_ZONE, id -> new AttendanceCalendar(null));
+            CALENDARS.putIfAbsent(key, calendar);
+        }
+        return calendar;
+    }
+
+    /**
+     * @return yyyy-MM-dd of the day the instant falls on
+     */
+    public String dayKey(long millis) {
+        return day(millis).dayKey;
+    }
+
+    public String dayKey(Date date) {
+        return dayKey(date.getTime());
+    }
+
+    public String today() {
+        return dayKey(System.currentTimeMillis());
+    }
+
+    /**
+     * @return yyyy-MM of the month the instant falls in
+     */
+    public String monthKey(long millis) {
+        return day(millis).monthKey;
+    }
+
+    public String monthKey(Date date) {
+        return monthKey(date.getTime());
+    }
+
+    public String currentMonth() {
+        return monthKey(System.currentTimeMillis());
+    }
+
+    /**
+     * @param month 1 to 12
+     * @return yyyy-MM
+     */
+    public static String monthKey(int year, int month) {
+        char[] key = new char[7];
+        writeMonth(key, year, month);
+        return new String(key);
+    }
+
+    /**
+     * @param monthKey yyyy-MM
+     * @param months Months to add, negative to go back
+     * @return yyyy-MM of the month that many months later
+     */
+    public static String addMonths(String monthKey, int months) {
+        int year = Integer.parseInt(monthKey.substring(0, 4));
+        int month = Integer.parseInt(monthKey.substring(5, 7));
+        int index = year * 12 + month - 1 + months;
+        return monthKey(Math.floorDiv(index, 12), Math.floorMod(index, 12) + 1);
+    }
+
+    /**
+     * @return Millis of midnight at the start of the instant's day
+     */
+    public long startOfDay(long millis) {
+        return day(millis).start;
+    }
+
+    /**
+     * Formats the date with a SimpleDateFormat pattern in this calendar's zone and the
+     * default locale. The formatter is created once per thread and pattern.
+     */
+    public String format(String pattern, Date date) {
+        Map<String, SimpleDateFormat> formats = displayFormats.get();
+        SimpleDateFormat format = formats.get(pattern);
+        if (format == null) {
+            format = new SimpleDateFormat(pattern, Locale.getDefault());
+            formats.put(pattern, format);
+        }
+        format.setTimeZone(zone != null ? zone : TimeZone.getDefault());
+        return format.format(date);
+    }
+
+    public String format(String pattern, long millis) {
+        return format(pattern, new Date(millis));
+    }
+
+    /**
+     * @return This calendar's zone; for the device zone, the zone as of now
+     */
+    public TimeZone getTimeZone() {
+        return zone != null ? zone : TimeZone.getDefault();
+    }
+
+    private Day day(long millis) {
+        int slot = (int) (Math.floorDiv(millis, DAY_MILLIS) & (RECENT_DAYS - 1));
+        Day cached = recentDays[slot];
+        if (cached != null && millis >= cached.start && millis < cached.end) {
+            return cached;
+        }
+        Day computed = computeDay(millis);
+        // Day is immutable with final fields, so other threads see it fully built
+        recentDays[slot] = computed;
+        return computed;
+    }
+
+    private Day computeDay(long millis) {
+        synchronized (calendar) {
+            if (zone == null) {
+                TimeZone deviceZone = TimeZone.getDefault();
+                if (!deviceZone.hasSameRules(calendar.getTimeZone())) {
+                    // The device moved zones; days cached under the old zone no longer apply
+                    calendar.setTimeZone(deviceZone);
+                    Arrays.fill(recentDays, null);
+                }
+            }
+            calendar.setTimeInMillis(millis);
+            int year = calendar.get(Calendar.YEAR);
+            int month = calendar.get(Calendar.MONTH) + 1;
+            int dayOfMonth = calendar.get(Calendar.DAY_OF_MONTH);
+            calendar.set(Calendar.HOUR_OF_DAY, 0);
+            calendar.set(Calendar.MINUTE, 0);
+            calendar.set(Calendar.SECOND, 0);
+            calendar.set(Calendar.MILLISECOND, 0);
+            long start = calendar.getTimeInMillis();
+            // Not always 24 hours: days that change to or from daylight saving time differ
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+            long end = calendar.getTimeInMillis();
+
+            char[] key = new char[10];
+            writeMonth(key, year, month);
+            key[7] = '-';
+            key[8] = (char) ('0' + dayOfMonth / 10);
+            key[9] = (char) ('0' + dayOfMonth % 10);
+            String dayKey = new String(key);
+            return new Day(start, end, dayKey, dayKey.substring(0, 7));
+        }
+    }
+
+    private static void writeMonth(char[] key, int year, int month) {
+        key[0] = (char) ('0' + year / 1000 % 10);
+        key[1] = (char) ('0' + year / 100 % 10);
+        key[2] = (char) ('0' + year / 10 % 10);
+        key[3] = (char) ('0' + year % 10);
+        key[4] = '-';
+        key[5] = (char) ('0' + month / 10);
+        key[6] = (char) ('0' + month % 10);
+    }
+
+    // TimeZone.getTimeZone() silently returns GMT for ids it does not know
+    private static boolean isKnownZone(String timeZoneId) {
+        if (timeZoneId == null || timeZoneId.isEmpty()) {
+            return false;
+        }
+        return "GMT".equals(timeZoneId) || !"GMT".equals(TimeZone.getTimeZone(timeZoneId).getID());
+    }
+
+    private static final class Day {
+        final long start;
+        final long end;
+        final String dayKey;
+        final String monthKey;
+
+        Day(long start, long end, String dayKey, String monthKey) {
+            this.start = start;
+            this.end = end;
+            this.dayKey = dayKey;
+            this.monthKey = monthKey;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.attendify.util;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.example.attendify.model.Attendance;
+
+/**
+ * Diff callback shared by the attendance lists. Rows are matched on
+ * {@link Attendance#getRowKey()}, which stays unique when records of several users share a
+ * date-only document id, and the same key gives the row its stable id.
+ */
+public class AttendanceDiffCallback extends DiffUtil.ItemCallback<Attendance> {
+
+    @Override
+    public boolean areItemsTheSame(@NonNull Attendance oldItem, @NonNull Attendance newItem) {
+        return oldItem.getRowKey().equals(newItem.getRowKey());
+    }
+
+    @Override
+    public boolean areContentsTheSame(@NonNull Attendance oldItem, @NonNull Attendance newItem) {
+        return oldItem.equals(newItem);
+    }
+
+    /**
+     * @return The stable id of an attendance row, for RecyclerView.Adapter.getItemId()
+     */
+    public static long stableId(Attendance attendance) {
+        return ListDiffing.stableId(attendance.getRowKey());
+    }
+}
@@ -1,94 +1,92 @@
 package com.example.attendify.util;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import android.widget.Toast;
 
-import androidx.lifecycle.Observer;
-
+import com.example.attendify.loadgen.LoadGenerator;
+import com.example.attendify.loadgen.LoadProfile;
+import com.example.attendify.loadgen.SyntheticDataset;
+import com.example.attendify.model.Office;
 import com.example.attendify.model.User;
-import com.example.attendify.repository.AttendanceRepository;
 import com.example.attendify.repository.UserRepository;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Utility class for seeding test data into the application
  */
 public class DataSeedingUtil {
     private static final String TAG = "DataSeedingUtil";
-    
+    private static final int SEED_DAYS = 30;
+    private static final long SEED = 42L;
+
     private final Context context;
     private final UserRepository userRepository;
-    private final AttendanceRepository attendanceRepository;
-    
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
     public DataSeedingUtil(Context context) {
-        this.context = context;
+        this.context = context.getApplicationContext();
         this.userRepository = UserRepository.getInstance();
-        this.attendanceRepository = AttendanceRepository.getInstance();
     }
-    
+
     /**
-     * Seeds test attendance data for all employees in the given office
+     * Seeds 30 days of test attendance for all employees in the given office
      * @param officeId ID of the office to seed data for
      * @param officeName Name of the office
      */
     public void seedAttendanceData(String officeId, String officeName) {
         Toast.makeText(context, "Starting to seed attendance data...", Toast.LENGTH_SHORT).show();
-        
-        // Get all employees
-        userRepository.getAllEmployees().observeForever(new Observer<List<User>>() {
-            @Override
-            public void onChanged(List<User> employees) {
-                if (employees == null || employees.isEmpty()) {
-                    Toast.makeText(context, "No employees found to seed data for", Toast.LENGTH_SHORT).show();
-                    return;
-                }
-                
-                // Filter employees by office if an office ID is provided
-                List<User> filteredEmployees = new ArrayList<>();
-                if (officeId != null && !officeId.isEmpty()) {
-                    for (User employee : employees) {
-                        if (officeId.equals(employee.getOfficeId())) {
-                            filteredEmployees.add(employee);
-                        }
+
+        userRepository.getAllEmployees().addOnSuccessListener(employees -> {
+            if (employees == null || employees.isEmpty()) {
+                Toast.makeText(context, "No employees found to seed data for", Toast.LENGTH_SHORT).show();
+                return;
+            }
+
+            // Filter employees by office if an office ID is provided
+            List<User> filteredEmployees = new ArrayList<>();
+            if (officeId != null && !officeId.isEmpty()) {
+                for (User employee : employees) {
+                    if (officeId.equals(employee.getOfficeId())) {
+                        filteredEmployees.add(employee);
                     }
-                } else {
-                    filteredEmployees.addAll(employees);
                 }
-                
-                if (filteredEmployees.isEmpty()) {
-                    Toast.makeText(context, "No employees found in the selected office", Toast.LENGTH_SHORT).show();
-                    return;
-                }
-                
-                // Extract user IDs and names
-                List<String> userIds = new ArrayList<>();
-                List<String> userNames = new ArrayList<>();
-                for (User employee : filteredEmployees) {
-                    userIds.add(employee.getUid());
-                    userNames.add(employee.getDisplayName());
-                }
-                
-                // Seed test attendance data
-                attendanceRepository.seedTestAttendanceData(userIds, userNames, officeId, officeName)
-                        .observeForever(new Observer<Boolean>() {
-                            @Override
-                            public void onChanged(Boolean success) {
-                                if (success) {
-                                    Toast.makeText(context, 
-                                            "Successfully seeded attendance data for " + 
-                                            filteredEmployees.size() + " employees", 
-                                            Toast.LENGTH_LONG).show();
-                                } else {
-                                    Toast.makeText(context, 
-                                            "Failed to seed attendance data", 
-                                            Toast.LENGTH_SHORT).show();
-                                }
-                            }
-                        });
+            } else {
+                filteredEmployees.addAll(employees);
+            }
+
+            if (filteredEmployees.isEmpty()) {
+                Toast.makeText(context, "No employees found in the selected office", Toast.LENGTH_SHORT).show();
+                return;
             }
+
+            Office office = new Office();
+            office.setId(officeId);
+            office.setName(officeName);
+            SyntheticDataset dataset = SyntheticDataset.forEmployees(filteredEmployees, office, SEED_DAYS, SEED);
+            executor.execute(() -> seed(dataset, filteredEmployees.size()));
         });
     }
-} 
\ No newline at end of file
+
+    private void seed(SyntheticDataset dataset, int employeeCount) {
+        try {
+            LoadGenerator.Stats stats = LoadGenerator.forDefaultInstance()
+                    .run(dataset, LoadProfile.DEFAULT_WRITES_PER_SECOND, true, false, null);
+            Log.d(TAG, "Seeded attendance: " + stats);
+            mainHandler.post(() -> Toast.makeText(context,
+                    "Successfully seeded attendance data for " + employeeCount + " employees",
+                    Toast.LENGTH_LONG).show());
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to seed attendance data", e);
+            mainHandler.post(() -> Toast.makeText(context,
+                    "Failed to seed attendance data", Toast.LENGTH_SHORT).show());
+        }
+    }
+}
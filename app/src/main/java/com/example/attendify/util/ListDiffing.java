@@ -0,0 +1,65 @@
+package com.example.attendify.util;
+
+import android.os.Process;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared setup for list adapters: diffs run on background-priority threads, and items get
+ * stable ids derived from their document ids.
+ *
+ * DiffUtil is quadratic in the worst case, so a 10,000-row attendance list can take tens
+ * of milliseconds to diff. ListAdapter already diffs off the main thread, but on a pool at
+ * default priority that competes with rendering; these threads yield to it. Stable ids let
+ * RecyclerView keep a row's view holder and animations attached to the same record when
+ * the list is reordered.
+ */
+public final class ListDiffing {
+    private static final int DIFF_THREADS = 2;
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static final ExecutorService DIFF_EXECUTOR = Executors.newFixedThreadPool(DIFF_THREADS, runnable -> {
+        Thread thread = new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            runnable.run();
+        }, "list-diff-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ListDiffing() {
+    }
+
+    /**
+     * @return A differ config for ListAdapter or AsyncListDiffer that diffs on the shared
+     * background threads
+     */
+    public static <T> AsyncDifferConfig<T> config(@NonNull DiffUtil.ItemCallback<T> callback) {
+        return new AsyncDifferConfig.Builder<>(callback)
+                .setBackgroundThreadExecutor(DIFF_EXECUTOR)
+                .build();
+    }
+
+    /**
+     * 64-bit FNV-1a hash of a document id, for RecyclerView.Adapter.getItemId(). Collisions
+     * are negligible at the sizes a list holds.
+     */
+    public static long stableId(String key) {
+        if (key == null) {
+            return RecyclerView.NO_ID;
+        }
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        // NO_ID is -1; keep real ids away from it
+        return hash == RecyclerView.NO_ID ? 0 : hash;
+    }
+}
@@ -0,0 +1,322 @@
+package com.example.attendify.util;
+
+import com.example.attendify.model.Office;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Grid index over office coordinates for k-nearest and "which fences contain this point"
+ * queries, so a fix does not have to be compared against every office.
+ *
+ * Offices are bucketed into cells of {@link #CELL_DEGREES} latitude by longitude. A query
+ * walks rings of cells outward from the fix and stops once the nearest possible point of
+ * the next ring is farther than the answer it already has, so only offices in the first
+ * few rings are measured. When the rings would cover more cells than there are offices,
+ * for example a fix far from every office, the query scans the offices directly instead.
+ *
+ * Distances are great-circle (haversine) distances, which differ from
+ * {@code Location.distanceBetween} by well under 1% and keep the index usable in plain
+ * JVM tests.
+ */
+public class OfficeSpatialIndex {
+    // About 5.5 km north to south; a city's offices spread over a handful of cells
+    static final double CELL_DEGREES = 0.05;
+    private static final double EARTH_RADIUS_METERS = 6_371_008.8;
+    private static final int ROWS = (int) Math.ceil(180 / CELL_DEGREES);
+    private static final int COLUMNS = (int) Math.ceil(360 / CELL_DEGREES);
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Map<Long, List<Entry>> cells = new HashMap<>();
+    // Largest fence radius indexed so far; bounds how far a containment query must look
+    private double maxRadiusMeters;
+
+    /**
+     * Brings the index in line with the office directory, touching only offices that were
+     * added, removed, moved or resized
+     * @return Number of offices that changed
+     */
+    public synchronized int update(Collection<Office> offices) {
+        Set<String> seen = new HashSet<>();
+        int changed = 0;
+        if (offices != null) {
+            for (Office office : offices) {
+                if (office == null || office.getId() == null) {
+                    continue;
+                }
+                seen.add(office.getId());
+                if (put(office)) {
+                    changed++;
+                }
+            }
+        }
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next().getValue();
+            if (!seen.contains(entry.office.getId())) {
+                removeFromCell(entry);
+                it.remove();
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Adds an office or refreshes it in place
+     * @return true if the office was new or its position or radius changed
+     */
+    public synchronized boolean put(Office office) {
+        Entry existing = entries.get(office.getId());
+        Entry entry = new Entry(office, office.getFenceRadius());
+        if (existing != null) {
+            if (existing.latitude == entry.latitude && existing.longitude == entry.longitude
+                    && existing.radiusMeters == entry.radiusMeters) {
+                // Same fence; keep the newer object for its name and hours
+                existing.office = office;
+                return false;
+            }
+            removeFromCell(existing);
+        }
+        entries.put(office.getId(), entry);
+        List<Entry> cell = cells.get(entry.cell);
+        if (cell == null) {
+            cell = new ArrayList<>();
+            cells.put(entry.cell, cell);
+        }
+        cell.add(entry);
+        maxRadiusMeters = Math.max(maxRadiusMeters, entry.radiusMeters);
+        return true;
+    }
+
+    public synchronized boolean remove(String officeId) {
+        Entry entry = entries.remove(officeId);
+        if (entry == null) {
+            return false;
+        }
+        removeFromCell(entry);
+        return true;
+    }
+
+    /**
+     * @return The indexed office with this id, or null
+     */
+    public synchronized Office get(String officeId) {
+        Entry entry = entries.get(officeId);
+        return entry != null ? entry.office : null;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return The largest fence radius indexed so far, at least that of every indexed office
+     */
+    public synchronized double getMaxRadiusMeters() {
+        return maxRadiusMeters;
+    }
+
+    /**
+     * @return Up to k offices closest to the point, nearest first
+     */
+    public synchronized List<Neighbor> nearest(double latitude, double longitude, int k) {
+        return search(latitude, longitude, k, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * @return Offices whose fence contains the point, nearest first
+     */
+    public synchronized List<Neighbor> containing(double latitude, double longitude) {
+        List<Neighbor> candidates = search(latitude, longitude, Integer.MAX_VALUE, maxRadiusMeters);
+        List<Neighbor> inside = new ArrayList<>();
+        for (Neighbor candidate : candidates) {
+            if (candidate.distanceMeters <= candidate.radiusMeters) {
+                inside.add(candidate);
+            }
+        }
+        return inside;
+    }
+
+    private List<Neighbor> search(double latitude, double longitude, int k, double maxDistance) {
+        if (k <= 0 || entries.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // Farthest of the current best k on top, so it can be evicted
+        PriorityQueue<Neighbor> best = new PriorityQueue<>(
+                Math.min(k, entries.size()), (a, b) -> Double.compare(b.distanceMeters, a.distanceMeters));
+
+        int row = row(latitude);
+        int column = column(longitude);
+        int measured = 0;
+        long cellsVisited = 0;
+        for (int ring = 0; measured < entries.size(); ring++) {
+            double cutoff = best.size() == k ? best.peek().distanceMeters : maxDistance;
+            if (ringLowerBound(latitude, ring) > cutoff) {
+                break;
+            }
+            cellsVisited += ring == 0 ? 1 : 8L * ring;
+            if (cellsVisited > entries.size() + 64L) {
+                // The rings have grown past the size of the directory; a scan is cheaper
+                return scan(latitude, longitude, k, maxDistance);
+            }
+            for (int dRow = -ring; dRow <= ring; dRow++) {
+                int cellRow = row + dRow;
+                if (cellRow < 0 || cellRow >= ROWS) {
+                    continue;
+                }
+                // Only the ring's outline: full rows at the top and bottom, two cells otherwise
+                int step = Math.abs(dRow) == ring ? 1 : Math.max(1, 2 * ring);
+                for (int dColumn = -ring; dColumn <= ring; dColumn += step) {
+                    List<Entry> cell = cells.get(key(cellRow, Math.floorMod(column + dColumn, COLUMNS)));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (Entry entry : cell) {
+                        measured++;
+                        offer(best, k, maxDistance, entry, latitude, longitude);
+                    }
+                }
+            }
+        }
+        return drain(best);
+    }
+
+    private List<Neighbor> scan(double latitude, double longitude, int k, double maxDistance) {
+        PriorityQueue<Neighbor> best = new PriorityQueue<>(
+                Math.min(k, entries.size()), (a, b) -> Double.compare(b.distanceMeters, a.distanceMeters));
+        for (Entry entry : entries.values()) {
+            offer(best, k, maxDistance, entry, latitude, longitude);
+        }
+        return drain(best);
+    }
+
+    private static void offer(PriorityQueue<Neighbor> best, int k, double maxDistance, Entry entry,
+                              double latitude, double longitude) {
+        double distance = distanceMeters(latitude, longitude, entry.latitude, entry.longitude);
+        if (distance > maxDistance) {
+            return;
+        }
+        if (best.size() < k) {
+            best.add(new Neighbor(entry.office, distance, entry.radiusMeters));
+        } else if (distance < best.peek().distanceMeters) {
+            best.poll();
+            best.add(new Neighbor(entry.office, distance, entry.radiusMeters));
+        }
+    }
+
+    private static List<Neighbor> drain(PriorityQueue<Neighbor> best) {
+        List<Neighbor> result = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            result.add(best.poll());
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Smallest distance from the point to any cell in the given ring: at least ring - 1 whole
+     * cells separate them, either north-south or east-west. East-west cells narrow towards
+     * the poles, so the bound uses the highest latitude the ring reaches.
+     */
+    static double ringLowerBound(double latitude, int ring) {
+        if (ring <= 1) {
+            return 0;
+        }
+        double gap = Math.toRadians((ring - 1) * CELL_DEGREES);
+        double northSouth = EARTH_RADIUS_METERS * gap;
+        double highestLatitude = Math.min(90, Math.abs(latitude) + (ring + 1) * CELL_DEGREES);
+        // From the haversine formula: sin(d/2) >= cos(lat) * sin(dLon/2) for any two latitudes up to lat
+        double eastWest = 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1,
+                Math.cos(Math.toRadians(highestLatitude)) * Math.sin(Math.min(gap, Math.PI) / 2)));
+        return Math.min(northSouth, eastWest);
+    }
+
+    /**
+     * Great-circle distance in meters
+     */
+    public static double distanceMeters(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private void removeFromCell(Entry entry) {
+        List<Entry> cell = cells.get(entry.cell);
+        if (cell != null) {
+            cell.remove(entry);
+            if (cell.isEmpty()) {
+                cells.remove(entry.cell);
+            }
+        }
+    }
+
+    private static int row(double latitude) {
+        return Math.max(0, Math.min(ROWS - 1, (int) Math.floor((latitude + 90) / CELL_DEGREES)));
+    }
+
+    private static int column(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / CELL_DEGREES), COLUMNS);
+    }
+
+    private static long key(int row, int column) {
+        return (long) row * COLUMNS + column;
+    }
+
+    private static final class Entry {
+        Office office;
+        final double latitude;
+        final double longitude;
+        final double radiusMeters;
+        final long cell;
+
+        Entry(Office office, double radiusMeters) {
+            this.office = office;
+            this.latitude = office.getLatitude();
+            this.longitude = office.getLongitude();
+            this.radiusMeters = radiusMeters;
+            this.cell = key(row(latitude), column(longitude));
+        }
+    }
+
+    /**
+     * An office found by a query, with its distance from the query point
+     */
+    public static final class Neighbor {
+        private final Office office;
+        private final double distanceMeters;
+        private final double radiusMeters;
+
+        Neighbor(Office office, double distanceMeters, double radiusMeters) {
+            this.office = office;
+            this.distanceMeters = distanceMeters;
+            this.radiusMeters = radiusMeters;
+        }
+
+        public Office getOffice() {
+            return office;
+        }
+
+        public double getDistanceMeters() {
+            return distanceMeters;
+        }
+
+        /**
+         * Fence radius the index used for this office
+         */
+        public double getRadiusMeters() {
+            return radiusMeters;
+        }
+    }
+}
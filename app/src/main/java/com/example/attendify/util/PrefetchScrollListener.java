@@ -0,0 +1,59 @@
+package com.example.attendify.util;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Asks for the next page once the user scrolls within {@code prefetchDistance} items
+ * of the end of a list, so the page usually arrives before the user reaches it.
+ * For windowed pagers that drop pages off the top, the optional {@code loadPrevious}
+ * is asked for the page before the window when scrolling up near the start.
+ */
+public class PrefetchScrollListener extends RecyclerView.OnScrollListener {
+    public static final int DEFAULT_PREFETCH_DISTANCE = 10;
+
+    private final LinearLayoutManager layoutManager;
+    private final int prefetchDistance;
+    private final Runnable loadMore;
+    @Nullable
+    private final Runnable loadPrevious;
+
+    public PrefetchScrollListener(LinearLayoutManager layoutManager, Runnable loadMore) {
+        this(layoutManager, DEFAULT_PREFETCH_DISTANCE, loadMore, null);
+    }
+
+    public PrefetchScrollListener(LinearLayoutManager layoutManager, Runnable loadMore,
+                                  @Nullable Runnable loadPrevious) {
+        this(layoutManager, DEFAULT_PREFETCH_DISTANCE, loadMore, loadPrevious);
+    }
+
+    public PrefetchScrollListener(LinearLayoutManager layoutManager, int prefetchDistance, Runnable loadMore) {
+        this(layoutManager, prefetchDistance, loadMore, null);
+    }
+
+    public PrefetchScrollListener(LinearLayoutManager layoutManager, int prefetchDistance,
+                                  Runnable loadMore, @Nullable Runnable loadPrevious) {
+        this.layoutManager = layoutManager;
+        this.prefetchDistance = prefetchDistance;
+        this.loadMore = loadMore;
+        this.loadPrevious = loadPrevious;
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        if (dy > 0) {
+            int lastVisible = layoutManager.findLastVisibleItemPosition();
+            if (lastVisible != RecyclerView.NO_POSITION
+                    && lastVisible + prefetchDistance >= layoutManager.getItemCount()) {
+                loadMore.run();
+            }
+        } else if (dy < 0 && loadPrevious != null) {
+            int firstVisible = layoutManager.findFirstVisibleItemPosition();
+            if (firstVisible != RecyclerView.NO_POSITION && firstVisible <= prefetchDistance) {
+                loadPrevious.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.attendify.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * K-way merge of lists that are each already sorted by the same comparator.
+ * Runs in O(n log k) for n total items across k lists, instead of the O(n log n)
+ * of concatenating and re-sorting.
+ */
+public final class SortedMerge {
+
+    private SortedMerge() {
+    }
+
+    public static <T> List<T> merge(List<? extends List<T>> sortedLists, Comparator<? super T> comparator) {
+        int total = 0;
+        for (List<T> list : sortedLists) {
+            if (list != null) {
+                total += list.size();
+            }
+        }
+
+        List<T> merged = new ArrayList<>(total);
+        if (total == 0) {
+            return merged;
+        }
+
+        // Head of each non-empty list, ordered by its current item
+        PriorityQueue<Cursor<T>> heads = new PriorityQueue<>(
+                Math.max(1, sortedLists.size()),
+                (c1, c2) -> comparator.compare(c1.current(), c2.current()));
+        for (List<T> list : sortedLists) {
+            if (list != null && !list.isEmpty()) {
+                heads.add(new Cursor<>(list));
+            }
+        }
+
+        while (!heads.isEmpty()) {
+            Cursor<T> head = heads.poll();
+            merged.add(head.current());
+            if (head.advance()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    private static final class Cursor<T> {
+        private final List<T> list;
+        private int index;
+
+        Cursor(List<T> list) {
+            this.list = list;
+        }
+
+        T current() {
+            return list.get(index);
+        }
+
+        boolean advance() {
+            index++;
+            return index < list.size();
+        }
+    }
+}
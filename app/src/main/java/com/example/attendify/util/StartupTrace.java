@@ -0,0 +1,44 @@
+package com.example.attendify.util;
+
+import android.app.Activity;
+import android.os.Build;
+import android.os.Trace;
+
+/**
+ * Marks the launch journey from the splash screen to the first dashboard frame as one
+ * async trace section, so startup benchmarks can time the whole Splash → Auth →
+ * Dashboard chain and not just the splash screen's first frame.
+ */
+public final class StartupTrace {
+    public static final String SECTION_SPLASH_TO_DASHBOARD = "SplashToDashboard";
+    private static final int COOKIE = 0;
+
+    private static boolean open;
+
+    private StartupTrace() {
+    }
+
+    public static synchronized void beginLaunch() {
+        if (open || Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
+            return;
+        }
+        open = true;
+        Trace.beginAsyncSection(SECTION_SPLASH_TO_DASHBOARD, COOKIE);
+    }
+
+    /**
+     * Ends the section once the dashboard has drawn its first frame; a no-op when the
+     * dashboard was not reached from the splash screen
+     */
+    public static void endLaunchAfterFirstFrame(Activity dashboard) {
+        dashboard.getWindow().getDecorView().post(StartupTrace::endLaunch);
+    }
+
+    private static synchronized void endLaunch() {
+        if (!open) {
+            return;
+        }
+        open = false;
+        Trace.endAsyncSection(SECTION_SPLASH_TO_DASHBOARD, COOKIE);
+    }
+}
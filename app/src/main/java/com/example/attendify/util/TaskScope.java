@@ -0,0 +1,147 @@
+package com.example.attendify.util;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskExecutors;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Delivers repository Task results to a ViewModel until the ViewModel is cleared.
+ *
+ * A Task keeps its listeners until it completes, so a callback passed to it directly keeps
+ * the ViewModel reachable for as long as the read or write is in flight, and still runs
+ * after onCleared(). Here the Task only holds a small subscription; its callback is dropped
+ * when a newer task is run under the same key, when the key is cancelled, or when the scope
+ * is cleared. A refresh called a thousand times therefore retains one callback, not a
+ * thousand. Call {@link #clear()} from onCleared().
+ *
+ * Callbacks run on the main thread, and the scope must only be used from it.
+ */
+public final class TaskScope {
+    private final Executor executor;
+    private final Set<Subscription<?>> pending = new HashSet<>();
+    private final Map<String, Subscription<?>> latest = new HashMap<>();
+    private boolean cleared;
+
+    public TaskScope() {
+        this(TaskExecutors.MAIN_THREAD);
+    }
+
+    // Tests pass a direct executor, the main thread is not available to local tests
+    public TaskScope(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Calls back with the task's result, or with null if it fails
+     */
+    public <T> void run(Task<T> task, Consumer<? super T> callback) {
+        subscribe(null, task, resultOrNull(callback));
+    }
+
+    /**
+     * Like {@link #run(Task, Consumer)}, but calls back with the completed task, for callers
+     * that tell failures apart by their exception
+     */
+    public <T> void runTask(Task<T> task, Consumer<? super Task<T>> callback) {
+        subscribe(null, task, callback);
+    }
+
+    /**
+     * Like {@link #run(Task, Consumer)}, but first drops the callback of the task last run
+     * under the same key, so only the newest load of a kind is delivered
+     */
+    public <T> void run(String key, Task<T> task, Consumer<? super T> callback) {
+        cancel(key);
+        subscribe(key, task, resultOrNull(callback));
+    }
+
+    /**
+     * @return LiveData that is set to the task's result, or to null if it fails, unless the
+     * scope is cleared first
+     */
+    public <T> LiveData<T> asLiveData(Task<T> task) {
+        MutableLiveData<T> liveData = new MutableLiveData<>();
+        subscribe(null, task, resultOrNull(liveData::setValue));
+        return liveData;
+    }
+
+    /**
+     * Drops the callback of the task last run under the key; the task itself carries on
+     */
+    public void cancel(String key) {
+        Subscription<?> previous = latest.get(key);
+        if (previous != null) {
+            previous.dispose();
+        }
+    }
+
+    /**
+     * Drops every pending callback; tasks run afterwards are ignored
+     */
+    public void clear() {
+        cleared = true;
+        for (Subscription<?> subscription : pending.toArray(new Subscription<?>[0])) {
+            subscription.dispose();
+        }
+    }
+
+    // Callbacks still waiting for their task
+    int pendingCount() {
+        return pending.size();
+    }
+
+    private static <T> Consumer<Task<T>> resultOrNull(Consumer<? super T> callback) {
+        return completed -> callback.accept(completed.isSuccessful() ? completed.getResult() : null);
+    }
+
+    private <T> void subscribe(String key, Task<T> task, Consumer<? super Task<T>> callback) {
+        if (cleared) {
+            return;
+        }
+        Subscription<T> subscription = new Subscription<>(key, callback);
+        pending.add(subscription);
+        if (key != null) {
+            latest.put(key, subscription);
+        }
+        task.addOnCompleteListener(executor, subscription);
+    }
+
+    private final class Subscription<T> implements OnCompleteListener<T> {
+        private final String key;
+        private Consumer<? super Task<T>> callback;
+
+        Subscription(String key, Consumer<? super Task<T>> callback) {
+            this.key = key;
+            this.callback = callback;
+        }
+
+        @Override
+        public void onComplete(Task<T> task) {
+            Consumer<? super Task<T>> delivered = callback;
+            if (delivered == null) {
+                return;
+            }
+            dispose();
+            delivered.accept(task);
+        }
+
+        // The task keeps this subscription until it completes, but no longer the callback
+        void dispose() {
+            callback = null;
+            pending.remove(this);
+            if (key != null && latest.get(key) == this) {
+                latest.remove(key);
+            }
+        }
+    }
+}
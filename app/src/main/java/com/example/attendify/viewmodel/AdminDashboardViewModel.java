@@ -7,17 +7,22 @@ import androidx.lifecycle.ViewModel;
 import com.example.attendify.model.Office;
 import com.example.attendify.model.PendingApproval;
 import com.example.attendify.model.User;
+import com.example.attendify.repository.OfficeRepository;
 import com.example.attendify.repository.UserRepository;
 import com.example.attendify.util.SingleLiveEvent;
+import com.example.attendify.util.TaskScope;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QuerySnapshot;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class AdminDashboardViewModel extends ViewModel {
+    private static final String LOAD_PENDING_USERS = "pendingUsers";
+
     private final FirebaseFirestore db = FirebaseFirestore.getInstance();
+    private final TaskScope tasks = new TaskScope();
     private final UserRepository userRepository;
+    private final OfficeRepository officeRepository;
     
     private final MutableLiveData<List<Office>> officesLiveData = new MutableLiveData<>(new ArrayList<>());
     private final MutableLiveData<List<User>> pendingUsersLiveData = new MutableLiveData<>(new ArrayList<>());
@@ -26,6 +31,7 @@ public class AdminDashboardViewModel extends ViewModel {
 
     public AdminDashboardViewModel() {
         userRepository = UserRepository.getInstance();
+        officeRepository = OfficeRepository.getInstance();
     }
 
     public LiveData<List<Office>> getOfficesLiveData() {
@@ -46,39 +52,27 @@ public class AdminDashboardViewModel extends ViewModel {
 
     public void loadOffices() {
         loadingLiveData.setValue(true);
-        db.collection("offices")
-                .get()
-                .addOnSuccessListener(this::handleOfficesSnapshot)
+        officeRepository.getOffices()
+                .addOnSuccessListener(offices -> {
+                    officesLiveData.setValue(offices);
+                    loadingLiveData.setValue(false);
+                })
                 .addOnFailureListener(e -> {
                     loadingLiveData.setValue(false);
                     errorLiveData.setValue("Failed to load offices: " + e.getMessage());
                 });
     }
 
-    private void handleOfficesSnapshot(QuerySnapshot snapshot) {
-        List<Office> offices = new ArrayList<>();
-        snapshot.forEach(doc -> {
-            Office office = doc.toObject(Office.class);
-            if (office != null) {
-                office.setId(doc.getId());
-                offices.add(office);
-            }
-        });
-        officesLiveData.setValue(offices);
-        loadingLiveData.setValue(false);
-    }
-
     public void loadPendingUsers() {
         loadingLiveData.setValue(true);
-        userRepository.getPendingApprovalUsers()
-                .observeForever(result -> {
-                    loadingLiveData.setValue(false);
-                    if (result != null) {
-                        pendingUsersLiveData.setValue(result);
-                    } else {
-                        errorLiveData.setValue("Failed to load pending approvals");
-                    }
-                });
+        tasks.run(LOAD_PENDING_USERS, userRepository.getPendingApprovalUsers(), result -> {
+            loadingLiveData.setValue(false);
+            if (result != null) {
+                pendingUsersLiveData.setValue(result);
+            } else {
+                errorLiveData.setValue("Failed to load pending approvals");
+            }
+        });
     }
 
     public void updateOffice(Office office) {
@@ -87,6 +81,7 @@ public class AdminDashboardViewModel extends ViewModel {
                 .document(office.getId())
                 .set(office)
                 .addOnSuccessListener(aVoid -> {
+                    officeRepository.put(office);
                     loadOffices(); // Refresh the list
                     errorLiveData.setValue("Office updated successfully");
                 })
@@ -98,33 +93,37 @@ public class AdminDashboardViewModel extends ViewModel {
 
     public void approveUser(String userId) {
         loadingLiveData.setValue(true);
-        userRepository.approveUser(userId)
-                .observeForever(result -> {
-                    loadingLiveData.setValue(false);
-                    if (Boolean.TRUE.equals(result)) {
-                        loadPendingUsers(); // Refresh the list
-                        errorLiveData.setValue("User approved successfully");
-                    } else {
-                        errorLiveData.setValue("Failed to approve user");
-                    }
-                });
+        tasks.run(userRepository.approveUser(userId), result -> {
+            loadingLiveData.setValue(false);
+            if (Boolean.TRUE.equals(result)) {
+                loadPendingUsers(); // Refresh the list
+                errorLiveData.setValue("User approved successfully");
+            } else {
+                errorLiveData.setValue("Failed to approve user");
+            }
+        });
     }
 
     public void rejectUser(String userId) {
         loadingLiveData.setValue(true);
-        userRepository.rejectUser(userId)
-                .observeForever(result -> {
-                    loadingLiveData.setValue(false);
-                    if (Boolean.TRUE.equals(result)) {
-                        loadPendingUsers(); // Refresh the list
-                        errorLiveData.setValue("User rejected successfully");
-                    } else {
-                        errorLiveData.setValue("Failed to reject user");
-                    }
-                });
+        tasks.run(userRepository.rejectUser(userId), result -> {
+            loadingLiveData.setValue(false);
+            if (Boolean.TRUE.equals(result)) {
+                loadPendingUsers(); // Refresh the list
+                errorLiveData.setValue("User rejected successfully");
+            } else {
+                errorLiveData.setValue("Failed to reject user");
+            }
+        });
     }
 
     public void resetError() {
         errorLiveData.setValue(null);
     }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        tasks.clear();
+    }
 }
\ No newline at end of file
@@ -1,31 +1,53 @@
 package com.example.attendify.viewmodel;
 
+import android.os.SystemClock;
 import android.util.Log;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
-import androidx.lifecycle.Observer;
 
+import com.example.attendify.export.AttendancePageSource;
 import com.example.attendify.model.Attendance;
 import com.example.attendify.repository.AttendanceRepository;
 import com.example.attendify.repository.AttendanceRepository.AttendanceSummary;
+import com.example.attendify.repository.AttendancePager;
+import com.example.attendify.repository.LiveAttendanceStream;
+import com.example.attendify.repository.OfficeRepository;
+import com.example.attendify.util.AttendanceCalendar;
 import com.example.attendify.util.SingleLiveEvent;
+import com.example.attendify.util.TaskScope;
 
-import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
-import java.util.Locale;
+import java.util.Objects;
 import java.util.Calendar;
 import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
 
-import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.android.gms.tasks.Task;
 
 public class AttendanceViewModel extends ViewModel {
+    // Keys of the loads where only the newest request is delivered
+    private static final String LOAD_HISTORY = "history";
+    private static final String LOAD_LIVE_ATTENDANCE = "liveAttendance";
+    private static final String LOAD_MONTHLY_SUMMARY = "monthlySummary";
+    private static final String LOAD_DAILY_SUMMARY = "dailySummary";
+    private static final String LOAD_ACTIVE_ATTENDANCE = "activeAttendance";
+    private static final String LOAD_RECENT_ATTENDANCE = "recentAttendance";
+    // Other users' writes are not seen by the range cache, so it is only trusted this long
+    private static final long RANGE_CACHE_TTL_MS = TimeUnit.MINUTES.toMillis(5);
+    // An open record being checked out was checked in at most this long ago
+    private static final long MAX_SHIFT_MS = TimeUnit.DAYS.toMillis(1);
+
     private final AttendanceRepository attendanceRepository;
-    private final MutableLiveData<List<Attendance>> attendanceHistoryLiveData;
-    private final MutableLiveData<List<Attendance>> liveAttendanceData;
+    private final TaskScope tasks;
+    private final MediatorLiveData<List<Attendance>> attendanceHistoryLiveData;
+    private final MediatorLiveData<List<Attendance>> liveAttendanceData;
     private final MutableLiveData<AttendanceSummary> monthlySummaryLiveData;
-    private final MutableLiveData<AttendanceSummary> dailySummaryLiveData;
+    private final MediatorLiveData<AttendanceSummary> dailySummaryLiveData;
+    private final MediatorLiveData<LiveAttendanceStream.ReadStats> liveReadStatsLiveData;
+    private final MutableLiveData<CheckInTimings> checkInTimingsLiveData;
     private final SingleLiveEvent<String> errorLiveData;
     private final MutableLiveData<Boolean> loadingLiveData;
     
@@ -33,14 +55,35 @@ public class AttendanceViewModel extends ViewModel {
     private final MutableLiveData<Boolean> locationUpdateLiveData;
     private final MutableLiveData<Attendance> activeAttendanceLiveData;
 
-    private final MutableLiveData<List<Attendance>> recentAttendanceLiveData;
+    private final MediatorLiveData<List<Attendance>> recentAttendanceLiveData;
+
+    // Cursor pagers behind the history and recent attendance lists
+    private AttendancePager historyPager;
+    private AttendancePager recentPager;
+
+    // Last date range paged for reports, so a narrower range can be filtered locally
+    private ReportRange loadedRange;
+    private AttendancePager loadedRangePager;
+
+    // Snapshot listener for the live attendance board
+    private LiveAttendanceStream liveAttendanceStream;
+    private String liveAttendanceOfficeId;
+    private String liveAttendanceDate;
 
     public AttendanceViewModel() {
-        attendanceRepository = AttendanceRepository.getInstance();
-        attendanceHistoryLiveData = new MutableLiveData<>();
-        liveAttendanceData = new MutableLiveData<>();
+        this(AttendanceRepository.getInstance(), new TaskScope());
+    }
+
+    // Tests pass a fake repository and a scope that calls back directly
+    AttendanceViewModel(AttendanceRepository attendanceRepository, TaskScope tasks) {
+        this.attendanceRepository = attendanceRepository;
+        this.tasks = tasks;
+        attendanceHistoryLiveData = new MediatorLiveData<>();
+        liveAttendanceData = new MediatorLiveData<>();
         monthlySummaryLiveData = new MutableLiveData<>();
-        dailySummaryLiveData = new MutableLiveData<>();
+        dailySummaryLiveData = new MediatorLiveData<>();
+        liveReadStatsLiveData = new MediatorLiveData<>();
+        checkInTimingsLiveData = new MutableLiveData<>();
         errorLiveData = new SingleLiveEvent<>();
         loadingLiveData = new MutableLiveData<>(false);
         
@@ -48,7 +91,7 @@ public class AttendanceViewModel extends ViewModel {
         locationUpdateLiveData = new MutableLiveData<>();
         activeAttendanceLiveData = new MutableLiveData<>();
 
-        recentAttendanceLiveData = new MutableLiveData<>();
+        recentAttendanceLiveData = new MediatorLiveData<>();
         refreshAttendanceData();
     }
 
@@ -68,6 +111,14 @@ public class AttendanceViewModel extends ViewModel {
         return dailySummaryLiveData;
     }
 
+    public LiveData<LiveAttendanceStream.ReadStats> getLiveReadStatsLiveData() {
+        return liveReadStatsLiveData;
+    }
+
+    public LiveData<CheckInTimings> getCheckInTimingsLiveData() {
+        return checkInTimingsLiveData;
+    }
+
     public LiveData<String> getErrorLiveData() {
         return errorLiveData;
     }
@@ -78,14 +129,13 @@ public class AttendanceViewModel extends ViewModel {
 
     public void loadAttendanceHistory(String userId) {
         loadingLiveData.setValue(true);
-        attendanceRepository.getAttendanceHistory(userId)
-                .observeForever(list -> {
-                    loadingLiveData.setValue(false);
-                    attendanceHistoryLiveData.setValue(list);
-                    if (list == null) {
-                        errorLiveData.setValue("Failed to load attendance history");
-                    }
-                });
+        tasks.run(LOAD_HISTORY, attendanceRepository.getAttendanceHistory(userId), list -> {
+            loadingLiveData.setValue(false);
+            attendanceHistoryLiveData.setValue(list);
+            if (list == null) {
+                errorLiveData.setValue("Failed to load attendance history");
+            }
+        });
     }
 
     public void loadLiveAttendanceData(String officeId) {
@@ -94,26 +144,86 @@ public class AttendanceViewModel extends ViewModel {
         Log.d("AttendanceViewModel", "Loading live attendance data for " + 
               (officeId == null ? "all offices" : "office: " + officeId));
         
-        attendanceRepository.getLiveAttendance(officeId)
-                .observeForever(list -> {
-                    loadingLiveData.setValue(false);
-                    liveAttendanceData.setValue(list);
-                    if (list == null) {
-                        errorLiveData.setValue("Failed to load live attendance data");
-                    }
-                });
+        tasks.run(LOAD_LIVE_ATTENDANCE, attendanceRepository.getLiveAttendance(officeId), list -> {
+            loadingLiveData.setValue(false);
+            liveAttendanceData.setValue(list);
+            if (list == null) {
+                errorLiveData.setValue("Failed to load live attendance data");
+            }
+        });
+    }
+
+    /**
+     * Attaches the live attendance listener for the given office (null for all offices).
+     * Results are delivered through getLiveAttendanceData() and getDailySummaryLiveData()
+     * until stopLiveAttendanceUpdates() is called.
+     */
+    public void startLiveAttendanceUpdates(String officeId) {
+        String today = AttendanceCalendar.forOffice(OfficeRepository.getInstance().getCachedOffice(officeId)).today();
+
+        if (liveAttendanceStream != null) {
+            if (Objects.equals(officeId, liveAttendanceOfficeId) && today.equals(liveAttendanceDate)) {
+                // Same office and day, just re-attach the existing stream
+                if (!liveAttendanceStream.isActive()) {
+                    loadingLiveData.setValue(true);
+                    liveAttendanceStream.start();
+                }
+                return;
+            }
+            releaseLiveAttendanceStream();
+        }
+
+        Log.d("AttendanceViewModel", "Starting live attendance updates for " +
+              (officeId == null ? "all offices" : "office: " + officeId));
+
+        liveAttendanceOfficeId = officeId;
+        liveAttendanceDate = today;
+        liveAttendanceStream = attendanceRepository.createLiveAttendanceStream(officeId);
+
+        liveAttendanceData.addSource(liveAttendanceStream.getAttendanceLiveData(), list -> {
+            loadingLiveData.setValue(false);
+            liveAttendanceData.setValue(list);
+        });
+        dailySummaryLiveData.addSource(liveAttendanceStream.getSummaryLiveData(), dailySummaryLiveData::setValue);
+        liveReadStatsLiveData.addSource(liveAttendanceStream.getReadStatsLiveData(), liveReadStatsLiveData::setValue);
+        liveAttendanceData.addSource(liveAttendanceStream.getErrorLiveData(), error -> {
+            loadingLiveData.setValue(false);
+            if (error != null) {
+                errorLiveData.setValue(error);
+            }
+        });
+
+        loadingLiveData.setValue(true);
+        liveAttendanceStream.start();
+    }
+
+    /**
+     * Detaches the live attendance listener but keeps the last delivered data
+     */
+    public void stopLiveAttendanceUpdates() {
+        if (liveAttendanceStream != null) {
+            liveAttendanceStream.stop();
+        }
+    }
+
+    private void releaseLiveAttendanceStream() {
+        liveAttendanceStream.stop();
+        liveAttendanceData.removeSource(liveAttendanceStream.getAttendanceLiveData());
+        liveAttendanceData.removeSource(liveAttendanceStream.getErrorLiveData());
+        dailySummaryLiveData.removeSource(liveAttendanceStream.getSummaryLiveData());
+        liveReadStatsLiveData.removeSource(liveAttendanceStream.getReadStatsLiveData());
+        liveAttendanceStream = null;
     }
 
     public void loadMonthlySummary(String userId) {
         loadingLiveData.setValue(true);
-        attendanceRepository.getMonthlySummary(userId)
-                .observeForever(summary -> {
-                    loadingLiveData.setValue(false);
-                    monthlySummaryLiveData.setValue(summary);
-                    if (summary == null) {
-                        errorLiveData.setValue("Failed to load monthly summary");
-                    }
-                });
+        tasks.run(LOAD_MONTHLY_SUMMARY, attendanceRepository.getMonthlySummary(userId), summary -> {
+            loadingLiveData.setValue(false);
+            monthlySummaryLiveData.setValue(summary);
+            if (summary == null) {
+                errorLiveData.setValue("Failed to load monthly summary");
+            }
+        });
     }
 
     public void loadDailySummary(String officeId) {
@@ -122,14 +232,13 @@ public class AttendanceViewModel extends ViewModel {
         Log.d("AttendanceViewModel", "Loading daily summary for " + 
               (officeId == null ? "all offices" : "office: " + officeId));
         
-        attendanceRepository.getDailySummary(officeId)
-                .observeForever(summary -> {
-                    loadingLiveData.setValue(false);
-                    dailySummaryLiveData.setValue(summary);
-                    if (summary == null) {
-                        errorLiveData.setValue("Failed to load daily summary");
-                    }
-                });
+        tasks.run(LOAD_DAILY_SUMMARY, attendanceRepository.getDailySummary(officeId), summary -> {
+            loadingLiveData.setValue(false);
+            dailySummaryLiveData.setValue(summary);
+            if (summary == null) {
+                errorLiveData.setValue("Failed to load daily summary");
+            }
+        });
     }
 
     /**
@@ -138,12 +247,133 @@ public class AttendanceViewModel extends ViewModel {
      * @param yearMonth The year and month in format "yyyy-MM"
      */
     public void loadAttendanceHistoryForMonth(String userId, String yearMonth) {
-        loadingLiveData.setValue(true);
-        attendanceRepository.getAttendanceHistoryForMonth(userId, yearMonth)
-                .observeForever(list -> {
-                    attendanceHistoryLiveData.setValue(list);
-                    loadingLiveData.setValue(false);
-                });
+        if (historyPager != null) {
+            historyPager.cancel();
+            attendanceHistoryLiveData.removeSource(historyPager.getItems());
+            attendanceHistoryLiveData.removeSource(historyPager.getLoading());
+            attendanceHistoryLiveData.removeSource(historyPager.getErrors());
+        }
+        
+        // Pages are loaded as the list is scrolled, see loadMoreAttendanceHistory()
+        historyPager = attendanceRepository.createMonthHistoryPager(userId, yearMonth);
+        attendanceHistoryLiveData.addSource(historyPager.getItems(), attendanceHistoryLiveData::setValue);
+        attendanceHistoryLiveData.addSource(historyPager.getLoading(), loadingLiveData::setValue);
+        attendanceHistoryLiveData.addSource(historyPager.getErrors(), errorLiveData::setValue);
+        historyPager.loadNextPage();
+    }
+
+    /**
+     * Loads the next page of the month selected with loadAttendanceHistoryForMonth()
+     */
+    public void loadMoreAttendanceHistory() {
+        if (historyPager != null) {
+            historyPager.loadNextPage();
+        }
+    }
+
+    /**
+     * Reloads the page before the history window once it was dropped while scrolling down
+     */
+    public void loadPreviousAttendanceHistory() {
+        if (historyPager != null) {
+            historyPager.loadPreviousPage();
+        }
+    }
+
+    /**
+     * Creates a pager for the reports list; the caller observes it and asks for pages
+     * @param yearMonth The month in yyyy-MM format
+     * @param officeId Optional office ID, null for all offices
+     * @param userId Optional user ID, null for all employees
+     */
+    public AttendancePager createReportPager(String yearMonth, String officeId, String userId) {
+        return userId != null
+                ? attendanceRepository.createMonthHistoryPager(userId, yearMonth)
+                : attendanceRepository.createMonthPager(yearMonth, officeId);
+    }
+
+    /**
+     * Creates the page source for an export of the reports selection
+     * @param yearMonth The month in yyyy-MM format, used when no range is given
+     * @param start Start of the date range, or null to export the whole month
+     * @param end End of the date range, required when start is given
+     * @param officeId Optional office ID, null for all offices
+     * @param userId Optional user ID, null for all employees
+     */
+    public AttendancePageSource createExportSource(String yearMonth, Date start, Date end,
+                                                   String officeId, String userId) {
+        return start != null
+                ? attendanceRepository.createRangeExportSource(start, end, officeId, userId)
+                : attendanceRepository.createMonthExportSource(yearMonth, officeId, userId);
+    }
+
+    /**
+     * Creates a pager for the records whose check-in falls within a range, newest first. A range
+     * inside the last one, for the same office and employee, is filtered from memory instead of
+     * queried again when every record of the last range was loaded and it is still fresh.
+     * @param start Earliest check-in time, inclusive
+     * @param end Latest check-in time, inclusive
+     * @param officeId Optional office ID, null for all offices
+     * @param userId Optional user ID, null for all employees
+     */
+    public AttendancePager createRangePager(Date start, Date end, String officeId, String userId) {
+        ReportRange range = new ReportRange(start, end, officeId, userId, SystemClock.elapsedRealtime());
+        
+        if (loadedRange != null && loadedRange.contains(range)
+                && range.loadedAt - loadedRange.loadedAt < RANGE_CACHE_TTL_MS
+                && loadedRangePager.isComplete()) {
+            return AttendancePager.of(filterByCheckInTime(loadedRangePager.getItems().getValue(), start, end));
+        }
+        
+        loadedRange = range;
+        loadedRangePager = attendanceRepository.createRangePager(start, end, officeId, userId);
+        return loadedRangePager;
+    }
+
+    // Drops the cached report range when a record checked in after the given time was written
+    private void invalidateLoadedRange(long checkedInAfter) {
+        if (loadedRange != null && !loadedRange.end.before(new Date(checkedInAfter))) {
+            loadedRange = null;
+            loadedRangePager = null;
+        }
+    }
+
+    private static List<Attendance> filterByCheckInTime(List<Attendance> records, Date start, Date end) {
+        List<Attendance> filtered = new ArrayList<>();
+        if (records == null) {
+            return filtered;
+        }
+        for (Attendance attendance : records) {
+            Date checkInTime = attendance.getCheckInTime();
+            if (checkInTime != null && !checkInTime.before(start) && !checkInTime.after(end)) {
+                filtered.add(attendance);
+            }
+        }
+        return filtered;
+    }
+
+    // Filters of a report date-range query
+    private static class ReportRange {
+        final Date start;
+        final Date end;
+        final String officeId;
+        final String userId;
+        final long loadedAt;
+
+        ReportRange(Date start, Date end, String officeId, String userId, long loadedAt) {
+            this.start = start;
+            this.end = end;
+            this.officeId = officeId;
+            this.userId = userId;
+            this.loadedAt = loadedAt;
+        }
+
+        boolean contains(ReportRange other) {
+            return Objects.equals(officeId, other.officeId)
+                    && Objects.equals(userId, other.userId)
+                    && !other.start.before(start)
+                    && !other.end.after(end);
+        }
     }
 
     /**
@@ -156,132 +386,45 @@ public class AttendanceViewModel extends ViewModel {
      */
     public void checkInWithStatus(String userId, String officeId, String status) {
         loadingLiveData.setValue(true);
+        long startTime = SystemClock.elapsedRealtime();
+        CheckInTimings timings = new CheckInTimings();
+        Date checkInTime = new Date();
         
-        // Get current date in yyyy-MM-dd format
-        String date = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date());
-        
-        // Create attendance record with the determined status
-        Attendance attendance = new Attendance(userId, date, new Date(), status, officeId);
-        
-        // Get user name and office name before saving the record
-        FirebaseFirestore db = FirebaseFirestore.getInstance();
-        
-        // First check if user already checked in today to prevent duplicate check-ins
-        db.collection("attendance")
-          .document(userId)
-          .collection(date)
-          .get()
-          .addOnSuccessListener(queryDocumentSnapshots -> {
-              if (!queryDocumentSnapshots.isEmpty()) {
-                  // User already checked in today
-                 loadingLiveData.setValue(false);
-                  errorLiveData.setValue("You have already checked in today");
-                  return;
-              }
-              
-              // Fetch user data to get the name
-              db.collection("users")
-                .document(userId)
-                .get()
-                .addOnSuccessListener(userSnapshot -> {
-                    if (userSnapshot.exists()) {
-                        String userName = userSnapshot.getString("name");
-                        attendance.setUserName(userName);
-                        
-                        // Now fetch office data to get the office name
-                        db.collection("offices")
-                          .document(officeId)
-                          .get()
-                          .addOnSuccessListener(officeSnapshot -> {
-                              if (officeSnapshot.exists()) {
-                                  String officeName = officeSnapshot.getString("name");
-                                  attendance.setOfficeName(officeName);
-                                  
-                                  // Now save the complete attendance record
-                                  attendanceRepository.recordCheckIn(attendance)
-                                      .observeForever(result -> {
-                                         loadingLiveData.setValue(false);
-                                          if (Boolean.FALSE.equals(result)) {
-                                              errorLiveData.setValue("Failed to record check-in");
-                             } else {
-                                              loadAttendanceHistory(userId);
-                                              loadMonthlySummary(userId);
-                                          }
-                                      });
-                              } else {
-                                  // Office not found, still save attendance but without office name
-                                  attendanceRepository.recordCheckIn(attendance)
-                                      .observeForever(result -> {
-                                         loadingLiveData.setValue(false);
-                                          if (Boolean.FALSE.equals(result)) {
-                                              errorLiveData.setValue("Failed to record check-in");
-                                          } else {
-                                              loadAttendanceHistory(userId);
-                                              loadMonthlySummary(userId);
-                                          }
-                                      });
-                              }
-                          })
-                          .addOnFailureListener(e -> {
-                              // Failed to get office, still save attendance but without office name
-                              attendanceRepository.recordCheckIn(attendance)
-                                  .observeForever(result -> {
-                                      loadingLiveData.setValue(false);
-                                      if (Boolean.FALSE.equals(result)) {
-                                          errorLiveData.setValue("Failed to record check-in");
-                                      } else {
-                                         loadAttendanceHistory(userId);
-                                          loadMonthlySummary(userId);
-                                      }
-                                  });
-                          });
-                    } else {
-                        // User not found, continue with check-in without the user name
-        attendanceRepository.recordCheckIn(attendance)
-                .observeForever(result -> {
-                    loadingLiveData.setValue(false);
-                    if (Boolean.FALSE.equals(result)) {
-                        errorLiveData.setValue("Failed to record check-in");
-                    } else {
-                        loadAttendanceHistory(userId);
-                        loadMonthlySummary(userId);
-                    }
-                            });
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    // Failed to get user data, continue with check-in without the user name
-                    attendanceRepository.recordCheckIn(attendance)
-                        .observeForever(result -> {
-                            loadingLiveData.setValue(false);
-                            if (Boolean.FALSE.equals(result)) {
-                                errorLiveData.setValue("Failed to record check-in");
-                             } else {
-                                loadAttendanceHistory(userId);
-                                loadMonthlySummary(userId);
-                             }
-                         });
-                 });
-           })
-           .addOnFailureListener(e -> {
-               // Failed to check for existing check-ins, proceed anyway
-              loadingLiveData.setValue(false);
-               errorLiveData.setValue("Error checking attendance records: " + e.getMessage());
-                });
+        tasks.run(attendanceRepository.prepareCheckIn(userId, officeId, status, checkInTime), attendance -> {
+            // Duplicate check and write happen in one transaction
+            timings.lookupMs = SystemClock.elapsedRealtime() - startTime;
+            tasks.runTask(attendanceRepository.checkInForDay(attendance), task -> {
+                timings.totalMs = SystemClock.elapsedRealtime() - startTime;
+                timings.commitMs = timings.totalMs - timings.lookupMs;
+                Log.d("AttendanceViewModel", "Check-in timings: " + timings);
+                checkInTimingsLiveData.setValue(timings);
+                
+                loadingLiveData.setValue(false);
+                if (task.isSuccessful()) {
+                    invalidateLoadedRange(checkInTime.getTime());
+                    loadAttendanceHistory(userId);
+                    loadMonthlySummary(userId);
+                } else if (AttendanceRepository.isAlreadyCheckedIn(task.getException())) {
+                    errorLiveData.setValue("You have already checked in today");
+                } else {
+                    errorLiveData.setValue("Failed to record check-in");
+                }
+            });
+        });
     }
 
     public void checkOut(String userId) {
         loadingLiveData.setValue(true);
-        attendanceRepository.recordCheckOut(userId)
-                .observeForever(result -> {
-                    loadingLiveData.setValue(false);
-                    if (Boolean.FALSE.equals(result)) {
-                        errorLiveData.setValue("Failed to record check-out");
-                    } else {
-                        loadAttendanceHistory(userId);
-                        loadMonthlySummary(userId);
-                    }
-                });
+        tasks.run(attendanceRepository.recordCheckOut(userId), result -> {
+            loadingLiveData.setValue(false);
+            if (Boolean.FALSE.equals(result)) {
+                errorLiveData.setValue("Failed to record check-out");
+            } else {
+                invalidateLoadedRange(System.currentTimeMillis() - MAX_SHIFT_MS);
+                loadAttendanceHistory(userId);
+                loadMonthlySummary(userId);
+            }
+        });
     }
 
     public void resetError() {
@@ -300,24 +443,17 @@ public class AttendanceViewModel extends ViewModel {
         
         Log.d("AttendanceViewModel", "Updating location status for user: " + userId + " to: " + locationStatus);
         
-        attendanceRepository.updateLocationStatus(userId, date, locationStatus)
-                .observeForever(new Observer<Boolean>() {
-                    @Override
-                    public void onChanged(Boolean success) {
-                        loadingLiveData.setValue(false);
-                        locationUpdateLiveData.setValue(success);
-                        
-                        if (!success) {
-                            errorLiveData.setValue("Failed to update location status");
-                        } else {
-                            // Refresh live attendance data if this is successful
-                            loadLiveAttendanceData(null);
-                        }
-                        
-                        // Remove the observer
-                        attendanceRepository.updateLocationStatus(userId, date, locationStatus).removeObserver(this);
-                    }
-                });
+        tasks.run(attendanceRepository.updateLocationStatus(userId, date, locationStatus), success -> {
+            loadingLiveData.setValue(false);
+            locationUpdateLiveData.setValue(success);
+            
+            if (!Boolean.TRUE.equals(success)) {
+                errorLiveData.setValue("Failed to update location status");
+            } else if (liveAttendanceStream == null || !liveAttendanceStream.isActive()) {
+                // Refresh live attendance data if no listener is delivering the change
+                loadLiveAttendanceData(null);
+            }
+        });
     }
     
     /**
@@ -329,17 +465,10 @@ public class AttendanceViewModel extends ViewModel {
     public void getActiveAttendance(String userId, String date) {
         loadingLiveData.setValue(true);
         
-        attendanceRepository.getActiveAttendance(userId, date)
-                .observeForever(new Observer<Attendance>() {
-                    @Override
-                    public void onChanged(Attendance attendance) {
-                        loadingLiveData.setValue(false);
-                        activeAttendanceLiveData.setValue(attendance);
-                        
-                        // Remove the observer
-                        attendanceRepository.getActiveAttendance(userId, date).removeObserver(this);
-                    }
-                });
+        tasks.run(LOAD_ACTIVE_ATTENDANCE, attendanceRepository.getActiveAttendance(userId, date), attendance -> {
+            loadingLiveData.setValue(false);
+            activeAttendanceLiveData.setValue(attendance);
+        });
     }
     
     /**
@@ -363,7 +492,26 @@ public class AttendanceViewModel extends ViewModel {
      * @return LiveData containing list of attendance records
      */
     public LiveData<List<Attendance>> getAllAttendanceForMonth(String yearMonth, String officeId) {
-        return attendanceRepository.getAllAttendanceForMonth(yearMonth, officeId);
+        return tasks.asLiveData(attendanceRepository.getAllAttendanceForMonth(yearMonth, officeId));
+    }
+
+    /**
+     * Get the summary of a month for the reports screen, from rollups or server-side counts
+     * @param yearMonth The month in yyyy-MM format
+     * @param officeId Optional office ID to filter by
+     * @param userId Optional user ID to filter by
+     * @return LiveData with the summary, or null if it could not be loaded
+     */
+    public LiveData<AttendanceSummary> getMonthSummary(String yearMonth, String officeId, String userId) {
+        return tasks.asLiveData(attendanceRepository.getMonthSummary(yearMonth, officeId, userId));
+    }
+
+    /**
+     * Get the summary of a check-in time range for the reports screen from server-side counts
+     * @return LiveData with the summary, or null if it could not be loaded
+     */
+    public LiveData<AttendanceSummary> getRangeSummary(Date start, Date end, String officeId, String userId) {
+        return tasks.asLiveData(attendanceRepository.getRangeSummary(start, end, officeId, userId));
     }
 
     /**
@@ -373,7 +521,16 @@ public class AttendanceViewModel extends ViewModel {
      * @return LiveData containing list of attendance records
      */
     public LiveData<List<Attendance>> getAttendanceHistoryForMonth(String userId, String yearMonth) {
-        return attendanceRepository.getAttendanceHistoryForMonth(userId, yearMonth);
+        return tasks.asLiveData(attendanceRepository.getAttendanceHistoryForMonth(userId, yearMonth));
+    }
+
+    /**
+     * Calendar of the office a user works from, for month and day keys in its time zone
+     * @param userId The user ID
+     * @return LiveData containing the calendar, the device's if the office is unknown
+     */
+    public LiveData<AttendanceCalendar> getUserCalendar(String userId) {
+        return tasks.asLiveData(attendanceRepository.getUserCalendar(userId));
     }
 
     public LiveData<List<Attendance>> getRecentAttendance() {
@@ -381,27 +538,86 @@ public class AttendanceViewModel extends ViewModel {
     }
 
     public void refreshAttendanceData() {
-        attendanceRepository.getRecentAttendance(5) // Get last 5 attendance records
-            .observeForever(attendances -> {
-                recentAttendanceLiveData.setValue(attendances);
-            });
+        if (recentPager != null) {
+            recentPager.cancel();
+            recentAttendanceLiveData.removeSource(recentPager.getItems());
+        }
+        
+        recentPager = null;
+        
+        // The home screen only shows the last 5 attendance records
+        tasks.run(LOAD_RECENT_ATTENDANCE, attendanceRepository.createRecentAttendancePager(5), pager -> {
+            if (pager == null) {
+                recentAttendanceLiveData.setValue(new ArrayList<>());
+                return;
+            }
+            recentPager = pager;
+            recentAttendanceLiveData.addSource(pager.getItems(), recentAttendanceLiveData::setValue);
+            pager.loadNextPage();
+        });
     }
 
     public void checkIn() {
-        attendanceRepository.checkIn()
-            .observeForever(success -> {
-                if (success) {
-                    refreshAttendanceData();
-                }
-            });
+        long checkInTime = System.currentTimeMillis();
+        tasks.run(attendanceRepository.checkIn(), success -> {
+            if (Boolean.TRUE.equals(success)) {
+                invalidateLoadedRange(checkInTime);
+                refreshAttendanceData();
+            }
+        });
     }
 
     public void checkOut() {
-        attendanceRepository.checkOut()
-            .observeForever(success -> {
-                if (success) {
-                    refreshAttendanceData();
-                }
-            });
+        tasks.run(attendanceRepository.checkOut(), success -> {
+            if (Boolean.TRUE.equals(success)) {
+                invalidateLoadedRange(System.currentTimeMillis() - MAX_SHIFT_MS);
+                refreshAttendanceData();
+            }
+        });
+    }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        tasks.clear();
+        if (historyPager != null) {
+            historyPager.cancel();
+        }
+        if (recentPager != null) {
+            recentPager.cancel();
+        }
+        if (loadedRangePager != null) {
+            loadedRangePager.cancel();
+        }
+        if (liveAttendanceStream != null) {
+            releaseLiveAttendanceStream();
+        }
+    }
+
+    /**
+     * Per-stage latency of one check-in: the parallel user/office lookup,
+     * then the duplicate-check-and-write transaction
+     */
+    public static class CheckInTimings {
+        long lookupMs;
+        long commitMs;
+        long totalMs;
+
+        public long getLookupMs() {
+            return lookupMs;
+        }
+
+        public long getCommitMs() {
+            return commitMs;
+        }
+
+        public long getTotalMs() {
+            return totalMs;
+        }
+
+        @Override
+        public String toString() {
+            return "lookup=" + lookupMs + "ms, commit=" + commitMs + "ms, total=" + totalMs + "ms";
+        }
     }
 }
\ No newline at end of file
@@ -7,11 +7,17 @@ import androidx.lifecycle.ViewModel;
 import com.example.attendify.model.User;
 import com.example.attendify.repository.UserRepository;
 import com.example.attendify.util.SingleLiveEvent;
+import com.example.attendify.util.TaskScope;
+import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 
 public class AuthViewModel extends ViewModel {
+    private static final String LOAD_PROFILE = "profile";
+    private static final String SIGN_IN = "signIn";
     
     private final UserRepository userRepository;
+    private final TaskScope tasks = new TaskScope();
+    private final FirebaseAuth.AuthStateListener authStateListener;
     private final MutableLiveData<User> currentUserLiveData;
     private final SingleLiveEvent<String> errorLiveData;
     private final MutableLiveData<Boolean> loadingLiveData;
@@ -24,22 +30,22 @@ public class AuthViewModel extends ViewModel {
         loadingLiveData = new MutableLiveData<>(false);
         navigationLiveData = new SingleLiveEvent<>();
         
-        // Start listening to auth state changes
-        userRepository.getAuthStateListener(this::handleAuthStateChange);
+        // Start listening to auth state changes; removed in onCleared()
+        authStateListener = userRepository.addAuthStateListener(this::handleAuthStateChange);
     }
 
     private void handleAuthStateChange(FirebaseUser firebaseUser) {
         if (firebaseUser != null) {
             loadingLiveData.setValue(true);
-            userRepository.getUserProfile(firebaseUser.getUid())
-                    .observeForever(result -> {
-                        loadingLiveData.setValue(false);
-                        currentUserLiveData.setValue(result);
-                        if (result != null) {
-                            handleUserNavigation(result);
-                        }
-                    });
+            tasks.run(LOAD_PROFILE, userRepository.getUserProfile(firebaseUser.getUid()), result -> {
+                loadingLiveData.setValue(false);
+                currentUserLiveData.setValue(result);
+                if (result != null) {
+                    handleUserNavigation(result);
+                }
+            });
         } else {
+            tasks.cancel(LOAD_PROFILE);
             currentUserLiveData.setValue(null);
             navigationLiveData.setValue(new NavigationEvent(NavigationTarget.AUTH));
         }
@@ -69,17 +75,16 @@ public class AuthViewModel extends ViewModel {
         }
 
         loadingLiveData.setValue(true);
-        userRepository.loginUser(email, password)
-                .observeForever(user -> {
-                    loadingLiveData.setValue(false);
-                    if (user == null) {
-                        errorLiveData.setValue("Invalid email or password");
-                    } else if (!user.isApproved()) {
-                        errorLiveData.setValue("Your account is pending approval");
-                    } else {
-                        currentUserLiveData.setValue(user);
-                    }
-                });
+        tasks.run(SIGN_IN, userRepository.loginUser(email, password), user -> {
+            loadingLiveData.setValue(false);
+            if (user == null) {
+                errorLiveData.setValue("Invalid email or password");
+            } else if (!user.isApproved()) {
+                errorLiveData.setValue("Your account is pending approval");
+            } else {
+                currentUserLiveData.setValue(user);
+            }
+        });
     }
 
     // Alias for loginUser to maintain compatibility
@@ -97,16 +102,15 @@ public class AuthViewModel extends ViewModel {
         }
 
         loadingLiveData.setValue(true);
-        userRepository.registerUser(email, password, name, "employee", officeId)
-                .observeForever(user -> {
-                    loadingLiveData.setValue(false);
-                    if (user == null) {
-                        errorLiveData.setValue("Registration failed");
-                    } else {
-                        currentUserLiveData.setValue(user);
-                        navigationLiveData.setValue(new NavigationEvent(NavigationTarget.PENDING_APPROVAL));
-                    }
-                });
+        tasks.run(userRepository.registerUser(email, password, name, "employee", officeId), user -> {
+            loadingLiveData.setValue(false);
+            if (user == null) {
+                errorLiveData.setValue("Registration failed");
+            } else {
+                currentUserLiveData.setValue(user);
+                navigationLiveData.setValue(new NavigationEvent(NavigationTarget.PENDING_APPROVAL));
+            }
+        });
     }
     
     // New method for registering with a direct office location string
@@ -120,19 +124,19 @@ public class AuthViewModel extends ViewModel {
         }
 
         loadingLiveData.setValue(true);
-        userRepository.registerUser(email, password, name, role, officeLocation)
-                .observeForever(user -> {
-                    loadingLiveData.setValue(false);
-                    if (user == null) {
-                        errorLiveData.setValue("Registration failed");
-                    } else {
-                        currentUserLiveData.setValue(user);
-                        navigationLiveData.setValue(new NavigationEvent(NavigationTarget.PENDING_APPROVAL));
-                    }
-                });
+        tasks.run(userRepository.registerUser(email, password, name, role, officeLocation), user -> {
+            loadingLiveData.setValue(false);
+            if (user == null) {
+                errorLiveData.setValue("Registration failed");
+            } else {
+                currentUserLiveData.setValue(user);
+                navigationLiveData.setValue(new NavigationEvent(NavigationTarget.PENDING_APPROVAL));
+            }
+        });
     }
 
     public void logout() {
+        tasks.cancel(SIGN_IN);
         userRepository.logout();
         currentUserLiveData.setValue(null);
         navigationLiveData.setValue(new NavigationEvent(NavigationTarget.AUTH));
@@ -163,6 +167,13 @@ public class AuthViewModel extends ViewModel {
         errorLiveData.setValue(null);
     }
 
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        userRepository.removeAuthStateListener(authStateListener);
+        tasks.clear();
+    }
+
     public enum NavigationTarget {
         AUTH,
         ADMIN_DASHBOARD,
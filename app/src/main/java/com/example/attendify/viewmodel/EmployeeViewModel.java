@@ -1,24 +1,25 @@
 package com.example.attendify.viewmodel;
 
 import androidx.lifecycle.LiveData;
-import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
 import com.example.attendify.model.User;
 import com.example.attendify.repository.UserRepository;
+import com.example.attendify.util.TaskScope;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class EmployeeViewModel extends ViewModel {
+    private static final String LOAD_USERS = "users";
     
     private final UserRepository userRepository;
+    private final TaskScope tasks = new TaskScope();
     private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>(false);
     private final MutableLiveData<String> errorMessage = new MutableLiveData<>();
-    private final MediatorLiveData<List<User>> allEmployees = new MediatorLiveData<>();
-    private final MediatorLiveData<List<User>> managers = new MediatorLiveData<>();
+    private final MutableLiveData<List<User>> allEmployees = new MutableLiveData<>();
+    private final MutableLiveData<List<User>> managers = new MutableLiveData<>();
     
     public EmployeeViewModel() {
         userRepository = UserRepository.getInstance();
@@ -28,29 +29,21 @@ public class EmployeeViewModel extends ViewModel {
     private void loadData() {
         isLoading.setValue(true);
         
-        // Load all employees
-        LiveData<List<User>> employeesSource = userRepository.getAllUsers();
-        allEmployees.addSource(employeesSource, users -> {
-            if (users != null) {
-                allEmployees.setValue(users);
-            } else {
-                allEmployees.setValue(new ArrayList<>());
+        // One read of the users collection feeds both lists; managers are filtered from it
+        tasks.run(LOAD_USERS, userRepository.getAllUsers(), users -> {
+            List<User> employees = users != null ? users : new ArrayList<>();
+            allEmployees.setValue(employees);
+            
+            // Users with manager role or isManager flag
+            List<User> managersList = new ArrayList<>();
+            for (User user : employees) {
+                if ("manager".equalsIgnoreCase(user.getRole()) || user.isManager()) {
+                    managersList.add(user);
+                }
             }
+            managers.setValue(managersList);
             isLoading.setValue(false);
         });
-        
-        // Load managers (users with manager role or isManager flag)
-        LiveData<List<User>> managersSource = userRepository.getAllUsers();
-        managers.addSource(managersSource, users -> {
-            if (users != null) {
-                List<User> managersList = users.stream()
-                        .filter(user -> "manager".equalsIgnoreCase(user.getRole()) || user.isManager())
-                        .collect(Collectors.toList());
-                managers.setValue(managersList);
-            } else {
-                managers.setValue(new ArrayList<>());
-            }
-        });
     }
     
     public LiveData<List<User>> getAllEmployees() {
@@ -141,6 +134,6 @@ public class EmployeeViewModel extends ViewModel {
     @Override
     protected void onCleared() {
         super.onCleared();
-        // Unregister listeners if needed
+        tasks.clear();
     }
 } 
\ No newline at end of file
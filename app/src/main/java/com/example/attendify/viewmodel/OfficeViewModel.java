@@ -1,22 +1,34 @@
 package com.example.attendify.viewmodel;
 
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
 import com.example.attendify.model.Office;
+import com.example.attendify.repository.OfficeRepository;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QuerySnapshot;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class OfficeViewModel extends ViewModel {
     private final FirebaseFirestore db = FirebaseFirestore.getInstance();
-    private final MutableLiveData<List<Office>> officesLiveData = new MutableLiveData<>(new ArrayList<>());
+    private final OfficeRepository officeRepository = OfficeRepository.getInstance();
+    private final MediatorLiveData<List<Office>> officesLiveData = new MediatorLiveData<>();
     private final MutableLiveData<String> errorLiveData = new MutableLiveData<>();
     private final MutableLiveData<Boolean> loadingLiveData = new MutableLiveData<>(false);
 
+    public OfficeViewModel() {
+        officesLiveData.setValue(new ArrayList<>());
+        // Shared directory, kept current by one snapshot listener while this list is observed
+        officesLiveData.addSource(officeRepository.getOfficesLiveData(), offices -> {
+            officesLiveData.setValue(offices);
+            loadingLiveData.setValue(false);
+        });
+    }
+
     public LiveData<List<Office>> getOfficesLiveData() {
         return officesLiveData;
     }
@@ -31,34 +43,25 @@ public class OfficeViewModel extends ViewModel {
 
     public void loadOffices() {
         loadingLiveData.setValue(true);
-        db.collection("offices")
-                .get()
-                .addOnSuccessListener(this::handleOfficesSnapshot)
+        officeRepository.getOffices()
+                .addOnSuccessListener(offices -> {
+                    officesLiveData.setValue(offices);
+                    loadingLiveData.setValue(false);
+                })
                 .addOnFailureListener(e -> {
                     loadingLiveData.setValue(false);
                     errorLiveData.setValue("Failed to load offices: " + e.getMessage());
                 });
     }
 
-    private void handleOfficesSnapshot(QuerySnapshot snapshot) {
-        List<Office> offices = new ArrayList<>();
-        snapshot.forEach(doc -> {
-            Office office = doc.toObject(Office.class);
-            if (office != null) {
-                office.setId(doc.getId());
-                offices.add(office);
-            }
-        });
-        officesLiveData.setValue(offices);
-        loadingLiveData.setValue(false);
-    }
-
     public void addOffice(Office office) {
         loadingLiveData.setValue(true);
-        db.collection("offices")
-                .add(office)
-                .addOnSuccessListener(documentReference -> {
-                    loadOffices();
+        DocumentReference officeRef = db.collection("offices").document();
+        officeRef.set(office)
+                .addOnSuccessListener(aVoid -> {
+                    office.setId(officeRef.getId());
+                    officeRepository.put(office);
+                    loadingLiveData.setValue(false);
                 })
                 .addOnFailureListener(e -> {
                     loadingLiveData.setValue(false);
@@ -77,16 +80,7 @@ public class OfficeViewModel extends ViewModel {
                 .document(office.getId())
                 .set(office)
                 .addOnSuccessListener(aVoid -> {
-                    List<Office> currentOffices = officesLiveData.getValue();
-                    if (currentOffices != null) {
-                        for (int i = 0; i < currentOffices.size(); i++) {
-                            if (currentOffices.get(i).getId().equals(office.getId())) {
-                                currentOffices.set(i, office);
-                                break;
-                            }
-                        }
-                        officesLiveData.setValue(currentOffices);
-                    }
+                    officeRepository.put(office);
                     loadingLiveData.setValue(false);
                 })
                 .addOnFailureListener(e -> {
@@ -106,13 +100,7 @@ public class OfficeViewModel extends ViewModel {
                 .document(officeId)
                 .delete()
                 .addOnSuccessListener(aVoid -> {
-                    List<Office> currentOffices = officesLiveData.getValue();
-                    if (currentOffices != null) {
-                        currentOffices.removeIf(office -> 
-                            officeId.equals(office.getId())
-                        );
-                        officesLiveData.setValue(currentOffices);
-                    }
+                    officeRepository.remove(officeId);
                     loadingLiveData.setValue(false);
                 })
                 .addOnFailureListener(e -> {
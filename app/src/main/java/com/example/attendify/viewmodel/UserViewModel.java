@@ -6,6 +6,7 @@ import androidx.lifecycle.ViewModel;
 
 import com.example.attendify.model.User;
 import com.example.attendify.repository.UserRepository;
+import com.example.attendify.util.TaskScope;
 
 import java.util.List;
 
@@ -13,7 +14,11 @@ import java.util.List;
  * ViewModel for handling user-related data
  */
 public class UserViewModel extends ViewModel {
+    private static final String LOAD_EMPLOYEES = "employees";
+    private static final String LOAD_CURRENT_USER = "currentUser";
+
     private final UserRepository userRepository;
+    private final TaskScope tasks = new TaskScope();
     private final MutableLiveData<List<User>> employeesLiveData = new MutableLiveData<>();
     private final MutableLiveData<User> currentUserLiveData = new MutableLiveData<>();
     
@@ -28,9 +33,7 @@ public class UserViewModel extends ViewModel {
      */
     public LiveData<List<User>> getEmployees() {
         // Fetch employees from repository
-        userRepository.getAllEmployees().observeForever(employees -> {
-            employeesLiveData.setValue(employees);
-        });
+        tasks.run(LOAD_EMPLOYEES, userRepository.getAllEmployees(), employeesLiveData::setValue);
         
         return employeesLiveData;
     }
@@ -54,8 +57,12 @@ public class UserViewModel extends ViewModel {
      * Helper method to fetch current user from repository
      */
     private void fetchCurrentUser() {
-        userRepository.getCurrentUser().observeForever(user -> {
-            currentUserLiveData.setValue(user);
-        });
+        tasks.run(LOAD_CURRENT_USER, userRepository.getCurrentUser(), currentUserLiveData::setValue);
+    }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        tasks.clear();
     }
 } 
\ No newline at end of file
@@ -5,182 +5,358 @@ import android.content.SharedPreferences;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.work.Data;
 import androidx.work.Worker;
 import androidx.work.WorkerParameters;
 
+import com.example.attendify.model.Attendance;
+import com.example.attendify.repository.AttendanceOutbox;
+import com.example.attendify.repository.RollupRepository;
+import com.example.attendify.repository.codec.Codecs;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 
 import java.lang.reflect.Type;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Worker class for syncing offline attendance records with Firestore
  * This runs periodically to ensure all attendance records are eventually synchronized
+ *
+ * Pending outbox records are committed in WriteBatches of at most 500 writes. Check-ins
+ * are written under the same per-day document ID (userId_date) that online check-ins use,
+ * so a day has one record however it was checked in, and replaying a batch whose result
+ * was lost finds that record instead of adding a duplicate.
  */
 public class AttendanceSyncWorker extends Worker {
     private static final String TAG = "AttendanceSyncWorker";
     private static final String PREF_NAME = "attendance_offline_storage";
     private static final String KEY_PENDING_RECORDS = "pending_attendance_records";
-    
+    private static final int MAX_RECORDS_PER_RUN = 2000;
+    private static final int MAX_BATCH_WRITES = 500;
+    private static final int MAX_ROLLUP_WRITES_PER_RECORD = 3;
+    private static final long TIMEOUT_SECONDS = 60;
+
+    // Progress and output keys
+    public static final String KEY_RECORDS_SYNCED = "recordsSynced";
+    public static final String KEY_RECORDS_FAILED = "recordsFailed";
+    public static final String KEY_BATCHES = "batches";
+    public static final String KEY_RETRIES = "retries";
+    public static final String KEY_RECORDS_PER_SECOND = "recordsPerSecond";
+    public static final String KEY_ELAPSED_MS = "elapsedMs";
+
     private final FirebaseFirestore db;
     private final SharedPreferences sharedPreferences;
+    private final AttendanceOutbox outbox;
+
+    // Metrics for the current run
+    private long startTime;
+    private int recordsSynced;
+    private int recordsFailed;
+    private int batches;
+    private int retries;
 
     public AttendanceSyncWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
         super(context, workerParams);
         db = FirebaseFirestore.getInstance();
         sharedPreferences = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        outbox = AttendanceOutbox.getInstance(context);
     }
 
     @NonNull
     @Override
     public Result doWork() {
         Log.d(TAG, "Starting attendance sync work");
-        
+        startTime = System.currentTimeMillis();
+
         try {
-            // Get pending records from SharedPreferences
-            String pendingRecordsJson = sharedPreferences.getString(KEY_PENDING_RECORDS, null);
-            if (pendingRecordsJson == null || pendingRecordsJson.isEmpty()) {
+            try {
+                importLegacyRecords();
+            } catch (Exception e) {
+                // The legacy records stay in SharedPreferences and are imported on the next run
+                Log.e(TAG, "Error importing legacy records", e);
+            }
+
+            if (outbox.countPending() == 0) {
                 Log.d(TAG, "No pending records to sync");
-                return Result.success();
+                return Result.success(buildMetrics());
             }
-            
-            // Parse the JSON to get the list of pending records
-            Gson gson = new Gson();
-            Type type = new TypeToken<List<Map<String, Object>>>(){}.getType();
-            List<Map<String, Object>> pendingRecords = gson.fromJson(pendingRecordsJson, type);
-            
-            if (pendingRecords.isEmpty()) {
-                Log.d(TAG, "No pending records to sync after parsing");
-                return Result.success();
+
+            // Check-ins go first so every check-out finds the record it closes
+            List<AttendanceOutbox.Entry> checkIns = outbox.getPendingCheckIns(MAX_RECORDS_PER_RUN);
+            Log.d(TAG, "Found " + checkIns.size() + " pending check-ins to sync");
+            syncCheckIns(skipExistingCheckIns(checkIns));
+
+            List<AttendanceOutbox.Entry> checkOuts = outbox.getReadyCheckOuts(MAX_RECORDS_PER_RUN);
+            Log.d(TAG, "Found " + checkOuts.size() + " check-outs ready to sync");
+            syncCheckOuts(checkOuts);
+
+            outbox.pruneSynced();
+            long remaining = outbox.countPending();
+            Data metrics = buildMetrics();
+            Log.d(TAG, "Sync finished: " + metrics.getKeyValueMap() + ", " + remaining + " records remaining");
+
+            // Return success if at least one record was synced, otherwise retry
+            if (recordsSynced > 0 || remaining == 0) {
+                return Result.success(metrics);
+            } else {
+                return Result.retry();
             }
-            
-            Log.d(TAG, "Found " + pendingRecords.size() + " pending records to sync");
-            
-            // Create a countdown latch to wait for all operations
-            final CountDownLatch latch = new CountDownLatch(pendingRecords.size());
-            final AtomicInteger successCount = new AtomicInteger(0);
-            final List<Map<String, Object>> remainingRecords = new ArrayList<>();
-            
-            // Process each pending record
-            for (Map<String, Object> record : pendingRecords) {
-                String recordType = (String) record.get("type");
-                String userId = (String) record.get("userId");
-                String date = (String) record.get("date");
-                
-                if (recordType == null || userId == null || date == null) {
-                    Log.e(TAG, "Invalid record format: " + record);
-                    latch.countDown();
-                    continue;
-                }
-                
-                if ("check-in".equals(recordType)) {
-                    processCheckIn(record, latch, successCount, remainingRecords);
-                } else if ("check-out".equals(recordType)) {
-                    processCheckOut(record, latch, successCount, remainingRecords);
+
+        } catch (Exception e) {
+            Log.e(TAG, "Error in attendance sync worker", e);
+            return Result.failure(buildMetrics());
+        }
+    }
+
+    /**
+     * Drops check-ins for days that already have a record, whether an earlier attempt
+     * reached Firestore without the worker seeing the result or the user checked in online
+     * meanwhile, so the record is not overwritten and its rollup increments not applied
+     * twice. A second queued check-in for the same day is dropped as well.
+     */
+    private List<AttendanceOutbox.Entry> skipExistingCheckIns(List<AttendanceOutbox.Entry> checkIns) {
+        Map<String, AttendanceOutbox.Entry> firstOfDay = new LinkedHashMap<>();
+        Map<String, Task<DocumentSnapshot>> lookups = new LinkedHashMap<>();
+        for (AttendanceOutbox.Entry entry : checkIns) {
+            DocumentReference document = dayDocument(entry.getAttendance());
+            if (firstOfDay.containsKey(document.getPath())) {
+                Log.d(TAG, "Check-in #" + entry.getId() + " repeats an earlier queued check-in");
+                outbox.markSynced(entry.getId());
+                recordsSynced++;
+                continue;
+            }
+            firstOfDay.put(document.getPath(), entry);
+            lookups.put(document.getPath(), document.get());
+        }
+
+        List<AttendanceOutbox.Entry> toWrite = new ArrayList<>(firstOfDay.size());
+        for (Map.Entry<String, AttendanceOutbox.Entry> day : firstOfDay.entrySet()) {
+            AttendanceOutbox.Entry entry = day.getValue();
+            if (entry.getAttempts() > 0) {
+                retries++;
+            }
+            try {
+                if (Tasks.await(lookups.get(day.getKey()), TIMEOUT_SECONDS, TimeUnit.SECONDS).exists()) {
+                    Log.d(TAG, "Check-in #" + entry.getId() + " already has a record for its day");
+                    outbox.markSynced(entry.getId());
+                    recordsSynced++;
                 } else {
-                    Log.e(TAG, "Unknown record type: " + recordType);
-                    latch.countDown();
+                    toWrite.add(entry);
                 }
+            } catch (Exception e) {
+                Log.e(TAG, "Error looking up the record of check-in #" + entry.getId(), e);
+                outbox.markFailed(entry.getId(), e.getMessage());
+                recordsFailed++;
             }
-            
-            // Wait for all operations to complete
-            latch.await(60, TimeUnit.SECONDS);
-            
-            // Update the shared preferences with remaining records
-            if (remainingRecords.isEmpty()) {
-                // All records synced successfully, clear the pending records
-                sharedPreferences.edit().remove(KEY_PENDING_RECORDS).apply();
-                Log.d(TAG, "All records synced successfully");
-            } else {
-                // Some records failed to sync, save them for the next attempt
-                String remainingJson = gson.toJson(remainingRecords);
-                sharedPreferences.edit().putString(KEY_PENDING_RECORDS, remainingJson).apply();
-                Log.d(TAG, remainingRecords.size() + " records remaining to sync");
+        }
+        return toWrite;
+    }
+
+    private void syncCheckIns(List<AttendanceOutbox.Entry> checkIns) {
+        WriteBatch batch = db.batch();
+        RollupRepository.PendingIncrements increments = new RollupRepository.PendingIncrements();
+        List<AttendanceOutbox.Entry> inBatch = new ArrayList<>();
+
+        for (AttendanceOutbox.Entry entry : checkIns) {
+            Attendance attendance = entry.getAttendance();
+            if (inBatch.size() + increments.size() + 1 + MAX_ROLLUP_WRITES_PER_RECORD > MAX_BATCH_WRITES
+                    || increments.overlaps(attendance)) {
+                commitBatch(batch, increments, inBatch);
+                batch = db.batch();
+                increments.clear();
+                inBatch.clear();
             }
-            
-            // Return success if at least one record was synced, otherwise retry
-            if (successCount.get() > 0) {
-                return Result.success();
-            } else {
-                return Result.retry();
+            batch.set(dayDocument(attendance), attendance.toMap());
+            increments.addCheckIn(attendance);
+            inBatch.add(entry);
+        }
+        commitBatch(batch, increments, inBatch);
+    }
+
+    /**
+     * Check-outs are grouped by user and day so each day's record is read once. The first
+     * check-out closes the record, later ones only move its check-out time.
+     */
+    private void syncCheckOuts(List<AttendanceOutbox.Entry> checkOuts) {
+        Map<String, List<AttendanceOutbox.Entry>> byDay = new LinkedHashMap<>();
+        Map<String, Task<DocumentSnapshot>> dayLookups = new LinkedHashMap<>();
+        for (AttendanceOutbox.Entry entry : checkOuts) {
+            DocumentReference document = dayDocument(entry.getAttendance());
+            List<AttendanceOutbox.Entry> group = byDay.get(document.getPath());
+            if (group == null) {
+                group = new ArrayList<>();
+                byDay.put(document.getPath(), group);
+                dayLookups.put(document.getPath(), document.get());
             }
-            
+            group.add(entry);
+        }
+
+        WriteBatch batch = db.batch();
+        RollupRepository.PendingIncrements increments = new RollupRepository.PendingIncrements();
+        List<AttendanceOutbox.Entry> inBatch = new ArrayList<>();
+
+        for (Map.Entry<String, List<AttendanceOutbox.Entry>> group : byDay.entrySet()) {
+            DocumentSnapshot target;
+            try {
+                target = Tasks.await(dayLookups.get(group.getKey()), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                if (!target.exists()) {
+                    target = findLegacyRecord(group.getValue().get(0).getAttendance());
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error finding the check-in record for " + group.getKey(), e);
+                markAllFailed(group.getValue(), e.getMessage());
+                continue;
+            }
+            if (target == null) {
+                Log.e(TAG, "No check-in record found for " + group.getKey());
+                markAllFailed(group.getValue(), "No check-in record found");
+                continue;
+            }
+
+            // Already closed, most likely by an earlier attempt of the same check-out
+            boolean open = target.get("checkOutTime") == null;
+            for (AttendanceOutbox.Entry entry : group.getValue()) {
+                if (entry.getAttempts() > 0) {
+                    retries++;
+                }
+                Attendance closing = open ? Codecs.decode(target, Codecs.ATTENDANCE) : null;
+                if (inBatch.size() + increments.size() + 1 + MAX_ROLLUP_WRITES_PER_RECORD > MAX_BATCH_WRITES
+                        || (closing != null && increments.overlaps(closing))) {
+                    commitBatch(batch, increments, inBatch);
+                    batch = db.batch();
+                    increments.clear();
+                    inBatch.clear();
+                }
+                batch.update(target.getReference(), "checkOutTime", entry.getAttendance().getCheckOutTime());
+                if (closing != null) {
+                    increments.addCheckOut(closing);
+                }
+                open = false;
+                inBatch.add(entry);
+            }
+        }
+        commitBatch(batch, increments, inBatch);
+    }
+
+    // Records checked in by older versions of the app have random IDs; find the open one
+    private DocumentSnapshot findLegacyRecord(Attendance attendance) throws Exception {
+        List<DocumentSnapshot> documents = Tasks.await(db.collection("attendance")
+                        .document(attendance.getUserId())
+                        .collection(attendance.getDate())
+                        .get(), TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .getDocuments();
+        DocumentSnapshot closed = null;
+        for (DocumentSnapshot document : documents) {
+            if (document.get("checkOutTime") == null) {
+                return document;
+            }
+            closed = document;
+        }
+        return closed;
+    }
+
+    private void commitBatch(WriteBatch batch, RollupRepository.PendingIncrements increments,
+                             List<AttendanceOutbox.Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        int writes = entries.size() + increments.applyTo(db, batch);
+        batches++;
+        try {
+            Tasks.await(batch.commit(), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            for (AttendanceOutbox.Entry entry : entries) {
+                outbox.markSynced(entry.getId());
+            }
+            recordsSynced += entries.size();
+            Log.d(TAG, "Committed batch of " + entries.size() + " records (" + writes + " writes)");
         } catch (Exception e) {
-            Log.e(TAG, "Error in attendance sync worker", e);
-            return Result.failure();
+            Log.e(TAG, "Error committing batch of " + entries.size() + " records", e);
+            markAllFailed(entries, e.getMessage());
         }
+        setProgressAsync(buildMetrics());
     }
-    
-    private void processCheckIn(Map<String, Object> record, CountDownLatch latch, 
-                               AtomicInteger successCount, List<Map<String, Object>> remainingRecords) {
-        String userId = (String) record.get("userId");
-        String date = (String) record.get("date");
-        
-        // Create a data map for the attendance record
-        Map<String, Object> attendanceData = new HashMap<>(record);
-        attendanceData.remove("type"); // Remove the record type
-        
-        // Save to Firestore
-        db.collection("attendance")
-            .document(userId)
-            .collection(date)
-            .add(attendanceData)
-            .addOnSuccessListener(documentReference -> {
-                Log.d(TAG, "Check-in synced with ID: " + documentReference.getId());
-                successCount.incrementAndGet();
-                latch.countDown();
-            })
-            .addOnFailureListener(e -> {
-                Log.e(TAG, "Error syncing check-in", e);
-                remainingRecords.add(record);
-                latch.countDown();
-            });
+
+    private void markAllFailed(List<AttendanceOutbox.Entry> entries, String error) {
+        for (AttendanceOutbox.Entry entry : entries) {
+            outbox.markFailed(entry.getId(), error);
+        }
+        recordsFailed += entries.size();
     }
-    
-    private void processCheckOut(Map<String, Object> record, CountDownLatch latch,
-                                AtomicInteger successCount, List<Map<String, Object>> remainingRecords) {
-        String userId = (String) record.get("userId");
-        String date = (String) record.get("date");
-        Object checkOutTime = record.get("checkOutTime");
-        
-        // Find the attendance document to update
-        db.collection("attendance")
-            .document(userId)
-            .collection(date)
-            .get()
-            .addOnSuccessListener(queryDocumentSnapshots -> {
-                if (!queryDocumentSnapshots.isEmpty()) {
-                    // Update the first document with check-out time
-                    queryDocumentSnapshots.getDocuments().get(0).getReference()
-                        .update("checkOutTime", checkOutTime)
-                        .addOnSuccessListener(aVoid -> {
-                            Log.d(TAG, "Check-out synced successfully");
-                            successCount.incrementAndGet();
-                            latch.countDown();
-                        })
-                        .addOnFailureListener(e -> {
-                            Log.e(TAG, "Error syncing check-out", e);
-                            remainingRecords.add(record);
-                            latch.countDown();
-                        });
-                } else {
-                    Log.e(TAG, "No check-in record found for check-out");
-                    remainingRecords.add(record);
-                    latch.countDown();
+
+    // The day's record, under the ID AttendanceRepository.checkInForDay() writes too
+    private DocumentReference dayDocument(Attendance attendance) {
+        return db.collection("attendance")
+                .document(attendance.getUserId())
+                .collection(attendance.getDate())
+                .document(Attendance.dayRecordId(attendance.getUserId(), attendance.getDate()));
+    }
+
+    private Data buildMetrics() {
+        long elapsedMs = System.currentTimeMillis() - startTime;
+        double recordsPerSecond = elapsedMs > 0 ? recordsSynced * 1000.0 / elapsedMs : 0;
+        return new Data.Builder()
+                .putInt(KEY_RECORDS_SYNCED, recordsSynced)
+                .putInt(KEY_RECORDS_FAILED, recordsFailed)
+                .putInt(KEY_BATCHES, batches)
+                .putInt(KEY_RETRIES, retries)
+                .putDouble(KEY_RECORDS_PER_SECOND, recordsPerSecond)
+                .putLong(KEY_ELAPSED_MS, elapsedMs)
+                .build();
+    }
+
+    /**
+     * Moves records queued by older versions of the app from SharedPreferences into the outbox.
+     * The records are queued in one transaction and only removed from SharedPreferences once
+     * it has committed, so a failed import neither loses nor duplicates them.
+     */
+    private void importLegacyRecords() {
+        String pendingRecordsJson = sharedPreferences.getString(KEY_PENDING_RECORDS, null);
+        if (pendingRecordsJson == null || pendingRecordsJson.isEmpty()) {
+            return;
+        }
+
+        Gson gson = new Gson();
+        Type type = new TypeToken<List<Map<String, Object>>>(){}.getType();
+        List<Map<String, Object>> pendingRecords = gson.fromJson(pendingRecordsJson, type);
+        int[] imported = {0};
+        if (pendingRecords != null) {
+            outbox.runInTransaction(() -> {
+                for (Map<String, Object> record : pendingRecords) {
+                    String recordType = (String) record.get("type");
+                    Attendance attendance = gson.fromJson(gson.toJsonTree(record), Attendance.class);
+                    long id;
+                    if (attendance.getUserId() == null || attendance.getDate() == null) {
+                        Log.e(TAG, "Invalid record format: " + record);
+                        continue;
+                    } else if (AttendanceOutbox.TYPE_CHECK_IN.equals(recordType)) {
+                        id = outbox.enqueueCheckIn(attendance);
+                    } else if (AttendanceOutbox.TYPE_CHECK_OUT.equals(recordType)) {
+                        id = outbox.enqueueCheckOut(attendance);
+                    } else {
+                        Log.e(TAG, "Unknown record type: " + recordType);
+                        continue;
+                    }
+                    if (id == -1) {
+                        throw new IllegalStateException("Outbox rejected legacy " + recordType + " record");
+                    }
+                    imported[0]++;
                 }
-            })
-            .addOnFailureListener(e -> {
-                Log.e(TAG, "Error finding check-in record for check-out", e);
-                remainingRecords.add(record);
-                latch.countDown();
             });
+        }
+
+        // Removed synchronously right after the rows commit, so a restart does not queue them twice
+        sharedPreferences.edit().remove(KEY_PENDING_RECORDS).commit();
+        Log.d(TAG, "Imported " + imported[0] + " legacy records into the outbox");
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,329 @@
+package com.example.attendify.worker;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.example.attendify.importer.CsvRecordReader;
+import com.example.attendify.importer.EmployeeRowValidator;
+import com.example.attendify.model.User;
+import com.example.attendify.repository.UserRepository;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports employees from a CSV file.
+ *
+ * The picked file is first copied into app storage, so a retry after the process died can
+ * still read it. Rows are then parsed one at a time and written in WriteBatches of 500,
+ * with at most {@link #MAX_IN_FLIGHT_BATCHES} commits outstanding. Employees are written
+ * as pending users, which become user documents when each employee signs up. After each batch the
+ * last committed line is saved, and a retried run only writes rows after it. Rows that fail
+ * validation are written to an error report CSV (line,email,error).
+ */
+public class EmployeeImportWorker extends Worker {
+    private static final String TAG = "EmployeeImportWorker";
+    public static final String UNIQUE_WORK_NAME = "employee_import";
+    private static final String PREF_NAME = "employee_import";
+    private static final String IMPORT_DIR = "imports";
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_IN_FLIGHT_BATCHES = 3;
+    private static final int PROGRESS_EVERY_ROWS = 250;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long TIMEOUT_SECONDS = 60;
+
+    // Input keys
+    public static final String KEY_URI = "uri";
+    public static final String KEY_IMPORT_ID = "importId";
+
+    // Progress and output keys
+    public static final String KEY_ROWS_PROCESSED = "rowsProcessed";
+    public static final String KEY_IMPORTED = "imported";
+    public static final String KEY_FAILED = "failed";
+    public static final String KEY_PERCENT = "percent";
+    public static final String KEY_ERROR_REPORT = "errorReport";
+    public static final String KEY_ERROR_MESSAGE = "errorMessage";
+
+    private final UserRepository userRepository;
+    private final SharedPreferences checkpoints;
+    private final ArrayDeque<PendingBatch> inFlight = new ArrayDeque<>();
+
+    private String importId;
+    private Writer errorReport;
+    private int rowsProcessed;
+    private int imported;
+    private int failed;
+    private int percent;
+
+    public EmployeeImportWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+        userRepository = UserRepository.getInstance();
+        checkpoints = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Queues an import of the file; it starts once any import already running has finished
+     * @return ID of the work, for observing its progress
+     */
+    public static UUID enqueue(Context context, Uri uri) {
+        Data input = new Data.Builder()
+                .putString(KEY_URI, uri.toString())
+                .putString(KEY_IMPORT_ID, UUID.randomUUID().toString())
+                .build();
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(EmployeeImportWorker.class)
+                .setInputData(input)
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniqueWork(UNIQUE_WORK_NAME, ExistingWorkPolicy.APPEND_OR_REPLACE, request);
+        return request.getId();
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        importId = getInputData().getString(KEY_IMPORT_ID);
+        String uri = getInputData().getString(KEY_URI);
+        if (importId == null || uri == null) {
+            return Result.failure(buildOutput("No file to import").build());
+        }
+
+        File dir = new File(getApplicationContext().getFilesDir(), IMPORT_DIR);
+        File source = new File(dir, importId + ".csv");
+        File report = new File(dir, importId + "_errors.csv");
+        int checkpoint = checkpoints.getInt(importId, 0);
+
+        try {
+            if (!dir.exists() && !dir.mkdirs()) {
+                throw new IOException("Could not create " + dir);
+            }
+            if (!source.exists()) {
+                copyToLocalFile(Uri.parse(uri), source);
+            }
+            trimErrorReport(report, checkpoint);
+            if (!importRows(source, report, checkpoint)) {
+                // Stopped by WorkManager; the next run resumes from the checkpoint
+                return Result.retry();
+            }
+        } catch (IllegalArgumentException e) {
+            // The file itself is unusable, retrying will not help
+            Log.e(TAG, "Import " + importId + " rejected", e);
+            finish(source);
+            return Result.failure(buildOutput(e.getMessage()).build());
+        } catch (Exception e) {
+            Log.e(TAG, "Import " + importId + " failed after " + rowsProcessed + " rows", e);
+            if (getRunAttemptCount() + 1 >= MAX_ATTEMPTS) {
+                finish(source);
+                return Result.failure(buildOutput(e.getMessage()).build());
+            }
+            // Resumes from the last committed batch
+            return Result.retry();
+        }
+
+        finish(source);
+        Log.d(TAG, "Import " + importId + " done: " + imported + " imported, " + failed + " failed");
+        return Result.success(buildOutput(null).putString(KEY_ERROR_REPORT,
+                failed > 0 ? report.getAbsolutePath() : null).build());
+    }
+
+    /**
+     * @return False if the worker was stopped before every row was written
+     */
+    private boolean importRows(File source, File report, int checkpoint) throws Exception {
+        long totalChars = Math.max(1, source.length());
+        try (CsvRecordReader reader = new CsvRecordReader(new BufferedReader(
+                new InputStreamReader(new FileInputStream(source), StandardCharsets.UTF_8)));
+             Writer errors = new BufferedWriter(new FileWriter(report, true))) {
+            errorReport = errors;
+            if (report.length() == 0) {
+                errors.write("line,email,error\n");
+            }
+
+            List<String> header = reader.readRecord();
+            if (header == null) {
+                throw new IllegalArgumentException("The file is empty");
+            }
+            EmployeeRowValidator validator = EmployeeRowValidator.fromHeader(header);
+
+            List<User> chunk = new ArrayList<>(BATCH_SIZE);
+            int chunkEndLine = 0;
+            List<String> record;
+            while ((record = reader.readRecord()) != null) {
+                if (isStopped()) {
+                    return false;
+                }
+                if (record.size() == 1 && record.get(0).trim().isEmpty()) {
+                    continue;
+                }
+
+                int line = reader.getRecordLine();
+                // Rows up to the checkpoint are validated again so that counts and duplicate
+                // detection are complete, but they were already written and reported
+                boolean alreadyDone = line <= checkpoint;
+                EmployeeRowValidator.Result result = validator.validate(record, line);
+                rowsProcessed++;
+                if (result.isValid()) {
+                    imported++;
+                    if (!alreadyDone) {
+                        chunk.add(result.getUser());
+                        chunkEndLine = line;
+                    }
+                } else {
+                    failed++;
+                    if (!alreadyDone) {
+                        errors.write(line + "," + escapeCsv(result.getEmail()) + "," + escapeCsv(result.getError()) + "\n");
+                    }
+                }
+
+                if (chunk.size() >= BATCH_SIZE) {
+                    submit(chunk, chunkEndLine);
+                    chunk = new ArrayList<>(BATCH_SIZE);
+                }
+                if (rowsProcessed % PROGRESS_EVERY_ROWS == 0) {
+                    percent = (int) Math.min(99, reader.getCharsRead() * 100 / totalChars);
+                    setProgressAsync(buildOutput(null).build());
+                }
+            }
+
+            if (!chunk.isEmpty()) {
+                submit(chunk, chunkEndLine);
+            }
+            while (!inFlight.isEmpty()) {
+                awaitOldestBatch();
+            }
+            percent = 100;
+            return true;
+        } finally {
+            errorReport = null;
+        }
+    }
+
+    // Starts committing a chunk, first waiting for the oldest commit if too many are outstanding
+    private void submit(List<User> chunk, int endLine) throws Exception {
+        while (inFlight.size() >= MAX_IN_FLIGHT_BATCHES) {
+            awaitOldestBatch();
+        }
+        inFlight.add(new PendingBatch(userRepository.saveImportedUsers(chunk), endLine));
+    }
+
+    private void awaitOldestBatch() throws Exception {
+        PendingBatch oldest = inFlight.poll();
+        Tasks.await(oldest.task, TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        // Errors up to this line must be on disk before the checkpoint moves past them
+        errorReport.flush();
+        checkpoints.edit().putInt(importId, oldest.endLine).apply();
+    }
+
+    private void copyToLocalFile(Uri uri, File target) throws IOException {
+        File partial = new File(target.getPath() + ".part");
+        try (InputStream in = getApplicationContext().getContentResolver().openInputStream(uri);
+             OutputStream out = new FileOutputStream(partial)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Could not open the selected file");
+            }
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        } catch (SecurityException e) {
+            throw new IllegalArgumentException("No longer allowed to read the selected file", e);
+        }
+        if (!partial.renameTo(target)) {
+            throw new IOException("Could not store the selected file");
+        }
+    }
+
+    // Drops report entries after the checkpoint; those rows are validated and reported again
+    private static void trimErrorReport(File report, int checkpoint) throws IOException {
+        if (!report.exists()) {
+            return;
+        }
+        File trimmed = new File(report.getPath() + ".tmp");
+        try (BufferedReader reader = new BufferedReader(new FileReader(report));
+             Writer writer = new BufferedWriter(new FileWriter(trimmed))) {
+            String entry = reader.readLine();
+            if (entry != null) {
+                // Header
+                writer.write(entry + "\n");
+            }
+            boolean keep = false;
+            while ((entry = reader.readLine()) != null) {
+                // Lines that do not start with a line number continue a quoted value
+                int comma = entry.indexOf(',');
+                if (comma > 0 && entry.substring(0, comma).matches("\\d+")) {
+                    keep = Integer.parseInt(entry.substring(0, comma)) <= checkpoint;
+                }
+                if (keep) {
+                    writer.write(entry + "\n");
+                }
+            }
+        }
+        if (!trimmed.renameTo(report)) {
+            throw new IOException("Could not trim error report");
+        }
+    }
+
+    private void finish(File source) {
+        checkpoints.edit().remove(importId).apply();
+        if (source.exists() && !source.delete()) {
+            Log.w(TAG, "Could not delete imported file " + source.getName());
+        }
+    }
+
+    private Data.Builder buildOutput(String errorMessage) {
+        return new Data.Builder()
+                .putInt(KEY_ROWS_PROCESSED, rowsProcessed)
+                .putInt(KEY_IMPORTED, imported)
+                .putInt(KEY_FAILED, failed)
+                .putInt(KEY_PERCENT, percent)
+                .putString(KEY_ERROR_MESSAGE, errorMessage);
+    }
+
+    private static String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains("\"") || value.contains(",") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    private static class PendingBatch {
+        final Task<Void> task;
+        final int endLine;
+
+        PendingBatch(Task<Void> task, int endLine) {
+            this.task = task;
+            this.endLine = endLine;
+        }
+    }
+}
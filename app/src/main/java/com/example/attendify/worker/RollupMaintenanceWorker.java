@@ -0,0 +1,123 @@
+package com.example.attendify.worker;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.example.attendify.model.Office;
+import com.example.attendify.repository.OfficeRepository;
+import com.example.attendify.repository.RollupRepository;
+import com.example.attendify.util.AttendanceCalendar;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the attendance rollups trustworthy. Once a day it rebuilds the current month from
+ * the raw records if the month is not marked complete yet, and otherwise compares the
+ * stored counters with the raw records and rebuilds the month if they have drifted. The
+ * previous month is checked too for the first days of a month, while offline check-ins
+ * from it may still be syncing. Months follow each office's time zone, so around a month
+ * boundary offices on either side of it are both covered.
+ *
+ * A rebuild overwrites counters that check-ins could be incrementing at the same moment,
+ * so the work waits for the device to be idle, which for an admin device is usually outside
+ * working hours.
+ */
+public class RollupMaintenanceWorker extends Worker {
+    private static final String TAG = "RollupMaintenance";
+    public static final String UNIQUE_WORK_NAME = "rollup_maintenance";
+    private static final int LATE_SYNC_DAYS = 3;
+    private static final long TIMEOUT_MINUTES = 10;
+
+    public RollupMaintenanceWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    /**
+     * Schedules the daily check. Reading and rewriting every user's rollups needs admin
+     * rights, so call this from an admin session.
+     */
+    public static void schedule(Context context) {
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                RollupMaintenanceWorker.class, 1, TimeUnit.DAYS)
+                .setConstraints(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.UNMETERED)
+                        .setRequiresCharging(true)
+                        .setRequiresDeviceIdle(true)
+                        .build())
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(UNIQUE_WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        try {
+            for (String yearMonth : monthsToMaintain()) {
+                maintain(yearMonth);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Rollup maintenance failed", e);
+            return Result.retry();
+        }
+        return Result.success();
+    }
+
+    // Current month in every office's time zone, plus the previous one where it just ended
+    private Set<String> monthsToMaintain() throws Exception {
+        List<AttendanceCalendar> calendars = new ArrayList<>();
+        for (Office office : await(OfficeRepository.getInstance().getOffices())) {
+            calendars.add(AttendanceCalendar.forOffice(office));
+        }
+        if (calendars.isEmpty()) {
+            calendars.add(AttendanceCalendar.forOffice(null));
+        }
+        
+        long now = System.currentTimeMillis();
+        Set<String> months = new TreeSet<>();
+        for (AttendanceCalendar calendar : calendars) {
+            months.add(calendar.monthKey(now));
+            Calendar day = Calendar.getInstance(calendar.getTimeZone());
+            day.setTimeInMillis(now);
+            if (day.get(Calendar.DAY_OF_MONTH) <= LATE_SYNC_DAYS) {
+                day.add(Calendar.MONTH, -1);
+                months.add(calendar.monthKey(day.getTimeInMillis()));
+            }
+        }
+        return months;
+    }
+
+    private void maintain(String yearMonth) throws Exception {
+        RollupRepository rollups = RollupRepository.getInstance();
+        if (!await(rollups.fetchMonthComplete(yearMonth))) {
+            Log.d(TAG, "Rollups for " + yearMonth + " not complete, rebuilding");
+            await(rollups.rebuildMonth(yearMonth));
+            return;
+        }
+        List<String> mismatches = await(rollups.checkConsistency(yearMonth));
+        if (!mismatches.isEmpty()) {
+            Log.w(TAG, mismatches.size() + " rollups for " + yearMonth + " drifted, first: " + mismatches.get(0));
+            await(rollups.rebuildMonth(yearMonth));
+        }
+    }
+
+    private static <T> T await(Task<T> task) throws Exception {
+        return Tasks.await(task, TIMEOUT_MINUTES, TimeUnit.MINUTES);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.attendify.worker;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.example.attendify.model.User;
+import com.example.attendify.repository.codec.UserSchema;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rewrites user documents stored in an older field layout into the one User.toMap() writes,
+ * so every user is read without legacy name lookups and only one user model remains.
+ *
+ * Users are read in pages ordered by document id and the outdated ones updated in one
+ * WriteBatch per page. The last migrated id is saved after each page, so a retry resumes
+ * where the previous run stopped. Once every page is done for the current schema version
+ * the worker is not queued again.
+ */
+public class UserSchemaMigrationWorker extends Worker {
+    private static final String TAG = "UserSchemaMigration";
+    public static final String UNIQUE_WORK_NAME = "user_schema_migration";
+    private static final String PREF_NAME = "user_schema_migration";
+    private static final String KEY_MIGRATED_VERSION = "migrated_version";
+    private static final String KEY_LAST_ID = "last_id";
+    private static final String USERS_COLLECTION = "users";
+    private static final int PAGE_SIZE = 200;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long TIMEOUT_SECONDS = 60;
+
+    private final SharedPreferences progress;
+
+    public UserSchemaMigrationWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+        progress = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Queues the migration unless it already ran for the current schema version. Rewriting
+     * other users' documents needs admin rights, so call this from an admin session.
+     */
+    public static void enqueueIfNeeded(Context context) {
+        SharedPreferences progress = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        if (progress.getInt(KEY_MIGRATED_VERSION, 0) >= User.SCHEMA_VERSION) {
+            return;
+        }
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(UserSchemaMigrationWorker.class)
+                .setConstraints(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .setRequiresBatteryNotLow(true)
+                        .build())
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, 1, TimeUnit.MINUTES)
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniqueWork(UNIQUE_WORK_NAME, ExistingWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        FirebaseFirestore firestore = FirebaseFirestore.getInstance();
+        CollectionReference users = firestore.collection(USERS_COLLECTION);
+        String lastId = progress.getString(KEY_LAST_ID, null);
+        int scanned = 0;
+        int migrated = 0;
+
+        try {
+            while (true) {
+                if (isStopped()) {
+                    return Result.retry();
+                }
+                Query page = users.orderBy(FieldPath.documentId()).limit(PAGE_SIZE);
+                if (lastId != null) {
+                    page = page.startAfter(lastId);
+                }
+                List<DocumentSnapshot> documents =
+                        Tasks.await(page.get(), TIMEOUT_SECONDS, TimeUnit.SECONDS).getDocuments();
+                if (documents.isEmpty()) {
+                    break;
+                }
+
+                WriteBatch batch = firestore.batch();
+                int updates = 0;
+                for (DocumentSnapshot document : documents) {
+                    Map<String, Object> data = document.getData();
+                    if (data == null) {
+                        continue;
+                    }
+                    Map<String, Object> upgrade = UserSchema.upgrade(data);
+                    if (!upgrade.isEmpty()) {
+                        batch.update(document.getReference(), upgrade);
+                        updates++;
+                    }
+                }
+                if (updates > 0) {
+                    Tasks.await(batch.commit(), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                }
+
+                scanned += documents.size();
+                migrated += updates;
+                lastId = documents.get(documents.size() - 1).getId();
+                progress.edit().putString(KEY_LAST_ID, lastId).apply();
+                if (documents.size() < PAGE_SIZE) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Migration stopped after " + scanned + " users", e);
+            // Resumes after the last committed page
+            return getRunAttemptCount() + 1 >= MAX_ATTEMPTS ? Result.failure() : Result.retry();
+        }
+
+        progress.edit()
+                .putInt(KEY_MIGRATED_VERSION, User.SCHEMA_VERSION)
+                .remove(KEY_LAST_ID)
+                .apply();
+        Log.d(TAG, "Migrated " + migrated + " of " + scanned + " users to schema " + User.SCHEMA_VERSION);
+        return Result.success();
+    }
+}
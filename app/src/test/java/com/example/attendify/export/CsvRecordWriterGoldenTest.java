@@ -0,0 +1,151 @@
+package com.example.attendify.export;
+
+import com.example.attendify.model.Attendance;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link CsvRecordWriter}, checking that a CSV streamed page by page
+ * through the export engine is byte-identical to the file the previous exporters wrote from
+ * the whole list. The golden files were produced by the previous exporter code with the same
+ * records, locale and time zone.
+ */
+public class CsvRecordWriterGoldenTest {
+    private static final int[] PAGE_SIZES = {7, 7, 3};
+    private static final String[] STATUSES = {"OnTime", "Late", "Missed"};
+
+    private Locale defaultLocale;
+    private TimeZone defaultTimeZone;
+
+    @Before
+    public void pinLocaleAndTimeZone() {
+        defaultLocale = Locale.getDefault();
+        defaultTimeZone = TimeZone.getDefault();
+        Locale.setDefault(Locale.US);
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+    }
+
+    @After
+    public void restoreLocaleAndTimeZone() {
+        Locale.setDefault(defaultLocale);
+        TimeZone.setDefault(defaultTimeZone);
+    }
+
+    @Test
+    public void reportLayout_matchesPreviousExporterAcrossPages() throws Exception {
+        assertArrayEquals(golden("/export/report_golden.csv"), export(CsvRecordWriter.Layout.REPORT));
+    }
+
+    @Test
+    public void historyLayout_matchesPreviousExporterAcrossPages() throws Exception {
+        assertArrayEquals(golden("/export/history_golden.csv"), export(CsvRecordWriter.Layout.HISTORY));
+    }
+
+    // Runs the export on a new thread, like the engine, so the per-thread date formats
+    // are created with the pinned locale and time zone
+    private static byte[] export(CsvRecordWriter.Layout layout) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        List<Integer> progress = new ArrayList<>();
+        Exception[] failure = new Exception[1];
+
+        Thread exportThread = new Thread(() -> {
+            Writer out = new OutputStreamWriter(bytes, StandardCharsets.UTF_8);
+            try (RecordWriter writer = new CsvRecordWriter(out, layout)) {
+                AttendanceExportEngine.writePages(new AttendanceExportEngine.ExportJob(),
+                        pagedSource(), writer, progress::add);
+            } catch (Exception e) {
+                failure[0] = e;
+            }
+        });
+        exportThread.start();
+        exportThread.join();
+
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        assertEquals(Arrays.asList(7, 14, 17), progress);
+        return bytes.toByteArray();
+    }
+
+    private static AttendancePageSource pagedSource() {
+        int[] next = {0, 0};
+        return () -> {
+            if (next[0] == PAGE_SIZES.length) {
+                return Collections.emptyList();
+            }
+            List<Attendance> page = new ArrayList<>();
+            for (int i = 0; i < PAGE_SIZES[next[0]]; i++) {
+                page.add(record(next[1]++));
+            }
+            next[0]++;
+            return page;
+        };
+    }
+
+    private byte[] golden(String resource) throws Exception {
+        try (InputStream in = getClass().getResourceAsStream(resource)) {
+            assertNotNull("Missing golden file " + resource, in);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    // Records covering the values the exporters quote or replace with a placeholder
+    static Attendance record(int i) {
+        long checkIn = 1_700_000_000_000L + i * 3_637_000L;
+        Attendance attendance = new Attendance("user" + i, "2023-11-" + (14 + i / 6),
+                new Date(checkIn), STATUSES[i % 3], "office" + (i % 2));
+        attendance.setUserName("Employee " + i);
+        attendance.setOfficeName("Office " + (i % 2));
+        if (i % 4 != 1) {
+            attendance.setCheckOutTime(new Date(checkIn + 8 * 3_600_000L + i * 1_000L));
+        }
+        switch (i) {
+            case 3:
+                attendance.setUserName("Doe, Jane");
+                break;
+            case 4:
+                attendance.setUserName("Alex \"AJ\" Smith");
+                break;
+            case 5:
+                attendance.setOfficeName("HQ\nAnnex");
+                break;
+            case 6:
+                attendance.setUserName(null);
+                attendance.setOfficeName(null);
+                break;
+            case 7:
+                attendance.setDate(null);
+                break;
+            case 8:
+                attendance.setStatus(null);
+                break;
+            case 9:
+                attendance.setUserName("Jos\u00e9 M\u00fcller");
+                break;
+        }
+        return attendance;
+    }
+}
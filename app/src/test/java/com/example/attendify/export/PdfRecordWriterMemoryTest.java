@@ -0,0 +1,73 @@
+package com.example.attendify.export;
+
+import com.example.attendify.model.Attendance;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Date;
+
+import static com.example.attendify.testing.HeapUtils.usedHeapAfterGc;
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link PdfRecordWriter}, checking that a 100k-row report is written
+ * in chunks instead of keeping every table cell on the heap until the document is closed.
+ */
+public class PdfRecordWriterMemoryTest {
+    private static final int ROWS = 100_000;
+    private static final int SAMPLE_EVERY = 10_000;
+    // Holding all 600k cells at once needs several hundred MB
+    private static final long HEAP_CEILING_BYTES = 48L * 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void reportWithHundredThousandRows_staysUnderHeapCeiling() throws Exception {
+        File file = folder.newFile("report.pdf");
+        long baseline = usedHeapAfterGc();
+        long peakGrowth = 0;
+
+        try (RecordWriter writer = PdfRecordWriter.factory(PdfRecordWriter.Layout.REPORT,
+                Collections.emptyList()).open(file)) {
+            for (int i = 0; i < ROWS; i++) {
+                writer.write(record(i));
+                if (i % SAMPLE_EVERY == SAMPLE_EVERY - 1) {
+                    peakGrowth = Math.max(peakGrowth, usedHeapAfterGc() - baseline);
+                }
+            }
+        }
+
+        assertTrue("Heap grew by " + peakGrowth / (1024 * 1024) + " MB",
+                peakGrowth < HEAP_CEILING_BYTES);
+        assertTrue(file.length() > 0);
+    }
+
+    @Test
+    public void historyLayout_writesRowsWithMissingFields() throws Exception {
+        File file = folder.newFile("history.pdf");
+
+        try (RecordWriter writer = PdfRecordWriter.factory(PdfRecordWriter.Layout.HISTORY,
+                Collections.emptyList()).open(file)) {
+            for (int i = 0; i < PdfRecordWriter.CHUNK_ROWS * 2 + 1; i++) {
+                writer.write(i % 2 == 0 ? record(i) : new Attendance());
+            }
+        }
+
+        assertTrue(file.length() > 0);
+    }
+
+    private static Attendance record(int i) {
+        long checkIn = 1_700_000_000_000L + i * 60_000L;
+        Attendance attendance = new Attendance("user" + (i % 3000), "2024-01-15",
+                new Date(checkIn), i % 5 == 0 ? "Late" : "OnTime", "office" + (i % 20));
+        attendance.setUserName("Employee " + (i % 3000));
+        attendance.setOfficeName("Office " + (i % 20));
+        attendance.setCheckOutTime(new Date(checkIn + 8 * 3_600_000L));
+        return attendance;
+    }
+}
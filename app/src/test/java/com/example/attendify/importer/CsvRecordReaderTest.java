@@ -0,0 +1,88 @@
+package com.example.attendify.importer;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link CsvRecordReader}
+ */
+public class CsvRecordReaderTest {
+
+    @Test
+    public void plainRecords_splitOnCommasAndLineEnds() throws IOException {
+        CsvRecordReader reader = reader("name,email\nAda,ada@example.com\r\nBob,bob@example.com");
+
+        assertEquals(Arrays.asList("name", "email"), reader.readRecord());
+        assertEquals(Arrays.asList("Ada", "ada@example.com"), reader.readRecord());
+        assertEquals(Arrays.asList("Bob", "bob@example.com"), reader.readRecord());
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    public void quotedFields_keepCommasAndDoubledQuotes() throws IOException {
+        CsvRecordReader reader = reader("\"Doe, Jane\",\"Alex \"\"AJ\"\" Smith\",\"\"\n");
+
+        assertEquals(Arrays.asList("Doe, Jane", "Alex \"AJ\" Smith", ""), reader.readRecord());
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    public void embeddedNewline_staysInFieldAndCountsLines() throws IOException {
+        CsvRecordReader reader = reader("name,address\nAda,\"1 Main St\r\nSpringfield\"\nBob,\"2 Elm St\"\n");
+
+        reader.readRecord();
+        assertEquals(Arrays.asList("Ada", "1 Main St\r\nSpringfield"), reader.readRecord());
+        assertEquals(2, reader.getRecordLine());
+        assertEquals(Arrays.asList("Bob", "2 Elm St"), reader.readRecord());
+        assertEquals(4, reader.getRecordLine());
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    public void byteOrderMark_isSkippedOnlyAtStart() throws IOException {
+        CsvRecordReader reader = reader("\uFEFFname,email\n\uFEFFAda,ada@example.com\n");
+
+        assertEquals(Arrays.asList("name", "email"), reader.readRecord());
+        assertEquals(Arrays.asList("\uFEFFAda", "ada@example.com"), reader.readRecord());
+    }
+
+    @Test
+    public void blankLinesAndTrailingComma_giveEmptyFields() throws IOException {
+        List<List<String>> records = readAll(reader("a,\n\nb"));
+
+        assertEquals(Arrays.asList(
+                Arrays.asList("a", ""),
+                Collections.singletonList(""),
+                Collections.singletonList("b")), records);
+    }
+
+    @Test
+    public void charsRead_coversWholeInput() throws IOException {
+        String csv = "\uFEFFname\r\n\"x\"\"y\"\n";
+        CsvRecordReader reader = reader(csv);
+
+        readAll(reader);
+        assertEquals(csv.length(), reader.getCharsRead());
+    }
+
+    private static CsvRecordReader reader(String csv) {
+        return new CsvRecordReader(new StringReader(csv));
+    }
+
+    private static List<List<String>> readAll(CsvRecordReader reader) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        List<String> record;
+        while ((record = reader.readRecord()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+}
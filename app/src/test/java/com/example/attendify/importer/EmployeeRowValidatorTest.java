@@ -0,0 +1,96 @@
+package com.example.attendify.importer;
+
+import com.example.attendify.model.User;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link EmployeeRowValidator}
+ */
+public class EmployeeRowValidatorTest {
+    private static final List<String> HEADER =
+            Arrays.asList("Name", " email ", "employee_id", "role", "department", "team");
+
+    @Test
+    public void validRow_becomesApprovedUser() {
+        EmployeeRowValidator validator = EmployeeRowValidator.fromHeader(HEADER);
+
+        EmployeeRowValidator.Result result = validator.validate(
+                row(" Ada Lovelace ", "ada@example.com", "E1", "Manager", "dept1", "team1"), 2);
+
+        assertTrue(result.isValid());
+        User user = result.getUser();
+        assertEquals("Ada Lovelace", user.getName());
+        assertEquals("ada@example.com", user.getEmail());
+        assertEquals("E1", user.getEmployeeId());
+        assertEquals("manager", user.getRole());
+        assertEquals("dept1", user.getDepartmentId());
+        assertEquals("team1", user.getTeamId());
+        assertTrue(user.isApproved());
+        assertNull(user.getUid());
+    }
+
+    @Test
+    public void optionalColumns_mayBeMissing() {
+        EmployeeRowValidator validator = EmployeeRowValidator.fromHeader(Arrays.asList("email", "name"));
+
+        EmployeeRowValidator.Result result = validator.validate(Arrays.asList("bob@example.com", "Bob"), 2);
+
+        assertTrue(result.isValid());
+        assertEquals("employee", result.getUser().getRole());
+        assertNull(result.getUser().getEmployeeId());
+        assertNull(result.getUser().getDepartmentId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void headerWithoutEmail_isRejected() {
+        EmployeeRowValidator.fromHeader(Arrays.asList("name", "employee_id"));
+    }
+
+    @Test
+    public void invalidRows_reportReason() {
+        EmployeeRowValidator validator = EmployeeRowValidator.fromHeader(HEADER);
+
+        assertError("Name is required", validator.validate(row(" ", "a@example.com", "", "", "", ""), 2));
+        assertError("Email is required", validator.validate(row("Ada", "", "", "", "", ""), 3));
+        assertError("Invalid email address", validator.validate(row("Ada", "ada@example", "", "", "", ""), 4));
+        assertError("Unknown role \"owner\"", validator.validate(row("Ada", "ada@example.com", "", "Owner", "", ""), 5));
+        assertError("Name is longer than 100 characters",
+                validator.validate(row(repeat('x', 101), "ada@example.com", "", "", "", ""), 6));
+        // A short row is missing its trailing columns, which are optional
+        assertTrue(validator.validate(Arrays.asList("Ada", "ada@example.com"), 7).isValid());
+    }
+
+    @Test
+    public void duplicates_pointToFirstLine() {
+        EmployeeRowValidator validator = EmployeeRowValidator.fromHeader(HEADER);
+
+        assertTrue(validator.validate(row("Ada", "ada@example.com", "E1", "", "", ""), 2).isValid());
+        assertError("Duplicate email, first seen on line 2",
+                validator.validate(row("Ada Again", "ADA@example.com", "E2", "", "", ""), 5));
+        assertError("Duplicate employee ID, first seen on line 2",
+                validator.validate(row("Bob", "bob@example.com", "E1", "", "", ""), 6));
+    }
+
+    private static void assertError(String expected, EmployeeRowValidator.Result result) {
+        assertFalse(result.isValid());
+        assertNull(result.getUser());
+        assertEquals(expected, result.getError());
+    }
+
+    private static List<String> row(String name, String email, String employeeId,
+                                    String role, String department, String team) {
+        return Arrays.asList(name, email, employeeId, role, department, team);
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
@@ -0,0 +1,331 @@
+package com.example.attendify.repository.codec;
+
+import com.example.attendify.model.Attendance;
+import com.example.attendify.model.Department;
+import com.example.attendify.model.Office;
+import com.example.attendify.model.PerformanceMetrics;
+import com.example.attendify.model.Team;
+import com.example.attendify.model.User;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.util.CustomClassMapper;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the document codecs: each must decode the same model as Firestore's
+ * reflective CustomClassMapper, which is what DocumentSnapshot.toObject() runs on the map
+ * returned by getData(). Includes a micro-benchmark of per-document decode time and
+ * allocations for both.
+ */
+public class CodecsTest {
+    private static final Date CHECK_IN = new Date(1_700_000_000_000L);
+    private static final Date CHECK_OUT = new Date(1_700_030_000_000L);
+
+    @Test
+    public void attendance_matchesToObject() {
+        Map<String, Object> data = attendanceData(7);
+
+        Attendance expected = CustomClassMapper.convertToCustomClass(data, Attendance.class, null);
+        Attendance decoded = Codecs.ATTENDANCE.decode("user_7_2024-03-07", data);
+
+        assertEquals(expected, decoded);
+        assertEquals(expected.getDepartmentId(), decoded.getDepartmentId());
+    }
+
+    @Test
+    public void attendance_missingAndMistypedFieldsKeepDefaults() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("userId", "u1");
+        data.put("date", "2024-03-07");
+        data.put("checkInTime", "not a timestamp");
+        data.put("status", 3L);
+
+        Attendance decoded = Codecs.ATTENDANCE.decode("u1_2024-03-07", data);
+
+        assertEquals("u1", decoded.getUserId());
+        assertNull(decoded.getCheckInTime());
+        assertNull(decoded.getCheckOutTime());
+        assertNull(decoded.getStatus());
+    }
+
+    @Test
+    public void office_matchesToObject() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("name", "Harbour Street");
+        data.put("address", "12 Harbour Street");
+        data.put("latitude", 52.37);
+        // Whole numbers come back from Firestore as Long
+        data.put("longitude", 4L);
+        data.put("radius", 150L);
+        data.put("entryTime", "09:00");
+        data.put("startHour", 9L);
+        data.put("startMinute", 0L);
+        data.put("endHour", 17L);
+        data.put("endMinute", 30L);
+        data.put("checkInRadius", 120L);
+        data.put("stability", 2L);
+
+        Office expected = CustomClassMapper.convertToCustomClass(data, Office.class, null);
+        expected.setId("office_1");
+        Office decoded = Codecs.OFFICE.decode("office_1", data);
+
+        assertEquals(expected, decoded);
+        assertEquals(expected.getStability(), decoded.getStability());
+    }
+
+    @Test
+    public void departmentAndTeam_matchToObject() {
+        Map<String, Object> department = new HashMap<>();
+        department.put("name", "Retail");
+        department.put("description", "Stores");
+        department.put("managerId", "m1");
+        department.put("teamIds", Arrays.asList("t1", "t2"));
+        department.put("createdAt", new Timestamp(CHECK_IN));
+        department.put("active", true);
+
+        Department expectedDepartment = CustomClassMapper.convertToCustomClass(department, Department.class, null);
+        Department decodedDepartment = Codecs.DEPARTMENT.decode("d1", department);
+        assertEquals("d1", decodedDepartment.getId());
+        assertEquals(expectedDepartment.getName(), decodedDepartment.getName());
+        assertEquals(expectedDepartment.getManagerId(), decodedDepartment.getManagerId());
+        assertEquals(expectedDepartment.getTeamIds(), decodedDepartment.getTeamIds());
+        assertEquals(expectedDepartment.getCreatedAt(), decodedDepartment.getCreatedAt());
+        assertEquals(expectedDepartment.isActive(), decodedDepartment.isActive());
+
+        Map<String, Object> team = new HashMap<>();
+        team.put("name", "Night shift");
+        team.put("departmentId", "d1");
+        team.put("leaderId", "u9");
+        team.put("memberIds", Arrays.asList("u1", "u2", "u3"));
+        team.put("active", false);
+
+        Team expectedTeam = CustomClassMapper.convertToCustomClass(team, Team.class, null);
+        Team decodedTeam = Codecs.TEAM.decode("t1", team);
+        assertEquals(expectedTeam.getName(), decodedTeam.getName());
+        assertEquals(expectedTeam.getLeaderId(), decodedTeam.getLeaderId());
+        assertEquals(expectedTeam.getMemberIds(), decodedTeam.getMemberIds());
+        assertEquals(expectedTeam.isActive(), decodedTeam.isActive());
+        assertNull(decodedTeam.getDescription());
+    }
+
+    @Test
+    public void performanceMetrics_matchesToObject() {
+        PerformanceMetrics source = new PerformanceMetrics("u1", "Ana", CHECK_IN, CHECK_OUT);
+        source.setTotalWorkDays(21);
+        source.setPresentDays(19);
+        source.setLateDays(2);
+        source.setAverageHoursWorked(7.5);
+        Map<String, Object> data = source.toMap();
+        data.put("updatedAt", new Timestamp(CHECK_OUT));
+
+        PerformanceMetrics expected = CustomClassMapper.convertToCustomClass(data, PerformanceMetrics.class, null);
+        PerformanceMetrics decoded = Codecs.PERFORMANCE_METRICS.decode("u1_2024-03", data);
+
+        assertEquals(expected.getUserId(), decoded.getUserId());
+        assertEquals(expected.getPeriodStart(), decoded.getPeriodStart());
+        assertEquals(expected.getTotalWorkDays(), decoded.getTotalWorkDays());
+        assertEquals(expected.getLateDays(), decoded.getLateDays());
+        assertEquals(expected.getOverallScore(), decoded.getOverallScore(), 1e-9);
+        assertEquals(expected.getUpdatedAt(), decoded.getUpdatedAt());
+    }
+
+    @Test
+    public void user_readsWrittenAndLegacyFieldNames() {
+        User source = new User("u1", "Ana", "ana@example.com", "employee", true, "o1", "d1", "t1");
+        source.setManager(true);
+        Map<String, Object> data = source.toMap();
+        data.put("createdAt", new Timestamp(CHECK_IN));
+
+        User decoded = Codecs.USER.decode("u1", data);
+        assertEquals("u1", decoded.getUid());
+        assertEquals("Ana", decoded.getName());
+        assertEquals("o1", decoded.getOfficeId());
+        assertTrue(decoded.isApproved());
+        assertTrue(decoded.isManager());
+        assertEquals(CHECK_IN, decoded.getCreatedAt());
+        assertEquals(User.SCHEMA_VERSION, decoded.getSchemaVersion());
+
+        Map<String, Object> legacy = new HashMap<>();
+        legacy.put("fullName", "Ben");
+        legacy.put("office", "o2");
+        legacy.put("department", "d2");
+        legacy.put("status", "rejected");
+        legacy.put("location", new HashMap<>(Collections.singletonMap("latitude", 52L)));
+
+        User legacyUser = Codecs.USER.decode("u2", legacy);
+        assertEquals("Ben", legacyUser.getName());
+        assertEquals("o2", legacyUser.getOfficeId());
+        assertEquals("d2", legacyUser.getDepartmentId());
+        assertTrue(legacyUser.isRejected());
+        assertFalse(legacyUser.isApproved());
+        assertEquals(Double.valueOf(52), legacyUser.getLocation().get("latitude"));
+        assertEquals(1, legacyUser.getSchemaVersion());
+    }
+
+    @Test
+    public void user_legacyDocumentMigratesToCurrentLayout() {
+        Map<String, Object> legacy = new HashMap<>();
+        legacy.put("id", "u3");
+        legacy.put("fullName", "Cleo");
+        legacy.put("email", "cleo@example.com");
+        legacy.put("office", "o3");
+        legacy.put("team", "t3");
+        legacy.put("manager", "m1");
+        legacy.put("isActive", true);
+        legacy.put("approved", true);
+        legacy.put("password", "secret");
+        legacy.put("createdAt", CHECK_IN.getTime());
+        User beforeMigration = Codecs.USER.decode("u3", legacy);
+
+        Map<String, Object> updates = UserSchema.upgrade(legacy);
+        Map<String, Object> migrated = new HashMap<>(legacy);
+        for (Map.Entry<String, Object> update : updates.entrySet()) {
+            if (update.getValue() instanceof FieldValue) {
+                migrated.remove(update.getKey());
+            } else {
+                migrated.put(update.getKey(), update.getValue());
+            }
+        }
+
+        assertEquals(new HashSet<>(Arrays.asList("name", "email", "officeId", "teamId", "managerId",
+                "active", "isApproved", "createdAt", "schemaVersion")), migrated.keySet());
+        assertEquals(CHECK_IN, migrated.get("createdAt"));
+        assertTrue(UserSchema.upgrade(migrated).isEmpty());
+
+        User afterMigration = Codecs.USER.decode("u3", migrated);
+        assertEquals(User.SCHEMA_VERSION, afterMigration.getSchemaVersion());
+        for (User user : Arrays.asList(beforeMigration, afterMigration)) {
+            assertEquals("Cleo", user.getName());
+            assertEquals("o3", user.getOfficeId());
+            assertEquals("t3", user.getTeamId());
+            assertEquals("m1", user.getManagerId());
+            assertFalse(user.isManager());
+            assertTrue(user.isActive());
+            assertTrue(user.isApproved());
+            assertEquals(CHECK_IN, user.getCreatedAt());
+        }
+    }
+
+    @Test
+    public void user_currentNamesWinOverLegacyOnes() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("name", "Dana");
+        data.put("fullName", "Old Name");
+        data.put("officeId", "o4");
+        data.put("office", "old office");
+        data.put("isManager", false);
+        data.put("manager", true);
+
+        User decoded = Codecs.USER.decode("u4", data);
+        assertEquals("Dana", decoded.getName());
+        assertEquals("o4", decoded.getOfficeId());
+        assertFalse(decoded.isManager());
+        assertNull(decoded.getManagerId());
+
+        Map<String, Object> updates = UserSchema.upgrade(data);
+        assertFalse(updates.containsKey("name"));
+        assertFalse(updates.containsKey("isManager"));
+        assertTrue(updates.get("fullName") instanceof FieldValue);
+        assertTrue(updates.get("manager") instanceof FieldValue);
+    }
+
+    @Test
+    public void benchmark_codecBeatsToObject() {
+        int documents = 5_000;
+        int rounds = 10;
+        List<Map<String, Object>> data = new ArrayList<>(documents);
+        for (int i = 0; i < documents; i++) {
+            data.add(attendanceData(i));
+        }
+
+        // Warm up both paths before timing
+        for (int i = 0; i < 3; i++) {
+            decodeWithMapper(data);
+            decodeWithCodec(data);
+        }
+
+        long mapperNanos = 0;
+        long codecNanos = 0;
+        long mapperBytes = 0;
+        long codecBytes = 0;
+        for (int i = 0; i < rounds; i++) {
+            long bytes = allocatedBytes();
+            long start = System.nanoTime();
+            List<Attendance> expected = decodeWithMapper(data);
+            mapperNanos += System.nanoTime() - start;
+            mapperBytes += allocatedBytes() - bytes;
+
+            bytes = allocatedBytes();
+            start = System.nanoTime();
+            List<Attendance> decoded = decodeWithCodec(data);
+            codecNanos += System.nanoTime() - start;
+            codecBytes += allocatedBytes() - bytes;
+
+            assertEquals(expected, decoded);
+        }
+
+        long perDocument = (long) documents * rounds;
+        String measured = "toObject=" + (mapperNanos / perDocument) + " ns/doc " + (mapperBytes / perDocument)
+                + " B/doc, codec=" + (codecNanos / perDocument) + " ns/doc " + (codecBytes / perDocument) + " B/doc";
+        // The codec skips reflection and bean copies, so only a clear regression fails these
+        assertTrue(measured, codecNanos < mapperNanos);
+        // Allocation counters are 0 on JVMs without per-thread accounting
+        assertTrue(measured, codecBytes <= mapperBytes);
+    }
+
+    private static List<Attendance> decodeWithMapper(List<Map<String, Object>> data) {
+        List<Attendance> result = new ArrayList<>(data.size());
+        for (Map<String, Object> document : data) {
+            result.add(CustomClassMapper.convertToCustomClass(document, Attendance.class, null));
+        }
+        return result;
+    }
+
+    private static List<Attendance> decodeWithCodec(List<Map<String, Object>> data) {
+        List<Attendance> result = new ArrayList<>(data.size());
+        for (Map<String, Object> document : data) {
+            result.add(Codecs.ATTENDANCE.decode(null, document));
+        }
+        return result;
+    }
+
+    // Bytes allocated by this thread so far, or 0 where the JVM cannot tell
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    // The shape getData() returns for an attendance document: dates as Timestamps
+    private static Map<String, Object> attendanceData(int i) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("userId", "user_" + i);
+        data.put("userName", "Employee " + i);
+        data.put("officeName", "Office " + (i % 40));
+        data.put("date", "2024-03-" + (10 + i % 18));
+        data.put("checkInTime", new Timestamp(new Date(CHECK_IN.getTime() + i * 1000L)));
+        if (i % 3 != 0) {
+            data.put("checkOutTime", new Timestamp(new Date(CHECK_OUT.getTime() + i * 1000L)));
+        }
+        data.put("status", i % 5 == 0 ? "Late" : "OnTime");
+        data.put("officeId", "office_" + (i % 40));
+        data.put("departmentId", "dept_" + (i % 8));
+        data.put("locationStatus", "InOffice");
+        return data;
+    }
+}
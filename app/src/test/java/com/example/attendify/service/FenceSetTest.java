@@ -0,0 +1,180 @@
+package com.example.attendify.service;
+
+import com.example.attendify.model.Office;
+import com.example.attendify.util.OfficeSpatialIndex;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link FenceSet}
+ */
+public class FenceSetTest {
+
+    @Test
+    public void around_choosesTheNearestOfficesUpToThePlatformLimit() {
+        List<Office> offices = randomOffices(400, 41L);
+        OfficeSpatialIndex index = indexOf(offices);
+        Random random = new Random(43L);
+
+        for (int i = 0; i < 50; i++) {
+            double[] point = randomPoint(random);
+            FenceSet fenceSet = FenceSet.around(index, point[0], point[1], null,
+                    OfficeGeofenceManager.MAX_OFFICE_FENCES);
+
+            List<Office> sorted = byDistance(offices, point);
+            Set<String> expected = new HashSet<>();
+            for (Office office : sorted.subList(0, OfficeGeofenceManager.MAX_OFFICE_FENCES)) {
+                expected.add(office.getId());
+            }
+            assertEquals(expected, fenceSet.offices.keySet());
+            assertRotationRadiusWithinUnfenced(fenceSet, offices, point);
+        }
+    }
+
+    @Test
+    public void around_pinnedOfficeReplacesTheFarthest() {
+        List<Office> offices = randomOffices(400, 47L);
+        OfficeSpatialIndex index = indexOf(offices);
+        double[] point = {offices.get(0).getLatitude(), offices.get(0).getLongitude()};
+        List<Office> sorted = byDistance(offices, point);
+        Office pinned = sorted.get(sorted.size() - 1);
+        Office farthestNearest = sorted.get(OfficeGeofenceManager.DEFAULT_FENCE_COUNT - 1);
+
+        FenceSet fenceSet = FenceSet.around(index, point[0], point[1], pinned,
+                OfficeGeofenceManager.DEFAULT_FENCE_COUNT);
+
+        assertEquals(OfficeGeofenceManager.DEFAULT_FENCE_COUNT, fenceSet.offices.size());
+        assertTrue(fenceSet.offices.containsKey(pinned.getId()));
+        assertFalse(fenceSet.offices.containsKey(farthestNearest.getId()));
+        // The dropped office is one the user could reach, so it bounds the rotation fence
+        assertTrue(fenceSet.rotationRadius <= Math.max(FenceSet.MIN_ROTATION_RADIUS_METERS,
+                distance(farthestNearest, point) - farthestNearest.getFenceRadius()));
+        assertRotationRadiusWithinUnfenced(fenceSet, offices, point);
+    }
+
+    @Test
+    public void around_everyOfficeFenced_needsNoRotation() {
+        List<Office> offices = randomOffices(5, 53L);
+        FenceSet fenceSet = FenceSet.around(indexOf(offices), 50, 10, null,
+                OfficeGeofenceManager.DEFAULT_FENCE_COUNT);
+
+        assertEquals(5, fenceSet.offices.size());
+        assertEquals(0, fenceSet.rotationRadius, 0);
+        assertFalse(FenceSet.leftRotationFence(50, 10, fenceSet.rotationRadius, 10, 50));
+    }
+
+    @Test
+    public void pinnedOnly_hasNoAnchor() {
+        Office pinned = office("pinned", 52.52, 13.405, 150);
+        FenceSet fenceSet = FenceSet.pinnedOnly(pinned);
+
+        assertEquals(1, fenceSet.offices.size());
+        assertFalse(fenceSet.hasAnchor());
+        assertEquals(0, fenceSet.rotationRadius, 0);
+    }
+
+    @Test
+    public void rotatingOnExit_fencesEveryOfficeTheUserReaches() {
+        List<Office> offices = randomOffices(600, 59L);
+        OfficeSpatialIndex index = indexOf(offices);
+        Random random = new Random(61L);
+
+        // A trip from office to office across several cities, one point every 50 m
+        double[] position = {offices.get(0).getLatitude(), offices.get(0).getLongitude()};
+        FenceSet fenceSet = FenceSet.around(index, position[0], position[1], null,
+                OfficeGeofenceManager.DEFAULT_FENCE_COUNT);
+        int rotations = 0;
+        int arrivals = 0;
+        for (int leg = 0; leg < 8; leg++) {
+            Office target = offices.get(random.nextInt(offices.size()));
+            double length = distance(target, position);
+            int steps = (int) Math.ceil(length / 50);
+            double[] start = position.clone();
+            for (int step = 1; step <= steps; step++) {
+                position = new double[]{
+                        start[0] + (target.getLatitude() - start[0]) * step / steps,
+                        start[1] + (target.getLongitude() - start[1]) * step / steps};
+                if (FenceSet.leftRotationFence(fenceSet.anchorLatitude, fenceSet.anchorLongitude,
+                        fenceSet.rotationRadius, position[0], position[1])) {
+                    // The OS reports the exit and the set is chosen again where it happened
+                    fenceSet = FenceSet.around(index, position[0], position[1], null,
+                            OfficeGeofenceManager.DEFAULT_FENCE_COUNT);
+                    rotations++;
+                }
+                for (OfficeSpatialIndex.Neighbor neighbor : index.containing(position[0], position[1])) {
+                    arrivals++;
+                    assertTrue("Reached unfenced office " + neighbor.getOffice().getId(),
+                            fenceSet.offices.containsKey(neighbor.getOffice().getId()));
+                }
+            }
+        }
+        assertTrue(rotations > 10);
+        assertTrue(arrivals > 0);
+    }
+
+    private static void assertRotationRadiusWithinUnfenced(FenceSet fenceSet, List<Office> offices, double[] point) {
+        assertTrue(fenceSet.rotationRadius >= FenceSet.MIN_ROTATION_RADIUS_METERS);
+        double toUnfenced = Double.POSITIVE_INFINITY;
+        for (Office office : offices) {
+            if (!fenceSet.offices.containsKey(office.getId())) {
+                toUnfenced = Math.min(toUnfenced, distance(office, point) - office.getFenceRadius());
+            }
+        }
+        assertTrue(fenceSet.rotationRadius <= Math.max(FenceSet.MIN_ROTATION_RADIUS_METERS, toUnfenced));
+    }
+
+    private static OfficeSpatialIndex indexOf(List<Office> offices) {
+        OfficeSpatialIndex index = new OfficeSpatialIndex();
+        index.update(offices);
+        return index;
+    }
+
+    private static List<Office> byDistance(List<Office> offices, double[] point) {
+        List<Office> sorted = new ArrayList<>(offices);
+        sorted.sort(Comparator.comparingDouble(office -> distance(office, point)));
+        return sorted;
+    }
+
+    private static double distance(Office office, double[] point) {
+        return OfficeSpatialIndex.distanceMeters(point[0], point[1], office.getLatitude(), office.getLongitude());
+    }
+
+    private static double[] randomPoint(Random random) {
+        return new double[]{47 + random.nextDouble() * 8, 6 + random.nextDouble() * 9};
+    }
+
+    // Offices clustered around a few cities, some with only a check-in radius or neither
+    private static List<Office> randomOffices(int count, long seed) {
+        Random random = new Random(seed);
+        double[][] cities = new double[12][];
+        for (int i = 0; i < cities.length; i++) {
+            cities[i] = randomPoint(random);
+        }
+        List<Office> offices = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double[] city = cities[random.nextInt(cities.length)];
+            Office office = office("office_" + i,
+                    city[0] + random.nextGaussian() * 0.05,
+                    city[1] + random.nextGaussian() * 0.08,
+                    random.nextInt(3) == 0 ? 0 : 50 + random.nextInt(250));
+            if (random.nextInt(4) == 0) {
+                office.setCheckInRadius(80 + random.nextInt(120));
+            }
+            offices.add(office);
+        }
+        return offices;
+    }
+
+    private static Office office(String id, double lat, double lng, double radius) {
+        return new Office(id, id, lat, lng, radius, "09:00");
+    }
+}
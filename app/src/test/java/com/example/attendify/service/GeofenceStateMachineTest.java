@@ -0,0 +1,151 @@
+package com.example.attendify.service;
+
+import com.example.attendify.testing.InMemorySharedPreferences;
+
+import org.junit.Test;
+
+import static com.example.attendify.service.GeofenceStateMachine.ENTER_DWELL_MS;
+import static com.example.attendify.service.GeofenceStateMachine.EXIT_DWELL_MS;
+import static com.example.attendify.service.GeofenceStateMachine.IN_OFFICE;
+import static com.example.attendify.service.GeofenceStateMachine.OUT_OF_OFFICE;
+import static com.example.attendify.service.GeofenceStateMachine.WRITE_RETRY_MS;
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link GeofenceStateMachine}
+ */
+public class GeofenceStateMachineTest {
+    private static final String SCOPE = "user1|office1|2024-01-15";
+    private static final float RADIUS = 100;
+    // Well inside and well outside a 100 m fence with its 30 m hysteresis band
+    private static final float INSIDE = 40;
+    private static final float OUTSIDE = 400;
+    private static final float ACCURACY = 10;
+
+    @Test
+    public void classify_appliesHysteresisBand() {
+        // 100 m radius: at least 30 m of hysteresis, so outside starts at 130 m
+        assertEquals(IN_OFFICE, GeofenceStateMachine.classify(50, 20, RADIUS));
+        assertEquals(IN_OFFICE, GeofenceStateMachine.classify(100, 30, RADIUS));
+        assertNull(GeofenceStateMachine.classify(100, 31, RADIUS));
+        assertNull(GeofenceStateMachine.classify(115, 5, RADIUS));
+        assertEquals(OUT_OF_OFFICE, GeofenceStateMachine.classify(140, 10, RADIUS));
+        assertNull(GeofenceStateMachine.classify(140, 11, RADIUS));
+    }
+
+    @Test
+    public void classify_scalesWithRadiusAndIgnoresInaccurateFixes() {
+        assertNull(GeofenceStateMachine.classify(0, 250, RADIUS));
+        // 1 km radius: 250 m of hysteresis, and fixes up to 1 km accuracy are usable
+        assertEquals(IN_OFFICE, GeofenceStateMachine.classify(500, 300, 1000));
+        assertNull(GeofenceStateMachine.classify(1100, 100, 1000));
+        assertEquals(OUT_OF_OFFICE, GeofenceStateMachine.classify(1600, 350, 1000));
+    }
+
+    @Test
+    public void firstFix_becomesStateOnlyOnceStored() {
+        GeofenceStateMachine machine = newMachine();
+
+        assertEquals(IN_OFFICE, fix(machine, INSIDE, 0));
+        assertNull(machine.getState());
+        // The write is still in flight, so the same transition is not handed out again
+        assertNull(fix(machine, INSIDE, 1_000));
+
+        machine.onWriteResult(SCOPE, IN_OFFICE, true, 2_000);
+        assertEquals(IN_OFFICE, machine.getState());
+        assertEquals(1, machine.getEmittedCount());
+        assertNull(fix(machine, INSIDE, 3_000));
+    }
+
+    @Test
+    public void exit_needsDwellAndTwoFixes() {
+        GeofenceStateMachine machine = storedMachine(IN_OFFICE);
+        long start = 10_000;
+
+        assertNull(fix(machine, OUTSIDE, start));
+        assertNull(fix(machine, OUTSIDE, start + ENTER_DWELL_MS));
+        assertNull(fix(machine, OUTSIDE, start + EXIT_DWELL_MS - 1));
+        assertEquals(OUT_OF_OFFICE, fix(machine, OUTSIDE, start + EXIT_DWELL_MS));
+        assertEquals(IN_OFFICE, machine.getState());
+    }
+
+    @Test
+    public void enter_dwellsShorterThanExit() {
+        GeofenceStateMachine machine = storedMachine(OUT_OF_OFFICE);
+
+        assertNull(fix(machine, INSIDE, 0));
+        assertEquals(IN_OFFICE, fix(machine, INSIDE, ENTER_DWELL_MS));
+    }
+
+    @Test
+    public void jitter_backToStoredStateRestartsDwell() {
+        GeofenceStateMachine machine = storedMachine(IN_OFFICE);
+
+        assertNull(fix(machine, OUTSIDE, 0));
+        assertNull(fix(machine, INSIDE, EXIT_DWELL_MS / 2));
+        // The earlier outside fix no longer counts towards the dwell
+        assertNull(fix(machine, OUTSIDE, EXIT_DWELL_MS));
+        assertNull(fix(machine, OUTSIDE, EXIT_DWELL_MS + EXIT_DWELL_MS / 2));
+        assertEquals(OUT_OF_OFFICE, fix(machine, OUTSIDE, 2 * EXIT_DWELL_MS));
+
+        // Fixes in the hysteresis band are ignored and do not break the dwell either
+        assertEquals(0, machine.getIgnoredCount());
+        assertNull(machine.onFix(SCOPE, 115, ACCURACY, RADIUS, 2 * EXIT_DWELL_MS + 1));
+        assertEquals(1, machine.getIgnoredCount());
+    }
+
+    @Test
+    public void failedWrite_isRetriedAfterDelay() {
+        GeofenceStateMachine machine = storedMachine(IN_OFFICE);
+        assertNull(fix(machine, OUTSIDE, 0));
+        assertEquals(OUT_OF_OFFICE, fix(machine, OUTSIDE, EXIT_DWELL_MS));
+
+        long failedAt = EXIT_DWELL_MS + 500;
+        machine.onWriteResult(SCOPE, OUT_OF_OFFICE, false, failedAt);
+        assertEquals(IN_OFFICE, machine.getState());
+        assertNull(fix(machine, OUTSIDE, failedAt + WRITE_RETRY_MS - 1));
+        assertEquals(OUT_OF_OFFICE, fix(machine, OUTSIDE, failedAt + WRITE_RETRY_MS));
+
+        machine.onWriteResult(SCOPE, OUT_OF_OFFICE, true, failedAt + WRITE_RETRY_MS + 500);
+        assertEquals(OUT_OF_OFFICE, machine.getState());
+    }
+
+    @Test
+    public void resultForOtherScope_isIgnored() {
+        GeofenceStateMachine machine = newMachine();
+        assertEquals(IN_OFFICE, fix(machine, INSIDE, 0));
+
+        // The day rolled over while the write was in flight
+        assertEquals(OUT_OF_OFFICE, machine.onFix("user1|office1|2024-01-16", OUTSIDE, ACCURACY, RADIUS, 1_000));
+        machine.onWriteResult(SCOPE, IN_OFFICE, true, 2_000);
+        assertNull(machine.getState());
+    }
+
+    @Test
+    public void storedState_survivesRestart() {
+        InMemorySharedPreferences preferences = new InMemorySharedPreferences();
+        GeofenceStateMachine machine = new GeofenceStateMachine(preferences);
+        fix(machine, INSIDE, 0);
+        machine.onWriteResult(SCOPE, IN_OFFICE, true, 1_000);
+
+        GeofenceStateMachine restarted = new GeofenceStateMachine(preferences);
+        assertEquals(IN_OFFICE, restarted.getState());
+        assertNull(fix(restarted, INSIDE, 2_000));
+        assertEquals(1, restarted.getEmittedCount());
+    }
+
+    private static GeofenceStateMachine newMachine() {
+        return new GeofenceStateMachine(new InMemorySharedPreferences());
+    }
+
+    private static GeofenceStateMachine storedMachine(String state) {
+        GeofenceStateMachine machine = newMachine();
+        assertEquals(state, fix(machine, IN_OFFICE.equals(state) ? INSIDE : OUTSIDE, 0));
+        machine.onWriteResult(SCOPE, state, true, 0);
+        return machine;
+    }
+
+    private static String fix(GeofenceStateMachine machine, float distance, long now) {
+        return machine.onFix(SCOPE, distance, ACCURACY, RADIUS, now);
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.attendify.service;
+
+import android.location.Location;
+
+import com.google.android.gms.location.Priority;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link LocationSamplingScheduler}
+ */
+public class LocationSamplingSchedulerTest {
+    private static final long NEAR_INTERVAL_MS = 10_000;
+    private static final long PASSIVE_INTERVAL_MS = 15 * 60 * 1000;
+
+    private final boolean[] batteryConstrained = {false};
+    private final LocationSamplingScheduler scheduler =
+            new LocationSamplingScheduler(NEAR_INTERVAL_MS, () -> batteryConstrained[0]);
+
+    @Test
+    public void startsBalanced_untilTheFirstFix() {
+        assertPlan(Priority.PRIORITY_BALANCED_POWER_ACCURACY, 6 * NEAR_INTERVAL_MS);
+        assertEquals(0, scheduler.getPlanChanges());
+    }
+
+    @Test
+    public void nearEdge_samplesFinelyOnBothSides() {
+        assertNotNull(scheduler.replan(150));
+        assertPlan(Priority.PRIORITY_HIGH_ACCURACY, NEAR_INTERVAL_MS);
+
+        // Inside but not yet confirmed and checked in: the plan stays, so nothing is returned
+        assertNull(scheduler.replan(-50));
+        assertPlan(Priority.PRIORITY_HIGH_ACCURACY, NEAR_INTERVAL_MS);
+        assertEquals(1, scheduler.getPlanChanges());
+    }
+
+    @Test
+    public void midRange_keepsTheBalancedPlan() {
+        assertNull(scheduler.replan(1500));
+        assertPlan(Priority.PRIORITY_BALANCED_POWER_ACCURACY, 6 * NEAR_INTERVAL_MS);
+    }
+
+    @Test
+    public void farAway_intervalFollowsTimeToReachTheFence() {
+        // About 15 m/s towards the fence
+        assertNotNull(scheduler.replan(6000));
+        assertPlan(Priority.PRIORITY_LOW_POWER, 400_000);
+
+        assertNotNull(scheduler.replan(3000));
+        assertPlan(Priority.PRIORITY_LOW_POWER, 200_000);
+
+        assertNotNull(scheduler.replan(100_000));
+        assertPlan(Priority.PRIORITY_LOW_POWER, 15 * 60 * 1000);
+    }
+
+    @Test
+    public void passiveInside_onlyOnceConfirmedAndCheckedIn() {
+        scheduler.replan(-20);
+        assertPlan(Priority.PRIORITY_HIGH_ACCURACY, NEAR_INTERVAL_MS);
+
+        scheduler.setCheckedIn(true);
+        assertNull(scheduler.replan(-20));
+
+        scheduler.setConfirmedInside(true);
+        assertNotNull(scheduler.replan(-20));
+        assertPlan(Priority.PRIORITY_PASSIVE, PASSIVE_INTERVAL_MS);
+
+        // An OS geofence exit clears the confirmation and brings fine sampling back
+        scheduler.setConfirmedInside(false);
+        assertNotNull(scheduler.replan(0));
+        assertPlan(Priority.PRIORITY_HIGH_ACCURACY, NEAR_INTERVAL_MS);
+    }
+
+    @Test
+    public void passiveInside_endsWithCheckOut() {
+        scheduler.setCheckedIn(true);
+        scheduler.setConfirmedInside(true);
+        scheduler.replan(-20);
+        assertPlan(Priority.PRIORITY_PASSIVE, PASSIVE_INTERVAL_MS);
+
+        scheduler.setCheckedIn(false);
+        assertNotNull(scheduler.replan(-20));
+        assertPlan(Priority.PRIORITY_HIGH_ACCURACY, NEAR_INTERVAL_MS);
+    }
+
+    @Test
+    public void registeredFences_makeFarAwaySamplingPassive() {
+        scheduler.setFencesRegistered(true);
+        scheduler.replan(5000);
+        assertPlan(Priority.PRIORITY_PASSIVE, PASSIVE_INTERVAL_MS);
+
+        // Near an edge the fences do not replace fixes
+        scheduler.replan(150);
+        assertPlan(Priority.PRIORITY_HIGH_ACCURACY, NEAR_INTERVAL_MS);
+
+        scheduler.setFencesRegistered(false);
+        scheduler.replan(6000);
+        assertPlan(Priority.PRIORITY_LOW_POWER, 400_000);
+    }
+
+    @Test
+    public void constrainedBattery_doublesIntervalAndLowersPriority() {
+        batteryConstrained[0] = true;
+
+        scheduler.replan(150);
+        assertPlan(Priority.PRIORITY_BALANCED_POWER_ACCURACY, 2 * NEAR_INTERVAL_MS);
+
+        scheduler.replan(1500);
+        assertPlan(Priority.PRIORITY_LOW_POWER, 12 * NEAR_INTERVAL_MS);
+
+        // Still capped at the longest interval
+        scheduler.replan(10_000);
+        assertPlan(Priority.PRIORITY_LOW_POWER, 15 * 60 * 1000);
+    }
+
+    @Test
+    public void stationaryUser_doublesInterval() {
+        // Fixes carry no speed and repeat the same position, so the second one reads as stationary
+        Location fix = new Location("test");
+
+        assertNotNull(scheduler.onFix(fix, 150));
+        assertPlan(Priority.PRIORITY_HIGH_ACCURACY, NEAR_INTERVAL_MS);
+
+        assertNotNull(scheduler.onFix(fix, 150));
+        assertPlan(Priority.PRIORITY_HIGH_ACCURACY, 2 * NEAR_INTERVAL_MS);
+
+        assertEquals(2, scheduler.getFixCount());
+        assertEquals(2, scheduler.getPlanChanges());
+    }
+
+    private void assertPlan(int priority, long intervalMillis) {
+        assertEquals(priority, scheduler.getCurrentPriority());
+        assertEquals(intervalMillis, scheduler.getCurrentIntervalMillis());
+    }
+}
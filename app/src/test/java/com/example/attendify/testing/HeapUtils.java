@@ -0,0 +1,44 @@
+package com.example.attendify.testing;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Heap measurements shared by the local memory regression tests.
+ */
+public final class HeapUtils {
+
+    private HeapUtils() {
+    }
+
+    /**
+     * @return Bytes in use after asking the collector to run a few times
+     */
+    public static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Runs the collector until the condition holds. System.gc() is only a request, so it is
+     * retried a few times before giving up.
+     * @return Whether the condition held
+     */
+    public static boolean awaitGc(BooleanSupplier condition) {
+        for (int i = 0; i < 20; i++) {
+            System.gc();
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return condition.getAsBoolean();
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.attendify.util;
+
+import com.example.attendify.model.Office;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link AttendanceCalendar}, checked against SimpleDateFormat in
+ * zones with daylight saving and odd offsets, plus a micro-benchmark of day-key lookups
+ * against creating a SimpleDateFormat per call, as the call sites used to.
+ */
+public class AttendanceCalendarTest {
+    private static final String[] ZONES = {
+            "UTC", "Europe/Berlin", "America/Los_Angeles", "Asia/Kolkata", "Pacific/Chatham", "Australia/Lord_Howe"};
+    // 2000-01-01 to 2040-01-01
+    private static final long FROM = 946_684_800_000L;
+    private static final long SPAN = 1_262_304_000_000L;
+
+    @Test
+    public void keys_matchSimpleDateFormat() {
+        Random random = new Random(3L);
+        for (String zone : ZONES) {
+            AttendanceCalendar calendar = AttendanceCalendar.forTimeZone(zone);
+            SimpleDateFormat day = format("yyyy-MM-dd", zone);
+            SimpleDateFormat month = format("yyyy-MM", zone);
+            for (int i = 0; i < 20_000; i++) {
+                // Mix of far-apart instants and runs within a few days, to exercise the cache
+                long millis = i % 4 == 0
+                        ? FROM + (long) (random.nextDouble() * SPAN)
+                        : FROM + (long) (random.nextDouble() * 5 * 86_400_000L);
+                Date date = new Date(millis);
+                assertEquals(day.format(date), calendar.dayKey(millis));
+                assertEquals(month.format(date), calendar.monthKey(millis));
+            }
+        }
+    }
+
+    @Test
+    public void startOfDay_followsDaylightSaving() {
+        AttendanceCalendar berlin = AttendanceCalendar.forTimeZone("Europe/Berlin");
+        // 2024-03-31 had 23 hours in Berlin and 2024-10-27 had 25
+        long springNoon = 1_711_882_800_000L;
+        long autumnNoon = 1_730_026_800_000L;
+
+        long springStart = berlin.startOfDay(springNoon);
+        assertEquals("2024-03-31", berlin.dayKey(springStart));
+        assertEquals("2024-03-30", berlin.dayKey(springStart - 1));
+        assertEquals("2024-04-01", berlin.dayKey(springStart + 23 * 3_600_000L));
+        assertEquals("2024-03-31", berlin.dayKey(springStart + 23 * 3_600_000L - 1));
+
+        long autumnStart = berlin.startOfDay(autumnNoon);
+        assertEquals("2024-10-27", berlin.dayKey(autumnStart + 25 * 3_600_000L - 1));
+        assertEquals("2024-10-28", berlin.dayKey(autumnStart + 25 * 3_600_000L));
+    }
+
+    @Test
+    public void zones_comeFromTheOffice() {
+        Office office = new Office("o1", "Auckland", -36.85, 174.76, 100, "09:00");
+        office.setTimeZone("Pacific/Auckland");
+        // 2024-06-30 20:00 UTC is already July 1st in Auckland
+        long millis = 1_719_777_600_000L;
+
+        assertEquals("2024-07-01", AttendanceCalendar.forOffice(office).dayKey(millis));
+        assertEquals("2024-06-30", AttendanceCalendar.forTimeZone("UTC").dayKey(millis));
+        assertSame(AttendanceCalendar.forTimeZone(null), AttendanceCalendar.forTimeZone("Not/AZone"));
+
+        // Without an office, or an office without a zone, days follow the device
+        Office noZone = new Office("o2", "No zone", 52.52, 13.40, 100, "09:00");
+        assertSame(AttendanceCalendar.forTimeZone(null), AttendanceCalendar.forOffice(null));
+        assertSame(AttendanceCalendar.forTimeZone(null), AttendanceCalendar.forOffice(noZone));
+        assertEquals("2024-02", AttendanceCalendar.monthKey(2024, 2));
+        assertEquals("2024-12", AttendanceCalendar.monthKey(2024, 12));
+    }
+
+    @Test
+    public void addMonths_crossesYears() {
+        assertEquals("2024-03", AttendanceCalendar.addMonths("2024-03", 0));
+        assertEquals("2023-12", AttendanceCalendar.addMonths("2024-01", -1));
+        assertEquals("2023-04", AttendanceCalendar.addMonths("2024-03", -11));
+        assertEquals("2025-02", AttendanceCalendar.addMonths("2024-12", 2));
+        assertEquals("2021-12", AttendanceCalendar.addMonths("2024-01", -25));
+    }
+
+    @Test
+    public void concurrentCallers_agree() throws Exception {
+        AttendanceCalendar calendar = AttendanceCalendar.forTimeZone("America/Los_Angeles");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                long seed = t;
+                results.add(executor.submit(() -> {
+                    Random random = new Random(seed);
+                    SimpleDateFormat day = format("yyyy-MM-dd", "America/Los_Angeles");
+                    SimpleDateFormat display = format("EEE, MMM dd, yyyy hh:mm a", "America/Los_Angeles");
+                    int mismatches = 0;
+                    for (int i = 0; i < 20_000; i++) {
+                        long millis = FROM + (long) (random.nextDouble() * 20 * 86_400_000L);
+                        Date date = new Date(millis);
+                        if (!day.format(date).equals(calendar.dayKey(millis))
+                                || !display.format(date).equals(calendar.format("EEE, MMM dd, yyyy hh:mm a", date))) {
+                            mismatches++;
+                        }
+                    }
+                    return mismatches;
+                }));
+            }
+            for (Future<Integer> result : results) {
+                assertEquals(Integer.valueOf(0), result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void benchmark_cachedKeysVersusFormatterPerCall() {
+        AttendanceCalendar calendar = AttendanceCalendar.forTimeZone("Europe/Berlin");
+        int calls = 200_000;
+        // A fix or bind stream within one working day, and a history list spanning a month
+        long[] today = new long[calls];
+        long[] history = new long[calls];
+        Random random = new Random(5L);
+        long day = 1_717_200_000_000L;
+        for (int i = 0; i < calls; i++) {
+            today[i] = day + (long) (random.nextDouble() * 8 * 3_600_000L);
+            history[i] = day - random.nextInt(30) * 86_400_000L;
+        }
+
+        // Warm up both paths before timing
+        for (int i = 0; i < 20_000; i++) {
+            formatPerCall(today[i]);
+            calendar.dayKey(history[i]);
+        }
+
+        long[] perCall = run(this::formatPerCall, today);
+        long[] cachedToday = run(calendar::dayKey, today);
+        long[] cachedHistory = run(calendar::dayKey, history);
+        System.out.println("AttendanceCalendar benchmark: " + calls + " calls"
+                + ", SimpleDateFormat per call=" + perCall[0] / calls + " ns " + perCall[1] / calls + " B"
+                + ", same day=" + cachedToday[0] / calls + " ns " + cachedToday[1] / calls + " B"
+                + ", across a month=" + cachedHistory[0] / calls + " ns " + cachedHistory[1] / calls + " B");
+        assertTrue(cachedToday[1] <= perCall[1]);
+    }
+
+    private interface KeyFunction {
+        String apply(long millis);
+    }
+
+    // Nanoseconds and bytes allocated for the calls
+    private static long[] run(KeyFunction function, long[] instants) {
+        int checksum = 0;
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        for (long millis : instants) {
+            checksum += function.apply(millis).length();
+        }
+        long nanos = System.nanoTime() - start;
+        long allocated = allocatedBytes() - bytes;
+        assertEquals(10 * instants.length, checksum);
+        return new long[]{nanos, allocated};
+    }
+
+    private String formatPerCall(long millis) {
+        return format("yyyy-MM-dd", "Europe/Berlin").format(new Date(millis));
+    }
+
+    private static SimpleDateFormat format(String pattern, String zone) {
+        SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.getDefault());
+        format.setTimeZone(TimeZone.getTimeZone(zone));
+        return format;
+    }
+
+    // Bytes allocated by this thread so far, or 0 where the JVM cannot tell
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+}
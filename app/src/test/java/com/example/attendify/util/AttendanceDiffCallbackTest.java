@@ -0,0 +1,64 @@
+package com.example.attendify.util;
+
+import com.example.attendify.model.Attendance;
+
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link AttendanceDiffCallback}, with records shaped like the seeded
+ * and load-generated ones, whose document ids are only the date
+ */
+public class AttendanceDiffCallbackTest {
+    private static final String DAY = "2024-05-06";
+    private static final long CHECK_IN = 1_714_982_400_000L;
+
+    private final AttendanceDiffCallback callback = new AttendanceDiffCallback();
+
+    @Test
+    public void sameDocumentIdOfDifferentUsers_isNotTheSameRow() {
+        Attendance alice = seeded("alice");
+        Attendance bob = seeded("bob");
+
+        assertEquals(alice.getId(), bob.getId());
+        assertFalse(callback.areItemsTheSame(alice, bob));
+        assertNotEquals(AttendanceDiffCallback.stableId(alice), AttendanceDiffCallback.stableId(bob));
+    }
+
+    @Test
+    public void checkOut_isTheSameRowWithNewContents() {
+        Attendance checkedIn = seeded("alice");
+        Attendance checkedOut = seeded("alice");
+        checkedOut.setCheckOutTime(new Date(CHECK_IN + 8 * 3_600_000L));
+
+        assertTrue(callback.areItemsTheSame(checkedIn, checkedOut));
+        assertFalse(callback.areContentsTheSame(checkedIn, checkedOut));
+        assertEquals(AttendanceDiffCallback.stableId(checkedIn), AttendanceDiffCallback.stableId(checkedOut));
+    }
+
+    @Test
+    public void unchangedRecord_hasTheSameContents() {
+        assertTrue(callback.areContentsTheSame(seeded("alice"), seeded("alice")));
+    }
+
+    @Test
+    public void recordNotReadFromFirestore_isKeyedOnItsDayRecordId() {
+        Attendance written = new Attendance("alice", DAY, new Date(CHECK_IN), "OnTime", "office1");
+        Attendance read = new Attendance("alice", DAY, new Date(CHECK_IN), "OnTime", "office1");
+        read.setDocumentId(Attendance.dayRecordId("alice", DAY));
+
+        assertEquals("alice/" + Attendance.dayRecordId("alice", DAY), written.getRowKey());
+        assertTrue(callback.areItemsTheSame(written, read));
+        assertEquals(AttendanceDiffCallback.stableId(written), AttendanceDiffCallback.stableId(read));
+    }
+
+    // Seeded records are stored under the date alone, in each user's collection for the day
+    private static Attendance seeded(String userId) {
+        Attendance attendance = new Attendance(userId, DAY, new Date(CHECK_IN), "OnTime", "office1");
+        attendance.setDocumentId(DAY);
+        return attendance;
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.attendify.util;
+
+import com.example.attendify.model.Office;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link OfficeSpatialIndex}, checked against a linear scan, plus a
+ * micro-benchmark of per-fix lookups over a directory of 800 retail sites.
+ */
+public class OfficeSpatialIndexTest {
+    @Test
+    public void nearest_matchesLinearScan() {
+        List<Office> offices = randomOffices(800, 7L);
+        OfficeSpatialIndex index = new OfficeSpatialIndex();
+        index.update(offices);
+        Random random = new Random(11L);
+
+        for (int i = 0; i < 500; i++) {
+            double[] fix = randomFix(random, offices);
+            List<OfficeSpatialIndex.Neighbor> found = index.nearest(fix[0], fix[1], 5);
+            List<Office> expected = linearNearest(offices, fix[0], fix[1], 5);
+
+            assertEquals(5, found.size());
+            for (int j = 0; j < 5; j++) {
+                assertEquals(distance(expected.get(j), fix), found.get(j).getDistanceMeters(), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void containing_matchesLinearScan() {
+        List<Office> offices = randomOffices(800, 13L);
+        OfficeSpatialIndex index = new OfficeSpatialIndex();
+        index.update(offices);
+        Random random = new Random(17L);
+
+        for (int i = 0; i < 500; i++) {
+            double[] fix = randomFix(random, offices);
+            List<String> expected = new ArrayList<>();
+            for (Office office : linearNearest(offices, fix[0], fix[1], offices.size())) {
+                if (distance(office, fix) <= office.getFenceRadius()) {
+                    expected.add(office.getId());
+                }
+            }
+
+            List<String> found = new ArrayList<>();
+            for (OfficeSpatialIndex.Neighbor neighbor : index.containing(fix[0], fix[1])) {
+                found.add(neighbor.getOffice().getId());
+            }
+            assertEquals(expected, found);
+        }
+    }
+
+    @Test
+    public void update_isIncremental() {
+        Office a = office("a", 52.5200, 13.4050, 150);
+        Office b = office("b", 52.5300, 13.4100, 0);
+        Office c = office("c", 48.1351, 11.5820, 200);
+        OfficeSpatialIndex index = new OfficeSpatialIndex();
+
+        assertEquals(3, index.update(Arrays.asList(a, b, c)));
+        // Unchanged offices are left alone
+        assertEquals(0, index.update(Arrays.asList(a, b, c)));
+
+        Office movedB = office("b", 48.1360, 11.5830, 0);
+        assertEquals(2, index.update(Arrays.asList(a, movedB)));
+        assertEquals(2, index.size());
+        assertEquals("b", index.nearest(48.1351, 11.5820, 1).get(0).getOffice().getId());
+        assertTrue(index.containing(52.5300, 13.4100).isEmpty());
+
+        assertTrue(index.remove("a"));
+        assertFalse(index.remove("a"));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void nearest_farFromEveryOffice() {
+        List<Office> offices = randomOffices(50, 19L);
+        OfficeSpatialIndex index = new OfficeSpatialIndex();
+        index.update(offices);
+
+        // Far outside the cluster the rings give up and fall back to a scan
+        List<OfficeSpatialIndex.Neighbor> found = index.nearest(-33.8688, 151.2093, 3);
+        List<Office> expected = linearNearest(offices, -33.8688, 151.2093, 3);
+        for (int j = 0; j < 3; j++) {
+            assertEquals(expected.get(j).getId(), found.get(j).getOffice().getId());
+        }
+        assertTrue(new OfficeSpatialIndex().nearest(0, 0, 3).isEmpty());
+    }
+
+    @Test
+    public void ringLowerBound_neverExceedsRealDistance() {
+        Random random = new Random(23L);
+        for (int i = 0; i < 10_000; i++) {
+            double lat = random.nextDouble() * 160 - 80;
+            double lng = random.nextDouble() * 360 - 180;
+            double otherLat = lat + (random.nextDouble() - 0.5) * 2;
+            double otherLng = lng + (random.nextDouble() - 0.5) * 2;
+            int rings = (int) Math.max(
+                    Math.abs(Math.floor((otherLat + 90) / OfficeSpatialIndex.CELL_DEGREES)
+                            - Math.floor((lat + 90) / OfficeSpatialIndex.CELL_DEGREES)),
+                    Math.abs(Math.floor((otherLng + 180) / OfficeSpatialIndex.CELL_DEGREES)
+                            - Math.floor((lng + 180) / OfficeSpatialIndex.CELL_DEGREES)));
+            assertTrue(OfficeSpatialIndex.ringLowerBound(lat, rings)
+                    <= OfficeSpatialIndex.distanceMeters(lat, lng, otherLat, otherLng) + 1e-6);
+        }
+    }
+
+    @Test
+    public void benchmark_indexBeatsLinearScan() {
+        List<Office> offices = randomOffices(800, 29L);
+        OfficeSpatialIndex index = new OfficeSpatialIndex();
+        index.update(offices);
+        Random random = new Random(31L);
+        int fixes = 20_000;
+        double[][] points = new double[fixes][];
+        for (int i = 0; i < fixes; i++) {
+            points[i] = randomFix(random, offices);
+        }
+
+        // Warm up both paths before timing
+        for (int i = 0; i < 2_000; i++) {
+            index.nearest(points[i][0], points[i][1], 1);
+            index.containing(points[i][0], points[i][1]);
+            linearContaining(offices, points[i]);
+        }
+
+        long start = System.nanoTime();
+        int linearHits = 0;
+        for (double[] point : points) {
+            linearHits += linearContaining(offices, point);
+        }
+        long linearNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int indexHits = 0;
+        for (double[] point : points) {
+            index.nearest(point[0], point[1], 1);
+            indexHits += index.containing(point[0], point[1]).size();
+        }
+        long indexNanos = System.nanoTime() - start;
+
+        assertEquals(linearHits, indexHits);
+        // The index answers both queries from a few cells; the scan measures all 800 offices
+        // for one. Only a clear loss would fail, so timing noise does not
+        assertTrue("index nearest+containing=" + (indexNanos / fixes) + " ns/fix, linear scan="
+                        + (linearNanos / fixes) + " ns/fix",
+                indexNanos < linearNanos);
+    }
+
+    private static int linearContaining(List<Office> offices, double[] fix) {
+        int hits = 0;
+        for (Office office : offices) {
+            if (distance(office, fix) <= office.getFenceRadius()) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    private static List<Office> linearNearest(List<Office> offices, double lat, double lng, int k) {
+        List<Office> sorted = new ArrayList<>(offices);
+        sorted.sort(Comparator.comparingDouble(o -> distance(o, new double[]{lat, lng})));
+        return sorted.subList(0, Math.min(k, sorted.size()));
+    }
+
+    private static double distance(Office office, double[] fix) {
+        return OfficeSpatialIndex.distanceMeters(fix[0], fix[1], office.getLatitude(), office.getLongitude());
+    }
+
+    // Mostly fixes near some office, the way an employee's phone reports them
+    private static double[] randomFix(Random random, List<Office> offices) {
+        Office near = offices.get(random.nextInt(offices.size()));
+        double spread = random.nextInt(4) == 0 ? 0.5 : 0.003;
+        return new double[]{
+                near.getLatitude() + (random.nextDouble() - 0.5) * spread,
+                near.getLongitude() + (random.nextDouble() - 0.5) * spread};
+    }
+
+    // Retail sites clustered around a few dozen cities across a country-sized area
+    private static List<Office> randomOffices(int count, long seed) {
+        Random random = new Random(seed);
+        double[][] cities = new double[30][];
+        for (int i = 0; i < cities.length; i++) {
+            cities[i] = new double[]{47 + random.nextDouble() * 8, 6 + random.nextDouble() * 9};
+        }
+        List<Office> offices = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double[] city = cities[random.nextInt(cities.length)];
+            offices.add(office("office_" + i,
+                    city[0] + random.nextGaussian() * 0.05,
+                    city[1] + random.nextGaussian() * 0.08,
+                    random.nextInt(3) == 0 ? 0 : 50 + random.nextInt(250)));
+        }
+        return offices;
+    }
+
+    private static Office office(String id, double lat, double lng, double radius) {
+        return new Office(id, id, lat, lng, radius, "09:00");
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.attendify.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link SortedMerge}, including a bound on the comparisons the
+ * "All Offices" merge makes, checked against the concatenate-and-sort approach it replaces.
+ */
+public class SortedMergeTest {
+    private static final Comparator<Long> NEWEST_FIRST =
+            Comparator.nullsLast(Comparator.<Long>reverseOrder());
+
+    @Test
+    public void merge_interleavesSortedLists() {
+        List<List<Long>> lists = Arrays.asList(
+                Arrays.asList(9L, 5L, 1L),
+                Arrays.asList(8L, 7L, 2L),
+                Collections.emptyList(),
+                Arrays.asList(6L, 3L));
+
+        List<Long> merged = SortedMerge.merge(lists, NEWEST_FIRST);
+
+        assertEquals(Arrays.asList(9L, 8L, 7L, 6L, 5L, 3L, 2L, 1L), merged);
+    }
+
+    @Test
+    public void merge_keepsNullsLastAndSkipsMissingLists() {
+        List<List<Long>> lists = Arrays.asList(
+                Arrays.asList(4L, null),
+                null,
+                Arrays.asList(5L, 2L, null));
+
+        List<Long> merged = SortedMerge.merge(lists, NEWEST_FIRST);
+
+        assertEquals(Arrays.asList(5L, 4L, 2L, null, null), merged);
+    }
+
+    @Test
+    public void merge_emptyInput() {
+        assertTrue(SortedMerge.merge(new ArrayList<List<Long>>(), NEWEST_FIRST).isEmpty());
+    }
+
+    @Test
+    public void merge_comparisonsScaleWithListCount() {
+        int offices = 60;
+        int recordsPerOffice = 2000;
+        int total = offices * recordsPerOffice;
+        List<List<Long>> perOffice = randomSortedLists(offices, recordsPerOffice, 42L);
+        long[] comparisons = new long[1];
+        Comparator<Long> counting = (a, b) -> {
+            comparisons[0]++;
+            return NEWEST_FIRST.compare(a, b);
+        };
+
+        List<Long> merged = SortedMerge.merge(perOffice, counting);
+
+        assertEquals(concatAndSort(perOffice), merged);
+        // A heap of k heads costs at most 3 log2(k) comparisons per item (sift down on
+        // poll, sift up on add), independent of the total number of records
+        int log2Offices = 32 - Integer.numberOfLeadingZeros(offices - 1);
+        assertTrue("k-way merge made " + comparisons[0] + " comparisons for " + total + " records",
+                comparisons[0] <= 3L * total * log2Offices);
+    }
+
+    private static List<Long> concatAndSort(List<List<Long>> perOffice) {
+        List<Long> combined = new ArrayList<>();
+        for (List<Long> office : perOffice) {
+            combined.addAll(office);
+        }
+        combined.sort(NEWEST_FIRST);
+        return combined;
+    }
+
+    private static List<List<Long>> randomSortedLists(int count, int size, long seed) {
+        Random random = new Random(seed);
+        List<List<Long>> lists = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            List<Long> list = new ArrayList<>(size);
+            for (int j = 0; j < size; j++) {
+                list.add(random.nextLong());
+            }
+            list.sort(NEWEST_FIRST);
+            lists.add(list);
+        }
+        return lists;
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.attendify.util;
+
+import androidx.lifecycle.LiveData;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.attendify.testing.HeapUtils.awaitGc;
+import static com.example.attendify.testing.HeapUtils.usedHeapAfterGc;
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link TaskScope}, including a leak regression test: a ViewModel
+ * refresh hammered 1,000 times while the reads are still in flight must not retain a
+ * callback per refresh, as the observeForever() chains the scope replaced did.
+ */
+public class TaskScopeTest {
+    private static final int REFRESHES = 1_000;
+    // Stands in for the ViewModel state a refresh callback captures
+    private static final int PAYLOAD_BYTES = 64 * 1024;
+
+    @Test
+    public void run_deliversResultOrNullOnFailure() {
+        TaskScope scope = new TaskScope(Runnable::run);
+        TaskCompletionSource<String> succeeds = new TaskCompletionSource<>();
+        TaskCompletionSource<String> fails = new TaskCompletionSource<>();
+        List<String> delivered = new ArrayList<>();
+
+        scope.run(succeeds.getTask(), delivered::add);
+        scope.run(fails.getTask(), delivered::add);
+        assertEquals(2, scope.pendingCount());
+
+        succeeds.setResult("done");
+        fails.setException(new IllegalStateException("offline"));
+        assertEquals(2, delivered.size());
+        assertEquals("done", delivered.get(0));
+        assertNull(delivered.get(1));
+        assertEquals(0, scope.pendingCount());
+    }
+
+    @Test
+    public void runTask_deliversTheFailure() {
+        TaskScope scope = new TaskScope(Runnable::run);
+        TaskCompletionSource<String> fails = new TaskCompletionSource<>();
+        List<Task<String>> delivered = new ArrayList<>();
+
+        scope.runTask(fails.getTask(), delivered::add);
+        fails.setException(new IllegalStateException("offline"));
+
+        assertEquals(1, delivered.size());
+        assertEquals("offline", delivered.get(0).getException().getMessage());
+        assertEquals(0, scope.pendingCount());
+    }
+
+    @Test
+    public void sameKey_onlyNewestIsDelivered() {
+        TaskScope scope = new TaskScope(Runnable::run);
+        TaskCompletionSource<String> first = new TaskCompletionSource<>();
+        TaskCompletionSource<String> second = new TaskCompletionSource<>();
+        TaskCompletionSource<String> other = new TaskCompletionSource<>();
+        List<String> delivered = new ArrayList<>();
+
+        scope.run("history", first.getTask(), delivered::add);
+        scope.run("summary", other.getTask(), delivered::add);
+        scope.run("history", second.getTask(), delivered::add);
+        assertEquals(2, scope.pendingCount());
+
+        // The superseded read finishing late must not overwrite the newer one
+        second.setResult("second");
+        first.setResult("first");
+        other.setResult("other");
+        assertEquals(2, delivered.size());
+        assertEquals("second", delivered.get(0));
+        assertEquals("other", delivered.get(1));
+
+        TaskCompletionSource<String> cancelled = new TaskCompletionSource<>();
+        scope.run("history", cancelled.getTask(), delivered::add);
+        scope.cancel("history");
+        cancelled.setResult("cancelled");
+        assertEquals(2, delivered.size());
+        assertEquals(0, scope.pendingCount());
+    }
+
+    @Test
+    public void clear_dropsPendingAndLaterCallbacks() {
+        TaskScope scope = new TaskScope(Runnable::run);
+        TaskCompletionSource<Boolean> pending = new TaskCompletionSource<>();
+        AtomicInteger delivered = new AtomicInteger();
+
+        scope.run(pending.getTask(), result -> delivered.incrementAndGet());
+        scope.clear();
+        pending.setResult(true);
+
+        TaskCompletionSource<Boolean> afterClear = new TaskCompletionSource<>();
+        scope.run(afterClear.getTask(), result -> delivered.incrementAndGet());
+        afterClear.setResult(true);
+        assertEquals(0, delivered.get());
+        assertEquals(0, scope.pendingCount());
+
+        // LiveData handed out before onCleared() is not set afterwards either
+        TaskScope liveScope = new TaskScope(Runnable::run);
+        TaskCompletionSource<String> read = new TaskCompletionSource<>();
+        LiveData<String> liveData = liveScope.asLiveData(read.getTask());
+        liveScope.clear();
+        read.setResult("late");
+        assertNull(liveData.getValue());
+    }
+
+    @Test
+    public void refreshHammered_retainsOneCallback() {
+        TaskScope scope = new TaskScope(Runnable::run);
+        // Firestore keeps every in-flight task, and with it the listeners added to it
+        List<TaskCompletionSource<byte[]>> inFlight = new ArrayList<>();
+        List<WeakReference<byte[]>> payloads = new ArrayList<>();
+        AtomicInteger delivered = new AtomicInteger();
+
+        long heapBefore = usedHeapAfterGc();
+        for (int i = 0; i < REFRESHES; i++) {
+            TaskCompletionSource<byte[]> read = new TaskCompletionSource<>();
+            inFlight.add(read);
+            payloads.add(refresh(scope, read, delivered));
+        }
+        long retained = usedHeapAfterGc() - heapBefore;
+
+        assertEquals(1, scope.pendingCount());
+        assertTrue("Superseded callbacks are still reachable",
+                awaitGc(() -> countLive(payloads) <= 1));
+        assertNotNull("The newest callback must be kept", payloads.get(REFRESHES - 1).get());
+        assertTrue("Refreshes in flight retain " + retained / 1024 + " KB, "
+                        + REFRESHES * (long) PAYLOAD_BYTES / 1024 + " KB if every callback leaked",
+                retained < REFRESHES * (long) PAYLOAD_BYTES / 4);
+
+        for (TaskCompletionSource<byte[]> read : inFlight) {
+            read.setResult(new byte[0]);
+        }
+        assertEquals(1, delivered.get());
+        assertEquals(0, scope.pendingCount());
+
+        // onCleared() releases the last callback too, even with its read still in flight
+        TaskCompletionSource<byte[]> last = new TaskCompletionSource<>();
+        inFlight.add(last);
+        WeakReference<byte[]> lastPayload = refresh(scope, last, delivered);
+        scope.clear();
+        assertTrue("Cleared callback is still reachable", awaitGc(() -> lastPayload.get() == null));
+        last.setResult(new byte[0]);
+        assertEquals(1, delivered.get());
+    }
+
+    // One refresh whose callback holds a payload, like a callback holds its ViewModel
+    private static WeakReference<byte[]> refresh(TaskScope scope, TaskCompletionSource<byte[]> read,
+                                                 AtomicInteger delivered) {
+        byte[] payload = new byte[PAYLOAD_BYTES];
+        scope.run("refresh", read.getTask(), result -> {
+            if (payload.length == PAYLOAD_BYTES) {
+                delivered.incrementAndGet();
+            }
+        });
+        return new WeakReference<>(payload);
+    }
+
+    private static int countLive(List<WeakReference<byte[]>> references) {
+        int live = 0;
+        for (WeakReference<byte[]> reference : references) {
+            if (reference.get() != null) {
+                live++;
+            }
+        }
+        return live;
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.attendify.viewmodel;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+
+import com.example.attendify.model.Attendance;
+import com.example.attendify.repository.AttendancePager;
+import com.example.attendify.repository.AttendanceRepository;
+import com.example.attendify.util.TaskScope;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static com.example.attendify.testing.HeapUtils.awaitGc;
+import static org.junit.Assert.*;
+
+/**
+ * Leak regression tests for {@link AttendanceViewModel}: the history and recent attendance
+ * refreshes, and check-ins, hammered 1,000 times while every read is still in flight. The
+ * fake repository keeps each pending task, like Firestore does until a read completes, so
+ * a callback added to a task directly would keep the ViewModel reachable through it.
+ */
+public class AttendanceViewModelTest {
+    private static final int REFRESHES = 1_000;
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private final PendingReads repository = new PendingReads();
+
+    @Test
+    public void refreshHammered_deliversOnlyTheNewestRead() {
+        AttendanceViewModel viewModel = new AttendanceViewModel(repository, new TaskScope(Runnable::run));
+        List<List<Attendance>> histories = new ArrayList<>();
+        List<List<Attendance>> recents = new ArrayList<>();
+        viewModel.getAttendanceHistoryLiveData().observeForever(histories::add);
+        viewModel.getRecentAttendance().observeForever(recents::add);
+
+        hammer(viewModel);
+        assertEquals(REFRESHES, repository.history.size());
+        // The constructor loads the recent records once too
+        assertEquals(REFRESHES + 1, repository.recent.size());
+
+        // Superseded reads finishing late, oldest last, must not overwrite the newest one
+        for (int i = REFRESHES - 1; i >= 0; i--) {
+            repository.history.get(i).setResult(Collections.singletonList(record(i)));
+        }
+        for (TaskCompletionSource<AttendancePager> read : repository.recent) {
+            read.setResult(null);
+        }
+
+        assertEquals(1, histories.size());
+        assertEquals(record(REFRESHES - 1), histories.get(0).get(0));
+        assertEquals(1, recents.size());
+        assertTrue(recents.get(0).isEmpty());
+    }
+
+    @Test
+    public void clearedViewModel_isNotRetainedByReadsInFlight() {
+        WeakReference<AttendanceViewModel> viewModel = hammerAndClear();
+
+        assertTrue("Cleared ViewModel is still reachable", awaitGc(() -> viewModel.get() == null));
+        // Reads completing after onCleared() have nothing left to call back
+        for (TaskCompletionSource<List<Attendance>> read : repository.history) {
+            read.setResult(Collections.emptyList());
+        }
+        for (TaskCompletionSource<AttendancePager> read : repository.recent) {
+            read.setResult(null);
+        }
+    }
+
+    @Test
+    public void clearedViewModel_isNotRetainedByCheckInsInFlight() {
+        WeakReference<AttendanceViewModel> viewModel = checkInAndClear();
+
+        assertTrue("Cleared ViewModel is still reachable", awaitGc(() -> viewModel.get() == null));
+        // Lookups completing after onCleared() start no write, writes have nothing to call back
+        for (int i = REFRESHES; i < repository.checkInLookups.size(); i++) {
+            repository.checkInLookups.get(i).setResult(record(i));
+        }
+        assertEquals(REFRESHES, repository.checkIns.size());
+        for (TaskCompletionSource<Void> write : repository.checkIns) {
+            write.setResult(null);
+        }
+    }
+
+    @Test
+    public void checkIn_reportsASecondCheckInThatDay() {
+        AttendanceViewModel viewModel = new AttendanceViewModel(repository, new TaskScope(Runnable::run));
+        List<String> errors = new ArrayList<>();
+        viewModel.getErrorLiveData().observeForever(errors::add);
+
+        viewModel.checkInWithStatus("user1", "office1", "OnTime");
+        repository.checkInLookups.get(0).setResult(record(0));
+        repository.checkIns.get(0).setException(new FirebaseFirestoreException("Already checked in",
+                FirebaseFirestoreException.Code.ALREADY_EXISTS));
+
+        assertEquals("You have already checked in today", errors.get(errors.size() - 1));
+        assertFalse(viewModel.getLoadingLiveData().getValue());
+    }
+
+    // Leaves 1,000 check-ins waiting on their write and 1,000 on their lookups, kept out of
+    // the test method so that no local variable holds the ViewModel
+    private WeakReference<AttendanceViewModel> checkInAndClear() {
+        AttendanceViewModel viewModel = new AttendanceViewModel(repository, new TaskScope(Runnable::run));
+        for (int i = 0; i < REFRESHES; i++) {
+            viewModel.checkInWithStatus("user1", "office1", "OnTime");
+        }
+        for (TaskCompletionSource<Attendance> lookup : repository.checkInLookups) {
+            lookup.setResult(record(0));
+        }
+        for (int i = 0; i < REFRESHES; i++) {
+            viewModel.checkInWithStatus("user1", "office1", "OnTime");
+        }
+        viewModel.onCleared();
+        return new WeakReference<>(viewModel);
+    }
+
+    // Kept out of the test method so that no local variable holds the ViewModel
+    private WeakReference<AttendanceViewModel> hammerAndClear() {
+        AttendanceViewModel viewModel = new AttendanceViewModel(repository, new TaskScope(Runnable::run));
+        hammer(viewModel);
+        viewModel.onCleared();
+        return new WeakReference<>(viewModel);
+    }
+
+    private static void hammer(AttendanceViewModel viewModel) {
+        for (int i = 0; i < REFRESHES; i++) {
+            viewModel.loadAttendanceHistory("user1");
+            viewModel.refreshAttendanceData();
+        }
+    }
+
+    private static Attendance record(int i) {
+        return new Attendance("user1", "2024-05-06", new Date(1_714_982_400_000L + i), "OnTime", "office1");
+    }
+
+    // Reads and writes that stay in flight until the test completes them
+    private static class PendingReads extends AttendanceRepository {
+        final List<TaskCompletionSource<List<Attendance>>> history = new ArrayList<>();
+        final List<TaskCompletionSource<AttendancePager>> recent = new ArrayList<>();
+        final List<TaskCompletionSource<Attendance>> checkInLookups = new ArrayList<>();
+        final List<TaskCompletionSource<Void>> checkIns = new ArrayList<>();
+
+        PendingReads() {
+            super(null, null);
+        }
+
+        @Override
+        public Task<List<Attendance>> getAttendanceHistory(String userId) {
+            TaskCompletionSource<List<Attendance>> read = new TaskCompletionSource<>();
+            history.add(read);
+            return read.getTask();
+        }
+
+        @Override
+        public Task<AttendancePager> createRecentAttendancePager(int pageSize) {
+            TaskCompletionSource<AttendancePager> read = new TaskCompletionSource<>();
+            recent.add(read);
+            return read.getTask();
+        }
+
+        @Override
+        public Task<Attendance> prepareCheckIn(String userId, String officeId, String status, Date checkInTime) {
+            TaskCompletionSource<Attendance> lookup = new TaskCompletionSource<>();
+            checkInLookups.add(lookup);
+            return lookup.getTask();
+        }
+
+        @Override
+        public Task<Void> checkInForDay(Attendance attendance) {
+            TaskCompletionSource<Void> write = new TaskCompletionSource<>();
+            checkIns.add(write);
+            return write.getTask();
+        }
+    }
+}
@@ -2,7 +2,9 @@
 plugins {
     id("com.android.application") version "8.2.2" apply false
     id("com.android.library") version "8.2.2" apply false
+    id("com.android.test") version "8.2.2" apply false
     id("org.jetbrains.kotlin.android") version "1.9.0" apply false
+    id("androidx.baselineprofile") version "1.2.4" apply false
 }
 
 // Define versions in a single place
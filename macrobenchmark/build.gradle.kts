@@ -0,0 +1,36 @@
+plugins {
+    alias(libs.plugins.android.test)
+    alias(libs.plugins.androidx.baselineprofile)
+}
+
+android {
+    namespace = "com.example.attendify.macrobenchmark"
+    compileSdk = 35
+
+    defaultConfig {
+        // Macrobenchmark needs API 23+; frame timing and trace sections need 29+
+        minSdk = 24
+        targetSdk = 35
+
+        testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+    }
+
+    compileOptions {
+        sourceCompatibility = JavaVersion.VERSION_11
+        targetCompatibility = JavaVersion.VERSION_11
+    }
+
+    targetProjectPath = ":app"
+    experimentalProperties["android.experimental.self-instrumenting"] = true
+}
+
+dependencies {
+    implementation(libs.ext.junit)
+    implementation(libs.uiautomator)
+    implementation(libs.benchmark.macro.junit4)
+}
+
+// The baselineprofile plugin adds the app's nonMinifiedRelease and benchmarkRelease variants
+baselineProfile {
+    useConnectedDevices = true
+}
@@ -0,0 +1,89 @@
+package com.example.attendify.macrobenchmark;
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import kotlin.Unit;
+
+/**
+ * Records the hot paths the app ships a baseline profile for: login and startup into
+ * both dashboards, the employee check-in flow, every admin tab, live attendance and
+ * report generation. Launches are also recorded as a startup profile.
+ *
+ * Generate and copy the profile into the app with {@code ./gradlew :app:generateBaselineProfile}
+ * on an emulator or rooted device, passing the account arguments described in
+ * {@link Journeys}. The employee journey taps check-in, so use a test account.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BaselineProfileGenerator {
+    private static final String[] ADMIN_TABS = {"Live Attendance", "Pending Approvals", "Reports", "Offices"};
+
+    @Rule
+    public BaselineProfileRule baselineProfileRule = new BaselineProfileRule();
+
+    @Test
+    public void employeeJourneys() {
+        baselineProfileRule.collect(Journeys.PACKAGE, 15, 3, "employee", true, false,
+                line -> true,
+                scope -> {
+                    // Signing in from a fresh install covers Splash -> Auth -> login
+                    scope.getDevice().executeShellCommand("pm clear " + Journeys.PACKAGE);
+                    Journeys.ensureSignedIn(scope, Journeys.Account.EMPLOYEE);
+                    UiDevice device = scope.getDevice();
+
+                    toggleCheckIn(device);
+                    toggleCheckIn(device);
+
+                    device.findObject(By.res(Journeys.PACKAGE, "nav_history")).click();
+                    Journeys.waitForRows(device, "attendanceRecyclerView");
+                    Journeys.flingList(device, "attendanceRecyclerView");
+                    device.pressBack();
+                    return Unit.INSTANCE;
+                });
+    }
+
+    @Test
+    public void adminJourneys() {
+        baselineProfileRule.collect(Journeys.PACKAGE, 15, 3, "admin", true, false,
+                line -> true,
+                scope -> {
+                    scope.getDevice().executeShellCommand("pm clear " + Journeys.PACKAGE);
+                    Journeys.ensureSignedIn(scope, Journeys.Account.ADMIN);
+                    UiDevice device = scope.getDevice();
+
+                    for (String tab : ADMIN_TABS) {
+                        Journeys.openAdminTab(device, tab);
+                    }
+
+                    Journeys.openAdminTab(device, "Live Attendance");
+                    Journeys.waitForRows(device, "attendanceRecyclerView");
+                    Journeys.flingList(device, "attendanceRecyclerView");
+
+                    // Loading a month builds the report list and its summary
+                    Journeys.openAdminTab(device, "Reports");
+                    Journeys.waitForRows(device, "recyclerView");
+                    Journeys.flingList(device, "recyclerView");
+                    return Unit.INSTANCE;
+                });
+    }
+
+    // Taps check-in (or check-out, once checked in) and waits for the request to settle
+    private static void toggleCheckIn(UiDevice device) {
+        UiObject2 button = device.wait(Until.findObject(By.res(Journeys.PACKAGE, "checkInButton")),
+                Journeys.TIMEOUT_MS);
+        if (button == null || !button.isEnabled()) {
+            return;
+        }
+        button.click();
+        device.wait(Until.gone(By.res(Journeys.PACKAGE, "progressBar")), Journeys.TIMEOUT_MS);
+        device.waitForIdle();
+    }
+}
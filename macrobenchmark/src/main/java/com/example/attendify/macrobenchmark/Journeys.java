@@ -0,0 +1,166 @@
+package com.example.attendify.macrobenchmark;
+
+import android.os.Bundle;
+
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.BySelector;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import java.util.regex.Pattern;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * UI steps shared by the benchmarks. Accounts come from instrumentation arguments
+ * ({@code adminEmail}, {@code adminPassword}, {@code employeeEmail}, {@code employeePassword});
+ * benchmarks that need an account are skipped when its arguments are missing.
+ */
+final class Journeys {
+    static final String PACKAGE = "com.example.attendify";
+    static final long TIMEOUT_MS = 15_000;
+
+    private static final String[] PERMISSIONS = {
+            "android.permission.ACCESS_FINE_LOCATION",
+            "android.permission.ACCESS_COARSE_LOCATION",
+            "android.permission.ACCESS_BACKGROUND_LOCATION",
+            "android.permission.POST_NOTIFICATIONS",
+    };
+
+    enum Account {
+        ADMIN("admin", "tabLayout"),
+        EMPLOYEE("employee", "checkInButton");
+
+        final String argumentPrefix;
+        // A view only this account's dashboard has
+        final String dashboardViewId;
+
+        Account(String argumentPrefix, String dashboardViewId) {
+            this.argumentPrefix = argumentPrefix;
+            this.dashboardViewId = dashboardViewId;
+        }
+
+        BySelector dashboard() {
+            return By.res(PACKAGE, dashboardViewId);
+        }
+    }
+
+    private Journeys() {
+    }
+
+    /**
+     * Grants the runtime permissions up front so no rationale dialog interrupts a launch
+     */
+    static void grantPermissions(MacrobenchmarkScope scope) {
+        for (String permission : PERMISSIONS) {
+            try {
+                scope.getDevice().executeShellCommand("pm grant " + PACKAGE + " " + permission);
+            } catch (Exception ignored) {
+                // Not a runtime permission on this API level
+            }
+        }
+    }
+
+    /**
+     * Launches the app and leaves it signed in as the account, on that account's dashboard
+     */
+    static void ensureSignedIn(MacrobenchmarkScope scope, Account account) {
+        Bundle arguments = InstrumentationRegistry.getArguments();
+        String email = arguments.getString(account.argumentPrefix + "Email");
+        String password = arguments.getString(account.argumentPrefix + "Password");
+        assumeTrue("Pass -e " + account.argumentPrefix + "Email and -e " + account.argumentPrefix
+                + "Password to run this benchmark", email != null && password != null);
+
+        grantPermissions(scope);
+        scope.startActivityAndWait();
+        UiDevice device = scope.getDevice();
+        BySelector login = By.res(PACKAGE, "loginButton");
+        BySelector otherDashboard = (account == Account.ADMIN ? Account.EMPLOYEE : Account.ADMIN).dashboard();
+
+        int screen = waitForAny(device, account.dashboard(), login, otherDashboard);
+        if (screen == 0) {
+            return;
+        }
+        if (screen == 2) {
+            logOut(device);
+        }
+
+        device.findObject(By.res(PACKAGE, "emailEditText")).setText(email);
+        device.findObject(By.res(PACKAGE, "passwordEditText")).setText(password);
+        device.findObject(login).click();
+        if (!device.wait(Until.hasObject(account.dashboard()), TIMEOUT_MS)) {
+            throw new IllegalStateException("Could not sign in as " + account.argumentPrefix);
+        }
+    }
+
+    /**
+     * Waits for the dashboard at the end of the Splash → Auth → Dashboard chain
+     */
+    static void waitForDashboard(MacrobenchmarkScope scope, Account account) {
+        scope.getDevice().wait(Until.hasObject(account.dashboard()), TIMEOUT_MS);
+    }
+
+    /**
+     * Opens a tab of the admin dashboard by its title
+     */
+    static void openAdminTab(UiDevice device, String title) {
+        UiObject2 tab = device.wait(Until.findObject(By.text(title)), TIMEOUT_MS);
+        tab.click();
+        device.waitForIdle();
+    }
+
+    /**
+     * Waits until the list has rows, so scroll benchmarks do not fling an empty screen
+     */
+    static UiObject2 waitForRows(UiDevice device, String listViewId) {
+        BySelector list = By.res(PACKAGE, listViewId);
+        UiObject2 found = device.wait(Until.findObject(list.hasChild(By.clazz(Pattern.compile(".+")))), TIMEOUT_MS * 2);
+        if (found == null) {
+            throw new IllegalStateException("No rows in " + listViewId + "; seed data before benchmarking");
+        }
+        return found;
+    }
+
+    /**
+     * Flings the list down and back up a few times
+     */
+    static void flingList(UiDevice device, String listViewId) {
+        UiObject2 list = device.findObject(By.res(PACKAGE, listViewId));
+        // Keep gestures clear of the system navigation areas
+        list.setGestureMargin(device.getDisplayWidth() / 5);
+        for (int i = 0; i < 3; i++) {
+            list.fling(Direction.DOWN);
+            device.waitForIdle();
+        }
+        list.fling(Direction.UP);
+        device.waitForIdle();
+    }
+
+    private static void logOut(UiDevice device) {
+        UiObject2 logout = device.findObject(By.res(PACKAGE, "action_logout"));
+        if (logout == null) {
+            device.findObject(By.desc("More options")).click();
+            logout = device.wait(Until.findObject(By.text("Logout")), TIMEOUT_MS);
+        }
+        logout.click();
+        device.wait(Until.hasObject(By.res(PACKAGE, "loginButton")), TIMEOUT_MS);
+    }
+
+    // Index of the first selector that appears on screen
+    private static int waitForAny(UiDevice device, BySelector... selectors) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            for (int i = 0; i < selectors.length; i++) {
+                if (device.hasObject(selectors[i])) {
+                    return i;
+                }
+            }
+            device.waitForIdle(250);
+        }
+        throw new IllegalStateException("App did not reach the login screen or a dashboard");
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.attendify.macrobenchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.Metric;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Until;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.List;
+
+import kotlin.Unit;
+
+/**
+ * Frame timing while flinging the large lists. The lists must have data: seed the
+ * target project first, for example with the Seed Data button on the Reports tab or
+ * the load generator against an emulator.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ScrollBenchmark {
+    private static final int ITERATIONS = 5;
+    private static final List<Metric> METRICS = Collections.singletonList(new FrameTimingMetric());
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void scrollReports() {
+        benchmarkRule.measureRepeated(Journeys.PACKAGE, METRICS, CompilationMode.DEFAULT,
+                StartupMode.WARM, ITERATIONS,
+                scope -> {
+                    Journeys.ensureSignedIn(scope, Journeys.Account.ADMIN);
+                    Journeys.openAdminTab(scope.getDevice(), "Reports");
+                    Journeys.waitForRows(scope.getDevice(), "recyclerView");
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    Journeys.flingList(scope.getDevice(), "recyclerView");
+                    return Unit.INSTANCE;
+                });
+    }
+
+    @Test
+    public void scrollLiveAttendance() {
+        benchmarkRule.measureRepeated(Journeys.PACKAGE, METRICS, CompilationMode.DEFAULT,
+                StartupMode.WARM, ITERATIONS,
+                scope -> {
+                    Journeys.ensureSignedIn(scope, Journeys.Account.ADMIN);
+                    Journeys.openAdminTab(scope.getDevice(), "Live Attendance");
+                    Journeys.waitForRows(scope.getDevice(), "attendanceRecyclerView");
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    Journeys.flingList(scope.getDevice(), "attendanceRecyclerView");
+                    return Unit.INSTANCE;
+                });
+    }
+
+    @Test
+    public void scrollAttendanceHistory() {
+        benchmarkRule.measureRepeated(Journeys.PACKAGE, METRICS, CompilationMode.DEFAULT,
+                StartupMode.WARM, ITERATIONS,
+                scope -> {
+                    Journeys.ensureSignedIn(scope, Journeys.Account.EMPLOYEE);
+                    scope.getDevice().findObject(By.res(Journeys.PACKAGE, "nav_history")).click();
+                    // The history list lives in its own activity; wait for its month picker
+                    scope.getDevice().wait(Until.hasObject(By.res(Journeys.PACKAGE, "monthSpinner")),
+                            Journeys.TIMEOUT_MS);
+                    Journeys.waitForRows(scope.getDevice(), "attendanceRecyclerView");
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    Journeys.flingList(scope.getDevice(), "attendanceRecyclerView");
+                    return Unit.INSTANCE;
+                });
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.attendify.macrobenchmark;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.Metric;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.TraceSectionMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.List;
+
+import kotlin.Unit;
+
+/**
+ * Cold and warm launches from the launcher through SplashActivity and AuthActivity to a
+ * dashboard. StartupTimingMetric times the splash screen's first frame; the
+ * "SplashToDashboard" section, traced by the app, times the whole chain including the
+ * fixed splash delay.
+ *
+ * Every launch runs twice, without ahead-of-time compilation (a fresh install before
+ * the baseline profile existed) and with the baseline profile required, so the two
+ * results side by side show what the profile buys.
+ *
+ * Run with {@code ./gradlew :macrobenchmark:connectedBenchmarkReleaseAndroidTest} plus the
+ * account arguments described in {@link Journeys}.
+ */
+@RunWith(Parameterized.class)
+public class StartupBenchmark {
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    private final CompilationMode compilationMode;
+
+    @Parameterized.Parameters(name = "{1}")
+    public static List<Object[]> compilationModes() {
+        return Arrays.asList(
+                new Object[]{new CompilationMode.None(), "None"},
+                new Object[]{new CompilationMode.Partial(BaselineProfileMode.Require), "BaselineProfile"});
+    }
+
+    public StartupBenchmark(CompilationMode compilationMode, String name) {
+        this.compilationMode = compilationMode;
+    }
+
+    @Test
+    public void employeeColdStartup() {
+        startup(Journeys.Account.EMPLOYEE, StartupMode.COLD);
+    }
+
+    @Test
+    public void employeeWarmStartup() {
+        startup(Journeys.Account.EMPLOYEE, StartupMode.WARM);
+    }
+
+    @Test
+    public void adminColdStartup() {
+        startup(Journeys.Account.ADMIN, StartupMode.COLD);
+    }
+
+    @Test
+    public void adminWarmStartup() {
+        startup(Journeys.Account.ADMIN, StartupMode.WARM);
+    }
+
+    private void startup(Journeys.Account account, StartupMode startupMode) {
+        List<Metric> metrics = Arrays.asList(
+                new StartupTimingMetric(),
+                new TraceSectionMetric("SplashToDashboard"));
+        benchmarkRule.measureRepeated(
+                Journeys.PACKAGE,
+                metrics,
+                compilationMode,
+                startupMode,
+                ITERATIONS,
+                scope -> {
+                    Journeys.ensureSignedIn(scope, account);
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scope.startActivityAndWait();
+                    Journeys.waitForDashboard(scope, account);
+                    return Unit.INSTANCE;
+                });
+    }
+}
@@ -22,3 +22,4 @@ dependencyResolutionManagement {
 
 rootProject.name = "Attendify"
 include(":app")
+include(":macrobenchmark")